@@ -0,0 +1,24 @@
+package com.archer.cbs.authservice.audit;
+
+import jakarta.enterprise.context.RequestScoped;
+
+/**
+ * Utilisateur authentifié de la requête en cours, auteur des événements d'audit
+ * <p>
+ * Renseigné par {@code JwtAuthenticationFilter} ; lu par {@link AuditLog} sur le thread
+ * de la requête (hors requête, ou sur un thread d'exécution asynchrone, l'auteur
+ * reste inconnu).
+ */
+@RequestScoped
+public class AuditContext {
+
+    private Long actorId;
+
+    public Long getActorId() {
+        return actorId;
+    }
+
+    public void setActorId(Long actorId) {
+        this.actorId = actorId;
+    }
+}
@@ -0,0 +1,78 @@
+package com.archer.cbs.authservice.audit;
+
+/**
+ * Événement de sécurité à consigner dans {@code audit_log}
+ * <p>
+ * Immuable et compact : identifiants et libellés seulement, jamais de secret
+ * (mot de passe, token). Les libellés, parfois saisis par le client (nom d'un échec de
+ * connexion), sont nettoyés à la construction pour être acceptés par la base.
+ */
+public final class AuditEvent {
+
+    public enum Type {
+        LOGIN_SUCCESS,
+        LOGIN_FAILURE,
+        TOKEN_REFRESHED,
+        TOKEN_REFRESH_FAILURE,
+        PASSWORD_CHANGED,
+        PASSWORD_RESET,
+        USER_STATUS_CHANGED,
+        USER_DELETED,
+        ROLE_ASSIGNED,
+        ROLE_REVOKED,
+        ROLE_DELETED,
+        PERMISSION_GRANTED,
+        PERMISSION_REVOKED,
+        SESSIONS_REVOKED
+    }
+
+    // Longueurs des colonnes de audit_log
+    static final int MAX_USERNAME = 50;
+    static final int MAX_DETAIL = 255;
+
+    private final long occurredAt;
+    private final Type type;
+    private final Long actorId;
+    private final Long subjectId;
+    private final String username;
+    private final String detail;
+
+    public AuditEvent(long occurredAt, Type type, Long actorId, Long subjectId, String username, String detail) {
+        this.occurredAt = occurredAt;
+        this.type = type;
+        this.actorId = actorId;
+        this.subjectId = subjectId;
+        this.username = sanitize(username, MAX_USERNAME);
+        this.detail = sanitize(detail, MAX_DETAIL);
+    }
+
+    /** Instant de l'événement (ms epoch) */
+    public long getOccurredAt() { return occurredAt; }
+
+    public Type getType() { return type; }
+
+    /** Utilisateur à l'origine de l'action, null si inconnu (connexion, appel interne) */
+    public Long getActorId() { return actorId; }
+
+    /** Utilisateur ou rôle concerné */
+    public Long getSubjectId() { return subjectId; }
+
+    /** Nom d'utilisateur concerné (saisi, pour un échec de connexion) */
+    public String getUsername() { return username; }
+
+    public String getDetail() { return detail; }
+
+    /**
+     * Retire les caractères NUL (refusés par PostgreSQL dans un texte) et tronque à la
+     * longueur de la colonne
+     */
+    private static String sanitize(String value, int max) {
+        if (value == null) {
+            return null;
+        }
+        if (value.indexOf('\0') >= 0) {
+            value = value.replace("\0", "");
+        }
+        return value.length() <= max ? value : value.substring(0, max);
+    }
+}
@@ -0,0 +1,211 @@
+package com.archer.cbs.authservice.audit;
+
+import com.archer.cbs.authservice.audit.AuditEvent.Type;
+import com.archer.cbs.authservice.config.Settings;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.context.ContextNotActiveException;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Journal d'audit des événements de sécurité
+ * <p>
+ * Les producteurs (chemin de requête) déposent un {@link AuditEvent} dans une file bornée
+ * sans verrou de {@code auth.audit.capacity} places ; {@link AuditWriter} la vide par lots
+ * dans {@code audit_log}. Aucun appel n'attend d'entrée-sortie base. Dans une transaction,
+ * l'événement n'est déposé qu'à sa validation. File pleine ou base injoignable, selon
+ * {@code auth.audit.overflow} :
+ * <ul>
+ *   <li>{@code spill} (défaut) : ajouté au spool local {@code auth.audit.spool-dir}
+ *       ({@link AuditSpool}), réinjecté par l'écrivain quand la base répond (abandonné et
+ *       compté si le spool est inutilisable ou a atteint {@code auth.audit.spool-max-segments}
+ *       segments) ;</li>
+ *   <li>{@code drop} : événement abandonné et compté.</li>
+ * </ul>
+ * Désactivable avec {@code auth.audit.enabled=false}.
+ */
+@ApplicationScoped
+public class AuditLog {
+
+    private static final Logger LOGGER = Logger.getLogger(AuditLog.class.getName());
+
+    enum Overflow {
+        DROP,
+        SPILL
+    }
+
+    @Inject
+    private AuditContext auditContext;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private final boolean enabled = Settings.getBoolean("auth.audit.enabled", true);
+
+    private final Overflow overflow = parseOverflow(Settings.get("auth.audit.overflow", "spill"));
+
+    private final AuditRingBuffer<AuditEvent> buffer =
+            new AuditRingBuffer<>(Math.max(2, Settings.getInt("auth.audit.capacity", 8192)));
+
+    private final AuditSpool spool = new AuditSpool(spoolDirectory(),
+            Math.max(1, Settings.getInt("auth.audit.spool-segment-mb", 16)) << 20,
+            Math.max(2, Settings.getInt("auth.audit.spool-max-segments", 64)));
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder spilled = new LongAdder();
+
+    @PreDestroy
+    public void shutdown() {
+        spool.close();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Consigne une action de l'utilisateur authentifié de la requête
+     *
+     * @param subjectId utilisateur ou rôle concerné
+     */
+    public void record(Type type, Long subjectId, String username, String detail) {
+        if (enabled) {
+            record(new AuditEvent(System.currentTimeMillis(), type, currentActor(), subjectId, username, detail));
+        }
+    }
+
+    /**
+     * Consigne un événement dont l'auteur est connu (connexion, rafraîchissement)
+     */
+    public void record(Type type, Long actorId, Long subjectId, String username, String detail) {
+        if (enabled) {
+            record(new AuditEvent(System.currentTimeMillis(), type, actorId, subjectId, username, detail));
+        }
+    }
+
+    private void record(AuditEvent event) {
+        int status = transactionRegistry.getTransactionStatus();
+        if (status == Status.STATUS_NO_TRANSACTION) {
+            enqueue(event);
+        } else if (status == Status.STATUS_ACTIVE) {
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int outcome) {
+                    if (outcome == Status.STATUS_COMMITTED) {
+                        enqueue(event);
+                    }
+                }
+            });
+        }
+        // Transaction marquée pour annulation : rien à consigner
+    }
+
+    private void enqueue(AuditEvent event) {
+        if (buffer.offer(event)) {
+            accepted.increment();
+            return;
+        }
+        if (overflow == Overflow.SPILL && spool.tryAppend(List.of(event)) == 1) {
+            spilled.increment();
+            return;
+        }
+        dropped.increment();
+    }
+
+    /**
+     * Retire jusqu'à {@code max} événements (réservé à {@link AuditWriter})
+     */
+    public int drainTo(List<AuditEvent> target, int max) {
+        return buffer.drainTo(target, max);
+    }
+
+    /**
+     * Lot refusé par la base : mis de côté si la politique le permet (réservé à
+     * {@link AuditWriter})
+     *
+     * @return false si tout ou partie du lot est perdu
+     */
+    public boolean spillRejected(List<AuditEvent> events) {
+        int kept = overflow == Overflow.SPILL ? spool.tryAppend(events) : 0;
+        spilled.add(kept);
+        dropped.add(events.size() - kept);
+        return kept == events.size();
+    }
+
+    /**
+     * Entrées-sorties du spool hors chemin de requête (réservé à {@link AuditWriter})
+     */
+    public void maintainSpool() {
+        if (overflow == Overflow.SPILL) {
+            spool.maintain();
+        }
+    }
+
+    /**
+     * Spool local (réservé à {@link AuditWriter})
+     */
+    public AuditSpool getSpool() {
+        return spool;
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("overflow", overflow.name().toLowerCase(Locale.ROOT));
+        stats.put("capacity", buffer.capacity());
+        stats.put("queued", buffer.size());
+        stats.put("accepted", accepted.sum());
+        stats.put("spilled", spilled.sum());
+        stats.put("spoolSegments", spool.segments());
+        stats.put("spoolCorrupted", spool.corrupted());
+        stats.put("spoolFull", spool.full());
+        stats.put("deadLettered", spool.deadLettered());
+        stats.put("dropped", dropped.sum());
+        return stats;
+    }
+
+    private Long currentActor() {
+        try {
+            return auditContext.getActorId();
+        } catch (ContextNotActiveException e) {
+            return null;
+        }
+    }
+
+    private static Path spoolDirectory() {
+        String dataDir = System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir"));
+        return Paths.get(Settings.get("auth.audit.spool-dir", Paths.get(dataDir, "auth-audit-spool").toString()));
+    }
+
+    private static Overflow parseOverflow(String value) {
+        try {
+            return Overflow.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "auth.audit.overflow inconnu : {0}, politique spill utilisée", value);
+            return Overflow.SPILL;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.archer.cbs.authservice.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * File bornée sans verrou, plusieurs producteurs et consommateurs
+ * <p>
+ * Tableau circulaire dont chaque case porte un numéro de séquence (algorithme de
+ * D. Vyukov) : un producteur réserve une case par CAS sur {@code tail}, y dépose
+ * l'élément puis publie la séquence ; un consommateur fait de même sur {@code head}.
+ * {@link #offer(Object)} ne bloque jamais et renvoie false si la file est pleine.
+ */
+final class AuditRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity arrondie à la puissance de deux supérieure
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        slots = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Ajoute un élément
+     *
+     * @return false si la file est pleine
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long delta = sequences.get(index) - position;
+            if (delta == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (delta < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Retire le plus ancien élément
+     *
+     * @return l'élément, ou null si la file est vide
+     */
+    E poll() {
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long delta = sequences.get(index) - (position + 1);
+            if (delta == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    E element = slots.get(index);
+                    slots.lazySet(index, null);
+                    sequences.set(index, position + mask + 1);
+                    return element;
+                }
+                position = head.get();
+            } else if (delta < 0) {
+                return null;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * Retire jusqu'à {@code max} éléments dans {@code target}
+     *
+     * @return le nombre d'éléments retirés
+     */
+    int drainTo(List<? super E> target, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /** Nombre approximatif d'éléments en attente */
+    int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+}
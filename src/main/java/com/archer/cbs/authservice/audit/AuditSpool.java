@@ -0,0 +1,598 @@
+package com.archer.cbs.authservice.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Spool local de l'audit : segments de taille fixe projetés en mémoire, en ajout seul
+ * <p>
+ * Reçoit les événements quand la file est pleine ou que la base refuse un lot ; l'écrivain
+ * les réinjecte quand la file est vide. Chaque enregistrement est
+ * {@code [longueur int][CRC32C int][événement binaire]} ; un segment plein est clos par une
+ * longueur -1 et l'écriture passe au segment suivant ({@code audit-<n>.seg}). Un ajout est
+ * une copie dans la projection mémoire, sans appel système ni fsync (le cache disque survit
+ * à l'arrêt du processus). Les producteurs n'attendent jamais le disque : le segment
+ * suivant est créé et projeté d'avance, et le segment clos forcé sur disque, par
+ * {@link #maintain()} sur le thread de l'écrivain ; faute de segment prêt, l'ajout est refusé.
+ * <p>
+ * La position de relecture acquittée tient dans {@code spool.ack} (segment et décalage en
+ * un seul long) ; un segment entièrement acquitté est supprimé. Au redémarrage, la fin du
+ * dernier segment est retrouvée en vérifiant les CRC : un enregistrement tronqué par un
+ * arrêt brutal est écrasé. Livraison au moins une fois : un lot relu mais non acquitté est
+ * rejoué.
+ * <p>
+ * Au plus {@code maxSegments} segments sur disque : au-delà, le segment suivant n'est pas
+ * préparé et les ajouts sont refusés (comptés). Un lot relu que la base refuse durablement
+ * est mis de côté dans {@code dead-letter.seg}, au même format, hors relecture.
+ */
+final class AuditSpool {
+
+    private static final Logger LOGGER = Logger.getLogger(AuditSpool.class.getName());
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_FILE = "spool.ack";
+    private static final String DEAD_LETTER_FILE = "dead-letter.seg";
+
+    /** Longueur et CRC */
+    private static final int HEADER = 8;
+
+    private static final int END_OF_SEGMENT = -1;
+
+    /** Plus grand événement encodé (libellés UTF-8 de 50 et 255 caractères) */
+    private static final int MAX_RECORD = 2048;
+
+    /** Attente maximale du verrou par un producteur, au-delà l'événement est refusé */
+    private static final long LOCK_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private static final int HAS_ACTOR = 1;
+    private static final int HAS_SUBJECT = 2;
+    private static final int HAS_USERNAME = 4;
+    private static final int HAS_DETAIL = 8;
+
+    private static final AuditEvent.Type[] TYPES = AuditEvent.Type.values();
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final int maxSegments;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder corrupted = new LongAdder();
+
+    private final LongAdder full = new LongAdder();
+
+    private final LongAdder deadLettered = new LongAdder();
+
+    // Écriture, sous verrou
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD);
+    private final CRC32C writeCrc = new CRC32C();
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    // Segment suivant, préparé par maintain() ; segment clos à forcer sur disque
+    private MappedByteBuffer nextBuffer;
+    private MappedByteBuffer retired;
+    private boolean atCapacity;
+    private boolean openFailed;
+    private boolean closed;
+
+    private volatile boolean opened;
+
+    // Fin des données lisibles : segment << 32 | décalage
+    private volatile long published;
+
+    // Lecture et acquittement, thread de l'écrivain d'audit seulement
+    private final CRC32C readCrc = new CRC32C();
+    private MappedByteBuffer ackBuffer;
+    private volatile long acknowledged;
+    private long readSegment;
+    private int readOffset;
+    private MappedByteBuffer readBuffer;
+
+    AuditSpool(Path directory, int segmentSize, int maxSegments) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Ajoute des événements sans attendre plus de quelques centaines de microsecondes, ni
+     * aucune entrée-sortie disque
+     *
+     * @return le nombre d'événements ajoutés, dans l'ordre ; les suivants sont perdus
+     * (spool occupé, inutilisable, ou segment suivant pas encore prêt)
+     */
+    int tryAppend(List<AuditEvent> events) {
+        try {
+            if (!lock.tryLock(LOCK_WAIT_NANOS, TimeUnit.NANOSECONDS)) {
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        int appended = 0;
+        try {
+            if (closed || !openLocked()) {
+                return 0;
+            }
+            for (AuditEvent event : events) {
+                if (!append(event)) {
+                    break;
+                }
+                appended++;
+            }
+            if (appended < events.size() && atCapacity) {
+                full.add(events.size() - appended);
+            }
+            return appended;
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Écriture impossible dans le spool " + directory, e);
+            return appended;
+        } finally {
+            if (opened) {
+                published = position(writeSegment, writeBuffer.position());
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Entrées-sorties du spool tenues hors du chemin de requête (thread de l'écrivain) :
+     * force sur disque le segment clos par un producteur, puis crée et projette le segment
+     * suivant, sauf si le spool a atteint {@code maxSegments}. Le verrou n'est tenu que pour
+     * échanger les projections.
+     */
+    void maintain() {
+        if (!open()) {
+            return;
+        }
+        MappedByteBuffer toForce;
+        long next;
+        boolean reachedCapacity = false;
+        lock.lock();
+        try {
+            toForce = retired;
+            retired = null;
+            next = closed || nextBuffer != null ? 0 : writeSegment + 1;
+            if (next != 0) {
+                boolean capacity = next - segment(acknowledged) + 1 > maxSegments;
+                reachedCapacity = capacity && !atCapacity;
+                atCapacity = capacity;
+                if (capacity) {
+                    next = 0;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (reachedCapacity) {
+            LOGGER.log(Level.WARNING, "Spool d''audit {0} plein ({1} segments) : événements refusés jusqu''à réinjection",
+                    new Object[]{directory, maxSegments});
+        }
+        if (toForce != null) {
+            toForce.force();
+        }
+        if (next == 0) {
+            return;
+        }
+        MappedByteBuffer prepared;
+        try {
+            prepared = map(segmentPath(next), true);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Préparation du segment " + next + " du spool " + directory + " impossible", e);
+            return;
+        }
+        lock.lock();
+        try {
+            // Aucun passage au segment suivant possible sans segment prêt : writeSegment n'a pas bougé
+            if (!closed && nextBuffer == null && writeSegment + 1 == next) {
+                nextBuffer = prepared;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Vrai s'il reste des événements à relire
+     */
+    boolean hasPending() {
+        return open() && position(readSegment, readOffset) != published;
+    }
+
+    /**
+     * Relit jusqu'à {@code max} événements à partir de la position courante ; appeler
+     * {@link #acknowledge()} une fois les événements écrits en base, {@link #rewind()} sinon
+     *
+     * @return le nombre d'événements relus
+     */
+    int read(List<AuditEvent> target, int max) throws IOException {
+        if (!open()) {
+            return 0;
+        }
+        int count = 0;
+        while (count < max) {
+            long limit = published;
+            boolean active = readSegment == segment(limit);
+            int end = active ? offset(limit) : segmentSize;
+            if (readBuffer == null) {
+                readBuffer = map(segmentPath(readSegment), false);
+            }
+            int length = readOffset + HEADER <= end ? readBuffer.getInt(readOffset) : 0;
+            if (length <= 0 || readOffset + HEADER + length > end) {
+                if (active) {
+                    break;
+                }
+                nextSegment();
+                continue;
+            }
+            ByteBuffer record = readBuffer.duplicate();
+            record.limit(readOffset + HEADER + length).position(readOffset + HEADER);
+            readCrc.reset();
+            readCrc.update(record);
+            if ((int) readCrc.getValue() != readBuffer.getInt(readOffset + 4)) {
+                // Segment endommagé : le reste est abandonné
+                corrupted.increment();
+                LOGGER.log(Level.WARNING, "Enregistrement d''audit corrompu dans {0} à {1}, fin du segment ignorée",
+                        new Object[]{segmentPath(readSegment), readOffset});
+                if (active) {
+                    readOffset = end;
+                    break;
+                }
+                nextSegment();
+                continue;
+            }
+            record.position(readOffset + HEADER);
+            target.add(decode(record));
+            readOffset += HEADER + length;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Les événements relus sont en base : la position est enregistrée et les segments
+     * entièrement relus sont supprimés
+     */
+    void acknowledge() throws IOException {
+        if (!open()) {
+            return;
+        }
+        long previous = segment(acknowledged);
+        acknowledged = position(readSegment, readOffset);
+        ackBuffer.putLong(0, acknowledged);
+        for (long segment = previous; segment < readSegment; segment++) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+    }
+
+    /**
+     * Met de côté des événements relus que la base refuse durablement : ajoutés à
+     * {@code dead-letter.seg} (même format d'enregistrement) et forcés sur disque ;
+     * appeler ensuite {@link #acknowledge()} pour les sauter
+     */
+    void deadLetter(List<AuditEvent> events) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(events.size() * (HEADER + MAX_RECORD));
+        ByteBuffer record = ByteBuffer.allocate(MAX_RECORD);
+        CRC32C crc = new CRC32C();
+        for (AuditEvent event : events) {
+            record.clear();
+            encode(event, record);
+            record.flip();
+            crc.reset();
+            crc.update(record);
+            record.rewind();
+            records.putInt(record.remaining()).putInt((int) crc.getValue()).put(record);
+        }
+        records.flip();
+        try (FileChannel channel = FileChannel.open(directory.resolve(DEAD_LETTER_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (records.hasRemaining()) {
+                channel.write(records);
+            }
+            channel.force(false);
+        }
+        deadLettered.add(events.size());
+    }
+
+    /**
+     * Relecture refusée par la base : retour à la dernière position acquittée
+     */
+    void rewind() {
+        if (open()) {
+            readSegment = segment(acknowledged);
+            readOffset = offset(acknowledged);
+            readBuffer = null;
+        }
+    }
+
+    /**
+     * Segments sur disque, de la position acquittée au segment en écriture
+     */
+    long segments() {
+        return opened ? segment(published) - segment(acknowledged) + 1 : 0;
+    }
+
+    long corrupted() {
+        return corrupted.sum();
+    }
+
+    /** Événements refusés, spool plein */
+    long full() {
+        return full.sum();
+    }
+
+    /** Événements mis de côté dans {@code dead-letter.seg} */
+    long deadLettered() {
+        return deadLettered.sum();
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            if (opened) {
+                if (retired != null) {
+                    retired.force();
+                    retired = null;
+                }
+                writeBuffer.force();
+                ackBuffer.force();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false si le segment est plein et que le suivant n'est pas encore prêt
+     */
+    private boolean append(AuditEvent event) {
+        scratch.clear();
+        encode(event, scratch);
+        scratch.flip();
+        int length = scratch.remaining();
+        writeCrc.reset();
+        writeCrc.update(scratch);
+        scratch.rewind();
+
+        // Toujours la place de clore le segment
+        if (writeBuffer.position() + HEADER + length + Integer.BYTES > segmentSize && !roll()) {
+            return false;
+        }
+        writeBuffer.putInt(length);
+        writeBuffer.putInt((int) writeCrc.getValue());
+        writeBuffer.put(scratch);
+        return true;
+    }
+
+    /**
+     * Passe au segment préparé par {@link #maintain()}, sans entrée-sortie ; le segment clos
+     * lui est laissé pour le forcer sur disque
+     */
+    private boolean roll() {
+        if (nextBuffer == null) {
+            return false;
+        }
+        writeBuffer.putInt(END_OF_SEGMENT);
+        retired = writeBuffer;
+        writeBuffer = nextBuffer;
+        nextBuffer = null;
+        writeSegment++;
+        return true;
+    }
+
+    private void nextSegment() {
+        readSegment++;
+        readOffset = 0;
+        readBuffer = null;
+    }
+
+    private boolean open() {
+        if (opened) {
+            return true;
+        }
+        lock.lock();
+        try {
+            return openLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ouverture au premier usage : position acquittée, purge des segments relus, fin du
+     * dernier segment
+     */
+    private boolean openLocked() {
+        if (opened) {
+            return true;
+        }
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(directory.resolve(ACK_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ackBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+            }
+            acknowledged = ackBuffer.getLong(0);
+
+            List<Long> existing = new ArrayList<>();
+            for (long segment : listSegments()) {
+                if (segment < segment(acknowledged)) {
+                    Files.deleteIfExists(segmentPath(segment));
+                } else {
+                    existing.add(segment);
+                }
+            }
+            if (existing.isEmpty()) {
+                writeSegment = Math.max(1, segment(acknowledged));
+                if (writeSegment != segment(acknowledged)) {
+                    acknowledged = position(writeSegment, 0);
+                }
+                writeBuffer = map(segmentPath(writeSegment), true);
+            } else {
+                if (existing.get(0) > segment(acknowledged)) {
+                    acknowledged = position(existing.get(0), 0);
+                }
+                writeSegment = existing.get(existing.size() - 1);
+                writeBuffer = map(segmentPath(writeSegment), true);
+                int from = writeSegment == segment(acknowledged) ? offset(acknowledged) : 0;
+                writeBuffer.position(recoverEnd(writeBuffer, from));
+                if (writeBuffer.remaining() >= HEADER) {
+                    writeBuffer.putLong(writeBuffer.position(), 0L);
+                }
+            }
+            ackBuffer.putLong(0, acknowledged);
+            readSegment = segment(acknowledged);
+            readOffset = offset(acknowledged);
+            published = position(writeSegment, writeBuffer.position());
+            opened = true;
+            if (published != acknowledged) {
+                LOGGER.log(Level.INFO, "Spool d''audit {0} : événements en attente de réinjection", directory);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            if (!openFailed) {
+                openFailed = true;
+                LOGGER.log(Level.WARNING, "Spool d'audit " + directory + " inutilisable", e);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Fin des enregistrements valides d'un segment, à partir d'une position sûre
+     */
+    private int recoverEnd(MappedByteBuffer buffer, int from) {
+        CRC32C crc = new CRC32C();
+        int offset = from;
+        while (offset + HEADER <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER + length + Integer.BYTES > segmentSize) {
+                break;
+            }
+            ByteBuffer record = buffer.duplicate();
+            record.limit(offset + HEADER + length).position(offset + HEADER);
+            crc.reset();
+            crc.update(record);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER + length;
+        }
+        return offset;
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            segments.add(Long.parseLong(name.substring(
+                                    SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            LOGGER.log(Level.FINE, "Fichier ignoré dans le spool : {0}", name);
+                        }
+                    });
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private MappedByteBuffer map(Path file, boolean write) throws IOException {
+        StandardOpenOption[] options = write
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            return channel.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, segmentSize);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long position(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    private static long segment(long position) {
+        return position >>> 32;
+    }
+
+    private static int offset(long position) {
+        return (int) position;
+    }
+
+    // Format binaire : ordinal du type (n'ajouter de types qu'en fin d'énumération)
+
+    private static void encode(AuditEvent event, ByteBuffer buffer) {
+        int flags = (event.getActorId() != null ? HAS_ACTOR : 0)
+                | (event.getSubjectId() != null ? HAS_SUBJECT : 0)
+                | (event.getUsername() != null ? HAS_USERNAME : 0)
+                | (event.getDetail() != null ? HAS_DETAIL : 0);
+        buffer.putLong(event.getOccurredAt());
+        buffer.put((byte) event.getType().ordinal());
+        buffer.put((byte) flags);
+        if (event.getActorId() != null) {
+            buffer.putLong(event.getActorId());
+        }
+        if (event.getSubjectId() != null) {
+            buffer.putLong(event.getSubjectId());
+        }
+        if (event.getUsername() != null) {
+            putString(buffer, event.getUsername());
+        }
+        if (event.getDetail() != null) {
+            putString(buffer, event.getDetail());
+        }
+    }
+
+    private static AuditEvent decode(ByteBuffer buffer) {
+        long occurredAt = buffer.getLong();
+        AuditEvent.Type type = TYPES[buffer.get()];
+        int flags = buffer.get();
+        Long actorId = (flags & HAS_ACTOR) != 0 ? buffer.getLong() : null;
+        Long subjectId = (flags & HAS_SUBJECT) != 0 ? buffer.getLong() : null;
+        String username = (flags & HAS_USERNAME) != 0 ? getString(buffer) : null;
+        String detail = (flags & HAS_DETAIL) != 0 ? getString(buffer) : null;
+        return new AuditEvent(occurredAt, type, actorId, subjectId, username, detail);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,436 @@
+package com.archer.cbs.authservice.audit;
+
+import com.archer.cbs.authservice.config.Settings;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.inject.Inject;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Écrivain de fond du journal d'audit
+ * <p>
+ * Un thread géré vide la file de {@link AuditLog} par lots de {@code auth.audit.batch-size}
+ * événements, chacun écrit en un seul INSERT multi-lignes (autocommit) dans la table
+ * partitionnée par mois {@code audit_log}. Un lot refusé pour une donnée invalide (SQLState
+ * 22xxx) est coupé en deux jusqu'à isoler la ligne fautive, seule écartée. File vide : réinjection d'un lot du spool local
+ * s'il en reste (acquitté une fois écrit ; refusé par une base joignable
+ * {@code auth.audit.replay-max-attempts} fois de suite, mis de côté hors relecture pour ne
+ * pas bloquer la suite), sinon pause de
+ * {@code auth.audit.flush-interval-ms}. Les partitions du mois courant et du suivant sont
+ * créées au démarrage et à chaque changement de mois, de nouveau après un délai croissant si
+ * la création échoue. À l'arrêt, la file est vidée une dernière fois.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrator")
+@Lock(LockType.READ)
+@TransactionManagement(TransactionManagementType.BEAN)
+public class AuditWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(AuditWriter.class.getName());
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO audit_log (occurred_at, event_type, actor_id, subject_id, username, detail) VALUES ";
+
+    private static final String ROW = "(?, ?, ?, ?, ?, ?)";
+
+    // 6 paramètres par ligne : bien en deçà de la limite de 32767 du protocole PostgreSQL
+    private static final int MAX_BATCH = 1000;
+
+    private static final long RETRY_DELAY_MS = 1000;
+
+    // Classe SQLState des données refusées (caractère invalide, valeur trop longue...)
+    private static final String DATA_EXCEPTION = "22";
+
+    // Classe SQLState d'une connexion perdue ou impossible
+    private static final String CONNECTION_EXCEPTION = "08";
+
+    // SQLState d'une partition refusée : lignes du même intervalle dans la partition par défaut
+    private static final String CHECK_VIOLATION = "23514";
+
+    private static final long PARTITION_RETRY_MIN_MS = 60_000;
+
+    private static final long PARTITION_RETRY_MAX_MS = 3_600_000;
+
+    @Resource(lookup = "java:/PostgresDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedThreadFactory managedThreadFactory;
+
+    @Inject
+    private AuditLog auditLog;
+
+    private final int batchSize = Math.min(MAX_BATCH, Math.max(1, Settings.getInt("auth.audit.batch-size", 500)));
+
+    private final long flushIntervalNanos =
+            TimeUnit.MILLISECONDS.toNanos(Math.max(1, Settings.getLong("auth.audit.flush-interval-ms", 200)));
+
+    private final int maxReplayAttempts = Math.max(1, Settings.getInt("auth.audit.replay-max-attempts", 5));
+
+    private final Clock clock = Clock.systemUTC();
+
+    // INSERT d'un lot complet, préparé une fois
+    private final String fullBatchSql = insertSql(batchSize);
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failedBatches = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder replayed = new LongAdder();
+
+    private volatile boolean running;
+
+    private volatile long lastBatchMs;
+
+    private Thread thread;
+
+    // Mois dont la partition existe, nouvel essai après un échec (thread de l'écrivain seulement)
+    private final Set<YearMonth> partitioned = new HashSet<>();
+    private long nextPartitionAttempt;
+    private long partitionRetryMs;
+
+    // Dernier échec d'écriture : la base a répondu et refusé (thread de l'écrivain seulement)
+    private boolean lastFailureRefused;
+
+    // Échecs de suite de la relecture à la position acquittée (thread de l'écrivain seulement)
+    private int replayFailures;
+
+    // Dernier mois dont l'échec de création a été journalisé
+    private YearMonth partitionFailureLogged;
+
+    @PostConstruct
+    public void start() {
+        if (!auditLog.isEnabled()) {
+            return;
+        }
+        running = true;
+        thread = managedThreadFactory.newThread(this::run);
+        thread.setName("auth-audit-writer");
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compteurs d'exploitation, ajoutés à ceux de {@link AuditLog} sur /metrics
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = auditLog.stats();
+        stats.put("written", written.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("lastBatchMs", lastBatchMs);
+        return stats;
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                auditLog.maintainSpool();
+                batch.clear();
+                if (auditLog.drainTo(batch, batchSize) > 0) {
+                    List<AuditEvent> unwritten = write(batch);
+                    if (!unwritten.isEmpty()) {
+                        auditLog.spillRejected(unwritten);
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MS));
+                    }
+                } else if (!replaySpool(batch)) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Écrivain d'audit : erreur inattendue", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MS));
+            }
+        }
+
+        // Arrêt : ce qui reste en file part en base, ou dans le spool
+        batch.clear();
+        while (auditLog.drainTo(batch, batchSize) > 0) {
+            auditLog.maintainSpool();
+            List<AuditEvent> unwritten = write(batch);
+            if (!unwritten.isEmpty()) {
+                auditLog.spillRejected(unwritten);
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Réinjecte un lot du spool local
+     *
+     * @return vrai si des événements ont été réinjectés
+     */
+    private boolean replaySpool(List<AuditEvent> batch) {
+        AuditSpool spool = auditLog.getSpool();
+        if (!spool.hasPending()) {
+            return false;
+        }
+        try {
+            batch.clear();
+            if (spool.read(batch, batchSize) == 0) {
+                spool.acknowledge();
+                return false;
+            }
+            List<AuditEvent> unwritten = write(batch);
+            if (!unwritten.isEmpty()) {
+                // Base injoignable : on attend sans compter ; refus répétés : lot mis de côté
+                if (!lastFailureRefused || ++replayFailures < maxReplayAttempts) {
+                    spool.rewind();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MS));
+                    return false;
+                }
+                spool.deadLetter(unwritten);
+                LOGGER.log(Level.WARNING, "{0} événements d''audit refusés {1} fois, mis de côté dans {2}",
+                        new Object[]{unwritten.size(), replayFailures, spool.getDirectory()});
+            }
+            spool.acknowledge();
+            replayFailures = 0;
+            replayed.add(batch.size() - unwritten.size());
+            return true;
+        } catch (IOException e) {
+            spool.rewind();
+            LOGGER.log(Level.WARNING, "Réinjection impossible depuis " + spool.getDirectory(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Un lot en un INSERT multi-lignes ; refusé pour une donnée invalide, il est coupé en
+     * deux (en gardant l'ordre) jusqu'à isoler les lignes fautives, écartées et comptées
+     *
+     * @return les événements non écrits (base injoignable ou refus d'un autre ordre),
+     * vide si tout le lot est en base ou écarté
+     */
+    List<AuditEvent> write(List<AuditEvent> events) {
+        long start = System.nanoTime();
+        lastFailureRefused = false;
+        try (Connection connection = dataSource.getConnection()) {
+            ensurePartitions(connection);
+            Deque<int[]> ranges = new ArrayDeque<>();
+            ranges.push(new int[]{0, events.size()});
+            while (!ranges.isEmpty()) {
+                int[] range = ranges.pop();
+                List<AuditEvent> part = events.subList(range[0], range[1]);
+                try {
+                    insert(connection, part);
+                    written.add(part.size());
+                } catch (SQLException e) {
+                    if (!isDataException(e)) {
+                        // Tout ce qui précède range[0] est écrit ou écarté
+                        lastFailureRefused = !CONNECTION_EXCEPTION.equals(sqlStateClass(e));
+                        failedBatches.increment();
+                        LOGGER.log(Level.WARNING, "Écriture d'un lot d'audit impossible ("
+                                + (events.size() - range[0]) + " événements)", e);
+                        return new ArrayList<>(events.subList(range[0], events.size()));
+                    }
+                    if (part.size() == 1) {
+                        AuditEvent event = part.get(0);
+                        rejected.increment();
+                        LOGGER.log(Level.WARNING, "Événement d''audit {0} du {1} refusé par la base, écarté : {2}",
+                                new Object[]{event.getType(), event.getOccurredAt(), e.getMessage()});
+                    } else {
+                        int middle = (range[0] + range[1]) >>> 1;
+                        ranges.push(new int[]{middle, range[1]});
+                        ranges.push(new int[]{range[0], middle});
+                    }
+                }
+            }
+            batches.increment();
+            lastBatchMs = (System.nanoTime() - start) / 1_000_000;
+            return List.of();
+        } catch (SQLException e) {
+            failedBatches.increment();
+            LOGGER.log(Level.WARNING, "Écriture d'un lot d'audit impossible (" + events.size() + " événements)", e);
+            return events;
+        }
+    }
+
+    private void insert(Connection connection, List<AuditEvent> events) throws SQLException {
+        String sql = events.size() == batchSize ? fullBatchSql : insertSql(events.size());
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            int parameter = 1;
+            for (AuditEvent event : events) {
+                insert.setTimestamp(parameter++, new Timestamp(event.getOccurredAt()));
+                insert.setString(parameter++, event.getType().name());
+                setLong(insert, parameter++, event.getActorId());
+                setLong(insert, parameter++, event.getSubjectId());
+                insert.setString(parameter++, event.getUsername());
+                insert.setString(parameter++, event.getDetail());
+            }
+            insert.executeUpdate();
+        }
+    }
+
+    private static boolean isDataException(SQLException e) {
+        return DATA_EXCEPTION.equals(sqlStateClass(e));
+    }
+
+    private static String sqlStateClass(SQLException e) {
+        String state = e.getSQLState();
+        return state == null || state.length() < 2 ? "" : state.substring(0, 2);
+    }
+
+    /**
+     * Partitions du mois courant et du suivant, chacune créée pour son compte
+     * <p>
+     * Si des lignes du mois sont déjà dans la partition par défaut (création précédente
+     * impossible), PostgreSQL refuse la création : la partition par défaut est détachée, la
+     * partition du mois créée, ses lignes déplacées, puis la partition par défaut rattachée,
+     * en une transaction. Après un échec (journalisé une fois par mois), nouvel essai après
+     * un délai qui double de {@value #PARTITION_RETRY_MIN_MS} ms à
+     * {@value #PARTITION_RETRY_MAX_MS} ms, jamais à chaque lot.
+     */
+    private void ensurePartitions(Connection connection) {
+        YearMonth current = YearMonth.now(clock);
+        YearMonth next = current.plusMonths(1);
+        if (partitioned.contains(current) && partitioned.contains(next)) {
+            return;
+        }
+        long now = clock.millis();
+        if (now < nextPartitionAttempt) {
+            return;
+        }
+        partitioned.removeIf(month -> month.isBefore(current));
+
+        YearMonth failedMonth = null;
+        SQLException failure = null;
+        for (YearMonth month : List.of(current, next)) {
+            if (partitioned.contains(month)) {
+                continue;
+            }
+            try {
+                createPartition(connection, month);
+                partitioned.add(month);
+            } catch (SQLException e) {
+                if (failure == null) {
+                    failedMonth = month;
+                    failure = e;
+                }
+            }
+        }
+        if (failure == null) {
+            partitionRetryMs = 0;
+            return;
+        }
+
+        partitionRetryMs = Math.min(PARTITION_RETRY_MAX_MS, Math.max(PARTITION_RETRY_MIN_MS, partitionRetryMs * 2));
+        nextPartitionAttempt = now + partitionRetryMs;
+        if (!failedMonth.equals(partitionFailureLogged)) {
+            partitionFailureLogged = failedMonth;
+            LOGGER.log(Level.WARNING, "Création de la partition d'audit de " + failedMonth
+                    + " impossible, nouvel essai dans " + partitionRetryMs + " ms", failure);
+        } else {
+            LOGGER.log(Level.FINE, "Création de la partition d''audit de {0} toujours impossible : {1}",
+                    new Object[]{failedMonth, failure.getMessage()});
+        }
+    }
+
+    private void createPartition(Connection connection, YearMonth month) throws SQLException {
+        String name = String.format("audit_log_%d_%02d", month.getYear(), month.getMonthValue());
+        String from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        String to = month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+        String create = String.format(
+                "CREATE TABLE IF NOT EXISTS %s PARTITION OF audit_log FOR VALUES FROM ('%s') TO ('%s')",
+                name, from, to);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(create);
+            return;
+        } catch (SQLException e) {
+            if (!CHECK_VIOLATION.equals(e.getSQLState())) {
+                throw e;
+            }
+        }
+
+        // Lignes du mois dans la partition par défaut : déplacées dans la nouvelle partition
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE audit_log DETACH PARTITION audit_log_default");
+            statement.execute(create);
+            int moved = statement.executeUpdate(String.format(
+                    "WITH moved AS (DELETE FROM audit_log_default "
+                            + "WHERE occurred_at >= '%s' AND occurred_at < '%s' RETURNING *) "
+                            + "INSERT INTO %s SELECT * FROM moved",
+                    from, to, name));
+            statement.execute("ALTER TABLE audit_log ATTACH PARTITION audit_log_default DEFAULT");
+            connection.commit();
+            LOGGER.log(Level.INFO, "Partition d''audit {0} créée, {1} ligne(s) reprise(s) de la partition par défaut",
+                    new Object[]{name, moved});
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static void setLong(PreparedStatement statement, int index, Long value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.BIGINT);
+        } else {
+            statement.setLong(index, value);
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+}
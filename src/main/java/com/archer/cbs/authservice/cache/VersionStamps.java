@@ -0,0 +1,98 @@
+package com.archer.cbs.authservice.cache;
+
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions des agrégats lus en boucle par les clients, pour les GET conditionnels
+ * <p>
+ * Chaque agrégat a un compteur monotone incrémenté par les {@link EntityChangedEvent}
+ * validés. L'ETag combine l'époque du nœud (instant de démarrage : jamais de collision
+ * après un redémarrage ou entre nœuds), une tranche de temps et les compteurs concernés.
+ * La tranche ({@code auth.etag.revalidate-seconds}, 60 par défaut, 0 pour désactiver)
+ * borne la durée pendant laquelle un nœud peut répondre 304 sans avoir vu une
+ * modification faite sur un autre nœud.
+ */
+@ApplicationScoped
+public class VersionStamps {
+
+    public enum Aggregate { ROLES, PERMISSIONS, ROUTES }
+
+    /**
+     * Réponse privée, toujours revalidée (If-None-Match) avant réutilisation
+     */
+    public static final CacheControl REVALIDATE = revalidate();
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final long sliceMillis = Settings.getLong("auth.etag.revalidate-seconds", 60) * 1000;
+
+    private final Map<Aggregate, AtomicLong> versions = new EnumMap<>(Aggregate.class);
+
+    public VersionStamps() {
+        for (Aggregate aggregate : Aggregate.values()) {
+            versions.put(aggregate, new AtomicLong());
+        }
+    }
+
+    /**
+     * ETag fort d'une représentation dépendant des agrégats donnés
+     *
+     * @param resource identifiant de la représentation (chemin et variantes)
+     */
+    public EntityTag tag(String resource, Aggregate... aggregates) {
+        StringBuilder value = new StringBuilder(48)
+                .append(resource).append('-').append(epoch);
+        if (sliceMillis > 0) {
+            value.append('-').append(Long.toString(System.currentTimeMillis() / sliceMillis, 36));
+        }
+        for (Aggregate aggregate : aggregates) {
+            value.append('-').append(versions.get(aggregate).get());
+        }
+        return new EntityTag(value.toString());
+    }
+
+    /**
+     * Réponse 304 si l'ETag du client est à jour, sinon null
+     */
+    public Response notModified(Request request, EntityTag tag) {
+        Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+        return builder == null ? null : builder.cacheControl(REVALIDATE).build();
+    }
+
+    public long version(Aggregate aggregate) {
+        return versions.get(aggregate).get();
+    }
+
+    public void onEntityChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case ROLE:
+                versions.get(Aggregate.ROLES).incrementAndGet();
+                break;
+            case PERMISSION:
+                versions.get(Aggregate.PERMISSIONS).incrementAndGet();
+                break;
+            default:
+                // Utilisateurs et personnes : aucune représentation versionnée
+                break;
+        }
+    }
+
+    private static CacheControl revalidate() {
+        CacheControl cacheControl = new CacheControl();
+        cacheControl.setPrivate(true);
+        cacheControl.setNoCache(true);
+        cacheControl.setNoTransform(false);
+        return cacheControl;
+    }
+}
@@ -0,0 +1,240 @@
+package com.archer.cbs.authservice.concurrent;
+
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.dto.ApiResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ContextService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exécution des méthodes de ressource bloquantes (JDBC) hors des threads de requête
+ * <p>
+ * Mode {@code auth.dispatch.mode} :
+ * <ul>
+ *   <li>{@code container} (défaut) : exécution directe sur le thread de requête, comme avant ;</li>
+ *   <li>{@code virtual} : un thread virtuel par requête (JDK 21+), retombe sur {@code platform}
+ *       si la JVM n'en dispose pas ;</li>
+ *   <li>{@code platform} : pool de {@code auth.dispatch.pool-size} threads gérés, devant une
+ *       file bornée de {@code auth.dispatch.queue-size} tâches (au-delà : 503 immédiat).</li>
+ * </ul>
+ * Hors mode {@code container}, au plus {@code auth.dispatch.max-concurrency} tâches
+ * s'exécutent en même temps (à aligner sur la taille du pool de connexions) ; une tâche
+ * qui n'obtient pas de place en {@code auth.dispatch.acquire-timeout-ms}, attente en file
+ * comprise, reçoit un 503.
+ * Les contextes du conteneur (JNDI, sécurité, chargeur de classes) sont propagés au
+ * thread d'exécution.
+ */
+@ApplicationScoped
+public class BlockingDispatcher {
+
+    private static final Logger LOGGER = Logger.getLogger(BlockingDispatcher.class.getName());
+
+    enum Mode {
+        CONTAINER,
+        VIRTUAL,
+        PLATFORM
+    }
+
+    @Resource
+    private ContextService contextService;
+
+    @Resource
+    private ManagedThreadFactory managedThreadFactory;
+
+    private Mode mode;
+
+    private ExecutorService executor;
+
+    private Semaphore permits;
+
+    private int maxConcurrency;
+
+    private long acquireTimeoutMs;
+
+    private final LongAdder dispatched = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        mode = parseMode(Settings.get("auth.dispatch.mode", "container"));
+        maxConcurrency = Math.max(1, Settings.getInt("auth.dispatch.max-concurrency", 20));
+        acquireTimeoutMs = Math.max(0, Settings.getLong("auth.dispatch.acquire-timeout-ms", 2000));
+
+        if (mode == Mode.VIRTUAL) {
+            executor = newVirtualThreadExecutor();
+            if (executor == null) {
+                LOGGER.warning("Threads virtuels indisponibles sur cette JVM (JDK 21+ requis), pool de threads gérés utilisé");
+                mode = Mode.PLATFORM;
+            }
+        }
+        if (mode == Mode.PLATFORM) {
+            int poolSize = Math.max(1, Settings.getInt("auth.dispatch.pool-size", maxConcurrency));
+            int queueSize = Math.max(1, Settings.getInt("auth.dispatch.queue-size", 256));
+            executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize), managedThreadFactory, new ThreadPoolExecutor.AbortPolicy());
+        }
+        if (mode != Mode.CONTAINER) {
+            permits = new Semaphore(maxConcurrency, true);
+            LOGGER.log(Level.INFO, "Exécution des requêtes bloquantes : mode {0}, {1} en parallèle au plus",
+                    new Object[]{mode.name().toLowerCase(Locale.ROOT), maxConcurrency});
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Exécute une méthode de ressource selon le mode configuré
+     *
+     * @param task traitement complet de la requête (gestion d'erreurs comprise)
+     * @return la réponse, déjà disponible en mode {@code container} ; 503 si saturé
+     */
+    public CompletionStage<Response> submit(Supplier<Response> task) {
+        return supply(task).exceptionally(e -> {
+            if (isSaturation(e)) {
+                return unavailable();
+            }
+            throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+        });
+    }
+
+    /**
+     * Exécute un traitement bloquant selon le mode configuré
+     *
+     * @return le résultat, déjà disponible en mode {@code container} ; en cas de saturation
+     *         le stage échoue avec une {@link RejectedExecutionException}
+     */
+    public <T> CompletionStage<T> supply(Supplier<T> task) {
+        if (mode == Mode.CONTAINER) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        Supplier<T> contextual = contextService.createContextualProxy(task, Supplier.class);
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> runLimited(contextual, submittedAt), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Vrai si l'échec vient d'un exécuteur saturé (éventuellement enveloppé par un stage)
+     */
+    public static boolean isSaturation(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause instanceof RejectedExecutionException;
+    }
+
+    /**
+     * Réponse 503 d'un service saturé
+     */
+    public static Response unavailable() {
+        return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .entity(ApiResponse.error("Service momentanément saturé, veuillez réessayer"))
+                .build();
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", mode.name().toLowerCase(Locale.ROOT));
+        stats.put("maxConcurrency", maxConcurrency);
+        stats.put("inFlight", permits == null ? 0 : maxConcurrency - permits.availablePermits());
+        stats.put("waiting", permits == null ? 0 : permits.getQueueLength());
+        stats.put("queued", executor instanceof ThreadPoolExecutor ? ((ThreadPoolExecutor) executor).getQueue().size() : 0);
+        stats.put("dispatched", dispatched.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * Le délai d'attente court depuis la soumission : le temps passé dans la file du pool
+     * en est déduit
+     */
+    private <T> T runLimited(Supplier<T> task, long submittedAt) {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs) - (System.nanoTime() - submittedAt);
+        try {
+            // Délai déjà écoulé dans la file : refusée même si une place vient de se libérer
+            if (remainingNanos <= 0 || !permits.tryAcquire(remainingNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Aucune place libre en " + acquireTimeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new RejectedExecutionException("Attente interrompue", e);
+        }
+        try {
+            dispatched.increment();
+            return task.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Executors.newThreadPerTaskExecutor(Thread.ofVirtual().factory()) par réflexion :
+     * le projet compile pour Java 11+, les threads virtuels n'existent qu'à partir du JDK 21
+     *
+     * @return l'exécuteur, ou null si la JVM n'a pas de threads virtuels
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, "auth-dispatch-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Mode parseMode(String value) {
+        try {
+            return Mode.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "auth.dispatch.mode inconnu : {0}, mode container utilisé", value);
+            return Mode.CONTAINER;
+        }
+    }
+}
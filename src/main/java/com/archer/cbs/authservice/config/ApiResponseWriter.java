@@ -0,0 +1,64 @@
+package com.archer.cbs.authservice.config;
+
+import com.archer.cbs.authservice.dto.ApiResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Sérialisation directe des {@link ApiResponse} dans le flux de réponse
+ * <p>
+ * L'enveloppe success/message/data est écrite à la main avec des noms de champs
+ * pré-encodés ; seul {@code data} passe par les sérialiseurs (mis en cache) du
+ * {@link JacksonConfig#MAPPER}. Les tampons du générateur sont recyclés par Jackson.
+ * Sortie identique à la sérialisation par défaut (valeurs nulles comprises).
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class ApiResponseWriter implements MessageBodyWriter<ApiResponse<?>> {
+
+    private static final SerializedString SUCCESS = new SerializedString("success");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString DATA = new SerializedString("data");
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return ApiResponse.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(ApiResponse<?> response, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders,
+                        OutputStream entityStream) throws IOException, WebApplicationException {
+        try (JsonGenerator generator = JacksonConfig.MAPPER.getFactory()
+                .createGenerator(entityStream, JsonEncoding.UTF8)) {
+            write(generator, response);
+        }
+    }
+
+    static void write(JsonGenerator generator, ApiResponse<?> response) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(SUCCESS);
+        generator.writeBoolean(response.isSuccess());
+        generator.writeFieldName(MESSAGE);
+        generator.writeString(response.getMessage());
+        generator.writeFieldName(DATA);
+        Object data = response.getData();
+        if (data == null) {
+            generator.writeNull();
+        } else {
+            generator.writeObject(data);
+        }
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,352 @@
+package com.archer.cbs.authservice.config;
+
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.RuntimeDelegate;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compression gzip/deflate des réponses JSON
+ * <p>
+ * L'encodage est négocié sur {@code Accept-Encoding} (gzip préféré, q=0 respecté).
+ * La sortie est retenue en mémoire jusqu'à {@code auth.compression.min-bytes} : en deçà,
+ * elle part telle quelle ; au-delà, les en-têtes sont posés et la suite est compressée
+ * au fil de l'eau. Les {@link Deflater} sont réutilisés depuis un pool. Pour les méthodes
+ * {@link StaticPayload}, les octets compressés sont gardés par ETag, dans la limite de
+ * {@code auth.compression.static-cache-size} entrées (vidé d'un coup une fois plein).
+ * <p>
+ * Une représentation compressée a son propre ETag (suffixe {@code --gzip}) ; le filtre
+ * de requête retire ce suffixe de {@code If-None-Match} avant l'évaluation des préconditions.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class CompressionInterceptor implements WriterInterceptor, ContainerRequestFilter {
+
+    private static final boolean ENABLED = Settings.getBoolean("auth.compression.enabled", true);
+
+    private static final int MIN_BYTES = Settings.getInt("auth.compression.min-bytes", 1024);
+
+    private static final int LEVEL = Settings.getInt("auth.compression.level", 6);
+
+    private static final int POOL_SIZE = Settings.getInt("auth.compression.pool-size", 32);
+
+    private static final int STATIC_CACHE_SIZE = Math.max(1, Settings.getInt("auth.compression.static-cache-size", 256));
+
+    private static final String GZIP = "gzip";
+    private static final String DEFLATE = "deflate";
+    private static final String ETAG_SUFFIX = "--";
+
+    private static final BlockingQueue<Deflater> GZIP_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+    private static final BlockingQueue<Deflater> DEFLATE_POOL = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    // ETag + encodage -> octets compressés des réponses StaticPayload ; borné, car les ETags
+    // de VersionStamps changent à chaque tranche de temps et les anciens ne reviennent plus
+    private static final Map<String, byte[]> STATIC_CACHE = new ConcurrentHashMap<>();
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    @Context
+    private HttpHeaders requestHeaders;
+
+    /**
+     * If-None-Match : "tag--gzip" -> "tag"
+     */
+    @Override
+    public void filter(ContainerRequestContext request) {
+        List<String> values = request.getHeaders().get(HttpHeaders.IF_NONE_MATCH);
+        if (values == null) {
+            return;
+        }
+        for (int i = 0; i < values.size(); i++) {
+            values.set(i, values.get(i)
+                    .replace(ETAG_SUFFIX + GZIP + "\"", "\"")
+                    .replace(ETAG_SUFFIX + DEFLATE + "\"", "\""));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        MultivaluedMap<String, Object> headers = context.getHeaders();
+        if (!ENABLED || !isCompressible(context.getMediaType()) || headers.containsKey(HttpHeaders.CONTENT_ENCODING)) {
+            context.proceed();
+            return;
+        }
+
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String encoding = negotiate(requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == null) {
+            context.proceed();
+            return;
+        }
+
+        OutputStream original = context.getOutputStream();
+        String cacheKey = staticCacheKey(context, encoding);
+        if (cacheKey != null) {
+            byte[] cached = STATIC_CACHE.get(cacheKey);
+            if (cached != null) {
+                markEncoded(headers, encoding);
+                original.write(cached);
+                return;
+            }
+        }
+
+        ThresholdOutputStream compressing = new ThresholdOutputStream(original, headers, encoding, cacheKey != null);
+        context.setOutputStream(compressing);
+        try {
+            context.proceed();
+            compressing.finish();
+        } finally {
+            compressing.release();
+            context.setOutputStream(original);
+        }
+
+        byte[] compressed = compressing.getCapturedBytes();
+        if (cacheKey != null && compressed != null) {
+            if (STATIC_CACHE.size() >= STATIC_CACHE_SIZE) {
+                STATIC_CACHE.clear();
+            }
+            STATIC_CACHE.putIfAbsent(cacheKey, compressed);
+        }
+    }
+
+    /**
+     * Encodage retenu, ou null pour une réponse non compressée
+     */
+    static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float gzip = 0;
+        float deflate = 0;
+        float wildcard = -1;
+        boolean gzipListed = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim().toLowerCase(Locale.ROOT);
+            float q = 1;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Float.parseFloat(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) {
+                gzip = q;
+                gzipListed = true;
+            } else if (coding.equals(DEFLATE)) {
+                deflate = q;
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        // "*" ne couvre que les encodages non cités : "gzip;q=0, *" exclut gzip
+        if (!gzipListed && wildcard > 0) {
+            gzip = wildcard;
+        }
+        if (gzip > 0 && gzip >= deflate) {
+            return GZIP;
+        }
+        return deflate > 0 ? DEFLATE : null;
+    }
+
+    private static boolean isCompressible(MediaType mediaType) {
+        return mediaType != null
+                && (mediaType.getSubtype().endsWith("json") || "text".equals(mediaType.getType()));
+    }
+
+    private static String staticCacheKey(WriterInterceptorContext context, String encoding) {
+        Object etag = context.getHeaders().getFirst(HttpHeaders.ETAG);
+        if (etag == null) {
+            return null;
+        }
+        for (Annotation annotation : context.getAnnotations()) {
+            if (annotation.annotationType() == StaticPayload.class) {
+                return etag + "|" + encoding;
+            }
+        }
+        return null;
+    }
+
+    private static void markEncoded(MultivaluedMap<String, Object> headers, String encoding) {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        Object etag = headers.getFirst(HttpHeaders.ETAG);
+        if (etag != null) {
+            EntityTag tag = etag instanceof EntityTag
+                    ? (EntityTag) etag
+                    : RuntimeDelegate.getInstance().createHeaderDelegate(EntityTag.class).fromString(etag.toString());
+            headers.putSingle(HttpHeaders.ETAG, new EntityTag(tag.getValue() + ETAG_SUFFIX + encoding, tag.isWeak()));
+        }
+    }
+
+    private static Deflater borrow(String encoding) {
+        BlockingQueue<Deflater> pool = GZIP.equals(encoding) ? GZIP_POOL : DEFLATE_POOL;
+        Deflater deflater = pool.poll();
+        // gzip : flux brut (en-tête et CRC écrits ici) ; deflate : format zlib
+        return deflater != null ? deflater : new Deflater(LEVEL, GZIP.equals(encoding));
+    }
+
+    private static void giveBack(String encoding, Deflater deflater) {
+        deflater.reset();
+        BlockingQueue<Deflater> pool = GZIP.equals(encoding) ? GZIP_POOL : DEFLATE_POOL;
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Retient la sortie jusqu'au seuil, puis bascule en compression continue
+     */
+    private static final class ThresholdOutputStream extends OutputStream {
+
+        private final OutputStream target;
+        private final MultivaluedMap<String, Object> headers;
+        private final String encoding;
+        private final boolean capture;
+
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream(MIN_BYTES);
+        private ByteArrayOutputStream captured;
+        private Deflater deflater;
+        private CRC32 crc;
+        private byte[] buffer;
+        private boolean finished;
+
+        ThresholdOutputStream(OutputStream target, MultivaluedMap<String, Object> headers,
+                              String encoding, boolean capture) {
+            this.target = target;
+            this.headers = headers;
+            this.encoding = encoding;
+            this.capture = capture;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (deflater == null) {
+                pending.write(bytes, offset, length);
+                if (pending.size() < MIN_BYTES) {
+                    return;
+                }
+                start();
+                bytes = pending.toByteArray();
+                offset = 0;
+                length = bytes.length;
+                pending = null;
+            }
+            if (crc != null) {
+                crc.update(bytes, offset, length);
+            }
+            deflater.setInput(bytes, offset, length);
+            while (!deflater.needsInput()) {
+                drain(Deflater.NO_FLUSH);
+            }
+        }
+
+        /**
+         * Ne vide pas le Deflater : un flush partiel dégraderait la compression
+         */
+        @Override
+        public void flush() {
+        }
+
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (deflater == null) {
+                // Sous le seuil : réponse non compressée
+                pending.writeTo(target);
+                target.flush();
+                return;
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(Deflater.NO_FLUSH);
+            }
+            if (crc != null) {
+                byte[] trailer = new byte[8];
+                writeIntLE(trailer, 0, (int) crc.getValue());
+                writeIntLE(trailer, 4, (int) deflater.getBytesRead());
+                emit(trailer, trailer.length);
+            }
+            target.flush();
+        }
+
+        void release() {
+            if (deflater != null) {
+                giveBack(encoding, deflater);
+                deflater = null;
+            }
+        }
+
+        byte[] getCapturedBytes() {
+            return captured == null ? null : captured.toByteArray();
+        }
+
+        private void start() throws IOException {
+            markEncoded(headers, encoding);
+            deflater = borrow(encoding);
+            buffer = new byte[8192];
+            if (capture) {
+                captured = new ByteArrayOutputStream();
+            }
+            if (GZIP.equals(encoding)) {
+                crc = new CRC32();
+                emit(GZIP_HEADER, GZIP_HEADER.length);
+            }
+        }
+
+        private void drain(int flush) throws IOException {
+            int count = deflater.deflate(buffer, 0, buffer.length, flush);
+            if (count > 0) {
+                emit(buffer, count);
+            }
+        }
+
+        private void emit(byte[] bytes, int length) throws IOException {
+            target.write(bytes, 0, length);
+            if (captured != null) {
+                captured.write(bytes, 0, length);
+            }
+        }
+
+        private static void writeIntLE(byte[] bytes, int offset, int value) {
+            bytes[offset] = (byte) value;
+            bytes[offset + 1] = (byte) (value >>> 8);
+            bytes[offset + 2] = (byte) (value >>> 16);
+            bytes[offset + 3] = (byte) (value >>> 24);
+        }
+    }
+}
@@ -1,25 +1,122 @@
 package com.archer.cbs.authservice.config;
 
+import jakarta.ws.rs.HttpMethod;
 import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
 import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
 
+/**
+ * En-têtes CORS et réponse directe aux requêtes préliminaires (preflight)
+ * <p>
+ * Les origines autorisées viennent de {@code auth.cors.allowed-origins} (liste séparée
+ * par des virgules, {@code *} par défaut). Un preflight {@code OPTIONS} est traité avant
+ * la résolution de la ressource et avant les filtres d'authentification ; le navigateur
+ * le garde en cache {@code auth.cors.max-age-seconds}.
+ */
 @Provider
-public class CorsFilter implements ContainerResponseFilter {
+@PreMatching
+public class CorsFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    private static final String ALLOW_ORIGIN = "Access-Control-Allow-Origin";
+    private static final String ALLOW_HEADERS = "Access-Control-Allow-Headers";
+    private static final String ALLOW_CREDENTIALS = "Access-Control-Allow-Credentials";
+    private static final String ALLOW_METHODS = "Access-Control-Allow-Methods";
+    private static final String EXPOSE_HEADERS = "Access-Control-Expose-Headers";
+    private static final String MAX_AGE = "Access-Control-Max-Age";
+    private static final String REQUEST_METHOD = "Access-Control-Request-Method";
+    private static final String ORIGIN = "Origin";
+    private static final String VARY = "Vary";
+
+    private static final String ALLOWED_HEADERS = "origin, content-type, accept, authorization, if-none-match";
+    private static final String ALLOWED_METHODS = "GET, POST, PUT, DELETE, OPTIONS, HEAD";
+    private static final String EXPOSED_HEADERS = "ETag";
+
+    private static final String MAX_AGE_SECONDS = String.valueOf(Settings.getLong("auth.cors.max-age-seconds", 7200));
+
+    private static final Set<String> ALLOWED_ORIGINS = parseOrigins(Settings.get("auth.cors.allowed-origins", "*"));
+
+    private static final boolean ANY_ORIGIN = ALLOWED_ORIGINS.contains("*");
+
+    /**
+     * Preflight : réponse immédiate, sans authentification ni résolution de ressource
+     */
+    @Override
+    public void filter(ContainerRequestContext requestContext) throws IOException {
+        if (!HttpMethod.OPTIONS.equals(requestContext.getMethod())
+                || requestContext.getHeaderString(REQUEST_METHOD) == null) {
+            return;
+        }
+
+        String origin = requestContext.getHeaderString(ORIGIN);
+        String allowedOrigin = allowedOrigin(origin);
+        if (allowedOrigin == null) {
+            requestContext.abortWith(Response.status(Response.Status.FORBIDDEN).build());
+            return;
+        }
+
+        requestContext.abortWith(Response.ok()
+                .header(ALLOW_ORIGIN, allowedOrigin)
+                .header(ALLOW_METHODS, ALLOWED_METHODS)
+                .header(ALLOW_HEADERS, ALLOWED_HEADERS)
+                .header(ALLOW_CREDENTIALS, "true")
+                .header(MAX_AGE, MAX_AGE_SECONDS)
+                .build());
+    }
 
     @Override
     public void filter(ContainerRequestContext requestContext,
                        ContainerResponseContext responseContext) throws IOException {
-        responseContext.getHeaders()
-                .add("Access-Control-Allow-Origin", "*");
-        responseContext.getHeaders()
-                .add("Access-Control-Allow-Headers",
-                "origin, content-type, accept, authorization");
-        responseContext.getHeaders()
-                .add("Access-Control-Allow-Credentials", "true");
-        responseContext.getHeaders().
-                add("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD");
+        String allowedOrigin = allowedOrigin(requestContext.getHeaderString(ORIGIN));
+        if (allowedOrigin == null) {
+            return;
+        }
+
+        MultivaluedMap<String, Object> headers = responseContext.getHeaders();
+        headers.putSingle(ALLOW_ORIGIN, allowedOrigin);
+        headers.putSingle(ALLOW_CREDENTIALS, "true");
+        headers.putSingle(EXPOSE_HEADERS, EXPOSED_HEADERS);
+        if (!ANY_ORIGIN) {
+            headers.add(VARY, ORIGIN);
+        }
+    }
+
+    /**
+     * Valeur d'Access-Control-Allow-Origin pour cette origine, ou null si refusée
+     */
+    private static String allowedOrigin(String origin) {
+        if (ANY_ORIGIN) {
+            return "*";
+        }
+        if (origin == null) {
+            return null;
+        }
+        return ALLOWED_ORIGINS.contains(normalize(origin)) ? origin : null;
+    }
+
+    static Set<String> parseOrigins(String value) {
+        Set<String> origins = new HashSet<>();
+        for (String origin : value.split(",")) {
+            if (!origin.isBlank()) {
+                origins.add(normalize(origin.trim()));
+            }
+        }
+        return origins;
+    }
+
+    /**
+     * https://App.example.com/ -> https://app.example.com
+     */
+    static String normalize(String origin) {
+        String normalized = origin.toLowerCase(Locale.ROOT);
+        return normalized.endsWith("/") ? normalized.substring(0, normalized.length() - 1) : normalized;
     }
 }
@@ -0,0 +1,40 @@
+package com.archer.cbs.authservice.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.ext.ContextResolver;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * ObjectMapper partagé de l'application
+ * <p>
+ * Configuré une seule fois : accesseurs générés (Blackbird) au lieu de la réflexion,
+ * dates java.time en texte. Exposé au fournisseur JSON du conteneur (lecture des
+ * requêtes) et utilisé directement par {@link ApiResponseWriter}.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class JacksonConfig implements ContextResolver<ObjectMapper> {
+
+    public static final ObjectMapper MAPPER = createMapper();
+
+    @Override
+    public ObjectMapper getContext(Class<?> type) {
+        return MAPPER;
+    }
+
+    private static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new BlackbirdModule())
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // Le flux de sortie appartient au conteneur
+        mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return mapper;
+    }
+}
@@ -0,0 +1,88 @@
+package com.archer.cbs.authservice.config;
+
+import com.archer.cbs.authservice.config.SecurityConfig.RouteConfig;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Table des routes compilée une seule fois
+ * <p>
+ * Les routes sont regroupées par méthode HTTP et nombre de segments ; un chemin n'est
+ * comparé qu'aux routes de son groupe, segment par segment ({@code {param}} accepte
+ * tout segment non vide), sans expression régulière. L'ordre de déclaration est
+ * conservé : la première route correspondante l'emporte, comme avant.
+ */
+final class RouteTable {
+
+    private static final class CompiledRoute {
+        final RouteConfig config;
+        // null pour un segment paramètre
+        final String[] literals;
+
+        CompiledRoute(RouteConfig config, String[] literals) {
+            this.config = config;
+            this.literals = literals;
+        }
+
+        boolean matches(String[] segments) {
+            for (int i = 0; i < literals.length; i++) {
+                String literal = literals[i];
+                if (literal == null ? segments[i].isEmpty() : !literal.equals(segments[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // "GET#3" -> routes GET à 3 segments, dans l'ordre de déclaration
+    private final Map<String, CompiledRoute[]> groups = new HashMap<>();
+
+    RouteTable(List<RouteConfig> routes) {
+        Map<String, List<CompiledRoute>> building = new HashMap<>();
+        for (RouteConfig route : routes) {
+            String[] segments = split(route.getPath());
+            String[] literals = new String[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                boolean parameter = segments[i].startsWith("{") && segments[i].endsWith("}");
+                literals[i] = parameter ? null : segments[i];
+            }
+            building.computeIfAbsent(key(route.getMethod(), segments.length), k -> new ArrayList<>())
+                    .add(new CompiledRoute(route, literals));
+        }
+        building.forEach((key, list) -> groups.put(key, list.toArray(new CompiledRoute[0])));
+    }
+
+    /**
+     * @param path chemin relatif à l'application, avec ou sans "/" initial
+     * @return la route, ou null si aucune ne correspond
+     */
+    RouteConfig find(String path, String method) {
+        String[] segments = split(path);
+        CompiledRoute[] candidates = groups.get(key(method, segments.length));
+        if (candidates == null) {
+            return null;
+        }
+        for (CompiledRoute candidate : candidates) {
+            if (candidate.matches(segments)) {
+                return candidate.config;
+            }
+        }
+        return null;
+    }
+
+    private static String key(String method, int segmentCount) {
+        return method.toUpperCase(Locale.ROOT) + '#' + segmentCount;
+    }
+
+    /**
+     * "/users/5" -> [users, 5] ; "/users/" -> [users, ""] (le "/" final compte)
+     */
+    private static String[] split(String path) {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        return relative.split("/", -1);
+    }
+}
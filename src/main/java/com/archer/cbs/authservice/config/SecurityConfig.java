@@ -56,11 +56,19 @@ public class SecurityConfig {
         public String getDescription() { return description; }
     }
 
+    private static final List<RouteConfig> ROUTES = Collections.unmodifiableList(buildRoutes());
+
+    private static final RouteTable ROUTE_TABLE = new RouteTable(ROUTES);
+
     /**
      * Configuration centralisée de toutes les routes
      * Comme routes/web.php ou routes/api.php dans Laravel
      */
     public static List<RouteConfig> getRoutes() {
+        return ROUTES;
+    }
+
+    private static List<RouteConfig> buildRoutes() {
         List<RouteConfig> routes = new ArrayList<>();
 
         // =============================================
@@ -74,9 +82,19 @@ public class SecurityConfig {
         routes.add(new RouteConfig("/auth/refresh", "POST", false)
                 .description("Rafraîchir le token"));
 
+        routes.add(new RouteConfig("/auth/renew", "POST", false)
+                .description("Renouveler l'access token (sans accès base)"));
+
         routes.add(new RouteConfig("/auth/register", "POST", false)
                 .description("Inscription utilisateur"));
 
+        // Sondes
+        routes.add(new RouteConfig("/health/live", "GET", false)
+                .description("Sonde de vie"));
+
+        routes.add(new RouteConfig("/health/ready", "GET", false)
+                .description("Sonde de disponibilité (préchauffage terminé)"));
+
         // =============================================
         // ROUTES PROTÉGÉES (authentification requise)
         // =============================================
@@ -88,6 +106,14 @@ public class SecurityConfig {
         routes.add(new RouteConfig("/auth/me", "GET", true)
                 .description("Obtenir l'utilisateur connecté"));
 
+        routes.add(new RouteConfig("/auth/introspect", "POST", true)
+                .roles("ADMIN", "SERVICE")
+                .description("Introspection d'un token (RFC 7662)"));
+
+        routes.add(new RouteConfig("/auth/introspect/batch", "POST", true)
+                .roles("ADMIN", "SERVICE")
+                .description("Introspection de plusieurs tokens"));
+
         // =============================================
         // USERS - Routes authentifiées
         // =============================================
@@ -128,6 +154,14 @@ public class SecurityConfig {
                 .roles("ADMIN")
                 .description("Activer/désactiver utilisateur"));
 
+        routes.add(new RouteConfig("/users/{id}/sessions", "GET", true)
+                .roles("ADMIN")
+                .description("Sessions ouvertes d'un utilisateur"));
+
+        routes.add(new RouteConfig("/users/{id}/sessions", "DELETE", true)
+                .roles("ADMIN")
+                .description("Fermer toutes les sessions d'un utilisateur"));
+
         routes.add(new RouteConfig("/users/{userId}/roles/{roleId}", "POST", true)
                 .roles("ADMIN")
                 .description("Ajouter un rôle"));
@@ -136,6 +170,14 @@ public class SecurityConfig {
                 .roles("ADMIN")
                 .description("Retirer un rôle"));
 
+        routes.add(new RouteConfig("/users/roles/bulk-add", "POST", true)
+                .roles("ADMIN")
+                .description("Attribuer des rôles en masse"));
+
+        routes.add(new RouteConfig("/users/roles/bulk-remove", "POST", true)
+                .roles("ADMIN")
+                .description("Retirer des rôles en masse"));
+
         // =============================================
         // PERSONS - Routes authentifiées
         // =============================================
@@ -250,6 +292,22 @@ public class SecurityConfig {
                 .roles("ADMIN")
                 .description("Compter rôles par permission"));
 
+        // ============================================= //
+        // METRICS - Exploitation                        //
+        // ============================================= //
+
+        routes.add(new RouteConfig("/metrics", "GET", true)
+                .roles("ADMIN")
+                .description("Compteurs d'exploitation"));
+
+        // ============================================= //
+        // AUTOCOMPLETE - Interface d'administration     //
+        // ============================================= //
+
+        routes.add(new RouteConfig("/autocomplete", "GET", true)
+                .roles("ADMIN")
+                .description("Autocomplétion utilisateurs, personnes, rôles, permissions"));
+
         return routes;
     }
 
@@ -257,18 +315,16 @@ public class SecurityConfig {
      * Trouve la configuration d'une route
      */
     public static Optional<RouteConfig> findRoute(String path, String method) {
-        return getRoutes().stream()
-                .filter(route -> matchesRoute(route.getPath(), path) && route.getMethod().equalsIgnoreCase(method))
-                .findFirst();
+        return Optional.ofNullable(ROUTE_TABLE.find(path, method));
     }
 
     /**
-     * Vérifie si un path correspond à une route (avec support des paramètres)
+     * Variante sans Optional pour le filtre de sécurité
+     *
+     * @return la route, ou null si elle n'est pas configurée
      */
-    private static boolean matchesRoute(String routePattern, String actualPath) {
-        // Convertir /users/{id} en regex /users/[^/]+
-        String regex = routePattern.replaceAll("\\{[^}]+\\}", "[^/]+");
-        return actualPath.matches(regex);
+    public static RouteConfig lookupRoute(String path, String method) {
+        return ROUTE_TABLE.find(path, method);
     }
 
     /**
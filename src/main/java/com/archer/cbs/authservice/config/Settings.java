@@ -0,0 +1,51 @@
+package com.archer.cbs.authservice.config;
+
+/**
+ * Lecture centralisée des paramètres applicatifs
+ * <p>
+ * Une clé {@code auth.replica.enabled} est d'abord cherchée dans les propriétés
+ * système (-Dauth.replica.enabled=true ou standalone.xml), puis dans les
+ * variables d'environnement sous la forme {@code AUTH_REPLICA_ENABLED}.
+ */
+public final class Settings {
+
+    private Settings() {}
+
+    /**
+     * Valeur brute d'un paramètre, ou la valeur par défaut si absent
+     */
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            value = System.getenv(toEnvName(key));
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(get(key, String.valueOf(defaultValue)));
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(get(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * auth.replica.max-lag-ms -> AUTH_REPLICA_MAX_LAG_MS
+     */
+    private static String toEnvName(String key) {
+        return key.toUpperCase().replace('.', '_').replace('-', '_');
+    }
+}
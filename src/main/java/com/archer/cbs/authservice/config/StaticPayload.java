@@ -0,0 +1,17 @@
+package com.archer.cbs.authservice.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Réponse identique pour un même ETag durant la vie du déploiement :
+ * {@link CompressionInterceptor} garde sa version compressée en mémoire
+ * <p>
+ * La méthode doit poser un ETag couvrant tout ce qui fait varier le contenu.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface StaticPayload {
+}
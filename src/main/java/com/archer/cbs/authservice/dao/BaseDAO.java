@@ -1,35 +1,134 @@
 package com.archer.cbs.authservice.dao;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public abstract class BaseDAO<T> {
 
+    // Hints Hibernate (chaînes pour ne pas dépendre de l'API Hibernate à la compilation)
+    static final String HINT_READ_ONLY = "org.hibernate.readOnly";
+    static final String HINT_FLUSH_MODE = "org.hibernate.flushMode";
+
+    private static final Map<String, Object> READ_ONLY_HINTS = Map.of(HINT_READ_ONLY, true);
+
     @PersistenceContext(unitName = "AuthPU")
     protected EntityManager entityManager;
 
     private final Class<T> entityClass;
 
+    // Requêtes nommées <Entité>.findAll, .count, .existsById et .deleteById, déclarées sur chaque entité
+    private final String findAllQuery;
+    private final String countQuery;
+    private final String existsByIdQuery;
+    private final String deleteByIdQuery;
+
     protected BaseDAO(Class<T> entityClass) {
         this.entityClass = entityClass;
+        this.findAllQuery = entityClass.getSimpleName() + ".findAll";
+        this.countQuery = entityClass.getSimpleName() + ".count";
+        this.existsByIdQuery = entityClass.getSimpleName() + ".existsById";
+        this.deleteByIdQuery = entityClass.getSimpleName() + ".deleteById";
+    }
+
+    /**
+     * EntityManager à utiliser : celui du réplica dans une méthode {@link ReadOnly}
+     * routée, sinon celui du contexte de persistance JTA
+     */
+    protected EntityManager em() {
+        ReadOnlyContext context = ReadOnlyContext.current();
+        if (context != null && context.getReplicaEntityManager() != null) {
+            return context.getReplicaEntityManager();
+        }
+        return entityManager;
+    }
+
+    /**
+     * Crée une requête typée, en lecture seule et sans flush dans une méthode {@link ReadOnly}
+     */
+    protected <R> TypedQuery<R> query(String jpql, Class<R> resultClass) {
+        TypedQuery<R> query = em().createQuery(jpql, resultClass);
+        applyReadOnlyHints(query);
+        return query;
+    }
+
+    /**
+     * Requête nommée (analysée une fois au déploiement), avec les mêmes hints que
+     * {@link #query(String, Class)} ; les hints propres à la requête sont déclarés
+     * avec elle sur l'entité
+     */
+    protected <R> TypedQuery<R> namedQuery(String name, Class<R> resultClass) {
+        TypedQuery<R> query = em().createNamedQuery(name, resultClass);
+        applyReadOnlyHints(query);
+        return query;
+    }
+
+    /**
+     * Crée une requête SQL native, avec les mêmes hints que {@link #query(String, Class)}
+     */
+    protected Query nativeQuery(String sql, Class<?> resultClass) {
+        Query query = em().createNativeQuery(sql, resultClass);
+        applyReadOnlyHints(query);
+        return query;
+    }
+
+    private static void applyReadOnlyHints(Query query) {
+        if (ReadOnlyContext.isActive()) {
+            query.setFlushMode(FlushModeType.COMMIT);
+            query.setHint(HINT_FLUSH_MODE, "MANUAL");
+            query.setHint(HINT_READ_ONLY, true);
+        }
+    }
+
+    /**
+     * Vrai si la requête {@code SELECT 1 ...} renvoie au moins une ligne ; la base s'arrête
+     * à la première (LIMIT 1)
+     */
+    protected static boolean exists(TypedQuery<Integer> query) {
+        return !query.setMaxResults(1).getResultList().isEmpty();
+    }
+
+    /**
+     * Exécute une instruction de modification (UPDATE, DELETE, INSERT natif) ; une contrainte
+     * d'unicité violée lève {@link DuplicateKeyException}
+     *
+     * @return le nombre de lignes touchées
+     */
+    protected static int execute(Query statement) {
+        try {
+            return statement.executeUpdate();
+        } catch (RuntimeException e) {
+            throw DuplicateKeyException.translate(e);
+        }
     }
 
     /**
      * Créer une nouvelle entité
+     * <p>
+     * L'INSERT part immédiatement (identifiants IDENTITY) : une contrainte d'unicité violée
+     * lève {@link DuplicateKeyException}, sans vérification préalable.
      */
     public T create(T entity) {
-        entityManager.persist(entity);
-        return entity;
+        try {
+            entityManager.persist(entity);
+            return entity;
+        } catch (RuntimeException e) {
+            throw DuplicateKeyException.translate(e);
+        }
     }
 
     /**
      * Trouver une entité par ID
      */
     public Optional<T> findById(Long id) {
-        T entity = entityManager.find(entityClass, id);
+        T entity = ReadOnlyContext.isActive()
+                ? em().find(entityClass, id, READ_ONLY_HINTS)
+                : entityManager.find(entityClass, id);
         return Optional.ofNullable(entity);
     }
 
@@ -37,16 +136,23 @@ public abstract class BaseDAO<T> {
      * Récupérer toutes les entités
      */
     public List<T> findAll() {
-        String jpql = "SELECT e FROM " + entityClass.getSimpleName() + " e";
-        TypedQuery<T> query = entityManager.createQuery(jpql, entityClass);
-        return query.getResultList();
+        return namedQuery(findAllQuery, entityClass).getResultList();
     }
 
     /**
      * Mettre à jour une entité
+     * <p>
+     * Écrite immédiatement (flush) pour qu'une contrainte d'unicité violée lève
+     * {@link DuplicateKeyException} ici plutôt qu'à la validation de la transaction.
      */
     public T update(T entity) {
-        return entityManager.merge(entity);
+        try {
+            T merged = entityManager.merge(entity);
+            entityManager.flush();
+            return merged;
+        } catch (RuntimeException e) {
+            throw DuplicateKeyException.translate(e);
+        }
     }
 
     /**
@@ -60,29 +166,29 @@ public abstract class BaseDAO<T> {
     }
 
     /**
-     * Supprimer par ID
+     * Supprimer par ID, en une instruction {@code DELETE ... WHERE id = ?} sans charger l'entité
+     * <p>
+     * Hibernate vide d'abord les tables de jointure des collections possédées par l'entité
+     * (user_roles pour User, role_permissions pour Role) ; les cascades JPA ne s'appliquent
+     * pas. Les entités déjà chargées dans le contexte de persistance ne sont pas détachées.
+     *
+     * @return le nombre de lignes supprimées (0 si l'entité n'existe pas)
      */
-    public boolean deleteById(Long id) {
-        Optional<T> entity = findById(id);
-        if (entity.isPresent()) {
-            delete(entity.get());
-            return true;
-        }
-        return false;
+    public int deleteById(Long id) {
+        return execute(entityManager.createNamedQuery(deleteByIdQuery).setParameter("id", id));
     }
 
     /**
      * Compter le nombre total d'entités
      */
     public Long count() {
-        String jpql = "SELECT COUNT(e) FROM " + entityClass.getSimpleName() + " e";
-        return entityManager.createQuery(jpql, Long.class).getSingleResult();
+        return namedQuery(countQuery, Long.class).getSingleResult();
     }
 
     /**
      * Vérifier si une entité existe
      */
     public boolean exists(Long id) {
-        return findById(id).isPresent();
+        return exists(namedQuery(existsByIdQuery, Integer.class).setParameter("id", id));
     }
 }
\ No newline at end of file
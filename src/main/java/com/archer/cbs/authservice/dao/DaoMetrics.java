@@ -0,0 +1,84 @@
+package com.archer.cbs.authservice.dao;
+
+import com.archer.cbs.authservice.config.Settings;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durées d'exécution par méthode de DAO ({@code UserDAO.findByUsername}, ...)
+ * <p>
+ * Alimenté par {@link MeasuredInterceptor}, désactivable avec
+ * {@code auth.metrics.dao-timing=false}. Compteurs sans verrou (LongAdder), cumulés
+ * depuis le démarrage.
+ */
+@ApplicationScoped
+public class DaoMetrics {
+
+    // Classe réelle du DAO, sans les sous-classes générées par le conteneur
+    private static final ClassValue<String> DAO_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            Class<?> dao = type;
+            while (dao.getSuperclass() != null && (dao.isSynthetic() || dao.getSimpleName().contains("$"))) {
+                dao = dao.getSuperclass();
+            }
+            return dao.getSimpleName();
+        }
+    };
+
+    private final boolean enabled = Settings.getBoolean("auth.metrics.dao-timing", true);
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void record(Class<?> daoClass, String method, long nanos, boolean failed) {
+        String key = DAO_NAMES.get(daoClass) + "." + method;
+        timers.computeIfAbsent(key, k -> new Timer()).record(nanos, failed);
+    }
+
+    /**
+     * Compteurs par méthode, triés par nom (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new TreeMap<>();
+        timers.forEach((method, timer) -> stats.put(method, timer.snapshot()));
+        return stats;
+    }
+
+    private static final class Timer {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos, boolean failed) {
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (failed) {
+                failures.increment();
+            }
+        }
+
+        Map<String, Object> snapshot() {
+            long count = calls.sum();
+            long total = totalNanos.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("calls", count);
+            snapshot.put("failures", failures.sum());
+            snapshot.put("totalMs", total / 1_000_000);
+            snapshot.put("avgUs", count == 0 ? 0 : total / count / 1_000);
+            snapshot.put("maxUs", maxNanos.get() / 1_000);
+            return snapshot;
+        }
+    }
+}
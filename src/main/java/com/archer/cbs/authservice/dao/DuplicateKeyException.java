@@ -0,0 +1,59 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.ejb.ApplicationException;
+import java.sql.SQLException;
+
+/**
+ * Violation d'une contrainte d'unicité à l'écriture (SQLState 23505)
+ * <p>
+ * Levée par les DAO à la place de l'exception JPA, sans journalisation par le conteneur ;
+ * la transaction est annulée. Les services la traduisent en message métier selon la
+ * colonne en cause ({@link #involves(String)}).
+ */
+@ApplicationException(rollback = true)
+public class DuplicateKeyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // "Key (lower((username)::text))=(bob) already exists." -> "lower((username)::text)"
+    private final String key;
+
+    private DuplicateKeyException(String key, Throwable cause) {
+        super("Valeur déjà utilisée : " + key, cause);
+        this.key = key;
+    }
+
+    /**
+     * Vrai si la contrainte violée porte sur cette colonne (index sur expression compris)
+     */
+    public boolean involves(String column) {
+        return key.contains(column);
+    }
+
+    /**
+     * Traduit une violation d'unicité en {@link DuplicateKeyException} ; toute autre
+     * exception est renvoyée telle quelle
+     */
+    static RuntimeException translate(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return new DuplicateKeyException(key(cause.getMessage()), e);
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Colonnes de la clé, lues dans le détail du message PostgreSQL
+     */
+    private static String key(String message) {
+        if (message == null) {
+            return "";
+        }
+        int start = message.indexOf("Key (");
+        int end = start < 0 ? -1 : message.indexOf(")=(", start);
+        return end < 0 ? message : message.substring(start + 5, end);
+    }
+}
@@ -0,0 +1,22 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marque un DAO dont chaque méthode publique est chronométrée
+ * <p>
+ * Nombre d'appels, temps cumulé, maximum et échecs par méthode, exposés sur
+ * {@code GET /metrics} (section {@code dao}).
+ *
+ * @see MeasuredInterceptor
+ * @see DaoMetrics
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface Measured {
+}
@@ -0,0 +1,40 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+
+/**
+ * Intercepteur des DAO {@link Measured}
+ * <p>
+ * Mesure la durée de l'appel, requêtes et flush compris. Pour une méthode qui renvoie
+ * un flux ({@code streamLabels}), seule l'ouverture du curseur est comptée.
+ */
+@Measured
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION + 10)
+public class MeasuredInterceptor {
+
+    @Inject
+    private DaoMetrics metrics;
+
+    @AroundInvoke
+    public Object measure(InvocationContext context) throws Exception {
+        if (!metrics.isEnabled()) {
+            return context.proceed();
+        }
+
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = context.proceed();
+            failed = false;
+            return result;
+        } finally {
+            metrics.record(context.getTarget().getClass(), context.getMethod().getName(),
+                    System.nanoTime() - start, failed);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.archer.cbs.authservice.dao;
+
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.event.EntityChangedEvent.ChangeType;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Écriture dans la boîte d'envoi {@code outbox}, dans la transaction de l'appelant
+ * <p>
+ * La charge utile est l'état de l'agrégat après modification, construit en SQL dans
+ * l'INSERT même (un seul aller-retour) : utilisateur avec son statut et ses rôles, rôle avec
+ * ses permissions, permission. Un agrégat supprimé n'a pas de charge utile.
+ * <p>
+ * Un verrou consultatif par agrégat, tenu jusqu'à la fin de la transaction, est pris avant
+ * l'INSERT : deux modifications concurrentes du même agrégat (rôles d'un utilisateur, écrits
+ * dans {@code user_roles} sans toucher la ligne {@code users}) s'écrivent l'une après
+ * l'autre, et la seconde construit sa charge utile en voyant la première validée. Les
+ * {@code id} d'un agrégat suivent donc l'ordre de ses états.
+ */
+@Stateless
+@Measured
+public class OutboxDAO {
+
+    private static final String INSERT =
+            "INSERT INTO outbox (aggregate_type, aggregate_id, event_type, payload) " +
+            "VALUES (:aggregateType, :aggregateId, :eventType, (%s))";
+
+    private static final String USER_STATE =
+            "SELECT jsonb_build_object('username', u.username, 'active', u.active, 'roles', " +
+            "COALESCE((SELECT jsonb_agg(r.name ORDER BY r.name) FROM user_roles ur " +
+            "JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = u.id), '[]'::jsonb)) " +
+            "FROM users u WHERE u.id = :aggregateId";
+
+    private static final String ROLE_STATE =
+            "SELECT jsonb_build_object('name', r.name, 'description', r.description, 'permissions', " +
+            "COALESCE((SELECT jsonb_agg(p.name ORDER BY p.name) FROM role_permissions rp " +
+            "JOIN permissions p ON p.id = rp.permission_id WHERE rp.role_id = r.id), '[]'::jsonb)) " +
+            "FROM roles r WHERE r.id = :aggregateId";
+
+    private static final String PERMISSION_STATE =
+            "SELECT jsonb_build_object('name', p.name, 'description', p.description) " +
+            "FROM permissions p WHERE p.id = :aggregateId";
+
+    private static final String INSERT_USER = String.format(INSERT, USER_STATE);
+    private static final String INSERT_ROLE = String.format(INSERT, ROLE_STATE);
+    private static final String INSERT_PERMISSION = String.format(INSERT, PERMISSION_STATE);
+    private static final String INSERT_DELETED = String.format(INSERT, "NULL");
+
+    // Instruction distincte de l'INSERT : celui-ci prend son instantané une fois le verrou obtenu
+    private static final String LOCK_AGGREGATE =
+            "SELECT 1 FROM (SELECT pg_advisory_xact_lock(:lockClass, hashint8(:aggregateId))) AS locked";
+
+    /** Première clé du verrou consultatif d'un agrégat, plus l'ordinal de son type */
+    private static final int AGGREGATE_LOCK_CLASS = 0x41475200;
+
+    @PersistenceContext(unitName = "AuthPU")
+    private EntityManager entityManager;
+
+    /**
+     * Ajoute la modification à la boîte d'envoi
+     *
+     * @return false si le type d'entité n'est pas publié (personnes)
+     */
+    public boolean append(EntityChangedEvent event) {
+        String sql = insertSql(event);
+        if (sql == null) {
+            return false;
+        }
+        // L'état lu par l'INSERT doit inclure les modifications encore en attente dans le contexte
+        entityManager.flush();
+        entityManager.createNativeQuery(LOCK_AGGREGATE)
+                .setParameter("lockClass", AGGREGATE_LOCK_CLASS + event.getEntityType().ordinal())
+                .setParameter("aggregateId", event.getEntityId())
+                .getSingleResult();
+        entityManager.createNativeQuery(sql)
+                .setParameter("aggregateType", event.getEntityType().name())
+                .setParameter("aggregateId", event.getEntityId())
+                .setParameter("eventType", event.getChangeType().name())
+                .executeUpdate();
+        return true;
+    }
+
+    private static String insertSql(EntityChangedEvent event) {
+        switch (event.getEntityType()) {
+            case USER:
+                return event.getChangeType() == ChangeType.DELETED ? INSERT_DELETED : INSERT_USER;
+            case ROLE:
+                return event.getChangeType() == ChangeType.DELETED ? INSERT_DELETED : INSERT_ROLE;
+            case PERMISSION:
+                return event.getChangeType() == ChangeType.DELETED ? INSERT_DELETED : INSERT_PERMISSION;
+            default:
+                return null;
+        }
+    }
+}
@@ -6,8 +6,10 @@ import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Stateless
+@Measured
 public class PermissionDAO extends BaseDAO<Permission> {
 
     public PermissionDAO() {
@@ -20,8 +22,7 @@ public class PermissionDAO extends BaseDAO<Permission> {
     public Optional<Permission> findByNom(String name) {
 
         try {
-            String jpql = "SELECT p FROM Permission p WHERE p.name = :name";
-            TypedQuery<Permission> query = entityManager.createQuery(jpql, Permission.class);
+            TypedQuery<Permission> query = namedQuery(Permission.FIND_BY_NAME, Permission.class);
             query.setParameter("name", name);
 
             return Optional.of(query.getSingleResult());
@@ -35,8 +36,7 @@ public class PermissionDAO extends BaseDAO<Permission> {
      * Trouver les permissions d'un rôle
      */
     public List<Permission> findByRoleId(Long roleId) {
-        String jpql = "SELECT p FROM Permission p JOIN p.roles r WHERE r.id = :roleId";
-        TypedQuery<Permission> query = entityManager.createQuery(jpql, Permission.class);
+        TypedQuery<Permission> query = namedQuery(Permission.FIND_BY_ROLE_ID, Permission.class);
         query.setParameter("roleId", roleId);
         return query.getResultList();
     }
@@ -45,11 +45,7 @@ public class PermissionDAO extends BaseDAO<Permission> {
      * Trouver les permissions d'un utilisateur (via ses rôles)
      */
     public List<Permission> findByUserId(Long userId) {
-        String jpql = "SELECT DISTINCT p FROM Permission p " +
-                "JOIN p.roles r " +
-                "JOIN r.users u " +
-                "WHERE u.id = :userId";
-        TypedQuery<Permission> query = entityManager.createQuery(jpql, Permission.class);
+        TypedQuery<Permission> query = namedQuery(Permission.FIND_BY_USER_ID, Permission.class);
         query.setParameter("userId", userId);
         return query.getResultList();
     }
@@ -58,30 +54,49 @@ public class PermissionDAO extends BaseDAO<Permission> {
      * Vérifier si un nom de permission existe
      */
     public boolean permissionExists(String name) {
-        String jpql = "SELECT COUNT(p) FROM Permission p WHERE p.name = :name";
-        Long count = entityManager.createQuery(jpql, Long.class)
-                .setParameter("name", name)
-                .getSingleResult();
-        return count > 0;
+        return exists(namedQuery(Permission.EXISTS_BY_NAME, Integer.class)
+                .setParameter("name", name));
     }
 
     /**
      * Compter le nombre de rôles utilisant une permission
      */
     public Long countRolesByPermission(Long permissionId) {
-        String jpql = "SELECT COUNT(r) FROM Role r JOIN r.permissions p WHERE p.id = :permissionId";
-        return entityManager.createQuery(jpql, Long.class)
+        return namedQuery(Permission.COUNT_ROLES, Long.class)
                 .setParameter("permissionId", permissionId)
                 .getSingleResult();
     }
 
     /**
-     * Rechercher des permissions par nom (partiel)
+     * Texte de recherche indexé par idx_permissions_search_trgm (expression identique)
      */
-    public List<Permission> searchByNom(String name) {
-        String jpql = "SELECT p FROM Permission p WHERE LOWER(p.name) LIKE LOWER(:name)";
-        TypedQuery<Permission> query = entityManager.createQuery(jpql, Permission.class);
-        query.setParameter("name", "%" + name + "%");
-        return query.getResultList();
+    private static final String SEARCH_TEXT = "lower(p.name || ' ' || coalesce(p.description, ''))";
+
+    /**
+     * Recherche floue sur le nom et la description (index trigrammes)
+     * <p>
+     * Renvoie jusqu'à {@link SearchQuery#getFetchLimit()} lignes classées par similarité.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Permission> search(SearchQuery search) {
+        String sql = "SELECT p.* FROM permissions p " +
+                "WHERE " + SEARCH_TEXT + " LIKE :pattern OR " + SEARCH_TEXT + " %> :term " +
+                "ORDER BY word_similarity(:term, " + SEARCH_TEXT + ") DESC, p.id " +
+                "LIMIT :limit OFFSET :offset";
+        return nativeQuery(sql, Permission.class)
+                .setParameter("pattern", search.getLikePattern())
+                .setParameter("term", search.getTerm())
+                .setParameter("limit", search.getFetchLimit())
+                .setParameter("offset", search.getOffset())
+                .getResultList();
+    }
+
+    /**
+     * Parcours en flux des libellés (id, nom) pour l'index d'autocomplétion
+     * <p>
+     * Le flux doit être consommé et fermé dans la transaction appelante.
+     */
+    public Stream<Object[]> streamLabels() {
+        return namedQuery(Permission.STREAM_LABELS, Object[].class).getResultStream();
     }
-}
\ No newline at end of file
+}
@@ -4,9 +4,12 @@ import com.archer.cbs.authservice.entity.Person;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Stateless
+@Measured
 public class PersonDAO extends BaseDAO<Person> {
 
     public PersonDAO() {
@@ -18,8 +21,7 @@ public class PersonDAO extends BaseDAO<Person> {
      */
     public Optional<Person> findByEmail(String email) {
         try {
-            String jpql = "SELECT p FROM Person p WHERE p.email = :email";
-            TypedQuery<Person> query = entityManager.createQuery(jpql, Person.class);
+            TypedQuery<Person> query = namedQuery(Person.FIND_BY_EMAIL, Person.class);
             query.setParameter("email", email);
             return Optional.of(query.getSingleResult());
         } catch (NoResultException e) {
@@ -32,8 +34,7 @@ public class PersonDAO extends BaseDAO<Person> {
      */
     public Optional<Person> findByPhone(String phone) {
         try {
-            String jpql = "SELECT p FROM Person p WHERE p.phone = :phone";
-            TypedQuery<Person> query = entityManager.createQuery(jpql, Person.class);
+            TypedQuery<Person> query = namedQuery(Person.FIND_BY_PHONE, Person.class);
             query.setParameter("phone", phone);
             return Optional.of(query.getSingleResult());
         } catch (NoResultException e) {
@@ -42,23 +43,46 @@ public class PersonDAO extends BaseDAO<Person> {
     }
 
     /**
-     * Rechercher des personnes par nom (partiel)
+     * Texte de recherche indexé par idx_persons_search_trgm (expression identique)
      */
-    public java.util.List<Person> searchByFirstName(String firstName) {
-        String jpql = "SELECT p FROM Person p WHERE LOWER(p.firstName) LIKE LOWER(:firstName)";
-        TypedQuery<Person> query = entityManager.createQuery(jpql, Person.class);
-        query.setParameter("firstName", "%" + firstName + "%");
-        return query.getResultList();
+    private static final String SEARCH_TEXT =
+            "lower(coalesce(p.first_name, '') || ' ' || coalesce(p.last_name, '') || ' ' || " +
+            "coalesce(p.email, '') || ' ' || coalesce(p.phone, ''))";
+
+    /**
+     * Recherche floue sur prénom, nom, email et téléphone (index trigrammes)
+     * <p>
+     * Sous-chaîne exacte ou mot proche, classés par similarité décroissante.
+     * Renvoie jusqu'à {@link SearchQuery#getFetchLimit()} lignes.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Person> search(SearchQuery search) {
+        String sql = "SELECT p.* FROM persons p " +
+                "WHERE " + SEARCH_TEXT + " LIKE :pattern OR " + SEARCH_TEXT + " %> :term " +
+                "ORDER BY word_similarity(:term, " + SEARCH_TEXT + ") DESC, p.id " +
+                "LIMIT :limit OFFSET :offset";
+        return nativeQuery(sql, Person.class)
+                .setParameter("pattern", search.getLikePattern())
+                .setParameter("term", search.getTerm())
+                .setParameter("limit", search.getFetchLimit())
+                .setParameter("offset", search.getOffset())
+                .getResultList();
     }
 
     /**
      * Vérifier si un email existe déjà
      */
     public boolean emailExists(String email) {
-        String jpql = "SELECT COUNT(p) FROM Person p WHERE p.email = :email";
-        Long count = entityManager.createQuery(jpql, Long.class)
-                .setParameter("email", email)
-                .getSingleResult();
-        return count > 0;
+        return exists(namedQuery(Person.EXISTS_BY_EMAIL, Integer.class)
+                .setParameter("email", email));
+    }
+
+    /**
+     * Parcours en flux des libellés (id, prénom, nom) pour l'index d'autocomplétion
+     * <p>
+     * Le flux doit être consommé et fermé dans la transaction appelante.
+     */
+    public Stream<Object[]> streamLabels() {
+        return namedQuery(Person.STREAM_LABELS, Object[].class).getResultStream();
     }
 }
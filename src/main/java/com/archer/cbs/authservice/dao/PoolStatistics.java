@@ -0,0 +1,105 @@
+package com.archer.cbs.authservice.dao;
+
+import com.archer.cbs.authservice.config.Settings;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.Attribute;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Statistiques du pool de connexions {@code java:/PostgresDS}, lues en JMX sur WildFly
+ * <p>
+ * Le pool appartient au conteneur (Hibernate y emprunte ses connexions) : ses propres
+ * compteurs couvrent tous les emprunts, attente comprise. Nécessite
+ * {@code statistics-enabled=true} sur la datasource (voir
+ * {@code src/main/wildfly/postgres-ds-tuning.cli}) ; sans quoi les valeurs restent à 0.
+ * Nom de la datasource : {@code auth.datasource.name} (défaut {@code PostgresDS}).
+ */
+@ApplicationScoped
+public class PoolStatistics {
+
+    private static final Logger LOGGER = Logger.getLogger(PoolStatistics.class.getName());
+
+    // Connexions et attente à l'emprunt (durées en ms)
+    private static final String[] POOL_ATTRIBUTES = {
+            "ActiveCount", "AvailableCount", "InUseCount", "IdleCount", "MaxUsedCount",
+            "WaitCount", "MaxWaitCount", "AverageBlockingTime", "MaxWaitTime", "TotalBlockingTime",
+            "AverageGetTime", "MaxGetTime", "TimedOut", "BlockingFailureCount"
+    };
+
+    // Cache d'instructions préparées du pool (prepared-statements-cache-size)
+    private static final String[] JDBC_ATTRIBUTES = {
+            "PreparedStatementCacheAccessCount", "PreparedStatementCacheHitCount",
+            "PreparedStatementCacheMissCount", "PreparedStatementCacheCurrentSize"
+    };
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    private final ObjectName poolName;
+
+    private final ObjectName jdbcName;
+
+    public PoolStatistics() {
+        String dataSource = Settings.get("auth.datasource.name", "PostgresDS");
+        poolName = objectName(dataSource, "pool");
+        jdbcName = objectName(dataSource, "jdbc");
+    }
+
+    /**
+     * Compteurs courants (exposés sur /metrics) ; {@code available=false} hors WildFly
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        try {
+            stats.put("pool", read(poolName, POOL_ATTRIBUTES));
+            stats.put("statements", read(jdbcName, JDBC_ATTRIBUTES));
+            stats.put("available", true);
+        } catch (InstanceNotFoundException e) {
+            stats.clear();
+            stats.put("available", false);
+        } catch (JMException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Lecture des statistiques du pool impossible", e);
+            stats.clear();
+            stats.put("available", false);
+        }
+        return stats;
+    }
+
+    /**
+     * Lit les attributs présents ; selon la version, la façade JMX de WildFly les nomme
+     * {@code ActiveCount} ou {@code activeCount}, les deux formes sont demandées
+     */
+    private Map<String, Object> read(ObjectName name, String[] attributes) throws JMException {
+        String[] requested = new String[attributes.length * 2];
+        for (int i = 0; i < attributes.length; i++) {
+            requested[2 * i] = attributes[i];
+            requested[2 * i + 1] = lowerCamel(attributes[i]);
+        }
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Attribute attribute : server.getAttributes(name, requested).asList()) {
+            values.put(lowerCamel(attribute.getName()), attribute.getValue());
+        }
+        return values;
+    }
+
+    private static String lowerCamel(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static ObjectName objectName(String dataSource, String statistics) {
+        try {
+            return new ObjectName("jboss.as:subsystem=datasources,data-source=" + dataSource
+                    + ",statistics=" + statistics);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("auth.datasource.name invalide : " + dataSource, e);
+        }
+    }
+}
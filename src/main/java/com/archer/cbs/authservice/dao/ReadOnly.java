@@ -0,0 +1,22 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.interceptor.InterceptorBinding;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marque une méthode de service en lecture seule
+ * <p>
+ * Les requêtes exécutées pendant l'appel ne déclenchent aucun flush, les entités
+ * chargées ne sont pas suivies par Hibernate et, si le réplica est activé et à jour,
+ * elles sont routées vers la datasource de lecture.
+ *
+ * @see ReadOnlyInterceptor
+ */
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface ReadOnly {
+}
@@ -0,0 +1,43 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Contexte de lecture seule attaché au thread courant
+ * <p>
+ * Positionné par {@link ReadOnlyInterceptor} et consulté par {@link BaseDAO}
+ * pour choisir l'EntityManager et les hints des requêtes.
+ */
+final class ReadOnlyContext {
+
+    private static final ThreadLocal<ReadOnlyContext> CURRENT = new ThreadLocal<>();
+
+    private final EntityManager replicaEntityManager;
+
+    private ReadOnlyContext(EntityManager replicaEntityManager) {
+        this.replicaEntityManager = replicaEntityManager;
+    }
+
+    static ReadOnlyContext current() {
+        return CURRENT.get();
+    }
+
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    static void enter(EntityManager replicaEntityManager) {
+        CURRENT.set(new ReadOnlyContext(replicaEntityManager));
+    }
+
+    static void exit() {
+        CURRENT.remove();
+    }
+
+    /**
+     * EntityManager du réplica, ou null si la lecture se fait sur le primaire
+     */
+    EntityManager getReplicaEntityManager() {
+        return replicaEntityManager;
+    }
+}
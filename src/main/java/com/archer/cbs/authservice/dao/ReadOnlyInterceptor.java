@@ -0,0 +1,53 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.annotation.Priority;
+import jakarta.annotation.Resource;
+import jakarta.inject.Inject;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.Interceptor;
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Intercepteur des méthodes {@link ReadOnly}
+ * <p>
+ * Si aucune transaction n'est déjà en cours, ouvre un EntityManager sur le réplica
+ * (quand {@link ReplicaRouter} l'autorise) pour la durée de l'appel. Dans une
+ * transaction existante l'intercepteur ne fait rien : on reste sur le primaire, sans
+ * hints de lecture seule, pour voir ses propres écritures.
+ */
+@ReadOnly
+@Interceptor
+@Priority(Interceptor.Priority.APPLICATION)
+public class ReadOnlyInterceptor {
+
+    @Inject
+    private ReplicaRouter replicaRouter;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @AroundInvoke
+    public Object route(InvocationContext context) throws Exception {
+        // Appel imbriqué : le contexte de l'appel englobant s'applique. Dans une transaction,
+        // aucun hint de lecture seule : les entités doivent rester suivies et le flush
+        // automatique s'appliquer avant les requêtes
+        if (ReadOnlyContext.isActive()
+                || transactionRegistry.getTransactionStatus() != Status.STATUS_NO_TRANSACTION) {
+            return context.proceed();
+        }
+
+        EntityManager replica = replicaRouter.openReadEntityManager();
+        ReadOnlyContext.enter(replica);
+        try {
+            return context.proceed();
+        } finally {
+            ReadOnlyContext.exit();
+            if (replica != null) {
+                replica.close();
+            }
+        }
+    }
+}
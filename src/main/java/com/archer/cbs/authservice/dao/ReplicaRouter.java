@@ -0,0 +1,132 @@
+package com.archer.cbs.authservice.dao;
+
+import com.archer.cbs.authservice.config.Settings;
+import jakarta.annotation.PreDestroy;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.Persistence;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Routage des lectures vers un réplica PostgreSQL en streaming
+ * <p>
+ * Désactivé par défaut. Avec {@code auth.replica.enabled=true}, l'unité de persistance
+ * {@code AuthReplicaPU} (datasource {@code java:/PostgresReplicaDS}) est démarrée au
+ * premier besoin. Le retard de réplication est mesuré au plus toutes les
+ * {@code auth.replica.check-interval-ms} ; au-delà de {@code auth.replica.max-lag-ms},
+ * ou si le réplica ne répond pas, les lectures retombent sur le primaire.
+ */
+@Singleton
+@Lock(LockType.READ)
+public class ReplicaRouter {
+
+    private static final Logger LOGGER = Logger.getLogger(ReplicaRouter.class.getName());
+
+    private static final String REPLICA_UNIT = "AuthReplicaPU";
+
+    /**
+     * Retard de rejeu en millisecondes, nul si le réplica a rejoué tout le WAL reçu
+     * (évite de compter comme retard l'inactivité du primaire)
+     */
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() " +
+            "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final boolean enabled = Settings.getBoolean("auth.replica.enabled", false);
+
+    private final long maxLagMillis = Settings.getLong("auth.replica.max-lag-ms", 5000);
+
+    private final long checkIntervalMillis = Settings.getLong("auth.replica.check-interval-ms", 2000);
+
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    private volatile EntityManagerFactory replicaFactory;
+
+    private volatile boolean healthy;
+
+    private volatile long lastCheck;
+
+    private volatile long lastLagMillis = -1;
+
+    /**
+     * Ouvre un EntityManager en lecture seule sur le réplica
+     *
+     * @return l'EntityManager à fermer par l'appelant, ou null pour lire sur le primaire
+     */
+    public EntityManager openReadEntityManager() {
+        if (!enabled) {
+            return null;
+        }
+
+        refreshHealthIfDue();
+        if (!healthy) {
+            return null;
+        }
+
+        EntityManager em = replicaFactory.createEntityManager();
+        em.setFlushMode(FlushModeType.COMMIT);
+        em.setProperty(BaseDAO.HINT_FLUSH_MODE, "MANUAL");
+        return em;
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public boolean isHealthy() { return healthy; }
+
+    public long getLastLagMillis() { return lastLagMillis; }
+
+    /**
+     * Remesure le retard si l'intervalle est écoulé ; un seul thread s'en charge,
+     * les autres utilisent le dernier état connu
+     */
+    private void refreshHealthIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastCheck < checkIntervalMillis || !checking.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            if (replicaFactory == null) {
+                replicaFactory = Persistence.createEntityManagerFactory(REPLICA_UNIT);
+            }
+
+            EntityManager em = replicaFactory.createEntityManager();
+            try {
+                Number lag = (Number) em.createNativeQuery(LAG_SQL).getSingleResult();
+                lastLagMillis = lag.longValue();
+            } finally {
+                em.close();
+            }
+
+            boolean wasHealthy = healthy;
+            healthy = lastLagMillis <= maxLagMillis;
+            if (wasHealthy != healthy) {
+                LOGGER.log(Level.INFO, "Réplica {0} (retard {1} ms)",
+                        new Object[]{healthy ? "utilisé" : "ignoré", lastLagMillis});
+            }
+        } catch (RuntimeException e) {
+            if (healthy || lastCheck == 0) {
+                LOGGER.log(Level.WARNING, "Réplica indisponible, lectures sur le primaire", e);
+            }
+            healthy = false;
+            lastLagMillis = -1;
+        } finally {
+            lastCheck = System.currentTimeMillis();
+            checking.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (replicaFactory != null && replicaFactory.isOpen()) {
+            replicaFactory.close();
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.archer.cbs.authservice.dao;
 
 import com.archer.cbs.authservice.entity.Role;
-import com.archer.cbs.authservice.entity.Permission;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Stateless
+@Measured
 public class RoleDAO extends BaseDAO<Role> {
 
     public RoleDAO() {
@@ -21,8 +25,7 @@ public class RoleDAO extends BaseDAO<Role> {
     public Optional<Role> findByNom(String name) {
 
         try {
-            String jpql = "SELECT r FROM Role r WHERE r.name = :name";
-            TypedQuery<Role> query = entityManager.createQuery(jpql, Role.class);
+            TypedQuery<Role> query = namedQuery(Role.FIND_BY_NAME, Role.class);
             query.setParameter("name", name);
 
             return Optional.of(query.getSingleResult());
@@ -37,8 +40,7 @@ public class RoleDAO extends BaseDAO<Role> {
      */
     public Optional<Role> findByIdWithPermissions(Long id) {
         try {
-            String jpql = "SELECT r FROM Role r LEFT JOIN FETCH r.permissions WHERE r.id = :id";
-            TypedQuery<Role> query = entityManager.createQuery(jpql, Role.class);
+            TypedQuery<Role> query = namedQuery(Role.FIND_BY_ID_WITH_PERMISSIONS, Role.class);
             query.setParameter("id", id);
             return Optional.of(query.getSingleResult());
         } catch (NoResultException e) {
@@ -50,50 +52,69 @@ public class RoleDAO extends BaseDAO<Role> {
      * Récupérer tous les rôles avec leurs permissions
      */
     public List<Role> findAllWithPermissions() {
-        String jpql = "SELECT DISTINCT r FROM Role r LEFT JOIN FETCH r.permissions";
-        return entityManager.createQuery(jpql, Role.class).getResultList();
+        return namedQuery(Role.FIND_ALL_WITH_PERMISSIONS, Role.class).getResultList();
     }
 
     /**
      * Vérifier si un nom de rôle existe
      */
     public boolean roleExists(String name) {
-        String jpql = "SELECT COUNT(r) FROM Role r WHERE r.name = :name";
-        Long count = entityManager.createQuery(jpql, Long.class)
-                .setParameter("name", name)
-                .getSingleResult();
-        return count > 0;
+        return exists(namedQuery(Role.EXISTS_BY_NAME, Integer.class)
+                .setParameter("name", name));
     }
 
     /**
-     * Ajouter une permission à un rôle
+     * Ajouter une permission à un rôle, par insertion directe dans role_permissions
+     *
+     * @return 1 si la permission a été ajoutée ; 0 si le rôle ou la permission n'existe pas,
+     *         ou si la permission était déjà présente
      */
-    public void addPermission(Long roleId, Permission permission) {
-        Optional<Role> roleOpt = findById(roleId);
-        roleOpt.ifPresent(role -> {
-            role.addPermission(permission);
-            update(role);
-        });
+    public int addPermission(Long roleId, Long permissionId) {
+        String sql = "INSERT INTO role_permissions (role_id, permission_id) " +
+                "SELECT r.id, p.id FROM roles r JOIN permissions p ON p.id = :permissionId " +
+                "WHERE r.id = :roleId " +
+                "ON CONFLICT DO NOTHING";
+        return execute(entityManager.createNativeQuery(sql)
+                .setParameter("roleId", roleId)
+                .setParameter("permissionId", permissionId));
     }
 
     /**
-     * Retirer une permission d'un rôle
+     * Retirer une permission d'un rôle, par suppression directe dans role_permissions
+     *
+     * @return 1 si la permission a été retirée, 0 si elle n'était pas présente
      */
-    public void removePermission(Long roleId, Permission permission) {
-        Optional<Role> roleOpt = findById(roleId);
-        roleOpt.ifPresent(role -> {
-            role.removePermission(permission);
-            update(role);
-        });
+    public int removePermission(Long roleId, Long permissionId) {
+        String sql = "DELETE FROM role_permissions WHERE role_id = :roleId AND permission_id = :permissionId";
+        return execute(entityManager.createNativeQuery(sql)
+                .setParameter("roleId", roleId)
+                .setParameter("permissionId", permissionId));
     }
 
     /**
      * Compter le nombre d'utilisateurs ayant un rôle
      */
     public Long countUsersByRole(Long roleId) {
-        String jpql = "SELECT COUNT(u) FROM User u JOIN u.roles r WHERE r.id = :roleId";
-        return entityManager.createQuery(jpql, Long.class)
+        return namedQuery(Role.COUNT_USERS, Long.class)
                 .setParameter("roleId", roleId)
                 .getSingleResult();
     }
-}
\ No newline at end of file
+
+    /**
+     * Identifiants existants parmi ceux donnés
+     */
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        return new HashSet<>(namedQuery(Role.FIND_EXISTING_IDS, Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    /**
+     * Parcours en flux des libellés (id, nom) pour l'index d'autocomplétion
+     * <p>
+     * Le flux doit être consommé et fermé dans la transaction appelante.
+     */
+    public Stream<Object[]> streamLabels() {
+        return namedQuery(Role.STREAM_LABELS, Object[].class).getResultStream();
+    }
+}
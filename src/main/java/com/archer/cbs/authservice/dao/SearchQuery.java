@@ -0,0 +1,75 @@
+package com.archer.cbs.authservice.dao;
+
+/**
+ * Paramètres normalisés d'une recherche paginée
+ * <p>
+ * Le terme est mis en minuscules et échappé pour LIKE ; une ligne de plus que la
+ * taille de page est demandée afin de savoir s'il existe une page suivante sans COUNT.
+ */
+public final class SearchQuery {
+
+    public static final int DEFAULT_SIZE = 20;
+
+    public static final int MAX_SIZE = 100;
+
+    /** Dernière page accessible : au-delà, l'OFFSET parcourt trop de lignes pour rien */
+    public static final int MAX_PAGE = 10_000;
+
+    private final String term;
+    private final int page;
+    private final int size;
+
+    private SearchQuery(String term, int page, int size) {
+        this.term = term;
+        this.page = page;
+        this.size = size;
+    }
+
+    /**
+     * @param term Texte recherché
+     * @param page Numéro de page (à partir de 0), au plus {@link #MAX_PAGE}
+     * @param size Taille de page, bornée à {@link #MAX_SIZE}
+     */
+    public static SearchQuery of(String term, Integer page, Integer size) {
+        if (term == null || term.trim().isEmpty()) {
+            throw new IllegalArgumentException("Le terme de recherche ne peut pas être vide");
+        }
+        int p = page == null ? 0 : page;
+        int s = size == null ? DEFAULT_SIZE : size;
+        if (p < 0 || s < 1) {
+            throw new IllegalArgumentException("Pagination invalide");
+        }
+        if (p > MAX_PAGE) {
+            throw new IllegalArgumentException("Numéro de page trop grand (maximum " + MAX_PAGE + ")");
+        }
+        return new SearchQuery(term.trim().toLowerCase(), p, Math.min(s, MAX_SIZE));
+    }
+
+    public String getTerm() { return term; }
+
+    public int getPage() { return page; }
+
+    public int getSize() { return size; }
+
+    /**
+     * Motif LIKE '%terme%' avec les caractères spéciaux échappés
+     */
+    public String getLikePattern() {
+        StringBuilder pattern = new StringBuilder(term.length() + 2).append('%');
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                pattern.append('\\');
+            }
+            pattern.append(c);
+        }
+        return pattern.append('%').toString();
+    }
+
+    public long getOffset() { return (long) page * size; }
+
+    /**
+     * Nombre de lignes à lire : une de plus que la page
+     */
+    public int getFetchLimit() { return size + 1; }
+}
@@ -0,0 +1,82 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Incrément des tampons de sécurité, dans la transaction de l'appelant
+ * <p>
+ * La lecture au démarrage et la synchronisation entre nœuds passent par
+ * {@code SessionStore} (JDBC, hors transaction de requête).
+ */
+@Stateless
+@Measured
+public class SecurityStampDAO {
+
+    private static final String ON_CONFLICT =
+            " ON CONFLICT (scope, subject_id) DO UPDATE SET " +
+            "stamp = security_stamps.stamp + 1, updated_at = now(), tx_id = pg_current_xact_id() " +
+            "RETURNING subject_id, stamp";
+
+    private static final String BUMP_USERS =
+            "INSERT INTO security_stamps (scope, subject_id, stamp) " +
+            "SELECT 'U', u.id, 1 FROM users u WHERE u.id IN (:ids)" + ON_CONFLICT;
+
+    private static final String BUMP_ROLES =
+            "INSERT INTO security_stamps (scope, subject_id, stamp) " +
+            "SELECT 'R', r.id, 1 FROM roles r WHERE r.id IN (:ids)" + ON_CONFLICT;
+
+    private static final String BUMP_ROLES_BY_PERMISSION =
+            "INSERT INTO security_stamps (scope, subject_id, stamp) " +
+            "SELECT DISTINCT 'R', rp.role_id, 1 FROM role_permissions rp " +
+            "WHERE rp.permission_id = :permissionId" + ON_CONFLICT;
+
+    @PersistenceContext(unitName = "AuthPU")
+    private EntityManager entityManager;
+
+    /**
+     * Incrémente le tampon de chaque utilisateur existant parmi ceux donnés
+     *
+     * @return les paires {user_id, nouveau tampon}
+     */
+    public List<long[]> bumpUsers(Collection<Long> userIds) {
+        return pairs(entityManager.createNativeQuery(BUMP_USERS)
+                .setParameter("ids", userIds)
+                .getResultList());
+    }
+
+    /**
+     * Incrémente le tampon de chaque rôle existant parmi ceux donnés
+     *
+     * @return les paires {role_id, nouveau tampon}
+     */
+    public List<long[]> bumpRoles(Collection<Long> roleIds) {
+        return pairs(entityManager.createNativeQuery(BUMP_ROLES)
+                .setParameter("ids", roleIds)
+                .getResultList());
+    }
+
+    /**
+     * Incrémente le tampon de chaque rôle qui porte la permission
+     *
+     * @return les paires {role_id, nouveau tampon}
+     */
+    public List<long[]> bumpRolesByPermission(Long permissionId) {
+        return pairs(entityManager.createNativeQuery(BUMP_ROLES_BY_PERMISSION)
+                .setParameter("permissionId", permissionId)
+                .getResultList());
+    }
+
+    private static List<long[]> pairs(List<?> rows) {
+        List<long[]> pairs = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            pairs.add(new long[]{((Number) columns[0]).longValue(), ((Number) columns[1]).longValue()});
+        }
+        return pairs;
+    }
+}
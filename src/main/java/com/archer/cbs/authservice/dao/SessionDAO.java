@@ -0,0 +1,46 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.sql.Timestamp;
+
+/**
+ * Révocation des sessions d'un utilisateur, dans la transaction de l'appelant
+ * <p>
+ * L'écriture des sessions ouvertes et la synchronisation entre nœuds passent par
+ * {@code SessionStore} (JDBC, hors transaction de requête).
+ */
+@Stateless
+@Measured
+public class SessionDAO {
+
+    private static final String UPSERT_WATERMARK =
+            "INSERT INTO user_token_watermarks (user_id, revoked_before) VALUES (:userId, :revokedBefore) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "revoked_before = GREATEST(user_token_watermarks.revoked_before, EXCLUDED.revoked_before), " +
+            "updated_at = now(), tx_id = pg_current_xact_id()";
+
+    private static final String DELETE_SESSIONS =
+            "DELETE FROM user_sessions WHERE user_id = :userId AND issued_at < :revokedBefore";
+
+    @PersistenceContext(unitName = "AuthPU")
+    private EntityManager entityManager;
+
+    /**
+     * Place le filigrane « tokens émis avant » et supprime les sessions antérieures
+     *
+     * @return le nombre de sessions supprimées
+     */
+    public int revokeAll(Long userId, long revokedBefore) {
+        Timestamp watermark = new Timestamp(revokedBefore);
+        entityManager.createNativeQuery(UPSERT_WATERMARK)
+                .setParameter("userId", userId)
+                .setParameter("revokedBefore", watermark)
+                .executeUpdate();
+        return entityManager.createNativeQuery(DELETE_SESSIONS)
+                .setParameter("userId", userId)
+                .setParameter("revokedBefore", watermark)
+                .executeUpdate();
+    }
+}
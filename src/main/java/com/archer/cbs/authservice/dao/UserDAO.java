@@ -1,14 +1,19 @@
 package com.archer.cbs.authservice.dao;
 
 import com.archer.cbs.authservice.entity.User;
-import com.archer.cbs.authservice.entity.Role;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Stateless
+@Measured
 public class UserDAO extends BaseDAO<User> {
 
     public UserDAO() {
@@ -20,8 +25,7 @@ public class UserDAO extends BaseDAO<User> {
      */
     public Optional<User> findByUsername(String username) {
         try {
-            String jpql = "SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE u.username = :username";
-            TypedQuery<User> query = entityManager.createQuery(jpql, User.class);
+            TypedQuery<User> query = namedQuery(User.FIND_BY_USERNAME, User.class);
             query.setParameter("username", username);
             return Optional.of(query.getSingleResult());
         } catch (NoResultException e) {
@@ -35,11 +39,7 @@ public class UserDAO extends BaseDAO<User> {
     public Optional<User> findByIdWithRolesAndPermissions(Long id) {
 
         try {
-            String jpql = "SELECT DISTINCT u FROM User u " +
-                    "LEFT JOIN FETCH u.roles r " +
-                    "LEFT JOIN FETCH r.permissions " +
-                    "WHERE u.id = :id";
-            TypedQuery<User> query = entityManager.createQuery(jpql, User.class);
+            TypedQuery<User> query = namedQuery(User.FIND_BY_ID_WITH_ROLES_AND_PERMISSIONS, User.class);
             query.setParameter("id", id);
 
             return Optional.of(query.getSingleResult());
@@ -53,26 +53,21 @@ public class UserDAO extends BaseDAO<User> {
      * Récupérer tous les utilisateurs actifs
      */
     public List<User> findAllActive() {
-        String jpql = "SELECT u FROM User u WHERE u.active = true";
-        return entityManager.createQuery(jpql, User.class).getResultList();
+        return namedQuery(User.FIND_ALL_ACTIVE, User.class).getResultList();
     }
 
     /**
      * Récupérer tous les utilisateurs inactifs
      */
     public List<User> findAllInactive() {
-        String jpql = "SELECT u FROM User u WHERE u.active = false";
-        return entityManager.createQuery(jpql, User.class).getResultList();
+        return namedQuery(User.FIND_ALL_INACTIVE, User.class).getResultList();
     }
 
     /**
      * Trouver les utilisateurs par rôle
      */
     public List<User> findByRole(String roleName) {
-        String jpql = "SELECT DISTINCT u FROM User u " +
-                "JOIN u.roles r " +
-                "WHERE r.name = :roleName";
-        TypedQuery<User> query = entityManager.createQuery(jpql, User.class);
+        TypedQuery<User> query = namedQuery(User.FIND_BY_ROLE, User.class);
         query.setParameter("roleName", roleName);
         return query.getResultList();
     }
@@ -81,43 +76,125 @@ public class UserDAO extends BaseDAO<User> {
      * Vérifier si un username existe
      */
     public boolean usernameExists(String username) {
-        String jpql = "SELECT COUNT(u) FROM User u WHERE u.username = :username";
-        Long count = entityManager.createQuery(jpql, Long.class)
-                .setParameter("username", username)
-                .getSingleResult();
-        return count > 0;
+        return exists(namedQuery(User.EXISTS_BY_USERNAME, Integer.class)
+                .setParameter("username", username));
     }
 
     /**
-     * Activer/désactiver un utilisateur
+     * Activer/désactiver un utilisateur, en une instruction UPDATE sans chargement
+     *
+     * @return le nombre de lignes modifiées (0 si l'utilisateur n'existe pas)
      */
-    public void toggleUserStatus(Long userId) {
-        Optional<User> userOpt = findById(userId);
-        userOpt.ifPresent(user -> {
-            user.setActive(!user.getActive());
-            update(user);
-        });
+    public int toggleUserStatus(Long userId) {
+        return execute(entityManager.createNamedQuery(User.TOGGLE_ACTIVE)
+                .setParameter("id", userId));
     }
 
     /**
-     * Ajouter un rôle à un utilisateur
+     * Ajouter un rôle à un utilisateur, par insertion directe dans user_roles
+     *
+     * @return 1 si le rôle a été attribué ; 0 si l'utilisateur ou le rôle n'existe pas,
+     *         ou si le rôle était déjà attribué
      */
-    public void addRole(Long userId, Role role) {
-        Optional<User> userOpt = findById(userId);
-        userOpt.ifPresent(user -> {
-            user.addRole(role);
-            update(user);
-        });
+    public int addRole(Long userId, Long roleId) {
+        String sql = "INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, r.id FROM users u JOIN roles r ON r.id = :roleId " +
+                "WHERE u.id = :userId " +
+                "ON CONFLICT DO NOTHING";
+        return execute(entityManager.createNativeQuery(sql)
+                .setParameter("userId", userId)
+                .setParameter("roleId", roleId));
     }
 
     /**
-     * Retirer un rôle d'un utilisateur
+     * Retirer un rôle d'un utilisateur, par suppression directe dans user_roles
+     *
+     * @return 1 si le rôle a été retiré, 0 s'il n'était pas attribué
      */
-    public void removeRole(Long userId, Role role) {
-        Optional<User> userOpt = findById(userId);
-        userOpt.ifPresent(user -> {
-            user.removeRole(role);
-            update(user);
-        });
+    public int removeRole(Long userId, Long roleId) {
+        String sql = "DELETE FROM user_roles WHERE user_id = :userId AND role_id = :roleId";
+        return execute(entityManager.createNativeQuery(sql)
+                .setParameter("userId", userId)
+                .setParameter("roleId", roleId));
+    }
+
+    /**
+     * Identifiant de l'utilisateur associé à une personne
+     */
+    public Optional<Long> findIdByPerson(Long personId) {
+        return namedQuery(User.FIND_ID_BY_PERSON, Long.class)
+                .setParameter("personId", personId)
+                .getResultStream()
+                .findFirst();
+    }
+
+    /**
+     * Supprimer l'utilisateur associé à une personne (ses rôles avec lui)
+     *
+     * @return le nombre de lignes supprimées
+     */
+    public int deleteByPerson(Long personId) {
+        return execute(entityManager.createNamedQuery(User.DELETE_BY_PERSON)
+                .setParameter("personId", personId));
+    }
+
+    /**
+     * Attribue chaque rôle à chaque utilisateur en une instruction ; les paires déjà présentes
+     * sont ignorées (index unique ux_user_roles_user_role)
+     *
+     * @return les paires {user_id, role_id} réellement insérées
+     */
+    public List<long[]> insertUserRoles(Collection<Long> userIds, Collection<Long> roleIds) {
+        String sql = "INSERT INTO user_roles (user_id, role_id) " +
+                "SELECT u.id, r.id FROM users u JOIN roles r ON r.id IN (:roleIds) " +
+                "WHERE u.id IN (:userIds) " +
+                "ON CONFLICT DO NOTHING " +
+                "RETURNING user_id, role_id";
+        return pairs(entityManager.createNativeQuery(sql)
+                .setParameter("userIds", userIds)
+                .setParameter("roleIds", roleIds)
+                .getResultList());
+    }
+
+    /**
+     * Retire chaque rôle de chaque utilisateur en une instruction
+     *
+     * @return les paires {user_id, role_id} réellement supprimées
+     */
+    public List<long[]> deleteUserRoles(Collection<Long> userIds, Collection<Long> roleIds) {
+        String sql = "DELETE FROM user_roles " +
+                "WHERE user_id IN (:userIds) AND role_id IN (:roleIds) " +
+                "RETURNING user_id, role_id";
+        return pairs(entityManager.createNativeQuery(sql)
+                .setParameter("userIds", userIds)
+                .setParameter("roleIds", roleIds)
+                .getResultList());
+    }
+
+    /**
+     * Identifiants existants parmi ceux donnés
+     */
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        return new HashSet<>(namedQuery(User.FIND_EXISTING_IDS, Long.class)
+                .setParameter("ids", ids)
+                .getResultList());
+    }
+
+    private static List<long[]> pairs(List<?> rows) {
+        List<long[]> pairs = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            pairs.add(new long[]{((Number) columns[0]).longValue(), ((Number) columns[1]).longValue()});
+        }
+        return pairs;
+    }
+
+    /**
+     * Parcours en flux des libellés (id, username) pour l'index d'autocomplétion
+     * <p>
+     * Le flux doit être consommé et fermé dans la transaction appelante.
+     */
+    public Stream<Object[]> streamLabels() {
+        return namedQuery(User.STREAM_LABELS, Object[].class).getResultStream();
     }
 }
@@ -0,0 +1,29 @@
+package com.archer.cbs.authservice.dto;
+
+public class AutocompleteHitDTO {
+    private String type;
+    private long id;
+    private String label;
+
+    // Constructeurs
+    public AutocompleteHitDTO() {}
+
+    public AutocompleteHitDTO(String type, long id, String label) {
+        this.type = type;
+        this.id = id;
+        this.label = label;
+    }
+
+    // Getters et Setters
+    public String getType() { return type; }
+
+    public void setType(String type) { this.type = type; }
+
+    public long getId() { return id; }
+
+    public void setId(long id) { this.id = id; }
+
+    public String getLabel() { return label; }
+
+    public void setLabel(String label) { this.label = label; }
+}
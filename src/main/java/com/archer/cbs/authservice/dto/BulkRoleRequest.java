@@ -0,0 +1,26 @@
+package com.archer.cbs.authservice.dto;
+
+import java.util.List;
+
+/**
+ * Attribution ou retrait groupé : chaque rôle de {@code roleIds} pour chaque utilisateur de {@code userIds}
+ */
+public class BulkRoleRequest {
+    private List<Long> userIds;
+    private List<Long> roleIds;
+
+    // Constructeurs
+    public BulkRoleRequest() {}
+
+    public BulkRoleRequest(List<Long> userIds, List<Long> roleIds) {
+        this.userIds = userIds;
+        this.roleIds = roleIds;
+    }
+
+    // Getters et Setters
+    public List<Long> getUserIds() { return userIds; }
+    public void setUserIds(List<Long> userIds) { this.userIds = userIds; }
+
+    public List<Long> getRoleIds() { return roleIds; }
+    public void setRoleIds(List<Long> roleIds) { this.roleIds = roleIds; }
+}
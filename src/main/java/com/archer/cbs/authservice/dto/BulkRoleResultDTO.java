@@ -0,0 +1,66 @@
+package com.archer.cbs.authservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat d'une attribution ou d'un retrait groupé, avec le statut de chaque paire (utilisateur, rôle)
+ */
+public class BulkRoleResultDTO {
+
+    public enum Status {
+        ADDED,
+        ALREADY_ASSIGNED,
+        REMOVED,
+        NOT_ASSIGNED,
+        USER_NOT_FOUND,
+        ROLE_NOT_FOUND
+    }
+
+    public static class Item {
+        private Long userId;
+        private Long roleId;
+        private Status status;
+
+        public Item() {}
+
+        public Item(Long userId, Long roleId, Status status) {
+            this.userId = userId;
+            this.roleId = roleId;
+            this.status = status;
+        }
+
+        public Long getUserId() { return userId; }
+        public void setUserId(Long userId) { this.userId = userId; }
+
+        public Long getRoleId() { return roleId; }
+        public void setRoleId(Long roleId) { this.roleId = roleId; }
+
+        public Status getStatus() { return status; }
+        public void setStatus(Status status) { this.status = status; }
+    }
+
+    private int changed;
+    private int affectedUsers;
+    private List<Item> items = new ArrayList<>();
+
+    // Constructeurs
+    public BulkRoleResultDTO() {}
+
+    public void add(Long userId, Long roleId, Status status) {
+        items.add(new Item(userId, roleId, status));
+        if (status == Status.ADDED || status == Status.REMOVED) {
+            changed++;
+        }
+    }
+
+    // Getters et Setters
+    public int getChanged() { return changed; }
+    public void setChanged(int changed) { this.changed = changed; }
+
+    public int getAffectedUsers() { return affectedUsers; }
+    public void setAffectedUsers(int affectedUsers) { this.affectedUsers = affectedUsers; }
+
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+}
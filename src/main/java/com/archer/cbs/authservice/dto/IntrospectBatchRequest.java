@@ -0,0 +1,18 @@
+package com.archer.cbs.authservice.dto;
+
+import java.util.List;
+
+public class IntrospectBatchRequest {
+    private List<String> tokens;
+
+    // Constructeurs
+    public IntrospectBatchRequest() {}
+
+    public IntrospectBatchRequest(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    // Getters et Setters
+    public List<String> getTokens() { return tokens; }
+    public void setTokens(List<String> tokens) { this.tokens = tokens; }
+}
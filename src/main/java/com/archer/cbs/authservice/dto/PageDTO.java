@@ -0,0 +1,51 @@
+package com.archer.cbs.authservice.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class PageDTO<T> {
+    private List<T> items;
+    private int page;
+    private int size;
+    private boolean hasMore;
+
+    // Constructeurs
+    public PageDTO() {}
+
+    public PageDTO(List<T> items, int page, int size, boolean hasMore) {
+        this.items = items;
+        this.page = page;
+        this.size = size;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Construit une page à partir de lignes lues avec une ligne en trop
+     */
+    public static <T> PageDTO<T> fromOverfetch(List<T> rows, int page, int size) {
+        boolean hasMore = rows.size() > size;
+        return new PageDTO<>(hasMore ? rows.subList(0, size) : rows, page, size, hasMore);
+    }
+
+    public <R> PageDTO<R> map(Function<T, R> mapper) {
+        return new PageDTO<>(items.stream().map(mapper).collect(Collectors.toList()), page, size, hasMore);
+    }
+
+    // Getters et Setters
+    public List<T> getItems() { return items; }
+
+    public void setItems(List<T> items) { this.items = items; }
+
+    public int getPage() { return page; }
+
+    public void setPage(int page) { this.page = page; }
+
+    public int getSize() { return size; }
+
+    public void setSize(int size) { this.size = size; }
+
+    public boolean isHasMore() { return hasMore; }
+
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -7,8 +7,46 @@ import java.util.Set;
 
 @Entity
 @Table(name = "permissions")
+@NamedQueries({
+        @NamedQuery(name = Permission.FIND_ALL,
+                query = "SELECT p FROM Permission p"),
+        @NamedQuery(name = Permission.COUNT,
+                query = "SELECT COUNT(p) FROM Permission p"),
+        @NamedQuery(name = Permission.EXISTS_BY_ID,
+                query = "SELECT 1 FROM Permission p WHERE p.id = :id"),
+        @NamedQuery(name = Permission.DELETE_BY_ID,
+                query = "DELETE FROM Permission p WHERE p.id = :id"),
+        @NamedQuery(name = Permission.FIND_BY_NAME,
+                query = "SELECT p FROM Permission p WHERE p.name = :name"),
+        @NamedQuery(name = Permission.FIND_BY_ROLE_ID,
+                query = "SELECT p FROM Permission p JOIN p.roles r WHERE r.id = :roleId"),
+        @NamedQuery(name = Permission.FIND_BY_USER_ID,
+                query = "SELECT DISTINCT p FROM Permission p " +
+                        "JOIN p.roles r " +
+                        "JOIN r.users u " +
+                        "WHERE u.id = :userId"),
+        @NamedQuery(name = Permission.EXISTS_BY_NAME,
+                query = "SELECT 1 FROM Permission p WHERE p.name = :name"),
+        @NamedQuery(name = Permission.COUNT_ROLES,
+                query = "SELECT COUNT(r) FROM Role r JOIN r.permissions p WHERE p.id = :permissionId"),
+        @NamedQuery(name = Permission.STREAM_LABELS,
+                query = "SELECT p.id, p.name FROM Permission p",
+                hints = @QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+})
 public class Permission {
 
+    // Requêtes nommées, analysées et validées au déploiement
+    public static final String FIND_ALL = "Permission.findAll";
+    public static final String COUNT = "Permission.count";
+    public static final String EXISTS_BY_ID = "Permission.existsById";
+    public static final String DELETE_BY_ID = "Permission.deleteById";
+    public static final String FIND_BY_NAME = "Permission.findByName";
+    public static final String FIND_BY_ROLE_ID = "Permission.findByRoleId";
+    public static final String FIND_BY_USER_ID = "Permission.findByUserId";
+    public static final String EXISTS_BY_NAME = "Permission.existsByName";
+    public static final String COUNT_ROLES = "Permission.countRoles";
+    public static final String STREAM_LABELS = "Permission.streamLabels";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -9,8 +9,37 @@ import java.util.Set;
 
 @Entity
 @Table(name = "persons")
+@NamedQueries({
+        @NamedQuery(name = Person.FIND_ALL,
+                query = "SELECT p FROM Person p"),
+        @NamedQuery(name = Person.COUNT,
+                query = "SELECT COUNT(p) FROM Person p"),
+        @NamedQuery(name = Person.EXISTS_BY_ID,
+                query = "SELECT 1 FROM Person p WHERE p.id = :id"),
+        @NamedQuery(name = Person.DELETE_BY_ID,
+                query = "DELETE FROM Person p WHERE p.id = :id"),
+        @NamedQuery(name = Person.FIND_BY_EMAIL,
+                query = "SELECT p FROM Person p WHERE p.email = :email"),
+        @NamedQuery(name = Person.FIND_BY_PHONE,
+                query = "SELECT p FROM Person p WHERE p.phone = :phone"),
+        @NamedQuery(name = Person.EXISTS_BY_EMAIL,
+                query = "SELECT 1 FROM Person p WHERE p.email = :email"),
+        @NamedQuery(name = Person.STREAM_LABELS,
+                query = "SELECT p.id, p.firstName, p.lastName FROM Person p",
+                hints = @QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+})
 public class Person {
 
+    // Requêtes nommées, analysées et validées au déploiement
+    public static final String FIND_ALL = "Person.findAll";
+    public static final String COUNT = "Person.count";
+    public static final String EXISTS_BY_ID = "Person.existsById";
+    public static final String DELETE_BY_ID = "Person.deleteById";
+    public static final String FIND_BY_EMAIL = "Person.findByEmail";
+    public static final String FIND_BY_PHONE = "Person.findByPhone";
+    public static final String EXISTS_BY_EMAIL = "Person.existsByEmail";
+    public static final String STREAM_LABELS = "Person.streamLabels";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
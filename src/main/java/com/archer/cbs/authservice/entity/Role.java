@@ -7,8 +7,46 @@ import java.util.Set;
 
 @Entity
 @Table(name = "roles")
+@NamedQueries({
+        @NamedQuery(name = Role.FIND_ALL,
+                query = "SELECT r FROM Role r"),
+        @NamedQuery(name = Role.COUNT,
+                query = "SELECT COUNT(r) FROM Role r"),
+        @NamedQuery(name = Role.EXISTS_BY_ID,
+                query = "SELECT 1 FROM Role r WHERE r.id = :id"),
+        @NamedQuery(name = Role.DELETE_BY_ID,
+                query = "DELETE FROM Role r WHERE r.id = :id"),
+        @NamedQuery(name = Role.FIND_BY_NAME,
+                query = "SELECT r FROM Role r WHERE r.name = :name"),
+        @NamedQuery(name = Role.FIND_BY_ID_WITH_PERMISSIONS,
+                query = "SELECT r FROM Role r LEFT JOIN FETCH r.permissions WHERE r.id = :id"),
+        @NamedQuery(name = Role.FIND_ALL_WITH_PERMISSIONS,
+                query = "SELECT DISTINCT r FROM Role r LEFT JOIN FETCH r.permissions"),
+        @NamedQuery(name = Role.EXISTS_BY_NAME,
+                query = "SELECT 1 FROM Role r WHERE r.name = :name"),
+        @NamedQuery(name = Role.COUNT_USERS,
+                query = "SELECT COUNT(u) FROM User u JOIN u.roles r WHERE r.id = :roleId"),
+        @NamedQuery(name = Role.FIND_EXISTING_IDS,
+                query = "SELECT r.id FROM Role r WHERE r.id IN :ids"),
+        @NamedQuery(name = Role.STREAM_LABELS,
+                query = "SELECT r.id, r.name FROM Role r",
+                hints = @QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+})
 public class Role {
 
+    // Requêtes nommées, analysées et validées au déploiement
+    public static final String FIND_ALL = "Role.findAll";
+    public static final String COUNT = "Role.count";
+    public static final String EXISTS_BY_ID = "Role.existsById";
+    public static final String DELETE_BY_ID = "Role.deleteById";
+    public static final String FIND_BY_NAME = "Role.findByName";
+    public static final String FIND_BY_ID_WITH_PERMISSIONS = "Role.findByIdWithPermissions";
+    public static final String FIND_ALL_WITH_PERMISSIONS = "Role.findAllWithPermissions";
+    public static final String EXISTS_BY_NAME = "Role.existsByName";
+    public static final String COUNT_USERS = "Role.countUsers";
+    public static final String FIND_EXISTING_IDS = "Role.findExistingIds";
+    public static final String STREAM_LABELS = "Role.streamLabels";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -7,8 +7,61 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@NamedQueries({
+        @NamedQuery(name = User.FIND_ALL,
+                query = "SELECT u FROM User u"),
+        @NamedQuery(name = User.COUNT,
+                query = "SELECT COUNT(u) FROM User u"),
+        @NamedQuery(name = User.EXISTS_BY_ID,
+                query = "SELECT 1 FROM User u WHERE u.id = :id"),
+        @NamedQuery(name = User.DELETE_BY_ID,
+                query = "DELETE FROM User u WHERE u.id = :id"),
+        @NamedQuery(name = User.FIND_BY_USERNAME,
+                query = "SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE u.username = :username"),
+        @NamedQuery(name = User.FIND_BY_ID_WITH_ROLES_AND_PERMISSIONS,
+                query = "SELECT DISTINCT u FROM User u " +
+                        "LEFT JOIN FETCH u.roles r " +
+                        "LEFT JOIN FETCH r.permissions " +
+                        "WHERE u.id = :id"),
+        @NamedQuery(name = User.FIND_ALL_ACTIVE,
+                query = "SELECT u FROM User u WHERE u.active = true"),
+        @NamedQuery(name = User.FIND_ALL_INACTIVE,
+                query = "SELECT u FROM User u WHERE u.active = false"),
+        @NamedQuery(name = User.FIND_BY_ROLE,
+                query = "SELECT DISTINCT u FROM User u JOIN u.roles r WHERE r.name = :roleName"),
+        @NamedQuery(name = User.EXISTS_BY_USERNAME,
+                query = "SELECT 1 FROM User u WHERE u.username = :username"),
+        @NamedQuery(name = User.TOGGLE_ACTIVE,
+                query = "UPDATE User u SET u.active = NOT u.active WHERE u.id = :id"),
+        @NamedQuery(name = User.FIND_ID_BY_PERSON,
+                query = "SELECT u.id FROM User u WHERE u.person.id = :personId"),
+        @NamedQuery(name = User.DELETE_BY_PERSON,
+                query = "DELETE FROM User u WHERE u.person.id = :personId"),
+        @NamedQuery(name = User.FIND_EXISTING_IDS,
+                query = "SELECT u.id FROM User u WHERE u.id IN :ids"),
+        @NamedQuery(name = User.STREAM_LABELS,
+                query = "SELECT u.id, u.username FROM User u",
+                hints = @QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+})
 public class User {
 
+    // Requêtes nommées, analysées et validées au déploiement
+    public static final String FIND_ALL = "User.findAll";
+    public static final String COUNT = "User.count";
+    public static final String EXISTS_BY_ID = "User.existsById";
+    public static final String DELETE_BY_ID = "User.deleteById";
+    public static final String FIND_BY_USERNAME = "User.findByUsername";
+    public static final String FIND_BY_ID_WITH_ROLES_AND_PERMISSIONS = "User.findByIdWithRolesAndPermissions";
+    public static final String FIND_ALL_ACTIVE = "User.findAllActive";
+    public static final String FIND_ALL_INACTIVE = "User.findAllInactive";
+    public static final String FIND_BY_ROLE = "User.findByRole";
+    public static final String EXISTS_BY_USERNAME = "User.existsByUsername";
+    public static final String TOGGLE_ACTIVE = "User.toggleActive";
+    public static final String FIND_ID_BY_PERSON = "User.findIdByPerson";
+    public static final String DELETE_BY_PERSON = "User.deleteByPerson";
+    public static final String FIND_EXISTING_IDS = "User.findExistingIds";
+    public static final String STREAM_LABELS = "User.streamLabels";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
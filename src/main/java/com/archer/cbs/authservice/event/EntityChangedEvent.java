@@ -0,0 +1,62 @@
+package com.archer.cbs.authservice.event;
+
+/**
+ * Événement CDI émis par les services après une modification d'entité
+ * <p>
+ * Les observateurs utilisent {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}
+ * pour ne réagir qu'aux modifications validées.
+ */
+public class EntityChangedEvent {
+
+    public enum EntityType { USER, PERSON, ROLE, PERMISSION }
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        /** Rôles d'un utilisateur ou permissions d'un rôle modifiés */
+        ASSOCIATION_CHANGED
+    }
+
+    private final EntityType entityType;
+    private final Long entityId;
+    private final ChangeType changeType;
+    private final String label;
+
+    public EntityChangedEvent(EntityType entityType, Long entityId, ChangeType changeType, String label) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeType = changeType;
+        this.label = label;
+    }
+
+    // Factory methods
+    public static EntityChangedEvent created(EntityType type, Long id, String label) {
+        return new EntityChangedEvent(type, id, ChangeType.CREATED, label);
+    }
+
+    public static EntityChangedEvent updated(EntityType type, Long id, String label) {
+        return new EntityChangedEvent(type, id, ChangeType.UPDATED, label);
+    }
+
+    public static EntityChangedEvent deleted(EntityType type, Long id) {
+        return new EntityChangedEvent(type, id, ChangeType.DELETED, null);
+    }
+
+    public static EntityChangedEvent associationChanged(EntityType type, Long id) {
+        return new EntityChangedEvent(type, id, ChangeType.ASSOCIATION_CHANGED, null);
+    }
+
+    // Getters
+    public EntityType getEntityType() { return entityType; }
+
+    public Long getEntityId() { return entityId; }
+
+    public ChangeType getChangeType() { return changeType; }
+
+    /**
+     * Libellé affichable après modification (username, "prénom nom", nom du rôle...),
+     * null si le libellé n'a pas changé
+     */
+    public String getLabel() { return label; }
+}
@@ -0,0 +1,215 @@
+package com.archer.cbs.authservice.health;
+
+import com.archer.cbs.authservice.config.JacksonConfig;
+import com.archer.cbs.authservice.config.SecurityConfig;
+import com.archer.cbs.authservice.config.SecurityConfig.RouteConfig;
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.dto.ApiResponse;
+import com.archer.cbs.authservice.dto.AuthResponse;
+import com.archer.cbs.authservice.dto.UserDTO;
+import com.archer.cbs.authservice.mapper.EntityMapper;
+import com.archer.cbs.authservice.security.JwtService;
+import com.archer.cbs.authservice.service.PermissionService;
+import com.archer.cbs.authservice.service.RoleService;
+import com.archer.cbs.authservice.service.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.enterprise.concurrent.ManagedExecutorService;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+
+/**
+ * Préchauffage après déploiement, avant d'accepter le trafic
+ * <p>
+ * Exécuté en tâche de fond au démarrage : génération et vérification de tokens,
+ * résolution de toutes les routes, sérialisation Jackson des réponses courantes,
+ * requêtes JPA du chemin d'authentification et des listes de rôles et permissions, et
+ * ouverture de {@code auth.warmup.connections} connexions du pool. {@link #isReady()}
+ * ne devient vrai qu'à la fin ({@code GET /health/ready}). Une étape en échec est
+ * journalisée sans bloquer la disponibilité. Désactivable avec
+ * {@code auth.warmup.enabled=false}.
+ */
+@Singleton
+@Startup
+@DependsOn({"SchemaMigrator", "JwtService"})
+@Lock(LockType.READ)
+@TransactionManagement(TransactionManagementType.BEAN)
+public class WarmupService {
+
+    private static final Logger LOGGER = Logger.getLogger(WarmupService.class.getName());
+
+    private static final String WARMUP_USERNAME = "__warmup__";
+
+    @Resource(lookup = "java:/PostgresDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedExecutorService executor;
+
+    @Inject
+    private JwtService jwtService;
+
+    @Inject
+    private UserService userService;
+
+    @Inject
+    private RoleService roleService;
+
+    @Inject
+    private PermissionService permissionService;
+
+    private final int iterations = Math.max(0, Settings.getInt("auth.warmup.iterations", 2000));
+
+    private final int connections = Math.max(0, Settings.getInt("auth.warmup.connections", 5));
+
+    // Durée de chaque étape (ms), -1 si en échec
+    private final Map<String, Long> steps = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void start() {
+        if (!Settings.getBoolean("auth.warmup.enabled", true)) {
+            ready = true;
+            return;
+        }
+        executor.submit(this::run);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Map<String, Long> getSteps() {
+        synchronized (steps) {
+            return new LinkedHashMap<>(steps);
+        }
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            step("connections", this::openConnections);
+            step("queries", this::runQueries);
+            step("jwt", () -> jwtService.warmUp(iterations));
+            step("routes", this::resolveRoutes);
+            step("serialization", this::serialize);
+        } finally {
+            ready = true;
+            LOGGER.log(Level.INFO, "Préchauffage terminé en {0} ms : {1}",
+                    new Object[]{(System.nanoTime() - start) / 1_000_000, getSteps()});
+        }
+    }
+
+    private void step(String name, Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+            steps.put(name, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            steps.put(name, -1L);
+            LOGGER.log(Level.WARNING, "Préchauffage : étape " + name + " en échec", e);
+        }
+    }
+
+    /**
+     * Ouvre les connexions en même temps pour que le pool les crée, puis les lui rend
+     */
+    private void openConnections() {
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = dataSource.getConnection();
+                opened.add(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Ouverture des connexions impossible : " + e.getMessage(), e);
+        } finally {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    LOGGER.log(Level.FINE, "Fermeture d'une connexion de préchauffage", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compile et exécute les requêtes du chemin chaud (plan Hibernate et instructions
+     * préparées du pilote)
+     */
+    private void runQueries() {
+        userService.loadAuthSnapshot(WARMUP_USERNAME);
+        userService.getUserWithRolesAndPermissions(-1L);
+        roleService.getAllRoles();
+        roleService.getAllRolesWithPermissions();
+        permissionService.getAllPermissions();
+        permissionService.getPermissionsByUserId(-1L);
+    }
+
+    /**
+     * Chaque route déclarée, avec ses variables remplacées, passe par la table de routage
+     */
+    private void resolveRoutes() {
+        List<RouteConfig> routes = SecurityConfig.getRoutes();
+        List<String> paths = routes.stream()
+                .map(route -> route.getPath().replaceAll("\\{[^/]+}", "1"))
+                .collect(Collectors.toList());
+        for (int i = 0; i < iterations; i++) {
+            for (int r = 0; r < routes.size(); r++) {
+                SecurityConfig.lookupRoute(paths.get(r), routes.get(r).getMethod());
+            }
+        }
+    }
+
+    /**
+     * Réponses types : connexion, listes de rôles et de permissions
+     */
+    private void serialize() {
+        UserDTO user = new UserDTO(-1L, WARMUP_USERNAME, true, LocalDateTime.now());
+        ApiResponse<AuthResponse> login = ApiResponse.success("Authentification réussie",
+                new AuthResponse(user, "header.payload.signature", "header.payload.signature", 86400));
+        ApiResponse<?> roles = ApiResponse.success("Rôles", roleService.getAllRoles().stream()
+                .map(EntityMapper::toRoleDTO)
+                .collect(Collectors.toList()));
+        ApiResponse<?> permissions = ApiResponse.success("Permissions", permissionService.getAllPermissions().stream()
+                .map(EntityMapper::toPermissionDTO)
+                .collect(Collectors.toList()));
+
+        try {
+            for (int i = 0; i < iterations; i++) {
+                JacksonConfig.MAPPER.writeValueAsBytes(login);
+                if (i % 16 == 0) {
+                    JacksonConfig.MAPPER.writeValueAsBytes(roles);
+                    JacksonConfig.MAPPER.writeValueAsBytes(permissions);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation impossible : " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.archer.cbs.authservice.migration;
+
+import com.archer.cbs.authservice.config.Settings;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.sql.DataSource;
+
+/**
+ * Migrations versionnées du schéma, appliquées au démarrage
+ * <p>
+ * Les scripts {@code db/migration/V<n>__<description>.sql} listés dans {@link #MIGRATIONS}
+ * sont exécutés dans l'ordre, chacun dans sa propre transaction, et consignés dans
+ * {@code schema_history} avec leur somme de contrôle. Un script déjà appliqué puis modifié
+ * bloque le déploiement. Un verrou consultatif PostgreSQL sérialise les nœuds qui
+ * démarrent en même temps. Désactivable avec {@code auth.migrations.enabled=false}.
+ */
+@Singleton
+@Startup
+@TransactionManagement(TransactionManagementType.BEAN)
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+
+    static final String LOCATION = "db/migration/";
+
+    /**
+     * Scripts dans l'ordre d'application ; n'ajouter qu'en fin de liste
+     */
+    static final List<String> MIGRATIONS = List.of(
+            "V1__baseline_schema.sql",
+            "V2__trigram_search_indexes.sql",
+            "V3__hot_path_indexes.sql",
+            "V4__audit_log.sql",
+            "V5__outbox.sql",
+            "V6__user_sessions.sql",
+            "V7__security_stamps.sql",
+            "V8__session_sync_tx_ids.sql",
+            "V9__security_stamps_tx_id.sql"
+    );
+
+    /** Clé du verrou consultatif (arbitraire, propre à ce service) */
+    private static final long LOCK_KEY = 0x41555448L;
+
+    private static final String CREATE_HISTORY =
+            "CREATE TABLE IF NOT EXISTS schema_history (" +
+            "version INTEGER PRIMARY KEY, " +
+            "script VARCHAR(200) NOT NULL, " +
+            "checksum BIGINT NOT NULL, " +
+            "execution_ms BIGINT NOT NULL, " +
+            "applied_at TIMESTAMP NOT NULL DEFAULT now())";
+
+    @Resource(lookup = "java:/PostgresDS")
+    private DataSource dataSource;
+
+    @PostConstruct
+    public void migrate() {
+        if (!Settings.getBoolean("auth.migrations.enabled", true)) {
+            LOGGER.info("Migrations du schéma désactivées");
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+            }
+            try {
+                migrate(connection);
+            } finally {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Échec des migrations du schéma : " + e.getMessage(), e);
+        }
+    }
+
+    private void migrate(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_HISTORY);
+        }
+        Map<Integer, Long> applied = appliedChecksums(connection);
+
+        int count = 0;
+        for (String script : MIGRATIONS) {
+            int version = version(script);
+            String sql = load(script);
+            long checksum = checksum(sql);
+
+            Long previous = applied.get(version);
+            if (previous != null) {
+                if (previous != checksum) {
+                    throw new IllegalStateException("La migration " + script
+                            + " a été modifiée après application (somme de contrôle différente)");
+                }
+                continue;
+            }
+
+            apply(connection, version, script, sql, checksum);
+            count++;
+        }
+        LOGGER.info(count == 0
+                ? "Schéma à jour"
+                : String.format("%d migration(s) appliquée(s)", count));
+    }
+
+    private void apply(Connection connection, int version, String script, String sql, long checksum)
+            throws SQLException {
+        long start = System.nanoTime();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                for (String sqlStatement : split(sql)) {
+                    statement.execute(sqlStatement);
+                }
+            }
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO schema_history (version, script, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+                insert.setInt(1, version);
+                insert.setString(2, script);
+                insert.setLong(3, checksum);
+                insert.setLong(4, elapsedMs);
+                insert.executeUpdate();
+            }
+            connection.commit();
+            LOGGER.info(String.format("Migration %s appliquée en %d ms", script, elapsedMs));
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static Map<Integer, Long> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * V12__description.sql -> 12
+     */
+    static int version(String script) {
+        int separator = script.indexOf("__");
+        if (!script.startsWith("V") || separator < 2) {
+            throw new IllegalStateException("Nom de migration invalide : " + script);
+        }
+        return Integer.parseInt(script.substring(1, separator));
+    }
+
+    private String load(String script) {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(LOCATION + script)) {
+            if (in == null) {
+                throw new IllegalStateException("Migration introuvable : " + LOCATION + script);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Lecture impossible de la migration " + script, e);
+        }
+    }
+
+    /**
+     * Somme de contrôle insensible aux fins de ligne (CRLF/LF)
+     */
+    static long checksum(String sql) {
+        CRC32 crc = new CRC32();
+        crc.update(sql.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Découpe un script en instructions : commentaires {@code --} retirés, séparateur {@code ;}
+     * (les scripts ne contiennent ni fonctions ni chaînes avec point-virgule)
+     */
+    static List<String> split(String sql) {
+        StringBuilder cleaned = new StringBuilder(sql.length());
+        for (String line : sql.split("\r?\n")) {
+            int comment = line.indexOf("--");
+            cleaned.append(comment >= 0 ? line.substring(0, comment) : line).append('\n');
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String statement : cleaned.toString().split(";")) {
+            if (!statement.isBlank()) {
+                statements.add(statement.trim());
+            }
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,30 @@
+package com.archer.cbs.authservice.outbox;
+
+import jakarta.enterprise.event.Event;
+import java.util.List;
+
+/**
+ * Publication dans l'application : un événement CDI {@link OutboxMessage} par modification,
+ * sur le thread du relais ({@code void on(@Observes OutboxMessage message)}). Une exception
+ * d'un observateur fait rejouer le lot.
+ */
+final class LocalEventSink implements OutboxSink {
+
+    private final Event<OutboxMessage> messages;
+
+    LocalEventSink(Event<OutboxMessage> messages) {
+        this.messages = messages;
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> batch) {
+        for (OutboxMessage message : batch) {
+            messages.fire(message);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "event";
+    }
+}
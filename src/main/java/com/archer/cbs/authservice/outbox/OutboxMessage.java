@@ -0,0 +1,47 @@
+package com.archer.cbs.authservice.outbox;
+
+/**
+ * Modification publiée par {@link OutboxRelay}
+ * <p>
+ * {@code sequence} (identifiant de la ligne {@code outbox}) croît avec l'ordre des
+ * modifications d'un même agrégat ; {@code payload} est l'état JSON de l'agrégat après
+ * modification, null pour une suppression.
+ */
+public final class OutboxMessage {
+
+    private final long sequence;
+    private final String aggregateType;
+    private final long aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final long createdAt;
+
+    public OutboxMessage(long sequence, String aggregateType, long aggregateId, String eventType,
+                         String payload, long createdAt) {
+        this.sequence = sequence;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public long getSequence() { return sequence; }
+
+    /** USER, ROLE ou PERMISSION */
+    public String getAggregateType() { return aggregateType; }
+
+    public long getAggregateId() { return aggregateId; }
+
+    /** CREATED, UPDATED, DELETED ou ASSOCIATION_CHANGED */
+    public String getEventType() { return eventType; }
+
+    public String getPayload() { return payload; }
+
+    /** Date de la modification (ms epoch) */
+    public long getCreatedAt() { return createdAt; }
+
+    String aggregateKey() {
+        return aggregateType + ':' + aggregateId;
+    }
+}
@@ -0,0 +1,35 @@
+package com.archer.cbs.authservice.outbox;
+
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.dao.OutboxDAO;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+
+/**
+ * Inscrit les modifications d'utilisateurs, de rôles et de permissions dans la boîte d'envoi
+ * <p>
+ * Observateur synchrone (sans phase transactionnelle) : la ligne {@code outbox} est écrite
+ * dans la transaction du service qui émet l'{@link EntityChangedEvent}, et n'existe donc que
+ * si la modification est validée. La publication est faite plus tard par
+ * {@link OutboxRelay}. Désactivable avec {@code auth.outbox.enabled=false}.
+ */
+@ApplicationScoped
+public class OutboxRecorder {
+
+    @Inject
+    private OutboxDAO outboxDAO;
+
+    private final boolean enabled = Settings.getBoolean("auth.outbox.enabled", true);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void onEntityChanged(@Observes EntityChangedEvent event) {
+        if (enabled) {
+            outboxDAO.append(event);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.archer.cbs.authservice.outbox;
+
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Relais de la boîte d'envoi vers un {@link OutboxSink}
+ * <p>
+ * Un thread géré publie les lignes {@code outbox} par fenêtres de {@code tx_id} :
+ * {@code [position du consommateur, xmin de l'instantané courant)}. Toutes les transactions
+ * sous le xmin sont terminées, une ligne écrite par une transaction encore en cours ne peut
+ * donc pas être sautée, contrairement à une simple position sur {@code id}. Une fenêtre est
+ * lue par pages de {@code auth.outbox.batch-size} lignes dans l'ordre des {@code id}, chaque
+ * page publiée en un lot, et la position n'avance qu'une fois la fenêtre entière publiée
+ * (livraison au moins une fois). Un verrou consultatif par consommateur laisse un seul nœud
+ * publier à la fois.
+ * <p>
+ * Ordre par agrégat : les lignes d'un même agrégat ont des {@code id} croissants (verrou
+ * consultatif de l'agrégat pris par {@code OutboxDAO} et tenu jusqu'à la validation). Une
+ * modification plus récente peut toutefois tomber dans une fenêtre antérieure ; le relais
+ * retient la dernière séquence publiée par agrégat ({@code auth.outbox.order-cache}
+ * agrégats) et n'envoie jamais un état plus ancien que celui déjà publié.
+ * <p>
+ * Le relais est réveillé à chaque modification validée, sinon toutes les
+ * {@code auth.outbox.poll-interval-ms}. Les lignes publiées sont purgées après
+ * {@code auth.outbox.retention-hours}.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrator")
+@Lock(LockType.READ)
+@TransactionManagement(TransactionManagementType.BEAN)
+public class OutboxRelay {
+
+    private static final Logger LOGGER = Logger.getLogger(OutboxRelay.class.getName());
+
+    /** Première clé du verrou consultatif (la seconde est propre au consommateur) */
+    private static final int LOCK_CLASS = 0x4F555442;
+
+    private static final int MAX_BATCH = 1000;
+
+    private static final long RETRY_DELAY_MS = 1000;
+
+    private static final long PURGE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final String SNAPSHOT_XMIN =
+            "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS TEXT) AS BIGINT)";
+
+    private static final String READ_PAGE =
+            "SELECT id, aggregate_type, aggregate_id, event_type, CAST(payload AS TEXT), created_at " +
+            "FROM outbox " +
+            "WHERE tx_id >= CAST(CAST(? AS TEXT) AS XID8) AND tx_id < CAST(CAST(? AS TEXT) AS XID8) " +
+            "AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String PURGE =
+            "DELETE FROM outbox " +
+            "WHERE tx_id < (SELECT CAST(CAST(MIN(next_tx_id) AS TEXT) AS XID8) FROM outbox_offsets) " +
+            "AND created_at < now() - make_interval(hours => ?)";
+
+    @Resource(lookup = "java:/PostgresDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedThreadFactory managedThreadFactory;
+
+    @Inject
+    private OutboxRecorder recorder;
+
+    @Inject
+    private Event<OutboxMessage> localMessages;
+
+    private final String consumer = Settings.get("auth.outbox.consumer", "default");
+
+    private final int batchSize = Math.min(MAX_BATCH, Math.max(1, Settings.getInt("auth.outbox.batch-size", 200)));
+
+    private final long pollIntervalNanos =
+            TimeUnit.MILLISECONDS.toNanos(Math.max(10, Settings.getLong("auth.outbox.poll-interval-ms", 500)));
+
+    private final int retentionHours = Math.max(0, Settings.getInt("auth.outbox.retention-hours", 24));
+
+    private final int orderCacheSize = Math.max(1, Settings.getInt("auth.outbox.order-cache", 100_000));
+
+    // Dernière séquence publiée par agrégat (thread du relais seulement)
+    private final Map<String, Long> lastPublished = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > orderCacheSize;
+        }
+    };
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder superseded = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder purged = new LongAdder();
+
+    private OutboxSink sink;
+
+    private volatile boolean running;
+
+    private volatile long lastSequence;
+
+    private volatile long lastWindowMs;
+
+    private long lastPurge;
+
+    private Thread thread;
+
+    @PostConstruct
+    public void start() {
+        if (!recorder.isEnabled()) {
+            return;
+        }
+        sink = createSink();
+        running = true;
+        thread = managedThreadFactory.newThread(this::run);
+        thread.setName("auth-outbox-relay");
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Réveille le relais dès qu'une modification est validée
+     */
+    public void onEntityChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) EntityChangedEvent event) {
+        Thread relay = thread;
+        if (relay != null) {
+            LockSupport.unpark(relay);
+        }
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", recorder.isEnabled());
+        stats.put("consumer", consumer);
+        stats.put("sink", sink == null ? null : sink.name());
+        stats.put("published", published.sum());
+        stats.put("superseded", superseded.sum());
+        stats.put("batches", batches.sum());
+        stats.put("failures", failures.sum());
+        stats.put("purged", purged.sum());
+        stats.put("lastSequence", lastSequence);
+        stats.put("lastWindowMs", lastWindowMs);
+        return stats;
+    }
+
+    private OutboxSink createSink() {
+        String type = Settings.get("auth.outbox.sink", "event");
+        if ("webhook".equalsIgnoreCase(type)) {
+            String url = Settings.get("auth.outbox.webhook-url", null);
+            if (url != null) {
+                return new WebhookSink(URI.create(url), consumer,
+                        Duration.ofMillis(Math.max(100, Settings.getLong("auth.outbox.webhook-timeout-ms", 5000))));
+            }
+            LOGGER.warning("auth.outbox.webhook-url absent : publication par événements CDI");
+        } else if (!"event".equalsIgnoreCase(type)) {
+            LOGGER.log(Level.WARNING, "auth.outbox.sink inconnu : {0}, publication par événements CDI", type);
+        }
+        return new LocalEventSink(localMessages);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (relayWindow() == 0) {
+                    LockSupport.parkNanos(pollIntervalNanos);
+                }
+                purgeIfDue();
+            } catch (Exception e) {
+                failures.increment();
+                LOGGER.log(Level.WARNING, "Relais de la boîte d'envoi : publication interrompue, nouvelle tentative", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(RETRY_DELAY_MS));
+            }
+        }
+    }
+
+    /**
+     * Publie la fenêtre suivante
+     *
+     * @return le nombre de lignes publiées
+     */
+    private int relayWindow() throws Exception {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                if (!tryLock(connection)) {
+                    connection.rollback();
+                    return 0;
+                }
+                long from = readOffset(connection);
+                long to = snapshotXmin(connection);
+                int count = 0;
+                if (to > from) {
+                    long afterId = 0;
+                    List<OutboxMessage> page;
+                    while (running && !(page = readPage(connection, from, to, afterId)).isEmpty()) {
+                        publish(page);
+                        afterId = page.get(page.size() - 1).getSequence();
+                        count += page.size();
+                    }
+                    if (count > 0 && running) {
+                        saveOffset(connection, to);
+                    }
+                }
+                connection.commit();
+                if (count > 0) {
+                    lastWindowMs = (System.nanoTime() - start) / 1_000_000;
+                }
+                return count;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Publie une page, sans les états plus anciens que ceux déjà publiés
+     */
+    void publish(List<OutboxMessage> page) throws Exception {
+        List<OutboxMessage> batch = new ArrayList<>(page.size());
+        Map<String, Long> latest = new HashMap<>();
+        for (OutboxMessage message : page) {
+            String key = message.aggregateKey();
+            Long previous = lastPublished.get(key);
+            if (previous != null && previous > message.getSequence()) {
+                superseded.increment();
+                continue;
+            }
+            batch.add(message);
+            latest.put(key, message.getSequence());
+        }
+        if (!batch.isEmpty()) {
+            sink.publish(batch);
+            batches.increment();
+            published.add(batch.size());
+        }
+        lastPublished.putAll(latest);
+        lastSequence = page.get(page.size() - 1).getSequence();
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_xact_lock(?, ?)")) {
+            statement.setInt(1, LOCK_CLASS);
+            statement.setInt(2, consumer.hashCode());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private long readOffset(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO outbox_offsets (consumer, next_tx_id) VALUES (?, 0) ON CONFLICT DO NOTHING")) {
+            insert.setString(1, consumer);
+            insert.executeUpdate();
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT next_tx_id FROM outbox_offsets WHERE consumer = ?")) {
+            select.setString(1, consumer);
+            try (ResultSet resultSet = select.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+
+    private void saveOffset(Connection connection, long nextTxId) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE outbox_offsets SET next_tx_id = ?, updated_at = now() WHERE consumer = ?")) {
+            update.setLong(1, nextTxId);
+            update.setString(2, consumer);
+            update.executeUpdate();
+        }
+    }
+
+    private static long snapshotXmin(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SNAPSHOT_XMIN);
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private List<OutboxMessage> readPage(Connection connection, long from, long to, long afterId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(READ_PAGE)) {
+            statement.setLong(1, from);
+            statement.setLong(2, to);
+            statement.setLong(3, afterId);
+            statement.setInt(4, batchSize);
+            List<OutboxMessage> page = new ArrayList<>(batchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    page.add(new OutboxMessage(
+                            resultSet.getLong(1),
+                            resultSet.getString(2),
+                            resultSet.getLong(3),
+                            resultSet.getString(4),
+                            resultSet.getString(5),
+                            resultSet.getTimestamp(6).getTime()));
+                }
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Purge des lignes publiées par tous les consommateurs et plus anciennes que la rétention
+     */
+    private void purgeIfDue() throws SQLException {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MS) {
+            return;
+        }
+        lastPurge = now;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement purge = connection.prepareStatement(PURGE)) {
+            connection.setAutoCommit(true);
+            purge.setInt(1, retentionHours);
+            purged.add(purge.executeUpdate());
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.archer.cbs.authservice.outbox;
+
+import java.util.List;
+
+/**
+ * Destination des modifications publiées par {@link OutboxRelay}
+ * <p>
+ * Un lot est rejoué tant que {@link #publish(List)} lève une exception (livraison au moins
+ * une fois) : le destinataire doit ignorer une {@code sequence} déjà reçue pour l'agrégat.
+ */
+public interface OutboxSink {
+
+    /**
+     * Publie un lot, dans l'ordre des séquences
+     */
+    void publish(List<OutboxMessage> batch) throws Exception;
+
+    /**
+     * Nom affiché dans les métriques
+     */
+    String name();
+}
@@ -0,0 +1,75 @@
+package com.archer.cbs.authservice.outbox;
+
+import com.archer.cbs.authservice.config.JacksonConfig;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Publication HTTP : un POST JSON par lot
+ * <pre>
+ * {"consumer": "...", "events": [{"sequence": 42, "aggregateType": "USER", "aggregateId": 7,
+ *   "eventType": "UPDATED", "payload": {...}, "createdAt": 1700000000000}]}
+ * </pre>
+ * Toute réponse hors 2xx fait rejouer le lot.
+ */
+final class WebhookSink implements OutboxSink {
+
+    private final URI uri;
+    private final String consumer;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    WebhookSink(URI uri, String consumer, Duration timeout) {
+        this.uri = uri;
+        this.consumer = consumer;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(timeout)
+                .build();
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> batch) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body(batch)))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook " + uri + " : statut " + response.statusCode());
+        }
+    }
+
+    @Override
+    public String name() {
+        return "webhook";
+    }
+
+    private byte[] body(List<OutboxMessage> batch) throws IOException {
+        ObjectNode root = JacksonConfig.MAPPER.createObjectNode();
+        root.put("consumer", consumer);
+        ArrayNode events = root.putArray("events");
+        for (OutboxMessage message : batch) {
+            ObjectNode event = events.addObject();
+            event.put("sequence", message.getSequence());
+            event.put("aggregateType", message.getAggregateType());
+            event.put("aggregateId", message.getAggregateId());
+            event.put("eventType", message.getEventType());
+            if (message.getPayload() == null) {
+                event.putNull("payload");
+            } else {
+                event.set("payload", JacksonConfig.MAPPER.readTree(message.getPayload()));
+            }
+            event.put("createdAt", message.getCreatedAt());
+        }
+        return JacksonConfig.MAPPER.writeValueAsBytes(root);
+    }
+}
@@ -1,14 +1,26 @@
 package com.archer.cbs.authservice.resource;
 
+import com.archer.cbs.authservice.audit.AuditEvent;
+import com.archer.cbs.authservice.audit.AuditLog;
+import com.archer.cbs.authservice.concurrent.BlockingDispatcher;
+import com.archer.cbs.authservice.config.Settings;
 import com.archer.cbs.authservice.dto.*;
 import com.archer.cbs.authservice.mapper.EntityMapper;
 import com.archer.cbs.authservice.security.JwtService;
+import com.archer.cbs.authservice.security.TokenIntrospector;
+import com.archer.cbs.authservice.security.TokenRenewer;
+import com.archer.cbs.authservice.security.TokenRenewer.Renewal;
+import com.archer.cbs.authservice.service.LoginPipeline;
 import com.archer.cbs.authservice.service.UserService;
 import com.archer.cbs.authservice.service.UserService.AuthenticationResult;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
 import org.eclipse.microprofile.openapi.annotations.media.Content;
@@ -27,7 +39,9 @@ import org.eclipse.microprofile.openapi.annotations.tags.Tag;
  * <ul>
  *   <li>Connexion utilisateur avec génération de tokens JWT</li>
  *   <li>Rafraîchissement des tokens expirés</li>
+ *   <li>Renouvellement rapide de l'access token, sans accès base</li>
  *   <li>Déconnexion et révocation de tokens</li>
+ *   <li>Introspection de tokens (RFC 7662) pour les serveurs de ressources</li>
  * </ul>
  *
  * <p><strong>Routes publiques :</strong> Tous les endpoints de cette ressource
@@ -48,11 +62,32 @@ public class AuthResource {
     @Inject
     private UserService userService;
 
+    @Inject
+    private BlockingDispatcher dispatcher;
+
+    @Inject
+    private LoginPipeline loginPipeline;
+
+    @Inject
+    private AuditLog auditLog;
+
+    @Inject
+    private TokenIntrospector tokenIntrospector;
+
+    @Inject
+    private TokenRenewer tokenRenewer;
+
+    @Inject
+    private JwtService jwtService;
+
+    private final int maxIntrospectBatch = Math.max(1, Settings.getInt("auth.introspect.max-batch", 100));
+
     /**
      * Authentifie un utilisateur et génère des tokens JWT.
      *
      * <p>Cet endpoint vérifie les identifiants de l'utilisateur et, en cas de succès,
-     * retourne un access token (validité 24h) et un refresh token (validité 7 jours).</p>
+     * retourne un access token (validité {@code auth.jwt.access-ttl-seconds}, 24h par défaut)
+     * et un refresh token (validité 7 jours).</p>
      *
      * <p><strong>Processus :</strong></p>
      * <ol>
@@ -83,7 +118,7 @@ public class AuthResource {
             description = """
             Authentifie un utilisateur et génère des tokens JWT (access token et refresh token).
             
-            Le access token est valide 24 heures et doit être inclus dans toutes les requêtes protégées.
+            Le access token est valide 24 heures (configurable) et doit être inclus dans toutes les requêtes protégées.
             Le refresh token est valide 7 jours et permet d'obtenir un nouveau access token.
             """
     )
@@ -180,47 +215,52 @@ public class AuthResource {
                     )
             )
     })
-    public Response login(LoginRequest request) {
-        try {
-            if (request.getUsername() == null || request.getUsername().trim().isEmpty()) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(ApiResponse.error("Le nom d'utilisateur est requis"))
-                        .build();
-            }
+    public CompletionStage<Response> login(LoginRequest request) {
+        if (request.getUsername() == null || request.getUsername().trim().isEmpty()) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error("Le nom d'utilisateur est requis"))
+                    .build());
+        }
 
-            if (request.getPassword() == null || request.getPassword().trim().isEmpty()) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                        .entity(ApiResponse.error("Le mot de passe est requis"))
-                        .build();
-            }
+        if (request.getPassword() == null || request.getPassword().trim().isEmpty()) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error("Le mot de passe est requis"))
+                    .build());
+        }
 
-            AuthenticationResult authResult = userService.authenticate(
-                    request.getUsername(),
-                    request.getPassword()
-            );
+        return loginPipeline.login(request.getUsername(), request.getPassword())
+                .thenApply(authResult -> {
+                    if (authResult == null) {
+                        auditLog.record(AuditEvent.Type.LOGIN_FAILURE, null, null, request.getUsername(), null);
+                        return Response.status(Response.Status.UNAUTHORIZED)
+                                .entity(ApiResponse.error("Identifiants incorrects ou compte inactif"))
+                                .build();
+                    }
 
-            if (authResult != null) {
-                AuthResponse authResponse = new AuthResponse(
-                        EntityMapper.toUserDTO(authResult.getUser()),
-                        authResult.getAccessToken(),
-                        authResult.getRefreshToken(),
-                        86400
-                );
+                    Long userId = authResult.getUser().getId();
+                    auditLog.record(AuditEvent.Type.LOGIN_SUCCESS, userId, userId,
+                            authResult.getUser().getUsername(), null);
 
-                return Response.ok(
-                        ApiResponse.success("Authentification réussie", authResponse)
-                ).build();
-            } else {
-                return Response.status(Response.Status.UNAUTHORIZED)
-                        .entity(ApiResponse.error("Identifiants incorrects ou compte inactif"))
-                        .build();
-            }
+                    AuthResponse authResponse = new AuthResponse(
+                            EntityMapper.toUserDTO(authResult.getUser()),
+                            authResult.getAccessToken(),
+                            authResult.getRefreshToken(),
+                            jwtService.getAccessExpirationMs() / 1000
+                    );
 
-        } catch (Exception e) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                    .entity(ApiResponse.error("Erreur lors de l'authentification : " + e.getMessage()))
-                    .build();
-        }
+                    return Response.ok(
+                            ApiResponse.success("Authentification réussie", authResponse)
+                    ).build();
+                })
+                .exceptionally(e -> {
+                    if (BlockingDispatcher.isSaturation(e)) {
+                        return BlockingDispatcher.unavailable();
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                            .entity(ApiResponse.error("Erreur lors de l'authentification : " + cause.getMessage()))
+                            .build();
+                });
     }
 
     /**
@@ -285,7 +325,11 @@ public class AuthResource {
                     description = "Refresh token invalide ou expiré"
             )
     })
-    public Response refreshToken(RefreshTokenRequest request) {
+    public CompletionStage<Response> refreshToken(RefreshTokenRequest request) {
+        return dispatcher.submit(() -> refresh(request));
+    }
+
+    private Response refresh(RefreshTokenRequest request) {
         try {
             if (request.getRefreshToken() == null || request.getRefreshToken().trim().isEmpty()) {
                 return Response.status(Response.Status.BAD_REQUEST)
@@ -294,12 +338,14 @@ public class AuthResource {
             }
 
             AuthenticationResult authResult = userService.refreshToken(request.getRefreshToken());
+            Long userId = authResult.getUser().getId();
+            auditLog.record(AuditEvent.Type.TOKEN_REFRESHED, userId, userId, authResult.getUser().getUsername(), null);
 
             AuthResponse authResponse = new AuthResponse(
                     EntityMapper.toUserDTO(authResult.getUser()),
                     authResult.getAccessToken(),
                     authResult.getRefreshToken(),
-                    86400
+                    jwtService.getAccessExpirationMs() / 1000
             );
 
             return Response.ok(
@@ -307,6 +353,7 @@ public class AuthResource {
             ).build();
 
         } catch (IllegalArgumentException e) {
+            auditLog.record(AuditEvent.Type.TOKEN_REFRESH_FAILURE, null, null, null, e.getMessage());
             return Response.status(Response.Status.UNAUTHORIZED)
                     .entity(ApiResponse.error(e.getMessage()))
                     .build();
@@ -317,6 +364,81 @@ public class AuthResource {
         }
     }
 
+    /**
+     * Renouvelle l'access token sans accès base.
+     *
+     * <p>Pour des access tokens courts ({@code auth.jwt.access-ttl-seconds}) : le client
+     * renouvelle son access token avec son refresh token avant expiration. Les rôles et
+     * permissions sont repris du modèle retenu à la connexion ou au dernier rafraîchissement,
+     * tant qu'ils n'ont pas changé ; sinon la requête suit le chemin de /refresh. Le nouveau
+     * token n'expire jamais après la session (le refresh token).</p>
+     *
+     * @param request Objet contenant le refresh token
+     * @return Response contenant le nouvel access token (sans l'utilisateur)
+     *
+     * @apiNote POST /api/auth/renew
+     */
+    @POST
+    @Path("/renew")
+    @Operation(
+            summary = "Renouveler le token d'accès",
+            description = """
+            Émet un nouvel access token pour la session du refresh token, sans relire
+            l'utilisateur ni ses permissions tant qu'ils n'ont pas changé.
+            """
+    )
+    @RequestBody(
+            description = "Refresh token",
+            required = true,
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = RefreshTokenRequest.class)
+            )
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "Token renouvelé",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            schema = @Schema(implementation = AuthResponse.class)
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Refresh token manquant"
+            ),
+            @APIResponse(
+                    responseCode = "401",
+                    description = "Refresh token invalide, expiré ou session révoquée"
+            )
+    })
+    public CompletionStage<Response> renewToken(RefreshTokenRequest request) {
+        if (request == null || request.getRefreshToken() == null || request.getRefreshToken().trim().isEmpty()) {
+            return CompletableFuture.completedFuture(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error("Le refresh token est requis"))
+                    .build());
+        }
+
+        Renewal renewal = tokenRenewer.renew(request.getRefreshToken().trim());
+        if (renewal == null) {
+            // Modèle absent ou dépassé, ou token refusé : rafraîchissement complet
+            return dispatcher.submit(() -> refresh(request));
+        }
+        auditLog.record(AuditEvent.Type.TOKEN_REFRESHED, renewal.getUserId(), renewal.getUserId(),
+                renewal.getUsername(), "renew");
+
+        AuthResponse authResponse = new AuthResponse(
+                null,
+                renewal.getAccessToken(),
+                request.getRefreshToken(),
+                jwtService.getAccessExpirationMs() / 1000
+        );
+        return CompletableFuture.completedFuture(Response.ok(
+                ApiResponse.success("Token renouvelé avec succès", authResponse)
+        ).build());
+    }
+
     /**
      * Déconnecte l'utilisateur en révoquant son token.
      *
@@ -362,4 +484,124 @@ public class AuthResource {
                 ApiResponse.success("Déconnexion réussie. Supprimez le token côté client.")
         ).build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Introspection d'un token (RFC 7662).
+     *
+     * <p>Réservé aux serveurs de ressources authentifiés (rôle ADMIN ou SERVICE). La réponse
+     * suit la RFC : {@code {"active": false}} pour un token invalide, expiré, révoqué ou
+     * dont les droits ont changé ; sinon ses attributs (sub, scope, exp, ...). Réponses en
+     * cache jusqu'à l'expiration du token, au plus {@code auth.introspect.cache-ttl-ms}.</p>
+     *
+     * @param token Token à examiner (paramètre de formulaire {@code token})
+     * @return Response contenant la réponse d'introspection
+     *
+     * @apiNote POST /api/auth/introspect
+     */
+    @POST
+    @Path("/introspect")
+    @Consumes(MediaType.APPLICATION_FORM_URLENCODED)
+    @Operation(
+            summary = "Introspection d'un token",
+            description = """
+            Indique si un token est actif et retourne ses attributs (RFC 7662).
+            Paramètre de formulaire : token (token_type_hint est ignoré).
+            """
+    )
+    @SecurityRequirement(name = "BearerAuth")
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "Réponse d'introspection",
+                    content = @Content(
+                            mediaType = MediaType.APPLICATION_JSON,
+                            examples = @ExampleObject(
+                                    value = """
+                        {
+                          "active": true,
+                          "token_type": "access_token",
+                          "sub": "admin",
+                          "username": "admin",
+                          "user_id": 1,
+                          "scope": "READ_USER WRITE_USER",
+                          "exp": 1729500000
+                        }
+                        """
+                            )
+                    )
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Paramètre token manquant"
+            )
+    })
+    public Response introspect(@FormParam("token") String token) {
+        if (token == null || token.isBlank()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("error", "invalid_request", "error_description", "Le paramètre token est requis"))
+                    .build();
+        }
+        return Response.ok(tokenIntrospector.introspect(token.trim()), MediaType.APPLICATION_JSON_TYPE)
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+
+    /**
+     * Introspection de plusieurs tokens en une requête, pour les passerelles.
+     *
+     * <p>Réponse {@code {"results": [...]}}, une réponse RFC 7662 par token, dans l'ordre
+     * de la requête ; au plus {@code auth.introspect.max-batch} tokens.</p>
+     *
+     * @param request Objet contenant la liste des tokens
+     * @return Response contenant les réponses d'introspection
+     *
+     * @apiNote POST /api/auth/introspect/batch
+     */
+    @POST
+    @Path("/introspect/batch")
+    @Operation(
+            summary = "Introspection de plusieurs tokens",
+            description = "Une réponse RFC 7662 par token, dans l'ordre de la requête."
+    )
+    @SecurityRequirement(name = "BearerAuth")
+    @RequestBody(
+            description = "Tokens à examiner",
+            required = true,
+            content = @Content(
+                    mediaType = MediaType.APPLICATION_JSON,
+                    schema = @Schema(implementation = IntrospectBatchRequest.class),
+                    examples = @ExampleObject(
+                            value = """
+                    {
+                      "tokens": ["eyJhbGciOiJIUzI1NiJ9...", "eyJhbGciOiJIUzI1NiJ9..."]
+                    }
+                    """
+                    )
+            )
+    )
+    @APIResponses({
+            @APIResponse(
+                    responseCode = "200",
+                    description = "Réponses d'introspection"
+            ),
+            @APIResponse(
+                    responseCode = "400",
+                    description = "Liste de tokens absente ou trop longue"
+            )
+    })
+    public Response introspectBatch(IntrospectBatchRequest request) {
+        if (request == null || request.getTokens() == null || request.getTokens().isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error("La liste des tokens est requise"))
+                    .build();
+        }
+        if (request.getTokens().size() > maxIntrospectBatch) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error("Au plus " + maxIntrospectBatch + " tokens par requête"))
+                    .build();
+        }
+        return Response.ok(tokenIntrospector.introspectAll(request.getTokens()), MediaType.APPLICATION_JSON_TYPE)
+                .header("Cache-Control", "no-store")
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.archer.cbs.authservice.resource;
+
+import com.archer.cbs.authservice.dto.ApiResponse;
+import com.archer.cbs.authservice.dto.AutocompleteHitDTO;
+import com.archer.cbs.authservice.event.EntityChangedEvent.EntityType;
+import com.archer.cbs.authservice.search.AutocompleteIndex;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Autocomplétion de l'interface d'administration
+ * Servie depuis l'index en mémoire, sans requête SQL
+ */
+@Path("/autocomplete")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class AutocompleteResource {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private static final int MAX_LIMIT = 50;
+
+    @Inject
+    private AutocompleteIndex autocompleteIndex;
+
+    /**
+     * Suggestions pour une saisie
+     * GET /api/autocomplete?q=ma&types=user,person&limit=10
+     */
+    @GET
+    public Response autocomplete(@QueryParam("q") String q,
+                                 @QueryParam("types") String types,
+                                 @QueryParam("limit") Integer limit) {
+        try {
+            if (q == null || q.trim().isEmpty()) {
+                return Response.status(Response.Status.BAD_REQUEST)
+                        .entity(ApiResponse.error("Le paramètre q est requis"))
+                        .build();
+            }
+
+            int max = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+            List<AutocompleteHitDTO> hits = autocompleteIndex.search(q, parseTypes(types), max);
+
+            return Response.ok(ApiResponse.success("Suggestions", hits))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Erreur lors de l'autocomplétion: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * "user,person" -> {USER, PERSON} ; vide -> tous les types
+     */
+    private Set<EntityType> parseTypes(String types) {
+        Set<EntityType> result = EnumSet.noneOf(EntityType.class);
+        if (types == null || types.isBlank()) {
+            return result;
+        }
+        for (String type : types.split(",")) {
+            try {
+                result.add(EntityType.valueOf(type.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Type inconnu : " + type.trim());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package com.archer.cbs.authservice.resource;
+
+import com.archer.cbs.authservice.dto.ApiResponse;
+import com.archer.cbs.authservice.health.WarmupService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Sondes de vie et de disponibilité pour l'orchestrateur / le répartiteur de charge
+ */
+@Path("/health")
+@Produces(MediaType.APPLICATION_JSON)
+public class HealthResource {
+
+    @Inject
+    private WarmupService warmupService;
+
+    /**
+     * Le service répond
+     * GET /api/health/live
+     */
+    @GET
+    @Path("/live")
+    public Response live() {
+        return Response.ok(ApiResponse.success("Service démarré")).build();
+    }
+
+    /**
+     * Le service peut recevoir du trafic (préchauffage terminé)
+     * GET /api/health/ready
+     */
+    @GET
+    @Path("/ready")
+    public Response ready() {
+        if (!warmupService.isReady()) {
+            return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+                    .entity(new ApiResponse<>(false, "Préchauffage en cours", warmupService.getSteps()))
+                    .build();
+        }
+
+        return Response.ok(ApiResponse.success("Service prêt", warmupService.getSteps()))
+                .build();
+    }
+}
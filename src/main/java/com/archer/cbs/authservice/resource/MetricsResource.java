@@ -0,0 +1,86 @@
+package com.archer.cbs.authservice.resource;
+
+import com.archer.cbs.authservice.audit.AuditWriter;
+import com.archer.cbs.authservice.concurrent.BlockingDispatcher;
+import com.archer.cbs.authservice.dao.DaoMetrics;
+import com.archer.cbs.authservice.dao.PoolStatistics;
+import com.archer.cbs.authservice.dto.ApiResponse;
+import com.archer.cbs.authservice.outbox.OutboxRelay;
+import com.archer.cbs.authservice.security.JwtService;
+import com.archer.cbs.authservice.security.SecurityStamps;
+import com.archer.cbs.authservice.security.SessionStore;
+import com.archer.cbs.authservice.security.TokenIntrospector;
+import com.archer.cbs.authservice.security.TokenRenewer;
+import com.archer.cbs.authservice.service.LoginPipeline;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compteurs d'exploitation du service
+ */
+@Path("/metrics")
+@Produces(MediaType.APPLICATION_JSON)
+public class MetricsResource {
+
+    @Inject
+    private JwtService jwtService;
+
+    @Inject
+    private BlockingDispatcher dispatcher;
+
+    @Inject
+    private LoginPipeline loginPipeline;
+
+    @Inject
+    private PoolStatistics poolStatistics;
+
+    @Inject
+    private DaoMetrics daoMetrics;
+
+    @Inject
+    private AuditWriter auditWriter;
+
+    @Inject
+    private OutboxRelay outboxRelay;
+
+    @Inject
+    private SessionStore sessionStore;
+
+    @Inject
+    private SecurityStamps securityStamps;
+
+    @Inject
+    private TokenIntrospector tokenIntrospector;
+
+    @Inject
+    private TokenRenewer tokenRenewer;
+
+    /**
+     * Récupérer les compteurs
+     * GET /api/metrics
+     */
+    @GET
+    public Response getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("jwt", jwtService.getVerificationStats());
+        metrics.put("dispatch", dispatcher.stats());
+        metrics.put("login", loginPipeline.stats());
+        metrics.put("datasource", poolStatistics.stats());
+        metrics.put("dao", daoMetrics.stats());
+        metrics.put("audit", auditWriter.stats());
+        metrics.put("outbox", outboxRelay.stats());
+        metrics.put("sessions", sessionStore.stats());
+        metrics.put("stamps", securityStamps.stats());
+        metrics.put("introspection", tokenIntrospector.stats());
+        metrics.put("renewal", tokenRenewer.stats());
+
+        return Response.ok(ApiResponse.success("Métriques", metrics))
+                .build();
+    }
+}
@@ -1,13 +1,19 @@
 package com.archer.cbs.authservice.resource;
 
+import com.archer.cbs.authservice.cache.VersionStamps;
+import com.archer.cbs.authservice.cache.VersionStamps.Aggregate;
 import com.archer.cbs.authservice.dto.ApiResponse;
+import com.archer.cbs.authservice.dto.PageDTO;
 import com.archer.cbs.authservice.dto.PermissionDTO;
 import com.archer.cbs.authservice.entity.Permission;
 import com.archer.cbs.authservice.mapper.EntityMapper;
 import com.archer.cbs.authservice.service.PermissionService;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -20,6 +26,9 @@ public class PermissionResource {
     @Inject
     private PermissionService permissionService;
 
+    @Inject
+    private VersionStamps versions;
+
     /**
      * Créer une nouvelle permission
      * POST /api/permissions
@@ -50,7 +59,13 @@ public class PermissionResource {
      * GET /api/permissions
      */
     @GET
-    public Response getAllPermissions() {
+    public Response getAllPermissions(@Context Request request) {
+        EntityTag tag = versions.tag("permissions", Aggregate.PERMISSIONS);
+        Response notModified = versions.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
         try {
             List<PermissionDTO> permissions = permissionService.getAllPermissions()
                     .stream()
@@ -58,6 +73,8 @@ public class PermissionResource {
                     .collect(Collectors.toList());
 
             return Response.ok(ApiResponse.success("Liste des permissions", permissions))
+                    .tag(tag)
+                    .cacheControl(VersionStamps.REVALIDATE)
                     .build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -72,12 +89,18 @@ public class PermissionResource {
      */
     @GET
     @Path("/{id}")
-    public Response getPermissionById(@PathParam("id") Long id) {
+    public Response getPermissionById(@PathParam("id") Long id, @Context Request request) {
+        EntityTag tag = versions.tag("permission" + id, Aggregate.PERMISSIONS);
+        Response notModified = versions.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
         try {
             return permissionService.getPermissionById(id)
                     .map(permission -> Response.ok(
                             ApiResponse.success("Permission trouvée", EntityMapper.toPermissionDTO(permission))
-                    ).build())
+                    ).tag(tag).cacheControl(VersionStamps.REVALIDATE).build())
                     .orElse(Response.status(Response.Status.NOT_FOUND)
                             .entity(ApiResponse.error("Permission non trouvée"))
                             .build());
@@ -155,17 +178,20 @@ public class PermissionResource {
     }
 
     /**
-     * Rechercher des permissions par nom
-     * GET /api/permissions/search?nom=xxx
+     * Rechercher des permissions (nom, description)
+     * GET /api/permissions/search?q=xxx&page=0&size=20
+     * <p>
+     * Le paramètre historique {@code nom} reste accepté à la place de {@code q}.
      */
     @GET
     @Path("/search")
-    public Response searchPermissions(@QueryParam("nom") String nom) {
+    public Response searchPermissions(@QueryParam("q") String q,
+                                      @QueryParam("nom") String nom,
+                                      @QueryParam("page") Integer page,
+                                      @QueryParam("size") Integer size) {
         try {
-            List<PermissionDTO> permissions = permissionService.searchPermissionsByNom(nom)
-                    .stream()
-                    .map(EntityMapper::toPermissionDTO)
-                    .collect(Collectors.toList());
+            PageDTO<PermissionDTO> permissions = permissionService.searchPermissions(q != null ? q : nom, page, size)
+                    .map(EntityMapper::toPermissionDTO);
 
             return Response.ok(ApiResponse.success("Résultats de recherche", permissions))
                     .build();
@@ -2,6 +2,7 @@ package com.archer.cbs.authservice.resource;
 
 
 import com.archer.cbs.authservice.dto.ApiResponse;
+import com.archer.cbs.authservice.dto.PageDTO;
 import com.archer.cbs.authservice.dto.PersonDTO;
 import com.archer.cbs.authservice.entity.Person;
 import com.archer.cbs.authservice.mapper.EntityMapper;
@@ -126,17 +127,20 @@ public class PersonResource {
     }
 
     /**
-     * Rechercher des personnes par nom
-     * GET /api/persons/search?nom=xxx
+     * Rechercher des personnes (prénom, nom, email, téléphone)
+     * GET /api/persons/search?q=xxx&page=0&size=20
+     * <p>
+     * Le paramètre historique {@code nom} reste accepté à la place de {@code q}.
      */
     @GET
     @Path("/search")
-    public Response searchPersons(@QueryParam("nom") String nom) {
+    public Response searchPersons(@QueryParam("q") String q,
+                                  @QueryParam("nom") String nom,
+                                  @QueryParam("page") Integer page,
+                                  @QueryParam("size") Integer size) {
         try {
-            List<PersonDTO> persons = personService.searchPersonsByNom(nom)
-                    .stream()
-                    .map(EntityMapper::toPersonDTO)
-                    .collect(Collectors.toList());
+            PageDTO<PersonDTO> persons = personService.searchPersons(q != null ? q : nom, page, size)
+                    .map(EntityMapper::toPersonDTO);
 
             return Response.ok(ApiResponse.success("Résultats de recherche", persons))
                     .build();
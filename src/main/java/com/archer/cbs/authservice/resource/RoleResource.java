@@ -1,6 +1,8 @@
 package com.archer.cbs.authservice.resource;
 
 
+import com.archer.cbs.authservice.cache.VersionStamps;
+import com.archer.cbs.authservice.cache.VersionStamps.Aggregate;
 import com.archer.cbs.authservice.dto.ApiResponse;
 import com.archer.cbs.authservice.dto.RoleDTO;
 import com.archer.cbs.authservice.entity.Role;
@@ -9,7 +11,10 @@ import com.archer.cbs.authservice.service.RoleService;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,6 +27,9 @@ public class RoleResource {
     @Inject
     private RoleService roleService;
 
+    @Inject
+    private VersionStamps versions;
+
     /**
      * Créer un nouveau rôle
      * POST /api/roles
@@ -52,7 +60,15 @@ public class RoleResource {
      * GET /api/roles
      */
     @GET
-    public Response getAllRoles(@QueryParam("withPermissions") boolean withPermissions) {
+    public Response getAllRoles(@QueryParam("withPermissions") boolean withPermissions,
+                                @Context Request request) {
+        // Les rôles exposent les noms de leurs permissions
+        EntityTag tag = versions.tag(withPermissions ? "roles-p" : "roles", Aggregate.ROLES, Aggregate.PERMISSIONS);
+        Response notModified = versions.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
         try {
             List<RoleDTO> roles;
 
@@ -69,6 +85,8 @@ public class RoleResource {
             }
 
             return Response.ok(ApiResponse.success("Liste des rôles", roles))
+                    .tag(tag)
+                    .cacheControl(VersionStamps.REVALIDATE)
                     .build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -84,13 +102,20 @@ public class RoleResource {
     @GET
     @Path("/{id}")
     public Response getRoleById(@PathParam("id") Long id,
-                                @QueryParam("withPermissions") boolean withPermissions) {
+                                @QueryParam("withPermissions") boolean withPermissions,
+                                @Context Request request) {
+        EntityTag tag = versions.tag((withPermissions ? "role-p" : "role") + id, Aggregate.ROLES, Aggregate.PERMISSIONS);
+        Response notModified = versions.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+
         try {
             if (withPermissions) {
                 return roleService.getRoleWithPermissions(id)
                         .map(role -> Response.ok(
                                 ApiResponse.success("Rôle trouvé", EntityMapper.toRoleDTO(role))
-                        ).build())
+                        ).tag(tag).cacheControl(VersionStamps.REVALIDATE).build())
                         .orElse(Response.status(Response.Status.NOT_FOUND)
                                 .entity(ApiResponse.error("Rôle non trouvé"))
                                 .build());
@@ -98,7 +123,7 @@ public class RoleResource {
                 return roleService.getRoleById(id)
                         .map(role -> Response.ok(
                                 ApiResponse.success("Rôle trouvé", EntityMapper.toRoleDTO(role))
-                        ).build())
+                        ).tag(tag).cacheControl(VersionStamps.REVALIDATE).build())
                         .orElse(Response.status(Response.Status.NOT_FOUND)
                                 .entity(ApiResponse.error("Rôle non trouvé"))
                                 .build());
@@ -1,15 +1,23 @@
 package com.archer.cbs.authservice.resource;
 
+import com.archer.cbs.authservice.cache.VersionStamps;
+import com.archer.cbs.authservice.cache.VersionStamps.Aggregate;
 import com.archer.cbs.authservice.config.SecurityConfig;
 import com.archer.cbs.authservice.config.SecurityConfig.RouteConfig;
+import com.archer.cbs.authservice.config.StaticPayload;
 import com.archer.cbs.authservice.dto.ApiResponse;
 import com.archer.cbs.authservice.security.Secured;
 import jakarta.ws.rs.*;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -21,19 +29,24 @@ import java.util.stream.Collectors;
 @Consumes(MediaType.APPLICATION_JSON)
 public class RoutesResource {
 
+    @Inject
+    private VersionStamps versions;
+
     /**
      * Liste toutes les routes configurées
      * GET /api/routes
      */
     @GET
+    @StaticPayload
     @Secured(roles = {"Super-admin"})
-    public Response getAllRoutes() {
-        List<Map<String, Object>> routes = SecurityConfig.getRoutes().stream()
-                .map(this::toMap)
-                .collect(Collectors.toList());
+    public Response getAllRoutes(@Context Request request) {
+        return conditional(request, "routes", () -> {
+            List<Map<String, Object>> routes = SecurityConfig.getRoutes().stream()
+                    .map(this::toMap)
+                    .collect(Collectors.toList());
 
-        return Response.ok(ApiResponse.success("Liste des routes", routes))
-                .build();
+            return ApiResponse.success("Liste des routes", routes);
+        });
     }
 
     /**
@@ -41,14 +54,16 @@ public class RoutesResource {
      * GET /api/routes/public
      */
     @GET
+    @StaticPayload
     @Path("/public")
-    public Response getPublicRoutes() {
-        List<Map<String, Object>> routes = SecurityConfig.getPublicRoutes().stream()
-                .map(this::toMap)
-                .collect(Collectors.toList());
+    public Response getPublicRoutes(@Context Request request) {
+        return conditional(request, "routes-public", () -> {
+            List<Map<String, Object>> routes = SecurityConfig.getPublicRoutes().stream()
+                    .map(this::toMap)
+                    .collect(Collectors.toList());
 
-        return Response.ok(ApiResponse.success("Routes publiques", routes))
-                .build();
+            return ApiResponse.success("Routes publiques", routes);
+        });
     }
 
     /**
@@ -56,15 +71,17 @@ public class RoutesResource {
      * GET /api/routes/protected
      */
     @GET
+    @StaticPayload
     @Path("/protected")
     @Secured(roles = {"ADMIN"})
-    public Response getProtectedRoutes() {
-        List<Map<String, Object>> routes = SecurityConfig.getProtectedRoutes().stream()
-                .map(this::toMap)
-                .collect(Collectors.toList());
+    public Response getProtectedRoutes(@Context Request request) {
+        return conditional(request, "routes-protected", () -> {
+            List<Map<String, Object>> routes = SecurityConfig.getProtectedRoutes().stream()
+                    .map(this::toMap)
+                    .collect(Collectors.toList());
 
-        return Response.ok(ApiResponse.success("Routes protégées", routes))
-                .build();
+            return ApiResponse.success("Routes protégées", routes);
+        });
     }
 
     /**
@@ -72,28 +89,46 @@ public class RoutesResource {
      * GET /api/routes/stats
      */
     @GET
+    @StaticPayload
     @Path("/stats")
     @Secured(roles = {"ADMIN"})
-    public Response getRouteStats() {
-        List<RouteConfig> allRoutes = SecurityConfig.getRoutes();
+    public Response getRouteStats(@Context Request request) {
+        return conditional(request, "routes-stats", () -> {
+            List<RouteConfig> allRoutes = SecurityConfig.getRoutes();
 
-        Map<String, Object> stats = new HashMap<>();
-        stats.put("total", allRoutes.size());
-        stats.put("public", SecurityConfig.getPublicRoutes().size());
-        stats.put("protected", SecurityConfig.getProtectedRoutes().size());
-        stats.put("requiresRoles", allRoutes.stream()
-                .filter(r -> r.getRoles().length > 0)
-                .count());
-        stats.put("requiresPermissions", allRoutes.stream()
-                .filter(r -> r.getPermissions().length > 0)
-                .count());
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("total", allRoutes.size());
+            stats.put("public", SecurityConfig.getPublicRoutes().size());
+            stats.put("protected", SecurityConfig.getProtectedRoutes().size());
+            stats.put("requiresRoles", allRoutes.stream()
+                    .filter(r -> r.getRoles().length > 0)
+                    .count());
+            stats.put("requiresPermissions", allRoutes.stream()
+                    .filter(r -> r.getPermissions().length > 0)
+                    .count());
 
-        // Grouper par méthode HTTP
-        Map<String, Long> byMethod = allRoutes.stream()
-                .collect(Collectors.groupingBy(RouteConfig::getMethod, Collectors.counting()));
-        stats.put("byMethod", byMethod);
+            // Grouper par méthode HTTP
+            Map<String, Long> byMethod = allRoutes.stream()
+                    .collect(Collectors.groupingBy(RouteConfig::getMethod, Collectors.counting()));
+            stats.put("byMethod", byMethod);
 
-        return Response.ok(ApiResponse.success("Statistiques des routes", stats))
+            return ApiResponse.success("Statistiques des routes", stats);
+        });
+    }
+
+    /**
+     * Les routes ne changent qu'au déploiement : l'ETag ne dépend que de l'époque du nœud,
+     * et la réponse n'est construite que si le client n'a pas la version courante
+     */
+    private Response conditional(Request request, String resource, Supplier<ApiResponse<?>> body) {
+        EntityTag tag = versions.tag(resource, Aggregate.ROUTES);
+        Response notModified = versions.notModified(request, tag);
+        if (notModified != null) {
+            return notModified;
+        }
+        return Response.ok(body.get())
+                .tag(tag)
+                .cacheControl(VersionStamps.REVALIDATE)
                 .build();
     }
 
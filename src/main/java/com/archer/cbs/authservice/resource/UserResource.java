@@ -6,6 +6,7 @@ import com.archer.cbs.authservice.entity.Person;
 import com.archer.cbs.authservice.entity.User;
 import com.archer.cbs.authservice.mapper.EntityMapper;
 import com.archer.cbs.authservice.security.Secured;
+import com.archer.cbs.authservice.security.SessionRegistry.Session;
 import com.archer.cbs.authservice.service.UserService;
 import jakarta.inject.Inject;
 import jakarta.validation.Valid;
@@ -298,6 +299,10 @@ public class UserResource {
             userService.toggleUserStatus(id);
             return Response.ok(ApiResponse.success("Statut de l'utilisateur modifié avec succès"))
                     .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
         } catch (Exception e) {
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                     .entity(ApiResponse.error("Erreur lors de la modification du statut: " + e.getMessage()))
@@ -305,6 +310,50 @@ public class UserResource {
         }
     }
 
+    /**
+     * Sessions ouvertes d'un utilisateur
+     * GET /api/users/{id}/sessions
+     */
+    @GET
+    @Path("/{id}/sessions")
+    public Response getSessions(@PathParam("id") Long id) {
+        try {
+            List<Session> sessions = userService.getSessions(id);
+            return Response.ok(ApiResponse.success(sessions.size() + " session(s) ouverte(s)", sessions))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Erreur lors de la récupération des sessions: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * Fermer toutes les sessions d'un utilisateur (tokens émis jusqu'ici refusés)
+     * DELETE /api/users/{id}/sessions
+     */
+    @DELETE
+    @Path("/{id}/sessions")
+    public Response revokeSessions(@PathParam("id") Long id) {
+        try {
+            int closed = userService.revokeSessions(id);
+            return Response.ok(ApiResponse.success(closed + " session(s) fermée(s)"))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Erreur lors de la fermeture des sessions: " + e.getMessage()))
+                    .build();
+        }
+    }
+
     /**
      * Ajouter un rôle à un utilisateur
      * POST /api/users/{userId}/roles/{roleId}
@@ -349,6 +398,50 @@ public class UserResource {
         }
     }
 
+    /**
+     * Attribuer plusieurs rôles à plusieurs utilisateurs en une transaction
+     * POST /api/users/roles/bulk-add
+     */
+    @POST
+    @Path("/roles/bulk-add")
+    public Response addRolesToUsers(BulkRoleRequest request) {
+        try {
+            BulkRoleResultDTO result = userService.addRolesToUsers(request.getUserIds(), request.getRoleIds());
+            return Response.ok(ApiResponse.success(result.getChanged() + " attribution(s) effectuée(s)", result))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Erreur lors de l'attribution groupée des rôles: " + e.getMessage()))
+                    .build();
+        }
+    }
+
+    /**
+     * Retirer plusieurs rôles à plusieurs utilisateurs en une transaction
+     * POST /api/users/roles/bulk-remove
+     */
+    @POST
+    @Path("/roles/bulk-remove")
+    public Response removeRolesFromUsers(BulkRoleRequest request) {
+        try {
+            BulkRoleResultDTO result = userService.removeRolesFromUsers(request.getUserIds(), request.getRoleIds());
+            return Response.ok(ApiResponse.success(result.getChanged() + " retrait(s) effectué(s)", result))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(ApiResponse.error(e.getMessage()))
+                    .build();
+        } catch (Exception e) {
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                    .entity(ApiResponse.error("Erreur lors du retrait groupé des rôles: " + e.getMessage()))
+                    .build();
+        }
+    }
+
     /**
      * Supprimer un utilisateur
      * DELETE /api/users/{id}
@@ -0,0 +1,137 @@
+package com.archer.cbs.authservice.search;
+
+import com.archer.cbs.authservice.dao.PermissionDAO;
+import com.archer.cbs.authservice.dao.PersonDAO;
+import com.archer.cbs.authservice.dao.RoleDAO;
+import com.archer.cbs.authservice.dao.UserDAO;
+import com.archer.cbs.authservice.dto.AutocompleteHitDTO;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.event.EntityChangedEvent.EntityType;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Index d'autocomplétion de l'interface d'administration
+ * <p>
+ * Construit au démarrage par un parcours en flux de la base, puis tenu à jour par les
+ * {@link EntityChangedEvent} validés des services. Les recherches ne touchent pas la base.
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrator")
+@Lock(LockType.READ)
+public class AutocompleteIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(AutocompleteIndex.class.getName());
+
+    private final Map<EntityType, NGramIndex> indexes = new EnumMap<>(EntityType.class);
+
+    @Inject
+    private UserDAO userDAO;
+
+    @Inject
+    private PersonDAO personDAO;
+
+    @Inject
+    private RoleDAO roleDAO;
+
+    @Inject
+    private PermissionDAO permissionDAO;
+
+    @PostConstruct
+    public void build() {
+        long start = System.nanoTime();
+        for (EntityType type : EntityType.values()) {
+            indexes.put(type, new NGramIndex(type.name().toLowerCase()));
+        }
+
+        load(EntityType.USER, userDAO.streamLabels());
+        load(EntityType.PERSON, personDAO.streamLabels());
+        load(EntityType.ROLE, roleDAO.streamLabels());
+        load(EntityType.PERMISSION, permissionDAO.streamLabels());
+
+        LOGGER.info(String.format("Index d'autocomplétion construit en %d ms (%d utilisateurs, %d personnes, %d rôles, %d permissions)",
+                (System.nanoTime() - start) / 1_000_000,
+                indexes.get(EntityType.USER).size(), indexes.get(EntityType.PERSON).size(),
+                indexes.get(EntityType.ROLE).size(), indexes.get(EntityType.PERMISSION).size()));
+    }
+
+    /**
+     * Recherche dans les types demandés (tous si vide), fusionnés et tronqués à {@code limit}
+     */
+    public List<AutocompleteHitDTO> search(String query, Collection<EntityType> types, int limit) {
+        Collection<EntityType> targets = types == null || types.isEmpty() ? indexes.keySet() : types;
+        if (targets.size() == 1) {
+            return indexes.get(targets.iterator().next()).search(query, limit);
+        }
+
+        List<AutocompleteHitDTO> hits = new ArrayList<>();
+        for (EntityType type : targets) {
+            hits.addAll(indexes.get(type).search(query, limit));
+        }
+        String normalizedQuery = NGramIndex.normalize(query).trim();
+        hits.sort(Comparator
+                .comparing((AutocompleteHitDTO hit) -> !NGramIndex.normalize(hit.getLabel()).startsWith(normalizedQuery))
+                .thenComparingInt(hit -> hit.getLabel().length()));
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * Mise à jour après validation de la transaction d'un service
+     */
+    public void onEntityChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) EntityChangedEvent event) {
+        NGramIndex index = indexes.get(event.getEntityType());
+        switch (event.getChangeType()) {
+            case CREATED:
+            case UPDATED:
+                if (event.getLabel() != null) {
+                    index.put(event.getEntityId(), event.getLabel());
+                }
+                break;
+            case DELETED:
+                index.remove(event.getEntityId());
+                break;
+            default:
+                // Associations : aucun libellé modifié
+                break;
+        }
+    }
+
+    private void load(EntityType type, Stream<Object[]> rows) {
+        NGramIndex index = indexes.get(type);
+        try (rows) {
+            rows.forEach(row -> index.put(((Number) row[0]).longValue(), label(row)));
+        }
+    }
+
+    /**
+     * Libellé d'une ligne (id, champ...) : champs non nuls séparés par un espace
+     */
+    private static String label(Object[] row) {
+        StringBuilder label = new StringBuilder();
+        for (int i = 1; i < row.length; i++) {
+            if (row[i] != null) {
+                if (label.length() > 0) {
+                    label.append(' ');
+                }
+                label.append(row[i]);
+            }
+        }
+        return label.toString();
+    }
+}
@@ -0,0 +1,119 @@
+package com.archer.cbs.authservice.search;
+
+import java.util.Arrays;
+
+/**
+ * Table de hachage long -> int à adressage ouvert (sondage linéaire)
+ * <p>
+ * Sans boxing ni objet par entrée. Non synchronisée : l'appelant gère la concurrence.
+ */
+final class LongIntHashMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return la valeur associée, ou {@code missing} si la clé est absente
+     */
+    int get(long key, int missing) {
+        int slot = find(key);
+        return slot >= 0 ? values[slot] : missing;
+    }
+
+    void put(long key, int value) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Clé réservée");
+        }
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Supprime la clé en recompactant la séquence de sondage (pas de pierre tombale)
+     */
+    void remove(long key) {
+        int slot = find(key);
+        if (slot < 0) {
+            return;
+        }
+        size--;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != FREE) {
+            int home = mix(keys[next]) & mask;
+            // L'entrée peut combler le trou si son emplacement d'origine ne se trouve
+            // pas strictement entre le trou et sa position actuelle
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = FREE;
+    }
+
+    void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    private int find(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != FREE) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
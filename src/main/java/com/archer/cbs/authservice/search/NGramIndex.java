@@ -0,0 +1,344 @@
+package com.archer.cbs.authservice.search;
+
+import com.archer.cbs.authservice.dto.AutocompleteHitDTO;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index trigrammes en mémoire pour l'autocomplétion d'un type d'entité
+ * <p>
+ * Chaque libellé occupe un emplacement (slot) ; chaque mot est découpé en trigrammes
+ * avec deux espaces de tête, comme pg_trgm, si bien qu'une requête ne retrouve que les
+ * mots qui commencent par le texte saisi. Les listes de slots par trigramme sont des
+ * {@code int[]} triés, croisés à la recherche. Une suppression marque le slot comme mort ;
+ * l'index est recompacté quand les slots morts dépassent les vivants.
+ */
+final class NGramIndex {
+
+    private static final int NO_VALUE = -1;
+
+    private static final int COMPACTION_MIN_DEAD = 1024;
+
+    /**
+     * Nombre maximal de correspondances classées par recherche : au-delà, une saisie
+     * très courte ("ma") n'améliorerait le classement qu'au prix d'un parcours complet
+     */
+    private static final int MAX_RANKED_MATCHES = 2048;
+
+    private final String type;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Slots
+    private long[] ids = new long[64];
+    private String[] labels = new String[64];
+    private String[] normalizedLabels = new String[64];
+    private final BitSet dead = new BitSet();
+    private int slotCount;
+    private int deadCount;
+
+    private final LongIntHashMap slotById = new LongIntHashMap(64);
+
+    // Listes de slots par trigramme
+    private final LongIntHashMap postingByGram = new LongIntHashMap(256);
+    private int[][] postings = new int[256][];
+    private int[] postingSizes = new int[256];
+    private int postingCount;
+
+    NGramIndex(String type) {
+        this.type = type;
+    }
+
+    /**
+     * Ajoute ou remplace le libellé d'une entité
+     */
+    void put(long id, String label) {
+        if (label == null || label.isBlank()) {
+            remove(id);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            addLocked(id, label);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return slotCount - deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cherche les libellés dont les mots commencent par les mots saisis
+     * <p>
+     * Classement : libellé commençant par la saisie complète, puis libellé le plus court,
+     * parmi les {@link #MAX_RANKED_MATCHES} premières correspondances.
+     */
+    List<AutocompleteHitDTO> search(String query, int limit) {
+        String[] words = words(normalize(query));
+        if (words.length == 0 || limit <= 0) {
+            return List.of();
+        }
+        long[] grams = queryGrams(words);
+        String normalizedQuery = String.join(" ", words);
+
+        lock.readLock().lock();
+        try {
+            int[][] lists = new int[grams.length][];
+            int[] sizes = new int[grams.length];
+            int shortest = 0;
+            for (int i = 0; i < grams.length; i++) {
+                int posting = postingByGram.get(grams[i], NO_VALUE);
+                if (posting == NO_VALUE) {
+                    return List.of();
+                }
+                lists[i] = postings[posting];
+                sizes[i] = postingSizes[posting];
+                if (sizes[i] < sizes[shortest]) {
+                    shortest = i;
+                }
+            }
+
+            // Meilleurs résultats triés par score croissant (insertion, limit est petit)
+            int[] topSlots = new int[limit];
+            long[] topScores = new long[limit];
+            int found = 0;
+            int matches = 0;
+
+            int[] candidates = lists[shortest];
+            for (int c = 0; c < sizes[shortest] && matches < MAX_RANKED_MATCHES; c++) {
+                int slot = candidates[c];
+                if (dead.get(slot) || !inAllPostings(slot, lists, sizes, shortest)) {
+                    continue;
+                }
+                String normalized = normalizedLabels[slot];
+                if (!matchesWordPrefixes(normalized, words)) {
+                    continue;
+                }
+                matches++;
+
+                long score = ((normalized.startsWith(normalizedQuery) ? 0L : 1L) << 40)
+                        | ((long) normalized.length() << 20);
+                if (found == limit && score >= topScores[limit - 1]) {
+                    continue;
+                }
+                int pos = found < limit ? found++ : limit - 1;
+                while (pos > 0 && topScores[pos - 1] > score) {
+                    topScores[pos] = topScores[pos - 1];
+                    topSlots[pos] = topSlots[pos - 1];
+                    pos--;
+                }
+                topScores[pos] = score;
+                topSlots[pos] = slot;
+            }
+
+            List<AutocompleteHitDTO> hits = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                hits.add(new AutocompleteHitDTO(type, ids[topSlots[i]], labels[topSlots[i]]));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Écriture (verrou d'écriture tenu)
+    // ----------------------------------------------------------------------
+
+    private void addLocked(long id, String label) {
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            labels = Arrays.copyOf(labels, capacity);
+            normalizedLabels = Arrays.copyOf(normalizedLabels, capacity);
+        }
+        int slot = slotCount++;
+        String normalized = normalize(label);
+        ids[slot] = id;
+        labels[slot] = label;
+        normalizedLabels[slot] = normalized;
+        slotById.put(id, slot);
+
+        for (String word : words(normalized)) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                appendPosting(gram(padded, i), slot);
+            }
+        }
+    }
+
+    private void removeLocked(long id) {
+        int slot = slotById.get(id, NO_VALUE);
+        if (slot != NO_VALUE) {
+            slotById.remove(id);
+            dead.set(slot);
+            labels[slot] = null;
+            normalizedLabels[slot] = null;
+            deadCount++;
+        }
+    }
+
+    private void appendPosting(long gram, int slot) {
+        int posting = postingByGram.get(gram, NO_VALUE);
+        if (posting == NO_VALUE) {
+            if (postingCount == postings.length) {
+                postings = Arrays.copyOf(postings, postingCount * 2);
+                postingSizes = Arrays.copyOf(postingSizes, postingCount * 2);
+            }
+            posting = postingCount++;
+            postings[posting] = new int[4];
+            postingByGram.put(gram, posting);
+        }
+        int[] list = postings[posting];
+        int size = postingSizes[posting];
+        // Trigramme répété dans le même libellé : une seule entrée
+        if (size > 0 && list[size - 1] == slot) {
+            return;
+        }
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size + (size >> 1) + 1);
+            postings[posting] = list;
+        }
+        list[size] = slot;
+        postingSizes[posting] = size + 1;
+    }
+
+    /**
+     * Reconstruit l'index à partir des slots vivants quand les morts deviennent majoritaires
+     */
+    private void compactIfNeeded() {
+        if (deadCount < COMPACTION_MIN_DEAD || deadCount < slotCount - deadCount) {
+            return;
+        }
+        long[] oldIds = ids;
+        String[] oldLabels = labels;
+        int oldCount = slotCount;
+
+        int capacity = Math.max(64, Integer.highestOneBit(Math.max(1, oldCount - deadCount)) << 1);
+        ids = new long[capacity];
+        labels = new String[capacity];
+        normalizedLabels = new String[capacity];
+        dead.clear();
+        slotCount = 0;
+        deadCount = 0;
+        slotById.clear();
+        postingByGram.clear();
+        postings = new int[256][];
+        postingSizes = new int[256];
+        postingCount = 0;
+
+        for (int slot = 0; slot < oldCount; slot++) {
+            if (oldLabels[slot] != null) {
+                addLocked(oldIds[slot], oldLabels[slot]);
+            }
+        }
+    }
+
+    // ----------------------------------------------------------------------
+    // Lecture
+    // ----------------------------------------------------------------------
+
+    private static boolean inAllPostings(int slot, int[][] lists, int[] sizes, int skip) {
+        for (int i = 0; i < lists.length; i++) {
+            if (i != skip && Arrays.binarySearch(lists[i], 0, sizes[i], slot) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Chaque mot saisi doit être le début d'un mot du libellé (élimine les faux positifs
+     * du croisement de trigrammes)
+     */
+    private static boolean matchesWordPrefixes(String normalized, String[] queryWords) {
+        for (String queryWord : queryWords) {
+            boolean matched = false;
+            int from = 0;
+            while (!matched && from < normalized.length()) {
+                int index = normalized.indexOf(queryWord, from);
+                if (index < 0) {
+                    break;
+                }
+                matched = index == 0 || !Character.isLetterOrDigit(normalized.charAt(index - 1));
+                from = index + 1;
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] queryGrams(String[] words) {
+        long[] grams = new long[0];
+        int count = 0;
+        for (String word : words) {
+            // Pas d'espace final : le mot saisi est un préfixe
+            String padded = "  " + word;
+            grams = Arrays.copyOf(grams, count + padded.length() - 2);
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams[count++] = gram(padded, i);
+            }
+        }
+        return grams;
+    }
+
+    private static long gram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+
+    private static String[] words(String normalized) {
+        List<String> words = new ArrayList<>(4);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Minuscules sans accents ("Éloïse" -> "eloise")
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 128;
+        }
+        String base = ascii ? text : Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "");
+        return base.toLowerCase();
+    }
+}
@@ -0,0 +1,153 @@
+package com.archer.cbs.authservice.security;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Table de hachage long -> objet à adressage ouvert, lecture sans verrou
+ * <p>
+ * Sans boxing des clés. {@link #get(long)} ne prend aucun verrou : il lit la table
+ * publiée (référence volatile), dont les cases sont écrites valeur d'abord, clé ensuite.
+ * Les écritures sont sérialisées ; une entrée n'est jamais retirée sur place (un lecteur
+ * concurrent pourrait la manquer) : {@link #removeIf(Predicate)} et l'agrandissement
+ * publient une table neuve.
+ */
+final class ConcurrentLongMap<V> {
+
+    private static final long FREE = Long.MIN_VALUE;
+
+    private static final class Table<V> {
+        final AtomicLongArray keys;
+        final AtomicReferenceArray<V> values;
+        final int mask;
+        int size;
+
+        Table(int capacity) {
+            keys = new AtomicLongArray(capacity);
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+            for (int i = 0; i < capacity; i++) {
+                keys.set(i, FREE);
+            }
+        }
+    }
+
+    private volatile Table<V> table;
+
+    ConcurrentLongMap(int expectedSize) {
+        table = new Table<>(capacityFor(expectedSize));
+    }
+
+    /**
+     * @return la valeur associée, ou null
+     */
+    V get(long key) {
+        Table<V> current = table;
+        int slot = mix(key) & current.mask;
+        long found;
+        while ((found = current.keys.get(slot)) != FREE) {
+            if (found == key) {
+                return current.values.get(slot);
+            }
+            slot = (slot + 1) & current.mask;
+        }
+        return null;
+    }
+
+    /**
+     * Valeur associée, créée par {@code factory} (sous le verrou d'écriture) si absente
+     */
+    V computeIfAbsent(long key, LongFunction<V> factory) {
+        V existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (key == FREE) {
+                throw new IllegalArgumentException("Clé réservée");
+            }
+            V value = factory.apply(key);
+            Table<V> current = table;
+            if ((current.size + 1) * 2 > current.keys.length()) {
+                current = copy(current, current.keys.length() << 1, null);
+                table = current;
+            }
+            insert(current, key, value);
+            return value;
+        }
+    }
+
+    /**
+     * Retire les entrées dont la valeur satisfait le prédicat (table reconstruite)
+     * <p>
+     * Une valeur que {@link #computeIfAbsent} vient de rendre sans verrou peut être retirée
+     * juste après : si elle est modifiable, le prédicat doit la marquer comme retirée sous le
+     * verrou de ses écrivains, qui recommencent en la voyant marquée.
+     *
+     * @return le nombre d'entrées retirées
+     */
+    synchronized int removeIf(Predicate<V> predicate) {
+        Table<V> current = table;
+        Table<V> rebuilt = copy(current, current.keys.length(), predicate);
+        int removed = current.size - rebuilt.size;
+        if (removed > 0) {
+            table = rebuilt;
+        }
+        return removed;
+    }
+
+    void forEach(BiConsumer<Long, V> action) {
+        Table<V> current = table;
+        for (int i = 0; i < current.keys.length(); i++) {
+            long key = current.keys.get(i);
+            if (key != FREE) {
+                action.accept(key, current.values.get(i));
+            }
+        }
+    }
+
+    int size() {
+        return table.size;
+    }
+
+    private static <V> void insert(Table<V> table, long key, V value) {
+        int slot = mix(key) & table.mask;
+        while (table.keys.get(slot) != FREE) {
+            slot = (slot + 1) & table.mask;
+        }
+        // Valeur publiée avant la clé : un lecteur qui voit la clé voit la valeur
+        table.values.set(slot, value);
+        table.keys.set(slot, key);
+        table.size++;
+    }
+
+    private static <V> Table<V> copy(Table<V> source, int capacity, Predicate<V> exclude) {
+        Table<V> target = new Table<>(capacity);
+        for (int i = 0; i < source.keys.length(); i++) {
+            long key = source.keys.get(i);
+            if (key != FREE) {
+                V value = source.values.get(i);
+                if (exclude == null || !exclude.test(value)) {
+                    insert(target, key, value);
+                }
+            }
+        }
+        return target;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        return Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,10 +1,16 @@
 package com.archer.cbs.authservice.security;
 
+import com.archer.cbs.authservice.audit.AuditContext;
+import com.archer.cbs.authservice.config.SecurityConfig;
+import com.archer.cbs.authservice.config.SecurityConfig.RouteConfig;
+import com.archer.cbs.authservice.dto.ApiResponse;
+import io.jsonwebtoken.Claims;
 import jakarta.annotation.Priority;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Priorities;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.PreMatching;
 import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.SecurityContext;
@@ -14,12 +20,15 @@ import java.security.Principal;
 import java.util.List;
 
 /**
- * Filtre JAX-RS qui intercepte TOUTES les requêtes
- * Pour extraire et valider le token JWT
+ * Filtre de sécurité unique : authentification JWT et autorisation par route
  * <p> Middleware
- * Priority.AUTHENTICATION : S'exécute en priorité avant les autres filtres
+ * Exécuté avant la résolution de la ressource (@PreMatching). La route est cherchée
+ * dans la table compilée de {@link SecurityConfig} ; le token n'est lu et vérifié que
+ * si la route exige une authentification (/auth/login, routes non configurées : aucun
+ * travail). Tout se décide sur des variables locales, en une seule analyse du token.
  */
 @Provider
+@PreMatching
 @Priority(Priorities.AUTHENTICATION)
 public class JwtAuthenticationFilter implements ContainerRequestFilter {
 
@@ -27,71 +36,135 @@ public class JwtAuthenticationFilter implements ContainerRequestFilter {
     private JwtService jwtService;
 
     @Inject
-    private SecuredContext securedContext;
+    private AuditContext auditContext;
+
+    @Inject
+    private SessionRegistry sessionRegistry;
+
+    @Inject
+    private SecurityStamps securityStamps;
 
     private static final String BEARER_PREFIX = "Bearer ";
 
     @Override
     public void filter(ContainerRequestContext requestContext) throws IOException {
 
-        // Récupérer le header Authorization
-        String authorizationHeader = requestContext.getHeaderString(HttpHeaders.AUTHORIZATION);
-
-        // Si le header existe et commence par "Bearer "
-        if (authorizationHeader != null && authorizationHeader.startsWith(BEARER_PREFIX)) {
-            String token = authorizationHeader.substring(BEARER_PREFIX.length()).trim();
-
-            try {
-                // Valider le token
-                if (jwtService.validateToken(token)) {
-                    // Extraire les informations de l'utilisateur
-                    Long userId = jwtService.getUserIdFromToken(token);
-                    String username = jwtService.getUsernameFromToken(token);
-                    List<String> roles = jwtService.getRolesFromToken(token);
-                    List<String> permissions = jwtService.getPermissionsFromToken(token);
-
-                    // Créer le UserPrincipal
-                    UserPrincipal userPrincipal = new UserPrincipal(userId, username, roles, permissions);
-
-                    // Stocker dans le contexte de sécurité
-                    securedContext.setUserPrincipal(userPrincipal);
-
-                    // Créer un SecurityContext personnalisé pour JAX-RS
-                    final SecurityContext originalContext = requestContext.getSecurityContext();
-                    requestContext.setSecurityContext(new SecurityContext() {
-                        @Override
-                        public Principal getUserPrincipal() {
-                            return userPrincipal;
-                        }
-
-                        @Override
-                        public boolean isUserInRole(String role) {
-                            return userPrincipal.hasRole(role);
-                        }
-
-                        @Override
-                        public boolean isSecure() {
-                            return originalContext.isSecure();
-                        }
-
-                        @Override
-                        public String getAuthenticationScheme() {
-                            return "Bearer";
-                        }
-                    });
-
-                } else {
-                    // Token invalide ou expiré - on ne fait rien
-                    // L'annotation @Secured bloquera l'accès si nécessaire
-                }
-            } catch (Exception e) {
-                // Erreur lors de la validation du token - on ne fait rien
-                // L'annotation @Secured bloquera l'accès si nécessaire
+        String path = requestContext.getUriInfo().getPath();
+
+        // Retirer le préfixe /api si présent
+        if (path.startsWith("api/")) {
+            path = path.substring(4);
+        }
+
+        RouteConfig route = SecurityConfig.lookupRoute(path, requestContext.getMethod());
+
+        // Route non configurée ou publique : pas de token à analyser
+        if (route == null || !route.requiresAuth()) {
+            return;
+        }
+
+        UserPrincipal userPrincipal = authenticate(requestContext.getHeaderString(HttpHeaders.AUTHORIZATION));
+        if (userPrincipal == null) {
+            requestContext.abortWith(
+                    Response.status(Response.Status.UNAUTHORIZED)
+                            .entity(ApiResponse.error("Authentification requise pour accéder à cette ressource."))
+                            .build()
+            );
+            return;
+        }
+
+        // Vérifier les rôles
+        String[] requiredRoles = route.getRoles();
+        if (requiredRoles.length > 0 && !hasAny(userPrincipal.getRoles(), requiredRoles)) {
+            requestContext.abortWith(
+                    Response.status(Response.Status.FORBIDDEN)
+                            .entity(ApiResponse.error(
+                                    "Accès refusé. Rôles requis : " + String.join(", ", requiredRoles)
+                            ))
+                            .build()
+            );
+            return;
+        }
+
+        // Vérifier les permissions
+        String[] requiredPermissions = route.getPermissions();
+        if (requiredPermissions.length > 0 && !hasAny(userPrincipal.getPermissions(), requiredPermissions)) {
+            requestContext.abortWith(
+                    Response.status(Response.Status.FORBIDDEN)
+                            .entity(ApiResponse.error(
+                                    "Accès refusé. Permissions requises : " + String.join(", ", requiredPermissions)
+                            ))
+                            .build()
+            );
+            return;
+        }
+
+        // Auteur des événements d'audit de la requête
+        auditContext.setActorId(userPrincipal.getUserId());
+
+        // Exposer l'utilisateur aux ressources (@Context SecurityContext)
+        final SecurityContext originalContext = requestContext.getSecurityContext();
+        requestContext.setSecurityContext(new SecurityContext() {
+            @Override
+            public Principal getUserPrincipal() {
+                return userPrincipal;
+            }
+
+            @Override
+            public boolean isUserInRole(String role) {
+                return userPrincipal.hasRole(role);
+            }
+
+            @Override
+            public boolean isSecure() {
+                return originalContext.isSecure();
+            }
+
+            @Override
+            public String getAuthenticationScheme() {
+                return "Bearer";
             }
+        });
+    }
+
+    /**
+     * Utilisateur porté par l'en-tête Authorization, ou null si absent ou invalide
+     */
+    @SuppressWarnings("unchecked")
+    private UserPrincipal authenticate(String authorizationHeader) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER_PREFIX)) {
+            jwtService.recordMissingToken();
+            return null;
+        }
+        String token = authorizationHeader.substring(BEARER_PREFIX.length()).trim();
+
+        Claims claims = jwtService.verify(token);
+        if (claims == null) {
+            return null;
+        }
+        // Révocation et droits dépassés : lectures en mémoire, sans accès base. Un token
+        // dépassé est refusé (401) ; le rafraîchissement en émet un avec les droits à jour.
+        Long userId = claims.get("userId", Long.class);
+        if (userId != null && (sessionRegistry.isRevoked(userId, JwtService.issuedAtMillis(claims))
+                || securityStamps.isStale(userId, claims.get(SecurityStamps.CLAIM)))) {
+            return null;
         }
+        return new UserPrincipal(
+                userId,
+                claims.getSubject(),
+                (List<String>) claims.get("roles"),
+                (List<String>) claims.get("permissions"));
+    }
 
-        // Si pas de token ou token invalide, la requête continue
-        // mais sans contexte de sécurité
-        // C'est l'annotation @Secured qui décidera si on bloque ou non
+    private static boolean hasAny(List<String> granted, String[] required) {
+        if (granted == null) {
+            return false;
+        }
+        for (String value : required) {
+            if (granted.contains(value)) {
+                return true;
+            }
+        }
+        return false;
     }
-}
\ No newline at end of file
+}
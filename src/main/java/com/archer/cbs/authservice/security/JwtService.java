@@ -1,15 +1,27 @@
 package com.archer.cbs.authservice.security;
 
+import com.archer.cbs.authservice.config.JacksonConfig;
+import com.archer.cbs.authservice.config.Settings;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.crypto.Mac;
 
 /**
  * Service de gestion des tokens JWT
@@ -17,23 +29,76 @@ import java.util.Map;
  */
 @Singleton
 @Startup
+@Lock(LockType.READ) // Sans état mutable après init : pas de sérialisation des appels
 public class JwtService {
 
     // Clé secrète pour signer les tokens (À EXTERNALISER EN PRODUCTION)
     private static final String SECRET_KEY = "VotreCleSecreteTresLongueEtSecuriseeQuiFaitAuMoins256Bits12345678";
 
-    // Durée de validité du token (24 heures)
-    private static final long EXPIRATION_TIME = 86400000; // 24h en millisecondes
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    // Durée de validité de l'access token (24 heures par défaut ; courte avec /auth/renew)
+    private static final long EXPIRATION_TIME =
+            Math.max(30, Settings.getLong("auth.jwt.access-ttl-seconds", 86400)) * 1000;
 
     // Durée du refresh token (7 jours)
     private static final long REFRESH_EXPIRATION_TIME = 604800000; // 7 jours
 
+    /** Identifiant de session, commun à l'access token et au refresh token d'une connexion */
+    public static final String SESSION_ID = "sid";
+
+    /**
+     * Début de la session en millisecondes, référence des révocations : instant où le compte
+     * a été lu à la connexion, repris tel quel par tous les tokens de la session
+     */
+    public static final String ISSUED_AT_MS = "iatMs";
+
     private Key signingKey;
 
+    // Seul chemin de vérification des tokens reçus (filtre, refresh, introspection)
+    private JwtVerifier verifier;
+
+    // Signature des payloads pré-sérialisés (Mac non thread-safe)
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
     @PostConstruct
     public void init() {
         // Initialisation de la clé de signature
         this.signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes());
+
+        String sample = Jwts.builder().setSubject("init").signWith(signingKey, SignatureAlgorithm.HS256).compact();
+        Set<String> allowedKids = Arrays.stream(Settings.get("auth.jwt.allowed-kids", "").split(","))
+                .map(String::trim)
+                .filter(kid -> !kid.isEmpty())
+                .collect(Collectors.toSet());
+        this.verifier = new JwtVerifier(
+                signingKey,
+                sample.substring(0, sample.indexOf('.')),
+                Settings.getInt("auth.jwt.max-length", 4096),
+                allowedKids,
+                JacksonConfig.MAPPER);
+    }
+
+    /**
+     * Exerce la génération et la vérification des tokens (préchauffage JIT), avec un
+     * vérificateur jetable pour ne pas fausser les compteurs de {@link #getVerificationStats()}
+     */
+    public void warmUp(int iterations) {
+        JwtVerifier scratch = new JwtVerifier(signingKey, verifier.issuedHeader(), Integer.MAX_VALUE,
+                Set.of(), JacksonConfig.MAPPER);
+        List<String> roles = List.of("WARMUP");
+        for (int i = 0; i < iterations; i++) {
+            long now = System.currentTimeMillis();
+            String token = generateToken((long) -i, "warmup", roles, roles, "warmup", now, new long[]{0});
+            scratch.verify(token);
+            // Même token, payload altéré : chemin du refus de signature
+            int payload = token.indexOf('.') + 1;
+            scratch.verify(token.substring(0, payload)
+                    + (token.charAt(payload) == 'e' ? 'f' : 'e') + token.substring(payload + 1));
+            if (i % 16 == 0) {
+                generateRefreshToken((long) -i, "warmup", "warmup", now);
+            }
+        }
     }
 
     /**
@@ -43,14 +108,21 @@ public class JwtService {
      * @param username Nom d'utilisateur
      * @param roles Liste des rôles
      * @param permissions Liste des permissions
+     * @param sessionId Session ouverte à la connexion
+     * @param sessionStart Début de la session ({@value #ISSUED_AT_MS})
+     * @param stamps Tampons de sécurité lus avant les rôles ({@link SecurityStamps#stampsOf})
      * @return Token JWT signé
      */
-    public String generateToken(Long userId, String username, List<String> roles, List<String> permissions) {
+    public String generateToken(Long userId, String username, List<String> roles, List<String> permissions,
+                                String sessionId, long sessionStart, long[] stamps) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("username", username);
         claims.put("roles", roles);
         claims.put("permissions", permissions);
+        claims.put(SESSION_ID, sessionId);
+        claims.put(ISSUED_AT_MS, sessionStart);
+        claims.put(SecurityStamps.CLAIM, stamps);
 
         return createToken(claims, username, EXPIRATION_TIME);
     }
@@ -60,12 +132,16 @@ public class JwtService {
      *
      * @param userId ID de l'utilisateur
      * @param username Nom d'utilisateur
+     * @param sessionId Session ouverte à la connexion
+     * @param sessionStart Début de la session ({@value #ISSUED_AT_MS})
      * @return Refresh token JWT
      */
-    public String generateRefreshToken(Long userId, String username) {
+    public String generateRefreshToken(Long userId, String username, String sessionId, long sessionStart) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
         claims.put("type", "refresh");
+        claims.put(SESSION_ID, sessionId);
+        claims.put(ISSUED_AT_MS, sessionStart);
 
         return createToken(claims, username, REFRESH_EXPIRATION_TIME);
     }
@@ -79,6 +155,7 @@ public class JwtService {
 
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
@@ -87,93 +164,73 @@ public class JwtService {
     }
 
     /**
-     * Valide un token JWT
-     *
-     * @param token Token à valider
-     * @return true si le token est valide, false sinon
-     */
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(signingKey)
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            // Token invalide, expiré ou malformé
-            return false;
-        }
-    }
-
-    /**
-     * Extrait le username du token
+     * Signe un payload JSON déjà sérialisé (HS256, même en-tête que les tokens émis) ;
+     * chemin rapide de {@link TokenRenewer}
      */
-    public String getUsernameFromToken(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public String sign(byte[] payloadJson) {
+        String signingInput = verifier.issuedHeader() + '.' + ENCODER.encodeToString(payloadJson);
+        byte[] signature = macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + '.' + ENCODER.encodeToString(signature);
     }
 
     /**
-     * Extrait l'ID utilisateur du token
+     * Durée de validité d'un access token (ms)
      */
-    public Long getUserIdFromToken(String token) {
-        Claims claims = extractAllClaims(token);
-        return claims.get("userId", Long.class);
+    public long getAccessExpirationMs() {
+        return EXPIRATION_TIME;
     }
 
     /**
-     * Extrait les rôles du token
+     * Durée de validité d'un refresh token, donc d'une session (ms)
      */
-    @SuppressWarnings("unchecked")
-    public List<String> getRolesFromToken(String token) {
-        Claims claims = extractAllClaims(token);
-        return (List<String>) claims.get("roles");
+    public long getRefreshExpirationMs() {
+        return REFRESH_EXPIRATION_TIME;
     }
 
-    /**
-     * Extrait les permissions du token
-     */
-    @SuppressWarnings("unchecked")
-    public List<String> getPermissionsFromToken(String token) {
-        Claims claims = extractAllClaims(token);
-        return (List<String>) claims.get("permissions");
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(signingKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible", e);
+        }
     }
 
     /**
-     * Vérifie si le token est expiré
+     * Instant de référence des révocations d'un token vérifié (ms) : {@value #ISSUED_AT_MS},
+     * à défaut l'instant d'émission à la seconde, 0 s'il n'en porte aucun
      */
-    public boolean isTokenExpired(String token) {
-        try {
-            Date expiration = extractClaim(token, Claims::getExpiration);
-            return expiration.before(new Date());
-        } catch (JwtException e) {
-            return true;
+    public static long issuedAtMillis(Claims claims) {
+        Object issuedAtMs = claims.get(ISSUED_AT_MS);
+        if (issuedAtMs instanceof Number) {
+            return ((Number) issuedAtMs).longValue();
         }
+        Object issuedAt = claims.get(Claims.ISSUED_AT);
+        return issuedAt instanceof Number ? ((Number) issuedAt).longValue() * 1000 : 0;
     }
 
     /**
-     * Extrait une claim spécifique du token
+     * Vérifie un token et retourne ses claims en une seule analyse, sans exception
+     * pour un token refusé (motif compté, voir {@link #getVerificationStats()})
+     *
+     * @return les claims, ou null si le token est invalide, expiré ou malformé
      */
-    private <T> T extractClaim(String token, java.util.function.Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    public Claims verify(String token) {
+        return verifier.verify(token);
     }
 
     /**
-     * Extrait toutes les claims du token
+     * Requête protégée reçue sans en-tête Bearer
      */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public void recordMissingToken() {
+        verifier.recordMissing();
     }
 
     /**
-     * Obtient le temps restant avant expiration (en millisecondes)
+     * Compteurs de vérification : succès et refus par motif
      */
-    public long getExpirationTime(String token) {
-        Date expiration = extractClaim(token, Claims::getExpiration);
-        return expiration.getTime() - System.currentTimeMillis();
+    public Map<String, Long> getVerificationStats() {
+        return verifier.stats();
     }
 }
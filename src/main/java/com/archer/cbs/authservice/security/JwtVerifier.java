@@ -0,0 +1,208 @@
+package com.archer.cbs.authservice.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Mac;
+
+/**
+ * Vérification HS256 sans exception sur le chemin d'échec
+ * <p>
+ * Contrôles du moins cher au plus cher : longueur maximale, trois segments base64url,
+ * en-tête (alg HS256, kid autorisé), signature HMAC en encodage canonique comparée en temps
+ * constant, puis expiration. Un token refusé ne construit aucune exception ; chaque refus est compté
+ * par motif ({@link Failure}).
+ */
+final class JwtVerifier {
+
+    enum Failure {
+        MISSING,
+        TOO_LONG,
+        MALFORMED,
+        UNSUPPORTED_HEADER,
+        BAD_SIGNATURE,
+        EXPIRED
+    }
+
+    private static final String ALGORITHM = "HS256";
+
+    private static final int SIGNATURE_LENGTH = 43; // 32 octets en base64url sans remplissage
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Key key;
+    private final int maxLength;
+    private final Set<String> allowedKids;
+    private final ObjectMapper mapper;
+
+    // En-tête produit par ce service, reconnu sans décodage
+    private final String issuedHeader;
+
+    private final ThreadLocal<Mac> macs;
+
+    private final LongAdder verified = new LongAdder();
+    private final Map<Failure, LongAdder> failures = new EnumMap<>(Failure.class);
+
+    JwtVerifier(Key key, String issuedHeader, int maxLength, Set<String> allowedKids, ObjectMapper mapper) {
+        this.key = key;
+        this.issuedHeader = issuedHeader;
+        this.maxLength = maxLength;
+        this.allowedKids = allowedKids;
+        this.mapper = mapper;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        for (Failure failure : Failure.values()) {
+            failures.put(failure, new LongAdder());
+        }
+    }
+
+    /**
+     * @return les claims du token, ou null (motif compté) s'il est refusé
+     */
+    Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return fail(Failure.MISSING);
+        }
+        if (token.length() > maxLength) {
+            return fail(Failure.TOO_LONG);
+        }
+
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (firstDot <= 0 || secondDot <= firstDot + 1 || secondDot == token.length() - 1
+                || token.indexOf('.', secondDot + 1) >= 0
+                || !isBase64Url(token, 0, token.length())) {
+            return fail(Failure.MALFORMED);
+        }
+
+        if (!token.regionMatches(0, issuedHeader, 0, firstDot) || firstDot != issuedHeader.length()) {
+            if (!isAcceptedHeader(token.substring(0, firstDot))) {
+                return fail(Failure.UNSUPPORTED_HEADER);
+            }
+        }
+
+        // 32 octets : les 2 derniers bits du dernier caractère sont du remplissage, nuls. Le
+        // décodeur les ignore ; sans ce contrôle, 4 écritures d'un même token seraient acceptées
+        if (token.length() - secondDot - 1 != SIGNATURE_LENGTH
+                || (sextet(token.charAt(token.length() - 1)) & 3) != 0) {
+            return fail(Failure.BAD_SIGNATURE);
+        }
+        Mac mac = macs.get();
+        byte[] expected = mac.doFinal(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+        byte[] actual = DECODER.decode(token.substring(secondDot + 1));
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return fail(Failure.BAD_SIGNATURE);
+        }
+
+        Map<String, Object> payload = readObject(token.substring(firstDot + 1, secondDot));
+        if (payload == null) {
+            return fail(Failure.MALFORMED);
+        }
+        Object exp = payload.get(Claims.EXPIRATION);
+        if (exp instanceof Number && ((Number) exp).longValue() * 1000 <= System.currentTimeMillis()) {
+            return fail(Failure.EXPIRED);
+        }
+
+        verified.increment();
+        return Jwts.claims(payload);
+    }
+
+    String issuedHeader() {
+        return issuedHeader;
+    }
+
+    void recordMissing() {
+        failures.get(Failure.MISSING).increment();
+    }
+
+    Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("verified", verified.sum());
+        for (Map.Entry<Failure, LongAdder> entry : failures.entrySet()) {
+            stats.put(entry.getKey().name().toLowerCase(), entry.getValue().sum());
+        }
+        return stats;
+    }
+
+    private Claims fail(Failure failure) {
+        failures.get(failure).increment();
+        return null;
+    }
+
+    /**
+     * En-tête d'un autre émetteur : alg HS256 obligatoire, kid absent ou autorisé
+     */
+    private boolean isAcceptedHeader(String segment) {
+        Map<String, Object> header = readObject(segment);
+        if (header == null || !ALGORITHM.equals(header.get("alg"))) {
+            return false;
+        }
+        Object kid = header.get("kid");
+        return kid == null || allowedKids.contains(String.valueOf(kid));
+    }
+
+    /**
+     * Objet JSON d'un segment base64url déjà validé, ou null s'il n'en est pas un
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readObject(String segment) {
+        // Une longueur ≡ 1 (mod 4) n'est pas du base64 valide : le décodeur lèverait
+        if ((segment.length() & 3) == 1) {
+            return null;
+        }
+        try {
+            return mapper.readValue(DECODER.decode(segment), Map.class);
+        } catch (IOException e) {
+            // Seulement pour un segment bien encodé mais qui n'est pas du JSON
+            return null;
+        }
+    }
+
+    private static boolean isBase64Url(String token, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = token.charAt(i);
+            boolean valid = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Valeur d'un caractère base64url déjà validé
+     */
+    private static int sextet(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        return c == '-' ? 62 : 63;
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.dao.SecurityStampDAO;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tampons de sécurité courants des utilisateurs et des rôles
+ * <p>
+ * Les rôles et permissions d'un access token sont figés à l'émission. Chaque utilisateur
+ * et chaque rôle a un tampon, incrémenté quand ses rôles (utilisateur) ou ses permissions
+ * (rôle) changent ; le token porte les tampons lus à l'émission (claim {@value #CLAIM} :
+ * {@code [tampon utilisateur, id rôle, tampon rôle, ...]}). {@link JwtAuthenticationFilter}
+ * refuse un token dont un tampon est dépassé : le client rafraîchit et obtient des claims
+ * à jour, sans perdre sa session. La vérification est une lecture sans verrou en mémoire.
+ * <p>
+ * Les incréments sont écrits dans la transaction de l'appelant et appliqués en mémoire à la
+ * validation ; {@link SessionStore} relit ceux des autres nœuds à chaque synchronisation.
+ */
+@ApplicationScoped
+public class SecurityStamps {
+
+    /** Claim des tampons dans l'access token */
+    public static final String CLAIM = "stp";
+
+    /** Scopes de la table security_stamps */
+    static final char USER = 'U';
+    static final char ROLE = 'R';
+
+    // Tampon d'un token émis pendant qu'un changement était appliqué : refusé d'emblée
+    private static final long UNKNOWN = -1;
+
+    @Inject
+    private SecurityStampDAO securityStampDAO;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private final ConcurrentLongMap<AtomicLong> users = new ConcurrentLongMap<>(1024);
+
+    private final ConcurrentLongMap<AtomicLong> roles = new ConcurrentLongMap<>(64);
+
+    // Incrémentée avant chaque tampon appliqué (voir stampsOf)
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder applied = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Les rôles de ces utilisateurs ont changé
+     */
+    public void usersChanged(Collection<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            afterCommit(USER, securityStampDAO.bumpUsers(userIds));
+        }
+    }
+
+    /**
+     * Les permissions (ou le nom) de ces rôles ont changé
+     */
+    public void rolesChanged(Collection<Long> roleIds) {
+        if (!roleIds.isEmpty()) {
+            afterCommit(ROLE, securityStampDAO.bumpRoles(roleIds));
+        }
+    }
+
+    /**
+     * Le nom d'une permission a changé : tous les rôles qui la portent
+     */
+    public void permissionChanged(Long permissionId) {
+        afterCommit(ROLE, securityStampDAO.bumpRolesByPermission(permissionId));
+    }
+
+    /**
+     * Compteur à lire avant de charger les rôles et permissions d'un token, puis à passer
+     * à {@link #stampsOf(long, long, List)}
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Tampons à porter dans un token dont les rôles ont été chargés après
+     * {@link #generation()}
+     * <p>
+     * Si un tampon a été appliqué entre-temps, les rôles chargés peuvent être antérieurs au
+     * changement alors que le tampon lu lui est postérieur : le token reçoit un tampon
+     * inconnu, refusé à la première requête (le rafraîchissement en émet un à jour).
+     */
+    public long[] stampsOf(long generationBefore, long userId, List<Long> roleIds) {
+        long[] stamps = new long[1 + 2 * roleIds.size()];
+        stamps[0] = current(users, userId);
+        for (int i = 0; i < roleIds.size(); i++) {
+            long roleId = roleIds.get(i);
+            stamps[1 + 2 * i] = roleId;
+            stamps[2 + 2 * i] = current(roles, roleId);
+        }
+        if (generation.get() != generationBefore) {
+            stamps[0] = UNKNOWN;
+        }
+        return stamps;
+    }
+
+    /**
+     * Vrai si le token a été émis avant un changement de rôles de l'utilisateur ou de
+     * permissions d'un de ses rôles
+     *
+     * @param stamps claim {@value #CLAIM} du token ; absent (token antérieur) : jamais dépassé
+     */
+    public boolean isStale(long userId, Object stamps) {
+        if (!(stamps instanceof List)) {
+            return false;
+        }
+        List<?> values = (List<?>) stamps;
+        if (values.isEmpty()) {
+            return false;
+        }
+        boolean stale = ((Number) values.get(0)).longValue() < current(users, userId);
+        for (int i = 1; !stale && i + 1 < values.size(); i += 2) {
+            long roleId = ((Number) values.get(i)).longValue();
+            stale = ((Number) values.get(i + 1)).longValue() < current(roles, roleId);
+        }
+        if (stale) {
+            rejected.increment();
+        }
+        return stale;
+    }
+
+    /**
+     * Vrai si aucun des tampons donnés (format de {@link #stampsOf}) n'est dépassé
+     */
+    public boolean isCurrent(long userId, long[] stamps) {
+        if (stamps[0] < current(users, userId)) {
+            return false;
+        }
+        for (int i = 1; i + 1 < stamps.length; i += 2) {
+            if (stamps[i + 1] < current(roles, stamps[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", users.size());
+        stats.put("roles", roles.size());
+        stats.put("applied", applied.sum());
+        stats.put("staleTokens", rejected.sum());
+        return stats;
+    }
+
+    // Réservé à SessionStore
+
+    void apply(char scope, long subjectId, long stamp) {
+        ConcurrentLongMap<AtomicLong> table = scope == USER ? users : roles;
+        AtomicLong current = table.computeIfAbsent(subjectId, id -> new AtomicLong());
+        if (stamp > current.get()) {
+            // Génération d'abord : un tampon visible implique une génération déjà changée
+            generation.incrementAndGet();
+            current.accumulateAndGet(stamp, Math::max);
+            applied.increment();
+        }
+    }
+
+    private static long current(ConcurrentLongMap<AtomicLong> table, long subjectId) {
+        AtomicLong stamp = table.get(subjectId);
+        return stamp == null ? 0 : stamp.get();
+    }
+
+    private void afterCommit(char scope, List<long[]> stamps) {
+        int status = transactionRegistry.getTransactionStatus();
+        if (status == Status.STATUS_NO_TRANSACTION) {
+            applyAll(scope, stamps);
+        } else if (status == Status.STATUS_ACTIVE) {
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int outcome) {
+                    if (outcome == Status.STATUS_COMMITTED) {
+                        applyAll(scope, stamps);
+                    }
+                }
+            });
+        }
+    }
+
+    private void applyAll(char scope, List<long[]> stamps) {
+        for (long[] stamp : stamps) {
+            apply(scope, stamp[0], stamp[1]);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.dao.SessionDAO;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Sessions ouvertes et révocations, par utilisateur
+ * <p>
+ * Une session naît à la connexion (identifiant {@code sid} porté par l'access token et le
+ * refresh token) et vit jusqu'à l'expiration du refresh token. Chaque utilisateur a aussi
+ * un filigrane « sessions commencées avant » : {@link #revokeAll(Long)} (désactivation,
+ * changement de mot de passe, suppression) le place à l'instant de la validation, ce qui
+ * invalide tous ses tokens, access et refresh, sur tous les nœuds. Le début d'une session
+ * ({@link JwtService#ISSUED_AT_MS}) est lu avant le compte : une connexion qui a vu l'état
+ * d'avant la validation commence avant le filigrane.
+ * <p>
+ * {@link #isRevoked(long, long)} est appelé par {@link JwtAuthenticationFilter} à chaque
+ * requête : une lecture sans verrou dans une table à clés primitives. La table est
+ * persistée et synchronisée entre nœuds par {@link SessionStore}.
+ */
+@ApplicationScoped
+public class SessionRegistry {
+
+    /**
+     * Session ouverte, immuable
+     */
+    public static final class Session {
+        private final long userId;
+        private final String id;
+        private final long issuedAt;
+        private final long expiresAt;
+
+        Session(long userId, String id, long issuedAt, long expiresAt) {
+            this.userId = userId;
+            this.id = id;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public long getUserId() { return userId; }
+
+        public String getId() { return id; }
+
+        /** Ouverture (ms epoch) */
+        public long getIssuedAt() { return issuedAt; }
+
+        /** Expiration du refresh token (ms epoch) */
+        public long getExpiresAt() { return expiresAt; }
+    }
+
+    /**
+     * Sessions d'un utilisateur (copie à l'écriture) et filigrane de révocation
+     * <p>
+     * Une entrée retirée par {@link #prune()} est marquée sous son moniteur : une écriture
+     * qui la trouve marquée recommence sur l'entrée neuve de la table (voir {@link #update}).
+     */
+    static final class UserSessions {
+        private static final Session[] NONE = new Session[0];
+
+        volatile long revokedBefore;
+        volatile Session[] sessions = NONE;
+        // Sous le moniteur
+        private boolean removed;
+
+        synchronized boolean add(Session session, long now) {
+            if (session.issuedAt < revokedBefore || session.expiresAt <= now) {
+                return false;
+            }
+            List<Session> kept = new ArrayList<>(sessions.length + 1);
+            for (Session existing : sessions) {
+                if (existing.id.equals(session.id)) {
+                    return false;
+                }
+                if (existing.expiresAt > now) {
+                    kept.add(existing);
+                }
+            }
+            kept.add(session);
+            sessions = kept.toArray(NONE);
+            return true;
+        }
+
+        /**
+         * @return false si un filigrane au moins aussi récent était déjà en place
+         */
+        synchronized boolean revoke(long watermark) {
+            if (watermark <= revokedBefore) {
+                return false;
+            }
+            revokedBefore = watermark;
+            List<Session> kept = new ArrayList<>(sessions.length);
+            for (Session existing : sessions) {
+                if (existing.issuedAt >= watermark) {
+                    kept.add(existing);
+                }
+            }
+            sessions = kept.toArray(NONE);
+            return true;
+        }
+
+        List<Session> active(long now) {
+            List<Session> active = new ArrayList<>();
+            for (Session session : sessions) {
+                if (session.expiresAt > now) {
+                    active.add(session);
+                }
+            }
+            return active;
+        }
+
+        /**
+         * Plus rien à retenir : aucune session ouverte, et tout token antérieur au
+         * filigrane a expiré
+         */
+        boolean isIdle(long now, long maxTokenLifetime) {
+            for (Session session : sessions) {
+                if (session.expiresAt > now) {
+                    return false;
+                }
+            }
+            return revokedBefore + maxTokenLifetime < now;
+        }
+
+        /**
+         * Marque l'entrée comme retirée si elle n'a plus rien à retenir
+         */
+        synchronized boolean retireIfIdle(long now, long maxTokenLifetime) {
+            if (isIdle(now, maxTokenLifetime)) {
+                removed = true;
+            }
+            return removed;
+        }
+    }
+
+    @Inject
+    private SessionDAO sessionDAO;
+
+    @Inject
+    private JwtService jwtService;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    private final ConcurrentLongMap<UserSessions> users =
+            new ConcurrentLongMap<>(Settings.getInt("auth.sessions.expected-users", 4096));
+
+    // Sessions ouvertes sur ce nœud, en attente d'écriture par SessionStore
+    private final ConcurrentLinkedQueue<Session> pending = new ConcurrentLinkedQueue<>();
+
+    // Filigranes pris à la validation, en attente d'écriture par SessionStore : {user_id, filigrane}
+    private final ConcurrentLinkedQueue<long[]> pendingRevocations = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder opened = new LongAdder();
+
+    private final LongAdder revocations = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Ouvre une session pour un utilisateur qui vient de s'authentifier
+     *
+     * @param sessionStart instant lu avant le compte ({@link JwtService#ISSUED_AT_MS})
+     * @return l'identifiant de session, à porter dans les tokens ({@code sid})
+     */
+    public String open(long userId, long sessionStart) {
+        long now = System.currentTimeMillis();
+        Session session = new Session(userId, UUID.randomUUID().toString(), sessionStart,
+                now + jwtService.getRefreshExpirationMs());
+        update(userId, sessions -> sessions.add(session, now));
+        pending.add(session);
+        opened.increment();
+        return session.id;
+    }
+
+    /**
+     * Vrai si le token émis à {@code issuedAt} (ms) a été révoqué depuis
+     */
+    public boolean isRevoked(long userId, long issuedAt) {
+        UserSessions sessions = users.get(userId);
+        if (sessions != null && issuedAt < sessions.revokedBefore) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Révoque toutes les sessions de l'utilisateur commencées jusqu'à la validation
+     * <p>
+     * Un premier filigrane et la suppression des sessions sont écrits dans la transaction de
+     * l'appelant. Le filigrane définitif est pris après la validation : une connexion
+     * concurrente qui lisait encore le compte d'avant (actif, ancien mot de passe) a commencé
+     * plus tôt et reste couverte. Il est appliqué en mémoire aussitôt, et écrit en base par
+     * {@link SessionStore} pour les autres nœuds.
+     */
+    public void revokeAll(Long userId) {
+        sessionDAO.revokeAll(userId, System.currentTimeMillis());
+        int status = transactionRegistry.getTransactionStatus();
+        if (status == Status.STATUS_NO_TRANSACTION) {
+            applyRevocation(userId, System.currentTimeMillis());
+        } else if (status == Status.STATUS_ACTIVE) {
+            transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int outcome) {
+                    if (outcome == Status.STATUS_COMMITTED) {
+                        long watermark = System.currentTimeMillis();
+                        applyRevocation(userId, watermark);
+                        pendingRevocations.add(new long[]{userId, watermark});
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Sessions ouvertes de l'utilisateur, tous nœuds confondus (à la synchronisation près)
+     */
+    public List<Session> activeSessions(long userId) {
+        UserSessions sessions = users.get(userId);
+        return sessions == null ? List.of() : sessions.active(System.currentTimeMillis());
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", users.size());
+        stats.put("opened", opened.sum());
+        stats.put("revocations", revocations.sum());
+        stats.put("rejectedTokens", rejected.sum());
+        stats.put("pendingWrites", pending.size() + pendingRevocations.size());
+        return stats;
+    }
+
+    // Réservé à SessionStore
+
+    void applyRevocation(long userId, long watermark) {
+        if (update(userId, sessions -> sessions.revoke(watermark))) {
+            revocations.increment();
+        }
+    }
+
+    void applySession(long userId, String sessionId, long issuedAt, long expiresAt) {
+        Session session = new Session(userId, sessionId, issuedAt, expiresAt);
+        update(userId, sessions -> sessions.add(session, System.currentTimeMillis()));
+    }
+
+    /**
+     * Sessions ouvertes sur ce nœud depuis le dernier appel
+     */
+    int drainPending(List<Session> target, int max) {
+        int count = 0;
+        Session entry;
+        while (count < max && (entry = pending.poll()) != null) {
+            target.add(entry);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Filigranes pris à la validation sur ce nœud depuis le dernier appel
+     */
+    int drainRevocations(List<long[]> target, int max) {
+        int count = 0;
+        long[] entry;
+        while (count < max && (entry = pendingRevocations.poll()) != null) {
+            target.add(entry);
+            count++;
+        }
+        return count;
+    }
+
+    void requeueRevocations(List<long[]> revocations) {
+        pendingRevocations.addAll(revocations);
+    }
+
+    /**
+     * Oublie les utilisateurs sans session ni révocation encore utile
+     */
+    int prune() {
+        long now = System.currentTimeMillis();
+        long maxLifetime = jwtService.getRefreshExpirationMs();
+        return users.removeIf(sessions -> sessions.retireIfIdle(now, maxLifetime));
+    }
+
+    /**
+     * Applique une écriture à l'entrée de l'utilisateur, sous son moniteur
+     * <p>
+     * {@link ConcurrentLongMap#computeIfAbsent} peut rendre une entrée que {@link #prune()}
+     * est en train de retirer : l'écriture y serait perdue (une révocation relue par
+     * {@link SessionStore} ne l'est plus). Une entrée marquée retirée est donc ignorée et
+     * l'écriture recommence une fois la table reconstruite publiée.
+     */
+    private boolean update(long userId, Predicate<UserSessions> write) {
+        while (true) {
+            UserSessions sessions = users.computeIfAbsent(userId, id -> new UserSessions());
+            synchronized (sessions) {
+                if (!sessions.removed) {
+                    return write.test(sessions);
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
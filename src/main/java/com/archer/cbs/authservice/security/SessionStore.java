@@ -0,0 +1,333 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.security.SessionRegistry.Session;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Persistance et synchronisation entre nœuds de {@link SessionRegistry} et de
+ * {@link SecurityStamps}
+ * <p>
+ * Au démarrage, charge les filigranes encore utiles, les sessions ouvertes et les tampons
+ * de sécurité. Ensuite, un thread géré, toutes les {@code auth.sessions.sync-interval-ms} :
+ * écrit par lots les sessions ouvertes sur ce nœud (la connexion n'attend aucune écriture),
+ * puis relit les filigranes, sessions et tampons modifiés depuis la lecture précédente, sur
+ * tous les nœuds. Une révocation ou un changement de droits fait sur un autre nœud
+ * s'applique donc ici après au plus un intervalle.
+ * <p>
+ * Les sessions expirées ou révoquées sont purgées périodiquement.
+ * <p>
+ * La relecture suit le {@code tx_id} (xid8) des lignes, comme {@code OutboxRelay} : la
+ * position n'avance qu'au xmin de l'instantané lu avant les requêtes, sous lequel toute
+ * transaction est terminée. Une transaction longue ne peut donc pas valider une ligne
+ * derrière la position. Les lignes déjà visibles au-delà du xmin sont appliquées sans
+ * attendre et relues tant que le xmin ne les a pas dépassées : l'application est
+ * idempotente (filigrane et tampon au maximum, session dédoublonnée).
+ */
+@Singleton
+@Startup
+@DependsOn("SchemaMigrator")
+@Lock(LockType.READ)
+@TransactionManagement(TransactionManagementType.BEAN)
+public class SessionStore {
+
+    private static final Logger LOGGER = Logger.getLogger(SessionStore.class.getName());
+
+    private static final int MAX_BATCH = 1000;
+
+    private static final long PURGE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO user_sessions (session_id, user_id, issued_at, expires_at) VALUES ";
+
+    private static final String INSERT_SUFFIX = " ON CONFLICT (session_id) DO NOTHING";
+
+    private static final String UPSERT_WATERMARK =
+            "INSERT INTO user_token_watermarks (user_id, revoked_before) VALUES (?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET " +
+            "revoked_before = GREATEST(user_token_watermarks.revoked_before, EXCLUDED.revoked_before), " +
+            "updated_at = now(), tx_id = pg_current_xact_id()";
+
+    private static final String SNAPSHOT_XMIN =
+            "SELECT CAST(CAST(pg_snapshot_xmin(pg_current_snapshot()) AS TEXT) AS BIGINT)";
+
+    private static final String CHANGED_WATERMARKS =
+            "SELECT user_id, revoked_before FROM user_token_watermarks " +
+            "WHERE tx_id >= CAST(CAST(? AS TEXT) AS XID8)";
+
+    private static final String CHANGED_SESSIONS =
+            "SELECT session_id, user_id, issued_at, expires_at FROM user_sessions " +
+            "WHERE tx_id >= CAST(CAST(? AS TEXT) AS XID8) AND expires_at > now()";
+
+    private static final String CHANGED_STAMPS =
+            "SELECT scope, subject_id, stamp FROM security_stamps " +
+            "WHERE tx_id >= CAST(CAST(? AS TEXT) AS XID8)";
+
+    private static final String[] PURGE = {
+            "DELETE FROM user_sessions WHERE expires_at < now()",
+            "DELETE FROM user_sessions s USING user_token_watermarks w " +
+                    "WHERE s.user_id = w.user_id AND s.issued_at < w.revoked_before",
+            "DELETE FROM user_token_watermarks WHERE revoked_before < now() - make_interval(secs => %d)"
+    };
+
+    @Resource(lookup = "java:/PostgresDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedThreadFactory managedThreadFactory;
+
+    @Inject
+    private SessionRegistry registry;
+
+    @Inject
+    private SecurityStamps securityStamps;
+
+    @Inject
+    private JwtService jwtService;
+
+    private final long syncIntervalNanos =
+            TimeUnit.MILLISECONDS.toNanos(Math.max(100, Settings.getLong("auth.sessions.sync-interval-ms", 1000)));
+
+    private final LongAdder written = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    // Thread de synchronisation seulement : premier tx_id pas encore relu en entier
+    private long cursor;
+
+    private long lastPurge;
+
+    @PostConstruct
+    public void start() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            long xmin = snapshotXmin(connection);
+            int watermarks = readWatermarks(connection, 0);
+            int sessions = readSessions(connection, 0);
+            int stamps = readStamps(connection, 0);
+            cursor = xmin;
+            LOGGER.log(Level.INFO, "Sessions : {0} révocation(s), {1} session(s) et {2} tampon(s) chargés",
+                    new Object[]{watermarks, sessions, stamps});
+        } catch (SQLException e) {
+            // Relu en entier à la première synchronisation
+            cursor = 0;
+            LOGGER.log(Level.WARNING, "Chargement des sessions impossible, nouvelle tentative en tâche de fond", e);
+        }
+        lastPurge = System.currentTimeMillis();
+        running = true;
+        thread = managedThreadFactory.newThread(this::run);
+        thread.setName("auth-session-sync");
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Compteurs d'exploitation, ajoutés à ceux de {@link SessionRegistry} sur /metrics
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = registry.stats();
+        stats.put("written", written.sum());
+        stats.put("syncFailures", failures.sum());
+        return stats;
+    }
+
+    private void run() {
+        List<Session> batch = new ArrayList<>(MAX_BATCH);
+        List<long[]> revocations = new ArrayList<>(MAX_BATCH);
+        while (running) {
+            LockSupport.parkNanos(syncIntervalNanos);
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                flushRevocations(connection, revocations);
+                flush(connection, batch);
+                synchronize(connection);
+                if (System.currentTimeMillis() - lastPurge >= PURGE_INTERVAL_MS) {
+                    purge(connection);
+                }
+            } catch (SQLException | RuntimeException e) {
+                failures.increment();
+                LOGGER.log(Level.WARNING, "Synchronisation des sessions impossible", e);
+            }
+        }
+
+        // Arrêt : révocations et sessions ouvertes encore en mémoire
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            flushRevocations(connection, revocations);
+            flush(connection, batch);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Écriture des dernières sessions impossible", e);
+        }
+    }
+
+    /**
+     * Filigranes pris à la validation sur ce nœud ({@link SessionRegistry#revokeAll}) ; un lot
+     * refusé est remis en attente : une révocation ne doit pas manquer aux autres nœuds
+     */
+    private void flushRevocations(Connection connection, List<long[]> revocations) throws SQLException {
+        revocations.clear();
+        while (registry.drainRevocations(revocations, MAX_BATCH) > 0) {
+            boolean done = false;
+            try (PreparedStatement upsert = connection.prepareStatement(UPSERT_WATERMARK)) {
+                for (long[] revocation : revocations) {
+                    upsert.setLong(1, revocation[0]);
+                    upsert.setTimestamp(2, new Timestamp(revocation[1]));
+                    upsert.addBatch();
+                }
+                upsert.executeBatch();
+                done = true;
+            } finally {
+                if (!done) {
+                    registry.requeueRevocations(revocations);
+                }
+                revocations.clear();
+            }
+        }
+    }
+
+    /**
+     * Sessions ouvertes sur ce nœud, en INSERT multi-lignes ; un lot refusé est perdu pour
+     * la base (la session reste valable, seul le décompte des autres nœuds l'ignore)
+     */
+    private void flush(Connection connection, List<Session> batch) throws SQLException {
+        batch.clear();
+        while (registry.drainPending(batch, MAX_BATCH) > 0) {
+            StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+            for (int i = 0; i < batch.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            }
+            sql.append(INSERT_SUFFIX);
+            try (PreparedStatement insert = connection.prepareStatement(sql.toString())) {
+                int parameter = 1;
+                for (Session session : batch) {
+                    insert.setString(parameter++, session.getId());
+                    insert.setLong(parameter++, session.getUserId());
+                    insert.setTimestamp(parameter++, new Timestamp(session.getIssuedAt()));
+                    insert.setTimestamp(parameter++, new Timestamp(session.getExpiresAt()));
+                }
+                insert.executeUpdate();
+                written.add(batch.size());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void synchronize(Connection connection) throws SQLException {
+        // Pris avant les lectures : toute transaction sous le xmin leur est visible
+        long xmin = snapshotXmin(connection);
+        readWatermarks(connection, cursor);
+        readSessions(connection, cursor);
+        readStamps(connection, cursor);
+        cursor = xmin;
+    }
+
+    private void purge(Connection connection) throws SQLException {
+        lastPurge = System.currentTimeMillis();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(PURGE[0]);
+            statement.executeUpdate(PURGE[1]);
+            statement.executeUpdate(String.format(PURGE[2],
+                    TimeUnit.MILLISECONDS.toSeconds(jwtService.getRefreshExpirationMs())));
+        }
+        int pruned = registry.prune();
+        if (pruned > 0) {
+            LOGGER.log(Level.FINE, "{0} utilisateur(s) retiré(s) du registre des sessions", pruned);
+        }
+    }
+
+    private int readWatermarks(Connection connection, long fromTxId) throws SQLException {
+        int count = 0;
+        try (PreparedStatement select = connection.prepareStatement(CHANGED_WATERMARKS)) {
+            select.setLong(1, fromTxId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    registry.applyRevocation(resultSet.getLong(1), resultSet.getTimestamp(2).getTime());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int readSessions(Connection connection, long fromTxId) throws SQLException {
+        int count = 0;
+        try (PreparedStatement select = connection.prepareStatement(CHANGED_SESSIONS)) {
+            select.setLong(1, fromTxId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    registry.applySession(resultSet.getLong(2), resultSet.getString(1),
+                            resultSet.getTimestamp(3).getTime(), resultSet.getTimestamp(4).getTime());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int readStamps(Connection connection, long fromTxId) throws SQLException {
+        int count = 0;
+        try (PreparedStatement select = connection.prepareStatement(CHANGED_STAMPS)) {
+            select.setLong(1, fromTxId);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    securityStamps.apply(resultSet.getString(1).charAt(0), resultSet.getLong(2),
+                            resultSet.getLong(3));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static long snapshotXmin(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(SNAPSHOT_XMIN)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.config.JacksonConfig;
+import com.archer.cbs.authservice.config.Settings;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.jsonwebtoken.Claims;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Introspection de tokens (RFC 7662) pour les serveurs de ressources qui ne vérifient
+ * pas les JWT eux-mêmes
+ * <p>
+ * Un token est vérifié une seule fois par {@link JwtService#verify(String)} ; la réponse,
+ * déjà sérialisée en JSON, est gardée en cache sous l'empreinte SHA-256 du token jusqu'à
+ * min(exp, {@code auth.introspect.cache-ttl-ms}). Les réponses négatives (token invalide,
+ * expiré ou falsifié) le sont aussi, pour la durée du TTL. Une réponse positive en cache
+ * est revérifiée à chaque lecture contre les révocations ({@link SessionRegistry}) et les
+ * tampons de sécurité ({@link SecurityStamps}) : lectures en mémoire, sans analyse.
+ */
+@ApplicationScoped
+public class TokenIntrospector {
+
+    private static final byte[] INACTIVE = "{\"active\":false}".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Réponse en cache, positive ou négative
+     */
+    private static final class Answer {
+        final byte[] body;
+        final long expiresAt;
+        final boolean active;
+        final long userId;
+        final long issuedAt;
+        final Object stamps;
+
+        Answer(byte[] body, long expiresAt, boolean active, long userId, long issuedAt, Object stamps) {
+            this.body = body;
+            this.expiresAt = expiresAt;
+            this.active = active;
+            this.userId = userId;
+            this.issuedAt = issuedAt;
+            this.stamps = stamps;
+        }
+    }
+
+    /**
+     * 128 premiers bits de l'empreinte SHA-256 du token
+     */
+    private static final class Digest {
+        final long high;
+        final long low;
+
+        Digest(byte[] sha256) {
+            ByteBuffer buffer = ByteBuffer.wrap(sha256);
+            high = buffer.getLong();
+            low = buffer.getLong();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Digest && ((Digest) other).high == high && ((Digest) other).low == low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (high ^ (high >>> 32));
+        }
+    }
+
+    @Inject
+    private JwtService jwtService;
+
+    @Inject
+    private SessionRegistry sessionRegistry;
+
+    @Inject
+    private SecurityStamps securityStamps;
+
+    private final long ttlMillis = Math.max(0, Settings.getLong("auth.introspect.cache-ttl-ms", 60000));
+
+    private final int maxEntries = Math.max(16, Settings.getInt("auth.introspect.cache-size", 100000));
+
+    private final ConcurrentHashMap<Digest, Answer> cache = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(TokenIntrospector::newDigest);
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder inactive = new LongAdder();
+
+    /**
+     * Réponse RFC 7662 pour un token, en JSON
+     */
+    public byte[] introspect(String token) {
+        if (token == null || token.isEmpty()) {
+            inactive.increment();
+            return INACTIVE;
+        }
+        long now = System.currentTimeMillis();
+        Digest digest = new Digest(digests.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+
+        Answer answer = cache.get(digest);
+        if (answer != null && answer.expiresAt > now) {
+            hits.increment();
+        } else {
+            misses.increment();
+            answer = answer(token, now);
+            if (ttlMillis > 0) {
+                cache.put(digest, answer);
+                if (cache.size() > maxEntries) {
+                    sweep(now);
+                }
+            }
+        }
+
+        if (answer.active && (sessionRegistry.isRevoked(answer.userId, answer.issuedAt)
+                || securityStamps.isStale(answer.userId, answer.stamps))) {
+            cache.put(digest, new Answer(INACTIVE, answer.expiresAt, false, 0, 0, null));
+            answer = null;
+        }
+        if (answer == null || !answer.active) {
+            inactive.increment();
+            return INACTIVE;
+        }
+        return answer.body;
+    }
+
+    /**
+     * Réponses pour plusieurs tokens, dans l'ordre : {@code {"results":[...]}}
+     */
+    public byte[] introspectAll(List<String> tokens) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + 256 * tokens.size());
+        out.writeBytes("{\"results\":[".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(introspect(tokens.get(i)));
+        }
+        out.writeBytes("]}".getBytes(StandardCharsets.US_ASCII));
+        return out.toByteArray();
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cached", cache.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("inactive", inactive.sum());
+        return stats;
+    }
+
+    private Answer answer(String token, long now) {
+        Claims claims = jwtService.verify(token);
+        Long userId = claims == null ? null : claims.get("userId", Long.class);
+        if (userId == null) {
+            return new Answer(INACTIVE, now + ttlMillis, false, 0, 0, null);
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("active", true);
+        boolean refresh = "refresh".equals(claims.get("type"));
+        response.put("token_type", refresh ? "refresh_token" : "access_token");
+        response.put("sub", claims.getSubject());
+        response.put("username", claims.getSubject());
+        response.put("user_id", userId);
+        Object permissions = claims.get("permissions");
+        if (permissions instanceof List) {
+            response.put("scope", String.join(" ", toStrings((List<?>) permissions)));
+            response.put("roles", claims.get("roles"));
+            response.put("permissions", permissions);
+        }
+        response.put("sid", claims.get(JwtService.SESSION_ID));
+        response.put("jti", claims.getId());
+        Object iat = claims.get(Claims.ISSUED_AT);
+        Object exp = claims.get(Claims.EXPIRATION);
+        response.put("iat", iat);
+        response.put("exp", exp);
+
+        byte[] body;
+        try {
+            body = JacksonConfig.MAPPER.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation de la réponse d'introspection impossible", e);
+        }
+        long expiresAt = now + ttlMillis;
+        if (exp instanceof Number) {
+            expiresAt = Math.min(expiresAt, ((Number) exp).longValue() * 1000);
+        }
+        return new Answer(body, expiresAt, true, userId, JwtService.issuedAtMillis(claims),
+                claims.get(SecurityStamps.CLAIM));
+    }
+
+    /**
+     * Cache plein : retire les réponses expirées, puis tout si cela ne suffit pas
+     * (un seul thread à la fois ; les autres continuent sans attendre)
+     */
+    private void sweep(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            cache.values().removeIf(answer -> answer.expiresAt <= now);
+            if (cache.size() > maxEntries) {
+                cache.clear();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static List<String> toStrings(List<?> values) {
+        String[] strings = new String[values.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = String.valueOf(values.get(i));
+        }
+        return List.of(strings);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.config.JacksonConfig;
+import com.archer.cbs.authservice.config.Settings;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import io.jsonwebtoken.Claims;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Renouvellement d'access token sans accès base (/auth/renew)
+ * <p>
+ * À chaque connexion ou rafraîchissement complet, la partie stable du payload de l'utilisateur
+ * (identifiant, nom, rôles, permissions, tampons de sécurité) est sérialisée une fois en JSON
+ * et gardée comme modèle. Un renouvellement vérifie le refresh token, les révocations et les
+ * tampons (lectures en mémoire), complète le modèle avec sid, jti et dates, puis signe :
+ * un HMAC sur des octets déjà prêts. Un modèle absent ou dépassé (rôles ou permissions
+ * changés) renvoie au rafraîchissement complet, qui le reconstruit.
+ * <p>
+ * L'access token renouvelé expire après {@code auth.jwt.access-ttl-seconds}, sans dépasser
+ * la fin de la session (expiration du refresh token) : fenêtre glissante bornée.
+ */
+@ApplicationScoped
+public class TokenRenewer {
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    /**
+     * Partie stable du payload d'un utilisateur
+     */
+    private static final class Template {
+        final String username;
+        final long[] stamps;
+        // JSON sans l'accolade fermante
+        final byte[] prefix;
+        final long createdAt;
+
+        Template(String username, long[] stamps, byte[] prefix, long createdAt) {
+            this.username = username;
+            this.stamps = stamps;
+            this.prefix = prefix;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Access token renouvelé
+     */
+    public static final class Renewal {
+        private final long userId;
+        private final String username;
+        private final String accessToken;
+
+        Renewal(long userId, String username, String accessToken) {
+            this.userId = userId;
+            this.username = username;
+            this.accessToken = accessToken;
+        }
+
+        public long getUserId() { return userId; }
+
+        public String getUsername() { return username; }
+
+        public String getAccessToken() { return accessToken; }
+    }
+
+    @Inject
+    private JwtService jwtService;
+
+    @Inject
+    private SessionRegistry sessionRegistry;
+
+    @Inject
+    private SecurityStamps securityStamps;
+
+    private final ConcurrentLongMap<AtomicReference<Template>> templates =
+            new ConcurrentLongMap<>(Settings.getInt("auth.sessions.expected-users", 4096));
+
+    private final int maxTemplates = Math.max(16, Settings.getInt("auth.jwt.template-cache-size", 100000));
+
+    private final LongAdder renewed = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    /**
+     * Retient la partie stable du payload d'un token qui vient d'être émis
+     */
+    public void remember(long userId, String username, List<String> roles, List<String> permissions,
+                         long[] stamps) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("userId", userId);
+        claims.put("username", username);
+        claims.put("roles", roles);
+        claims.put("permissions", permissions);
+        claims.put(SecurityStamps.CLAIM, stamps);
+        claims.put(Claims.SUBJECT, username);
+        byte[] json;
+        try {
+            json = JacksonConfig.MAPPER.writeValueAsBytes(claims);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Sérialisation du modèle de token impossible", e);
+        }
+
+        long now = System.currentTimeMillis();
+        if (templates.size() >= maxTemplates) {
+            // Plein : modèles plus anciens qu'un access token d'abord, puis tous
+            long before = now - jwtService.getAccessExpirationMs();
+            if (templates.removeIf(reference -> {
+                Template template = reference.get();
+                return template == null || template.createdAt < before;
+            }) == 0) {
+                templates.removeIf(template -> true);
+            }
+        }
+        // Référence créée avec son modèle : une entrée publiée n'est jamais vide
+        Template template = new Template(username, stamps, Arrays.copyOf(json, json.length - 1), now);
+        AtomicReference<Template> reference = templates.computeIfAbsent(userId, id -> new AtomicReference<>(template));
+        if (reference.get() != template) {
+            reference.set(template);
+        }
+    }
+
+    /**
+     * Nouvel access token pour la session du refresh token, sans accès base
+     *
+     * @return null si le chemin rapide ne s'applique pas (token refusé, modèle absent ou
+     * dépassé) : passer par le rafraîchissement complet
+     */
+    public Renewal renew(String refreshToken) {
+        Claims claims = jwtService.verify(refreshToken);
+        if (claims == null || !"refresh".equals(claims.get("type"))) {
+            return null;
+        }
+        Long userId = claims.get("userId", Long.class);
+        if (userId == null || sessionRegistry.isRevoked(userId, JwtService.issuedAtMillis(claims))) {
+            return null;
+        }
+        AtomicReference<Template> reference = templates.get(userId);
+        Template template = reference == null ? null : reference.get();
+        if (template == null || !securityStamps.isCurrent(userId, template.stamps)) {
+            fallbacks.increment();
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        long expiresAt = now + jwtService.getAccessExpirationMs();
+        Object sessionEnd = claims.get(Claims.EXPIRATION);
+        if (sessionEnd instanceof Number) {
+            expiresAt = Math.min(expiresAt, ((Number) sessionEnd).longValue() * 1000);
+        }
+        Object sessionId = claims.get(JwtService.SESSION_ID);
+
+        StringBuilder suffix = new StringBuilder(160).append(",\"").append(JwtService.SESSION_ID).append("\":");
+        if (sessionId == null) {
+            suffix.append("null");
+        } else {
+            suffix.append('"').append(ENCODER.quoteAsString(sessionId.toString())).append('"');
+        }
+        // Début de la session repris du refresh token : une révocation postérieure couvre aussi
+        // les access tokens renouvelés, sur tous les nœuds
+        suffix.append(",\"").append(JwtService.ISSUED_AT_MS).append("\":").append(JwtService.issuedAtMillis(claims))
+                .append(",\"jti\":\"").append(UUID.randomUUID())
+                .append("\",\"iat\":").append(now / 1000)
+                .append(",\"exp\":").append(expiresAt / 1000)
+                .append('}');
+        byte[] tail = suffix.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] payload = Arrays.copyOf(template.prefix, template.prefix.length + tail.length);
+        System.arraycopy(tail, 0, payload, template.prefix.length, tail.length);
+
+        renewed.increment();
+        return new Renewal(userId, template.username, jwtService.sign(payload));
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("templates", templates.size());
+        stats.put("renewed", renewed.sum());
+        stats.put("fallbacks", fallbacks.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,125 @@
+package com.archer.cbs.authservice.service;
+
+import com.archer.cbs.authservice.concurrent.BlockingDispatcher;
+import com.archer.cbs.authservice.config.Settings;
+import com.archer.cbs.authservice.security.JwtService;
+import com.archer.cbs.authservice.security.SessionRegistry;
+import com.archer.cbs.authservice.service.UserService.AuthSnapshot;
+import com.archer.cbs.authservice.service.UserService.AuthenticationResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Connexion en étapes asynchrones
+ * <p>
+ * Lecture de l'instantané d'authentification (JDBC) via {@link BlockingDispatcher}, puis
+ * comparaison du mot de passe et signature des deux tokens, en parallèle, sur un pool de
+ * calcul borné ({@code auth.login.signing-threads} threads, file de
+ * {@code auth.login.signing-queue} tâches). Un pool plein fait échouer le stage avec une
+ * {@link RejectedExecutionException} (503) au lieu d'accumuler les requêtes en attente.
+ */
+@ApplicationScoped
+public class LoginPipeline {
+
+    @Inject
+    private UserService userService;
+
+    @Inject
+    private JwtService jwtService;
+
+    @Inject
+    private BlockingDispatcher dispatcher;
+
+    @Inject
+    private SessionRegistry sessionRegistry;
+
+    @Resource
+    private ManagedThreadFactory managedThreadFactory;
+
+    private ThreadPoolExecutor signingExecutor;
+
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int threads = Math.max(1, Settings.getInt("auth.login.signing-threads",
+                Runtime.getRuntime().availableProcessors()));
+        int queue = Math.max(1, Settings.getInt("auth.login.signing-queue", 256));
+        signingExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue), managedThreadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        signingExecutor.shutdown();
+    }
+
+    /**
+     * @return le résultat, null si les identifiants sont incorrects ou le compte inactif
+     */
+    public CompletionStage<AuthenticationResult> login(String username, String password) {
+        return dispatcher.supply(() -> userService.loadAuthSnapshot(username))
+                .thenCompose(snapshot -> compute(() -> snapshot != null && snapshot.passwordMatches(password)
+                        ? snapshot : null))
+                .thenCompose(snapshot -> snapshot == null
+                        ? CompletableFuture.completedFuture(null)
+                        : issueTokens(snapshot));
+    }
+
+    /**
+     * Compteurs d'exploitation (exposés sur /metrics)
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("signingThreads", signingExecutor.getMaximumPoolSize());
+        stats.put("active", signingExecutor.getActiveCount());
+        stats.put("queued", signingExecutor.getQueue().size());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * Access token et refresh token signés en parallèle
+     */
+    private CompletionStage<AuthenticationResult> issueTokens(AuthSnapshot snapshot) {
+        Long userId = snapshot.getUser().getId();
+        String username = snapshot.getUser().getUsername();
+        long sessionStart = snapshot.getSessionStart();
+        String sessionId = sessionRegistry.open(userId, sessionStart);
+
+        CompletableFuture<String> accessToken = compute(() -> userService.issueAccessToken(snapshot, sessionId));
+        CompletableFuture<String> refreshToken = compute(() ->
+                jwtService.generateRefreshToken(userId, username, sessionId, sessionStart));
+
+        return accessToken.thenCombine(refreshToken,
+                (access, refresh) -> new AuthenticationResult(snapshot.getUser(), access, refresh));
+    }
+
+    /**
+     * Tâche de calcul sur le pool borné ; un refus devient un stage en échec
+     * (les variantes *Async de CompletableFuture lèveraient l'exception dans le thread
+     * qui complète l'étape précédente, laissant la suivante sans issue)
+     */
+    private <T> CompletableFuture<T> compute(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, signingExecutor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.archer.cbs.authservice.service;
 
+import com.archer.cbs.authservice.dao.DuplicateKeyException;
 import com.archer.cbs.authservice.dao.PermissionDAO;
+import com.archer.cbs.authservice.dao.ReadOnly;
+import com.archer.cbs.authservice.dao.SearchQuery;
+import com.archer.cbs.authservice.dto.PageDTO;
 import com.archer.cbs.authservice.entity.Permission;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.event.EntityChangedEvent.EntityType;
+import com.archer.cbs.authservice.security.SecurityStamps;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.util.List;
@@ -15,21 +25,31 @@ public class PermissionService {
     @Inject
     private PermissionDAO permissionDAO;
 
+    @Inject
+    private Event<EntityChangedEvent> changes;
+
+    @Inject
+    private SecurityStamps securityStamps;
+
     /**
      * Créer une nouvelle permission
      */
     public Permission createPermission(Permission permission) {
-        // Vérifier si le nom de la permission existe déjà
-        if (permissionDAO.permissionExists(permission.getName())) {
+        Permission created;
+        try {
+            created = permissionDAO.create(permission);
+        } catch (DuplicateKeyException e) {
             throw new IllegalArgumentException("Une permission avec ce nom existe déjà");
         }
-
-        return permissionDAO.create(permission);
+        changes.fire(EntityChangedEvent.created(EntityType.PERMISSION, created.getId(), created.getName()));
+        return created;
     }
 
     /**
      * Récupérer une permission par ID
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Permission> getPermissionById(Long id) {
         return permissionDAO.findById(id);
     }
@@ -37,6 +57,8 @@ public class PermissionService {
     /**
      * Récupérer une permission par nom
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Permission> getPermissionByNom(String nom) {
         return permissionDAO.findByNom(nom);
     }
@@ -44,6 +66,8 @@ public class PermissionService {
     /**
      * Récupérer toutes les permissions
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<Permission> getAllPermissions() {
         return permissionDAO.findAll();
     }
@@ -51,6 +75,8 @@ public class PermissionService {
     /**
      * Récupérer les permissions d'un rôle
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<Permission> getPermissionsByRoleId(Long roleId) {
         return permissionDAO.findByRoleId(roleId);
     }
@@ -58,18 +84,20 @@ public class PermissionService {
     /**
      * Récupérer les permissions d'un utilisateur
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<Permission> getPermissionsByUserId(Long userId) {
         return permissionDAO.findByUserId(userId);
     }
 
     /**
-     * Rechercher des permissions par nom
+     * Rechercher des permissions (nom, description), paginé
      */
-    public List<Permission> searchPermissionsByNom(String nom) {
-        if (nom == null || nom.trim().isEmpty()) {
-            throw new IllegalArgumentException("Le nom de recherche ne peut pas être vide");
-        }
-        return permissionDAO.searchByNom(nom);
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public PageDTO<Permission> searchPermissions(String term, Integer page, Integer size) {
+        SearchQuery search = SearchQuery.of(term, page, size);
+        return PageDTO.fromOverfetch(permissionDAO.search(search), search.getPage(), search.getSize());
     }
 
     /**
@@ -79,28 +107,30 @@ public class PermissionService {
         Permission existingPermission = permissionDAO.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Permission non trouvée avec l'ID: " + id));
 
-        // Vérifier si le nouveau nom existe déjà (sauf si c'est le même)
-        if (!updatedPermission.getName().equals(existingPermission.getName()) &&
-                permissionDAO.permissionExists(updatedPermission.getName())) {
-            throw new IllegalArgumentException("Une permission avec ce nom existe déjà");
-        }
-
-        // Mise à jour des champs
+        // Mise à jour des champs ; un nom déjà pris est refusé par la contrainte d'unicité
+        boolean renamed = !existingPermission.getName().equals(updatedPermission.getName());
         existingPermission.setName(updatedPermission.getName());
         existingPermission.setDescription(updatedPermission.getDescription());
 
-        return permissionDAO.update(existingPermission);
+        Permission updated;
+        try {
+            updated = permissionDAO.update(existingPermission);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Une permission avec ce nom existe déjà");
+        }
+        if (renamed) {
+            // Les tokens portent le nom de la permission : rôles qui la portent
+            securityStamps.permissionChanged(id);
+        }
+        changes.fire(EntityChangedEvent.updated(EntityType.PERMISSION, id, updated.getName()));
+        return updated;
     }
 
     /**
      * Supprimer une permission
      */
     public boolean deletePermission(Long id) {
-        if (!permissionDAO.exists(id)) {
-            throw new IllegalArgumentException("Permission non trouvée avec l'ID: " + id);
-        }
-
-        // Vérifier si la permission est utilisée par des rôles
+        // Vérifier si la permission est utilisée par des rôles (0 pour une permission inexistante)
         Long roleCount = permissionDAO.countRolesByPermission(id);
         if (roleCount > 0) {
             throw new IllegalStateException(
@@ -108,12 +138,18 @@ public class PermissionService {
             );
         }
 
-        return permissionDAO.deleteById(id);
+        if (permissionDAO.deleteById(id) == 0) {
+            throw new IllegalArgumentException("Permission non trouvée avec l'ID: " + id);
+        }
+        changes.fire(EntityChangedEvent.deleted(EntityType.PERMISSION, id));
+        return true;
     }
 
     /**
      * Compter le nombre de rôles utilisant une permission
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Long countRolesByPermission(Long permissionId) {
         return permissionDAO.countRolesByPermission(permissionId);
     }
@@ -121,6 +157,8 @@ public class PermissionService {
     /**
      * Vérifier si une permission existe
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public boolean permissionExists(String nom) {
         return permissionDAO.permissionExists(nom);
     }
@@ -1,11 +1,22 @@
 package com.archer.cbs.authservice.service;
 
+import com.archer.cbs.authservice.dao.DuplicateKeyException;
 import com.archer.cbs.authservice.dao.PersonDAO;
+import com.archer.cbs.authservice.dao.ReadOnly;
+import com.archer.cbs.authservice.dao.SearchQuery;
+import com.archer.cbs.authservice.dao.UserDAO;
 import com.archer.cbs.authservice.dto.ApiResponse;
+import com.archer.cbs.authservice.dto.PageDTO;
 import com.archer.cbs.authservice.entity.Person;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.event.EntityChangedEvent.EntityType;
+import com.archer.cbs.authservice.security.SessionRegistry;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.util.List;
@@ -19,21 +30,35 @@ public class PersonService {
     @Inject
     private PersonDAO personDAO;
 
+    @Inject
+    private UserDAO userDAO;
+
+    @Inject
+    private Event<EntityChangedEvent> changes;
+
+    @Inject
+    private SessionRegistry sessionRegistry;
+
     /**
      * Créer une nouvelle personne
      */
     public Person createPerson(Person person) {
-        // Vérifier si l'email existe déjà
-        if (person.getEmail() != null && personDAO.emailExists(person.getEmail())) {
+        Person created;
+        try {
+            created = personDAO.create(person);
+        } catch (DuplicateKeyException e) {
             throw new IllegalArgumentException("Une personne avec cet email existe déjà");
         }
-
-        return personDAO.create(person);
+        changes.fire(EntityChangedEvent.created(EntityType.PERSON, created.getId(),
+                created.getFirstName() + " " + created.getLastName()));
+        return created;
     }
 
     /**
      * Récupérer une personne par ID
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Person> getPersonById(Long id) {
         return personDAO.findById(id);
     }
@@ -41,6 +66,8 @@ public class PersonService {
     /**
      * Récupérer une personne par email
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Person> getPersonByEmail(String email) {
         return personDAO.findByEmail(email);
     }
@@ -48,6 +75,8 @@ public class PersonService {
     /**
      * Récupérer une personne par téléphone
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Person> getPersonByTelephone(String phone) {
         return personDAO.findByPhone(phone);
     }
@@ -55,18 +84,20 @@ public class PersonService {
     /**
      * Récupérer toutes les personnes
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<Person> getAllPersons() {
         return personDAO.findAll();
     }
 
     /**
-     * Rechercher des personnes par nom
+     * Rechercher des personnes (prénom, nom, email, téléphone), paginé
      */
-    public List<Person> searchPersonsByNom(String firstName) {
-        if (firstName == null || firstName.trim().isEmpty()) {
-            throw new IllegalArgumentException("Le nom de recherche ne peut pas être vide");
-        }
-        return personDAO.searchByFirstName(firstName);
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public PageDTO<Person> searchPersons(String term, Integer page, Integer size) {
+        SearchQuery search = SearchQuery.of(term, page, size);
+        return PageDTO.fromOverfetch(personDAO.search(search), search.getPage(), search.getSize());
     }
 
     /**
@@ -76,36 +107,51 @@ public class PersonService {
         Person existingPerson = personDAO.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Personne non trouvée avec l'ID: " + id));
 
-        // Vérifier si le nouvel email existe déjà (sauf si c'est le même)
-        if (updatedPerson.getEmail() != null &&
-                !updatedPerson.getEmail().equals(existingPerson.getEmail()) &&
-                personDAO.emailExists(updatedPerson.getEmail())) {
-            throw new IllegalArgumentException("Une personne avec cet email existe déjà");
-        }
-
-        // Mise à jour des champs
+        // Mise à jour des champs ; un email déjà pris est refusé par la contrainte d'unicité
         existingPerson.setFirstName(updatedPerson.getFirstName());
         existingPerson.setLastName(updatedPerson.getLastName());
         existingPerson.setEmail(updatedPerson.getEmail());
         existingPerson.setPhone(updatedPerson.getPhone());
         existingPerson.setBirthDate(updatedPerson.getBirthDate());
 
-        return personDAO.update(existingPerson);
+        Person updated;
+        try {
+            updated = personDAO.update(existingPerson);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Une personne avec cet email existe déjà");
+        }
+        changes.fire(EntityChangedEvent.updated(EntityType.PERSON, id,
+                updated.getFirstName() + " " + updated.getLastName()));
+        return updated;
     }
 
     /**
      * Supprimer une personne
      */
     public boolean deletePerson(Long id) {
-        if (!personDAO.exists(id)) {
+        // La suppression est propagée à l'utilisateur associé (la cascade JPA ne
+        // s'applique pas aux suppressions en une instruction)
+        Long userId = userDAO.findIdByPerson(id).orElse(null);
+        if (userId != null) {
+            userDAO.deleteByPerson(id);
+        }
+
+        if (personDAO.deleteById(id) == 0) {
             throw new IllegalArgumentException("Personne non trouvée avec l'ID: " + id);
         }
-        return personDAO.deleteById(id);
+        changes.fire(EntityChangedEvent.deleted(EntityType.PERSON, id));
+        if (userId != null) {
+            sessionRegistry.revokeAll(userId);
+            changes.fire(EntityChangedEvent.deleted(EntityType.USER, userId));
+        }
+        return true;
     }
 
     /**
      * Compter le nombre total de personnes
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Long countPersons() {
         return personDAO.count();
     }
@@ -113,6 +159,8 @@ public class PersonService {
     /**
      * Vérifier si une personne existe
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public boolean personExists(Long id) {
         return personDAO.exists(id);
     }
@@ -120,6 +168,8 @@ public class PersonService {
     /**
      * Vérifier si un email existe
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public boolean emailExists(String email) {
         return personDAO.emailExists(email);
     }
@@ -1,10 +1,19 @@
 package com.archer.cbs.authservice.service;
 
+import com.archer.cbs.authservice.audit.AuditEvent;
+import com.archer.cbs.authservice.audit.AuditLog;
+import com.archer.cbs.authservice.dao.DuplicateKeyException;
 import com.archer.cbs.authservice.dao.RoleDAO;
 import com.archer.cbs.authservice.dao.PermissionDAO;
+import com.archer.cbs.authservice.dao.ReadOnly;
 import com.archer.cbs.authservice.entity.Role;
-import com.archer.cbs.authservice.entity.Permission;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.event.EntityChangedEvent.EntityType;
+import com.archer.cbs.authservice.security.SecurityStamps;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
 import java.util.List;
@@ -20,21 +29,34 @@ public class RoleService {
     @Inject
     private PermissionDAO permissionDAO;
 
+    @Inject
+    private Event<EntityChangedEvent> changes;
+
+    @Inject
+    private AuditLog auditLog;
+
+    @Inject
+    private SecurityStamps securityStamps;
+
     /**
      * Créer un nouveau rôle
      */
     public Role createRole(Role role) {
-        // Vérifier si le nom du rôle existe déjà
-        if (roleDAO.roleExists(role.getName())) {
+        Role created;
+        try {
+            created = roleDAO.create(role);
+        } catch (DuplicateKeyException e) {
             throw new IllegalArgumentException("Un rôle avec ce nom existe déjà");
         }
-
-        return roleDAO.create(role);
+        changes.fire(EntityChangedEvent.created(EntityType.ROLE, created.getId(), created.getName()));
+        return created;
     }
 
     /**
      * Récupérer un rôle par ID
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Role> getRoleById(Long id) {
         return roleDAO.findById(id);
     }
@@ -42,6 +64,8 @@ public class RoleService {
     /**
      * Récupérer un rôle avec ses permissions
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Role> getRoleWithPermissions(Long id) {
         return roleDAO.findByIdWithPermissions(id);
     }
@@ -49,6 +73,8 @@ public class RoleService {
     /**
      * Récupérer un rôle par nom
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<Role> getRoleByNom(String nom) {
         return roleDAO.findByNom(nom);
     }
@@ -56,6 +82,8 @@ public class RoleService {
     /**
      * Récupérer tous les rôles
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<Role> getAllRoles() {
         return roleDAO.findAll();
     }
@@ -63,6 +91,8 @@ public class RoleService {
     /**
      * Récupérer tous les rôles avec leurs permissions
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<Role> getAllRolesWithPermissions() {
         return roleDAO.findAllWithPermissions();
     }
@@ -74,48 +104,71 @@ public class RoleService {
         Role existingRole = roleDAO.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Rôle non trouvé avec l'ID: " + id));
 
-        // Vérifier si le nouveau nom existe déjà (sauf si c'est le même)
-        if (!updatedRole.getName().equals(existingRole.getName()) &&
-                roleDAO.roleExists(updatedRole.getName())) {
-            throw new IllegalArgumentException("Un rôle avec ce nom existe déjà");
-        }
-
-        // Mise à jour des champs
+        // Mise à jour des champs ; un nom déjà pris est refusé par la contrainte d'unicité
+        boolean renamed = !existingRole.getName().equals(updatedRole.getName());
         existingRole.setName(updatedRole.getName());
         existingRole.setDescription(updatedRole.getDescription());
 
-        return roleDAO.update(existingRole);
+        Role updated;
+        try {
+            updated = roleDAO.update(existingRole);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException("Un rôle avec ce nom existe déjà");
+        }
+        if (renamed) {
+            // Les tokens portent le nom du rôle
+            securityStamps.rolesChanged(List.of(id));
+        }
+        changes.fire(EntityChangedEvent.updated(EntityType.ROLE, id, updated.getName()));
+        return updated;
     }
 
     /**
      * Ajouter une permission à un rôle
      */
     public void addPermissionToRole(Long roleId, Long permissionId) {
-        Permission permission = permissionDAO.findById(permissionId)
-                .orElseThrow(() -> new IllegalArgumentException("Permission non trouvée avec l'ID: " + permissionId));
-
-        roleDAO.addPermission(roleId, permission);
+        if (roleDAO.addPermission(roleId, permissionId) == 0) {
+            // Rien d'inséré : identifiant inconnu, ou permission déjà présente (sans effet)
+            requireRoleAndPermission(roleId, permissionId);
+            return;
+        }
+        securityStamps.rolesChanged(List.of(roleId));
+        changes.fire(EntityChangedEvent.associationChanged(EntityType.ROLE, roleId));
+        auditLog.record(AuditEvent.Type.PERMISSION_GRANTED, roleId, null, "permissionId=" + permissionId);
     }
 
     /**
      * Retirer une permission d'un rôle
      */
     public void removePermissionFromRole(Long roleId, Long permissionId) {
-        Permission permission = permissionDAO.findById(permissionId)
-                .orElseThrow(() -> new IllegalArgumentException("Permission non trouvée avec l'ID: " + permissionId));
+        if (roleDAO.removePermission(roleId, permissionId) == 0) {
+            // Rien de supprimé : identifiant inconnu, ou permission absente (sans effet)
+            requireRoleAndPermission(roleId, permissionId);
+            return;
+        }
+        securityStamps.rolesChanged(List.of(roleId));
+        changes.fire(EntityChangedEvent.associationChanged(EntityType.ROLE, roleId));
+        auditLog.record(AuditEvent.Type.PERMISSION_REVOKED, roleId, null, "permissionId=" + permissionId);
+    }
 
-        roleDAO.removePermission(roleId, permission);
+    /**
+     * Lève l'erreur "non trouvé" du rôle ou de la permission manquant ; consulté seulement
+     * quand l'instruction n'a touché aucune ligne
+     */
+    private void requireRoleAndPermission(Long roleId, Long permissionId) {
+        if (!roleDAO.exists(roleId)) {
+            throw new IllegalArgumentException("Rôle non trouvé avec l'ID: " + roleId);
+        }
+        if (!permissionDAO.exists(permissionId)) {
+            throw new IllegalArgumentException("Permission non trouvée avec l'ID: " + permissionId);
+        }
     }
 
     /**
      * Supprimer un rôle
      */
     public boolean deleteRole(Long id) {
-        if (!roleDAO.exists(id)) {
-            throw new IllegalArgumentException("Rôle non trouvé avec l'ID: " + id);
-        }
-
-        // Vérifier si le rôle est utilisé par des utilisateurs
+        // Vérifier si le rôle est utilisé par des utilisateurs (0 pour un rôle inexistant)
         Long userCount = roleDAO.countUsersByRole(id);
         if (userCount > 0) {
             throw new IllegalStateException(
@@ -123,12 +176,19 @@ public class RoleService {
             );
         }
 
-        return roleDAO.deleteById(id);
+        if (roleDAO.deleteById(id) == 0) {
+            throw new IllegalArgumentException("Rôle non trouvé avec l'ID: " + id);
+        }
+        changes.fire(EntityChangedEvent.deleted(EntityType.ROLE, id));
+        auditLog.record(AuditEvent.Type.ROLE_DELETED, id, null, null);
+        return true;
     }
 
     /**
      * Compter le nombre d'utilisateurs ayant un rôle
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Long countUsersByRole(Long roleId) {
         return roleDAO.countUsersByRole(roleId);
     }
@@ -136,6 +196,8 @@ public class RoleService {
     /**
      * Vérifier si un rôle existe
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public boolean roleExists(String nom) {
         return roleDAO.roleExists(nom);
     }
@@ -1,23 +1,45 @@
 package com.archer.cbs.authservice.service;
 
+import com.archer.cbs.authservice.audit.AuditEvent;
+import com.archer.cbs.authservice.audit.AuditLog;
+import com.archer.cbs.authservice.dao.DuplicateKeyException;
 import com.archer.cbs.authservice.dao.PermissionDAO;
 import com.archer.cbs.authservice.dao.UserDAO;
 import com.archer.cbs.authservice.dao.RoleDAO;
 import com.archer.cbs.authservice.dao.PersonDAO;
+import com.archer.cbs.authservice.dao.ReadOnly;
+import com.archer.cbs.authservice.dto.BulkRoleResultDTO;
 import com.archer.cbs.authservice.entity.Permission;
 import com.archer.cbs.authservice.entity.User;
 import com.archer.cbs.authservice.entity.Role;
 import com.archer.cbs.authservice.entity.Person;
 import com.archer.cbs.authservice.security.JwtService;
+import com.archer.cbs.authservice.security.SecurityStamps;
+import com.archer.cbs.authservice.security.SessionRegistry;
+import com.archer.cbs.authservice.security.SessionRegistry.Session;
+import com.archer.cbs.authservice.security.TokenRenewer;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.event.EntityChangedEvent.EntityType;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.jsonwebtoken.Claims;
 import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Stateless
@@ -39,15 +61,28 @@ public class UserService {
     @Inject
     private PersonDAO personDAO;
 
+    @Inject
+    private Event<EntityChangedEvent> changes;
+
+    @Inject
+    private AuditLog auditLog;
+
+    @Inject
+    private SessionRegistry sessionRegistry;
+
+    @Inject
+    private SecurityStamps securityStamps;
+
+    @Inject
+    private TokenRenewer tokenRenewer;
+
+    // Paires (utilisateur, rôle) par appel groupé
+    private static final int MAX_BULK_PAIRS = 10_000;
+
     /**
      * Créer un nouvel utilisateur
      */
     public User createUser(User user, Long personId) {
-        // Vérifier si le username existe déjà
-        if (userDAO.usernameExists(user.getUsername())) {
-            throw new IllegalArgumentException("Ce nom d'utilisateur existe déjà");
-        }
-
         // Associer la personne si l'ID est fourni
         if (personId != null) {
             Person person = personDAO.findById(personId)
@@ -58,25 +93,24 @@ public class UserService {
         // Hasher le mot de passe
         user.setPassword(hashPassword(user.getPassword()));
 
-        return userDAO.create(user);
+        User created = insertUser(user);
+        changes.fire(EntityChangedEvent.created(EntityType.USER, created.getId(), created.getUsername()));
+        return created;
     }
 
     /**
      * Créer un utilisateur avec une nouvelle personne
      */
     public User createUserWithPerson(User user, Person person) throws JsonProcessingException {
-        // Vérifier si le username existe déjà
-        if (userDAO.usernameExists(user.getUsername())) {
-            throw new IllegalArgumentException("Ce nom d'utilisateur existe déjà");
-        }
-
-        // Vérifier si l'email existe déjà
-        if (person.getEmail() != null && personDAO.emailExists(person.getEmail())) {
+        // Créer d'abord la personne ; un doublon (email ou username) annule les deux insertions
+        Person savedPerson;
+        try {
+            savedPerson = personDAO.create(person);
+        } catch (DuplicateKeyException e) {
             throw new IllegalArgumentException("Une personne avec cet email existe déjà");
         }
-
-        // Créer d'abord la personne
-        Person savedPerson = personDAO.create(person);
+        changes.fire(EntityChangedEvent.created(EntityType.PERSON, savedPerson.getId(),
+                savedPerson.getFirstName() + " " + savedPerson.getLastName()));
 
         // Associer la personne à l'utilisateur
         user.setPerson(savedPerson);
@@ -84,7 +118,27 @@ public class UserService {
         // Hasher le mot de passe
         user.setPassword(hashPassword(user.getPassword()));
 
-        return userDAO.create(user);
+        User created = insertUser(user);
+        changes.fire(EntityChangedEvent.created(EntityType.USER, created.getId(), created.getUsername()));
+        return created;
+    }
+
+    /**
+     * Insère l'utilisateur ; les doublons sont détectés par les contraintes d'unicité
+     * (username, sans tenir compte de la casse, et personne déjà associée)
+     */
+    private User insertUser(User user) {
+        try {
+            return userDAO.create(user);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException(duplicateUserMessage(e));
+        }
+    }
+
+    private static String duplicateUserMessage(DuplicateKeyException e) {
+        return e.involves("person_id")
+                ? "Cette personne est déjà associée à un utilisateur"
+                : "Ce nom d'utilisateur existe déjà";
     }
 
     /**
@@ -93,49 +147,86 @@ public class UserService {
      * @return Map contenant l'utilisateur et les tokens
      */
     public AuthenticationResult authenticate(String username, String password) {
+        AuthSnapshot snapshot = loadAuthSnapshot(username);
+        if (snapshot == null || !snapshot.passwordMatches(password)) {
+            return null; // Authentification échouée
+        }
+
+        String sessionId = sessionRegistry.open(snapshot.getUser().getId(), snapshot.getSessionStart());
+        String accessToken = issueAccessToken(snapshot, sessionId);
+        String refreshToken = jwtService.generateRefreshToken(
+                snapshot.getUser().getId(),
+                snapshot.getUser().getUsername(),
+                sessionId,
+                snapshot.getSessionStart()
+        );
+        return new AuthenticationResult(snapshot.getUser(), accessToken, refreshToken);
+    }
+
+    /**
+     * Charger en une fois tout ce qu'il faut pour authentifier un utilisateur
+     * (compte, rôles, permissions), sans rien calculer
+     *
+     * @return l'instantané, ou null si l'utilisateur n'existe pas ou est inactif
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public AuthSnapshot loadAuthSnapshot(String username) {
+        // Lu avant le compte : une révocation validée après cette lecture a un filigrane
+        // postérieur (voir SessionRegistry#revokeAll) et couvre donc la session ouverte ici
+        long sessionStart = System.currentTimeMillis();
+        long generation = securityStamps.generation();
         Optional<User> userOpt = userDAO.findByUsername(username);
+        if (userOpt.isEmpty() || !userOpt.get().getActive()) {
+            return null;
+        }
+        return snapshotOf(userOpt.get(), generation, sessionStart);
+    }
 
-        if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            String hashedPassword = hashPassword(password);
-
-            if (user.getPassword().equals(hashedPassword) && user.getActive()) {
-
-                // Extraire les rôles
-                List<String> roles = user.getRoles().stream()
-                        .map(Role::getName)
-                        .collect(Collectors.toList());
-
-                // Extraire les permissions (via les rôles)
-                List<String> permissions = permissionDAO.findByUserId(user.getId())
-                        .stream()
-                        .map(Permission::getName)
-                        .distinct()
-                        .collect(Collectors.toList());
-
-                // Générer les tokens
-                String accessToken = jwtService.generateToken(
-                        user.getId(),
-                        user.getUsername(),
-                        roles,
-                        permissions
-                );
-
-                String refreshToken = jwtService.generateRefreshToken(
-                        user.getId(),
-                        user.getUsername()
-                );
-
-                return new AuthenticationResult(user, accessToken, refreshToken);
-            }
+    /**
+     * Rôles, permissions et tampons de sécurité d'un utilisateur chargé après
+     * {@code generation} (lue avant toute lecture des rôles)
+     */
+    private AuthSnapshot snapshotOf(User user, long generation, long sessionStart) {
+        List<String> roles = new ArrayList<>(user.getRoles().size());
+        List<Long> roleIds = new ArrayList<>(user.getRoles().size());
+        for (Role role : user.getRoles()) {
+            roles.add(role.getName());
+            roleIds.add(role.getId());
         }
+        List<String> permissions = permissionDAO.findByUserId(user.getId())
+                .stream()
+                .map(Permission::getName)
+                .distinct()
+                .collect(Collectors.toList());
+        return new AuthSnapshot(user, roles, permissions,
+                securityStamps.stampsOf(generation, user.getId(), roleIds), sessionStart);
+    }
 
-        return null; // Authentification échouée
+    /**
+     * Access token signé depuis un instantané ; son modèle est retenu pour les
+     * renouvellements sans base (voir {@link TokenRenewer})
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public String issueAccessToken(AuthSnapshot snapshot, String sessionId) {
+        User user = snapshot.getUser();
+        tokenRenewer.remember(user.getId(), user.getUsername(),
+                snapshot.getRoles(), snapshot.getPermissions(), snapshot.getStamps());
+        return jwtService.generateToken(
+                user.getId(),
+                user.getUsername(),
+                snapshot.getRoles(),
+                snapshot.getPermissions(),
+                sessionId,
+                snapshot.getSessionStart(),
+                snapshot.getStamps()
+        );
     }
 
     /**
      * Récupérer un utilisateur par ID
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<User> getUserById(Long id) {
         return userDAO.findById(id);
     }
@@ -143,6 +234,8 @@ public class UserService {
     /**
      * Récupérer un utilisateur avec ses rôles et permissions
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<User> getUserWithRolesAndPermissions(Long id) {
         return userDAO.findByIdWithRolesAndPermissions(id);
     }
@@ -150,6 +243,8 @@ public class UserService {
     /**
      * Récupérer un utilisateur par username
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public Optional<User> getUserByUsername(String username) {
         return userDAO.findByUsername(username);
     }
@@ -157,6 +252,8 @@ public class UserService {
     /**
      * Récupérer tous les utilisateurs
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<User> getAllUsers() {
         return userDAO.findAll();
     }
@@ -164,6 +261,8 @@ public class UserService {
     /**
      * Récupérer tous les utilisateurs actifs
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<User> getAllActiveUsers() {
         return userDAO.findAllActive();
     }
@@ -171,6 +270,8 @@ public class UserService {
     /**
      * Récupérer tous les utilisateurs inactifs
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<User> getAllInactiveUsers() {
         return userDAO.findAllInactive();
     }
@@ -178,6 +279,8 @@ public class UserService {
     /**
      * Récupérer les utilisateurs par rôle
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public List<User> getUsersByRole(String roleName) {
         return userDAO.findByRole(roleName);
     }
@@ -189,17 +292,28 @@ public class UserService {
         User existingUser = userDAO.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Utilisateur non trouvé avec l'ID: " + id));
 
-        // Vérifier si le nouveau username existe déjà (sauf si c'est le même)
-        if (!updatedUser.getUsername().equals(existingUser.getUsername()) &&
-                userDAO.usernameExists(updatedUser.getUsername())) {
-            throw new IllegalArgumentException("Ce nom d'utilisateur existe déjà");
-        }
-
-        // Mise à jour des champs
+        // Mise à jour des champs ; un username déjà pris est refusé par la contrainte d'unicité
+        boolean renamed = !existingUser.getUsername().equals(updatedUser.getUsername());
+        boolean deactivated = Boolean.TRUE.equals(existingUser.getActive())
+                && !Boolean.TRUE.equals(updatedUser.getActive());
         existingUser.setUsername(updatedUser.getUsername());
         existingUser.setActive(updatedUser.getActive());
 
-        return userDAO.update(existingUser);
+        User updated;
+        try {
+            updated = userDAO.update(existingUser);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalArgumentException(duplicateUserMessage(e));
+        }
+        if (deactivated) {
+            // Comme toggleUserStatus : plus aucun token, ni renouvellement, pour ce compte
+            sessionRegistry.revokeAll(id);
+        } else if (renamed) {
+            // Les tokens portent le username
+            securityStamps.usersChanged(List.of(id));
+        }
+        changes.fire(EntityChangedEvent.updated(EntityType.USER, id, updated.getUsername()));
+        return updated;
     }
 
     /**
@@ -218,6 +332,8 @@ public class UserService {
         // Mettre à jour avec le nouveau mot de passe
         user.setPassword(hashPassword(newPassword));
         userDAO.update(user);
+        sessionRegistry.revokeAll(userId);
+        auditLog.record(AuditEvent.Type.PASSWORD_CHANGED, userId, user.getUsername(), null);
     }
 
     /**
@@ -229,48 +345,191 @@ public class UserService {
 
         user.setPassword(hashPassword(newPassword));
         userDAO.update(user);
+        sessionRegistry.revokeAll(userId);
+        auditLog.record(AuditEvent.Type.PASSWORD_RESET, userId, user.getUsername(), null);
     }
 
     /**
      * Activer/désactiver un utilisateur
      */
     public void toggleUserStatus(Long userId) {
-        userDAO.toggleUserStatus(userId);
+        if (userDAO.toggleUserStatus(userId) == 0) {
+            throw new IllegalArgumentException("Utilisateur non trouvé avec l'ID: " + userId);
+        }
+        // Désactivation comme réactivation : les tokens émis avant sont révoqués
+        sessionRegistry.revokeAll(userId);
+        changes.fire(EntityChangedEvent.updated(EntityType.USER, userId, null));
+        auditLog.record(AuditEvent.Type.USER_STATUS_CHANGED, userId, null, null);
     }
 
     /**
      * Ajouter un rôle à un utilisateur
      */
     public void addRoleToUser(Long userId, Long roleId) {
-        Role role = roleDAO.findById(roleId)
-                .orElseThrow(() -> new IllegalArgumentException("Rôle non trouvé avec l'ID: " + roleId));
-
-        userDAO.addRole(userId, role);
+        if (userDAO.addRole(userId, roleId) == 0) {
+            // Rien d'inséré : identifiant inconnu, ou rôle déjà attribué (sans effet)
+            requireUserAndRole(userId, roleId);
+            return;
+        }
+        securityStamps.usersChanged(List.of(userId));
+        changes.fire(EntityChangedEvent.associationChanged(EntityType.USER, userId));
+        auditLog.record(AuditEvent.Type.ROLE_ASSIGNED, userId, null, "roleId=" + roleId);
     }
 
     /**
      * Retirer un rôle d'un utilisateur
      */
     public void removeRoleFromUser(Long userId, Long roleId) {
-        Role role = roleDAO.findById(roleId)
-                .orElseThrow(() -> new IllegalArgumentException("Rôle non trouvé avec l'ID: " + roleId));
+        if (userDAO.removeRole(userId, roleId) == 0) {
+            // Rien de supprimé : identifiant inconnu, ou rôle non attribué (sans effet)
+            requireUserAndRole(userId, roleId);
+            return;
+        }
+        // Tokens en cours refusés jusqu'au rafraîchissement, qui reprend les rôles à jour
+        securityStamps.usersChanged(List.of(userId));
+        changes.fire(EntityChangedEvent.associationChanged(EntityType.USER, userId));
+        auditLog.record(AuditEvent.Type.ROLE_REVOKED, userId, null, "roleId=" + roleId);
+    }
+
+    /**
+     * Lève l'erreur "non trouvé" de l'utilisateur ou du rôle manquant ; consulté seulement
+     * quand l'instruction n'a touché aucune ligne
+     */
+    private void requireUserAndRole(Long userId, Long roleId) {
+        if (!userDAO.exists(userId)) {
+            throw new IllegalArgumentException("Utilisateur non trouvé avec l'ID: " + userId);
+        }
+        if (!roleDAO.exists(roleId)) {
+            throw new IllegalArgumentException("Rôle non trouvé avec l'ID: " + roleId);
+        }
+    }
 
-        userDAO.removeRole(userId, role);
+    /**
+     * Attribuer chaque rôle à chaque utilisateur, en une instruction
+     */
+    public BulkRoleResultDTO addRolesToUsers(List<Long> userIds, List<Long> roleIds) {
+        return applyBulk(userIds, roleIds, true);
+    }
+
+    /**
+     * Retirer chaque rôle de chaque utilisateur, en une instruction
+     */
+    public BulkRoleResultDTO removeRolesFromUsers(List<Long> userIds, List<Long> roleIds) {
+        return applyBulk(userIds, roleIds, false);
+    }
+
+    private BulkRoleResultDTO applyBulk(List<Long> userIds, List<Long> roleIds, boolean add) {
+        Set<Long> users = distinctIds(userIds, "utilisateurs");
+        Set<Long> roles = distinctIds(roleIds, "rôles");
+        if ((long) users.size() * roles.size() > MAX_BULK_PAIRS) {
+            throw new IllegalArgumentException("Trop de paires utilisateur/rôle (maximum " + MAX_BULK_PAIRS + ")");
+        }
+
+        Set<Long> existingUsers = userDAO.findExistingIds(users);
+        Set<Long> existingRoles = roleDAO.findExistingIds(roles);
+
+        // Par identifiant croissant : verrous des utilisateurs (tampons, boîte d'envoi) toujours
+        // pris dans le même ordre d'une transaction à l'autre
+        Map<Long, Set<Long>> changed = new TreeMap<>();
+        if (!existingUsers.isEmpty() && !existingRoles.isEmpty()) {
+            List<long[]> pairs = add
+                    ? userDAO.insertUserRoles(existingUsers, existingRoles)
+                    : userDAO.deleteUserRoles(existingUsers, existingRoles);
+            for (long[] pair : pairs) {
+                changed.computeIfAbsent(pair[0], id -> new TreeSet<>()).add(pair[1]);
+            }
+        }
+
+        BulkRoleResultDTO result = new BulkRoleResultDTO();
+        for (Long userId : users) {
+            Set<Long> changedRoles = changed.getOrDefault(userId, Set.of());
+            for (Long roleId : roles) {
+                BulkRoleResultDTO.Status status;
+                if (!existingUsers.contains(userId)) {
+                    status = BulkRoleResultDTO.Status.USER_NOT_FOUND;
+                } else if (!existingRoles.contains(roleId)) {
+                    status = BulkRoleResultDTO.Status.ROLE_NOT_FOUND;
+                } else if (changedRoles.contains(roleId)) {
+                    status = add ? BulkRoleResultDTO.Status.ADDED : BulkRoleResultDTO.Status.REMOVED;
+                } else {
+                    status = add ? BulkRoleResultDTO.Status.ALREADY_ASSIGNED : BulkRoleResultDTO.Status.NOT_ASSIGNED;
+                }
+                result.add(userId, roleId, status);
+            }
+        }
+        result.setAffectedUsers(changed.size());
+
+        // Un seul événement par utilisateur modifié, quel que soit le nombre de rôles
+        AuditEvent.Type auditType = add ? AuditEvent.Type.ROLE_ASSIGNED : AuditEvent.Type.ROLE_REVOKED;
+        securityStamps.usersChanged(changed.keySet());
+        for (Map.Entry<Long, Set<Long>> entry : changed.entrySet()) {
+            changes.fire(EntityChangedEvent.associationChanged(EntityType.USER, entry.getKey()));
+            auditLog.record(auditType, entry.getKey(), null, "roleIds=" + entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Identifiants sans doublon, dans l'ordre de la requête
+     */
+    private static Set<Long> distinctIds(List<Long> ids, String label) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("La liste des " + label + " ne peut pas être vide");
+        }
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("La liste des " + label + " contient un identifiant nul");
+            }
+            distinct.add(id);
+        }
+        return distinct;
     }
 
     /**
      * Supprimer un utilisateur
      */
     public boolean deleteUser(Long id) {
-        if (!userDAO.exists(id)) {
+        if (userDAO.deleteById(id) == 0) {
             throw new IllegalArgumentException("Utilisateur non trouvé avec l'ID: " + id);
         }
-        return userDAO.deleteById(id);
+        sessionRegistry.revokeAll(id);
+        changes.fire(EntityChangedEvent.deleted(EntityType.USER, id));
+        auditLog.record(AuditEvent.Type.USER_DELETED, id, null, null);
+        return true;
+    }
+
+    /**
+     * Sessions ouvertes d'un utilisateur
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public List<Session> getSessions(Long userId) {
+        if (!userDAO.exists(userId)) {
+            throw new IllegalArgumentException("Utilisateur non trouvé avec l'ID: " + userId);
+        }
+        return sessionRegistry.activeSessions(userId);
+    }
+
+    /**
+     * Fermer toutes les sessions d'un utilisateur : ses tokens émis jusqu'ici sont refusés
+     *
+     * @return le nombre de sessions fermées
+     */
+    public int revokeSessions(Long userId) {
+        if (!userDAO.exists(userId)) {
+            throw new IllegalArgumentException("Utilisateur non trouvé avec l'ID: " + userId);
+        }
+        int open = sessionRegistry.activeSessions(userId).size();
+        sessionRegistry.revokeAll(userId);
+        auditLog.record(AuditEvent.Type.SESSIONS_REVOKED, userId, null, "sessions=" + open);
+        return open;
     }
 
     /**
      * Vérifier si un username existe
      */
+    @ReadOnly
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
     public boolean usernameExists(String username) {
         return userDAO.usernameExists(username);
     }
@@ -279,37 +538,26 @@ public class UserService {
      * Rafraîchir le token d'accès avec un refresh token
      */
     public AuthenticationResult refreshToken(String refreshToken) {
-        if (!jwtService.validateToken(refreshToken)) {
+        Claims claims = jwtService.verify(refreshToken);
+        if (claims == null || claims.get("userId", Long.class) == null) {
             throw new IllegalArgumentException("Refresh token invalide ou expiré");
         }
 
-        Long userId = jwtService.getUserIdFromToken(refreshToken);
-        String username = jwtService.getUsernameFromToken(refreshToken);
+        Long userId = claims.get("userId", Long.class);
+        if (sessionRegistry.isRevoked(userId, JwtService.issuedAtMillis(claims))) {
+            throw new IllegalArgumentException("Session révoquée, reconnexion nécessaire");
+        }
 
+        long generation = securityStamps.generation();
         Optional<User> userOpt = userDAO.findById(userId);
 
         if (userOpt.isPresent() && userOpt.get().getActive()) {
-            User user = userOpt.get();
-
-            // Extraire les rôles
-            List<String> roles = user.getRoles().stream()
-                    .map(Role::getName)
-                    .collect(Collectors.toList());
-
-            // Extraire les permissions
-            List<String> permissions = permissionDAO.findByUserId(user.getId())
-                    .stream()
-                    .map(Permission::getName)
-                    .distinct()
-                    .collect(Collectors.toList());
+            // Rôles, permissions et tampons relus : le nouveau token est à jour
+            AuthSnapshot snapshot = snapshotOf(userOpt.get(), generation, JwtService.issuedAtMillis(claims));
+            User user = snapshot.getUser();
 
             // Générer un nouveau access token
-            String newAccessToken = jwtService.generateToken(
-                    user.getId(),
-                    user.getUsername(),
-                    roles,
-                    permissions
-            );
+            String newAccessToken = issueAccessToken(snapshot, claims.get(JwtService.SESSION_ID, String.class));
 
             return new AuthenticationResult(user, newAccessToken, refreshToken);
         }
@@ -320,7 +568,7 @@ public class UserService {
     /**
      * Hasher un mot de passe avec SHA-256
      */
-    private String hashPassword(String password) {
+    private static String hashPassword(String password) {
         try {
             MessageDigest md = MessageDigest.getInstance("SHA-256");
             byte[] hash = md.digest(password.getBytes());
@@ -330,6 +578,43 @@ public class UserService {
         }
     }
 
+    /**
+     * Données d'authentification d'un utilisateur actif, détachées de la session JPA
+     */
+    public static class AuthSnapshot {
+        private final User user;
+        private final List<String> roles;
+        private final List<String> permissions;
+        private final long[] stamps;
+        private final long sessionStart;
+
+        public AuthSnapshot(User user, List<String> roles, List<String> permissions, long[] stamps,
+                            long sessionStart) {
+            this.user = user;
+            this.roles = roles;
+            this.permissions = permissions;
+            this.stamps = stamps;
+            this.sessionStart = sessionStart;
+        }
+
+        /**
+         * Comparaison en temps constant du mot de passe saisi avec le hash stocké
+         */
+        public boolean passwordMatches(String password) {
+            return MessageDigest.isEqual(
+                    hashPassword(password).getBytes(StandardCharsets.US_ASCII),
+                    user.getPassword().getBytes(StandardCharsets.US_ASCII));
+        }
+
+        public User getUser() { return user; }
+        public List<String> getRoles() { return roles; }
+        public List<String> getPermissions() { return permissions; }
+        public long[] getStamps() { return stamps; }
+
+        /** Début de la session ({@link JwtService#ISSUED_AT_MS}) : lu avant le compte */
+        public long getSessionStart() { return sessionStart; }
+    }
+
     public static class AuthenticationResult {
         private final User user;
         private final String accessToken;
@@ -0,0 +1,45 @@
+-- Schéma de référence des entités JPA (User, Person, Role, Permission)
+-- IF NOT EXISTS : sans effet sur une base déjà créée hors migration.
+
+CREATE TABLE IF NOT EXISTS persons (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name  VARCHAR(100) NOT NULL,
+    last_name   VARCHAR(100) NOT NULL,
+    email       VARCHAR(100) UNIQUE,
+    phone       VARCHAR(20),
+    birth_date  DATE,
+    created_at  TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username    VARCHAR(50)  NOT NULL UNIQUE,
+    password    VARCHAR(255) NOT NULL,
+    active      BOOLEAN      NOT NULL,
+    created_at  TIMESTAMP(6),
+    person_id   BIGINT UNIQUE REFERENCES persons (id)
+);
+
+CREATE TABLE IF NOT EXISTS roles (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(50) NOT NULL UNIQUE,
+    description VARCHAR(255),
+    created_at  TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS permissions (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name        VARCHAR(50) NOT NULL UNIQUE,
+    description VARCHAR(255),
+    created_at  TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS user_roles (
+    user_id     BIGINT NOT NULL REFERENCES users (id),
+    role_id     BIGINT NOT NULL REFERENCES roles (id)
+);
+
+CREATE TABLE IF NOT EXISTS role_permissions (
+    role_id       BIGINT NOT NULL REFERENCES roles (id),
+    permission_id BIGINT NOT NULL REFERENCES permissions (id)
+);
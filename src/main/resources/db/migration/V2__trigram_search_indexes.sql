@@ -0,0 +1,16 @@
+-- Recherche floue des personnes et des permissions (pg_trgm)
+-- Les expressions indexées doivent rester identiques à celles de PersonDAO.search
+-- et PermissionDAO.search pour que le planificateur utilise les index GIN.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_persons_search_trgm
+    ON persons USING gin ((lower(
+        coalesce(first_name, '') || ' ' || coalesce(last_name, '') || ' ' ||
+        coalesce(email, '') || ' ' || coalesce(phone, '')
+    )) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_permissions_search_trgm
+    ON permissions USING gin ((lower(
+        name || ' ' || coalesce(description, '')
+    )) gin_trgm_ops);
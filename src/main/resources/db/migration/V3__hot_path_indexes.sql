@@ -0,0 +1,44 @@
+-- Index des chemins chauds : tables de jointure dans les deux sens,
+-- unicité insensible à la casse et index partiels sur users.active
+
+-- Doublons éventuels d'une base créée hors migration (bloqueraient les index uniques)
+DELETE FROM user_roles a
+    USING user_roles b
+    WHERE a.ctid < b.ctid AND a.user_id = b.user_id AND a.role_id = b.role_id;
+
+DELETE FROM role_permissions a
+    USING role_permissions b
+    WHERE a.ctid < b.ctid AND a.role_id = b.role_id AND a.permission_id = b.permission_id;
+
+-- user_roles : rôles d'un utilisateur (chargement EAGER, PermissionDAO.findByUserId)
+-- et utilisateurs d'un rôle (RoleDAO.countUsersByRole, UserDAO.findByRole)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_user_roles_user_role
+    ON user_roles (user_id, role_id);
+
+CREATE INDEX IF NOT EXISTS idx_user_roles_role_user
+    ON user_roles (role_id, user_id);
+
+-- role_permissions : permissions d'un rôle (chargement EAGER)
+-- et rôles d'une permission (PermissionDAO.countRolesByPermission, findByUserId)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_role_permissions_role_permission
+    ON role_permissions (role_id, permission_id);
+
+CREATE INDEX IF NOT EXISTS idx_role_permissions_permission_role
+    ON role_permissions (permission_id, role_id);
+
+-- Unicité insensible à la casse ("Admin" et "admin" ne peuvent coexister)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username_lower
+    ON users (lower(username));
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_persons_email_lower
+    ON persons (lower(email))
+    WHERE email IS NOT NULL;
+
+-- UserDAO.findAllActive / findAllInactive
+CREATE INDEX IF NOT EXISTS idx_users_active
+    ON users (id)
+    WHERE active;
+
+CREATE INDEX IF NOT EXISTS idx_users_inactive
+    ON users (id)
+    WHERE NOT active;
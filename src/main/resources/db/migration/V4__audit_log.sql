@@ -0,0 +1,28 @@
+-- Journal d'audit des événements de sécurité (AuditWriter)
+-- Table en ajout seul, partitionnée par mois sur occurred_at : les partitions
+-- audit_log_<aaaa>_<mm> sont créées par l'application, un mois à l'avance ;
+-- purger un mois revient à supprimer sa partition (DROP TABLE audit_log_2025_01).
+
+CREATE TABLE IF NOT EXISTS audit_log (
+    occurred_at TIMESTAMPTZ  NOT NULL,
+    event_type  VARCHAR(40)  NOT NULL,
+    actor_id    BIGINT,
+    subject_id  BIGINT,
+    username    VARCHAR(50),
+    detail      VARCHAR(255)
+) PARTITION BY RANGE (occurred_at);
+
+-- Lignes hors des partitions mensuelles (écrivain arrêté au changement de mois, réinjection ancienne)
+CREATE TABLE IF NOT EXISTS audit_log_default PARTITION OF audit_log DEFAULT;
+
+-- Historique d'un utilisateur, et des actions d'un administrateur
+CREATE INDEX IF NOT EXISTS idx_audit_log_subject
+    ON audit_log (subject_id, occurred_at);
+
+CREATE INDEX IF NOT EXISTS idx_audit_log_actor
+    ON audit_log (actor_id, occurred_at)
+    WHERE actor_id IS NOT NULL;
+
+-- Plages de dates sans index large : BRIN, les lignes arrivent dans l'ordre chronologique
+CREATE INDEX IF NOT EXISTS brin_audit_log_occurred_at
+    ON audit_log USING BRIN (occurred_at);
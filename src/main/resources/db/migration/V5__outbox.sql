@@ -0,0 +1,25 @@
+-- Boîte d'envoi transactionnelle des changements d'utilisateurs, de rôles et de permissions
+-- Écrite dans la transaction de la modification (OutboxDAO), lue et publiée par OutboxRelay.
+-- tx_id (xid8, PostgreSQL 13+) permet au relais de ne lire que les lignes des transactions
+-- terminées : une ligne dont la transaction est encore en cours n'est jamais sautée.
+
+CREATE TABLE IF NOT EXISTS outbox (
+    id             BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    tx_id          XID8         NOT NULL DEFAULT pg_current_xact_id(),
+    aggregate_type VARCHAR(20)  NOT NULL,
+    aggregate_id   BIGINT       NOT NULL,
+    event_type     VARCHAR(30)  NOT NULL,
+    payload        JSONB,
+    created_at     TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+-- Fenêtres du relais (plage de tx_id) et purge
+CREATE INDEX IF NOT EXISTS idx_outbox_tx_id
+    ON outbox (tx_id, id);
+
+-- Position de chaque consommateur : prochain tx_id à publier
+CREATE TABLE IF NOT EXISTS outbox_offsets (
+    consumer   VARCHAR(50)  PRIMARY KEY,
+    next_tx_id BIGINT       NOT NULL,
+    updated_at TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
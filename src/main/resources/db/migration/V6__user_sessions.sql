@@ -0,0 +1,29 @@
+-- Sessions ouvertes et révocations de tokens par utilisateur (SessionRegistry, SessionStore)
+-- Pas de clé étrangère vers users : une révocation survit à la suppression de l'utilisateur
+-- le temps que ses tokens expirent.
+
+-- Une ligne par connexion, jusqu'à l'expiration du refresh token
+CREATE TABLE IF NOT EXISTS user_sessions (
+    session_id VARCHAR(36)  PRIMARY KEY,
+    user_id    BIGINT       NOT NULL,
+    issued_at  TIMESTAMPTZ  NOT NULL,
+    expires_at TIMESTAMPTZ  NOT NULL,
+    created_at TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_sessions_user
+    ON user_sessions (user_id, expires_at);
+
+-- Synchronisation entre nœuds (sessions ouvertes ailleurs depuis la dernière lecture)
+CREATE INDEX IF NOT EXISTS idx_user_sessions_created_at
+    ON user_sessions (created_at);
+
+-- Filigrane : tout token émis avant revoked_before est refusé
+CREATE TABLE IF NOT EXISTS user_token_watermarks (
+    user_id        BIGINT       PRIMARY KEY,
+    revoked_before TIMESTAMPTZ  NOT NULL,
+    updated_at     TIMESTAMPTZ  NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_token_watermarks_updated_at
+    ON user_token_watermarks (updated_at);
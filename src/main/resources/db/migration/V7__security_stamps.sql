@@ -0,0 +1,15 @@
+-- Tampons de sécurité des utilisateurs et des rôles (SecurityStamps, SessionStore)
+-- Incrémenté à chaque changement des rôles d'un utilisateur ou des permissions d'un rôle ;
+-- un token qui porte un tampon antérieur est refusé. Pas de ligne : tampon 0.
+
+CREATE TABLE IF NOT EXISTS security_stamps (
+    scope      CHAR(1)      NOT NULL,   -- U : utilisateur, R : rôle
+    subject_id BIGINT       NOT NULL,
+    stamp      BIGINT       NOT NULL,
+    updated_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+    PRIMARY KEY (scope, subject_id)
+);
+
+-- Synchronisation entre nœuds (tampons modifiés depuis la dernière lecture)
+CREATE INDEX IF NOT EXISTS idx_security_stamps_updated_at
+    ON security_stamps (updated_at);
@@ -0,0 +1,21 @@
+-- Synchronisation entre nœuds des sessions et des révocations par identifiant de transaction
+-- now() est le début de la transaction : une révocation validée longtemps après pouvait
+-- tomber derrière la position de relecture des autres nœuds et n'y jamais parvenir.
+-- tx_id (xid8, comme outbox) est relu par plage [position, xmin de l'instantané) : toute
+-- transaction sous le xmin est terminée, aucune ligne n'est sautée.
+
+ALTER TABLE user_token_watermarks
+    ADD COLUMN IF NOT EXISTS tx_id XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX IF NOT EXISTS idx_user_token_watermarks_tx_id
+    ON user_token_watermarks (tx_id);
+
+DROP INDEX IF EXISTS idx_user_token_watermarks_updated_at;
+
+ALTER TABLE user_sessions
+    ADD COLUMN IF NOT EXISTS tx_id XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX IF NOT EXISTS idx_user_sessions_tx_id
+    ON user_sessions (tx_id);
+
+DROP INDEX IF EXISTS idx_user_sessions_created_at;
@@ -0,0 +1,11 @@
+-- Synchronisation entre nœuds des tampons de sécurité par identifiant de transaction
+-- (voir V8) : un incrément validé par une transaction longue, écrit en masse par exemple,
+-- n'est plus jamais sauté par les autres nœuds.
+
+ALTER TABLE security_stamps
+    ADD COLUMN IF NOT EXISTS tx_id XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+CREATE INDEX IF NOT EXISTS idx_security_stamps_tx_id
+    ON security_stamps (tx_id);
+
+DROP INDEX IF EXISTS idx_security_stamps_updated_at;
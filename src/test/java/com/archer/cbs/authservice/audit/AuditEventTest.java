@@ -0,0 +1,35 @@
+package com.archer.cbs.authservice.audit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AuditEventTest {
+
+    @Test
+    void stripsNulBeforeTruncating() {
+        String username = "\0".repeat(10) + "a".repeat(AuditEvent.MAX_USERNAME);
+        AuditEvent event = new AuditEvent(1L, AuditEvent.Type.LOGIN_FAILURE, null, null, username, "x\0y");
+
+        assertEquals("a".repeat(AuditEvent.MAX_USERNAME), event.getUsername());
+        assertEquals("xy", event.getDetail());
+    }
+
+    @Test
+    void truncatesToColumnLength() {
+        AuditEvent event = new AuditEvent(1L, AuditEvent.Type.LOGIN_FAILURE, null, null,
+                "u".repeat(AuditEvent.MAX_USERNAME + 1), "d".repeat(AuditEvent.MAX_DETAIL + 1));
+
+        assertEquals(AuditEvent.MAX_USERNAME, event.getUsername().length());
+        assertEquals(AuditEvent.MAX_DETAIL, event.getDetail().length());
+    }
+
+    @Test
+    void keepsNulls() {
+        AuditEvent event = new AuditEvent(1L, AuditEvent.Type.LOGIN_SUCCESS, 1L, 1L, null, null);
+
+        assertNull(event.getUsername());
+        assertNull(event.getDetail());
+    }
+}
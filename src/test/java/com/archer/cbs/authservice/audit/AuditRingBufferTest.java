@@ -0,0 +1,114 @@
+package com.archer.cbs.authservice.audit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditRingBufferTest {
+
+    @Test
+    void roundsCapacityToPowerOfTwo() {
+        assertEquals(2, new AuditRingBuffer<Integer>(1).capacity());
+        assertEquals(8, new AuditRingBuffer<Integer>(5).capacity());
+        assertEquals(8, new AuditRingBuffer<Integer>(8).capacity());
+    }
+
+    @Test
+    void keepsOrderAndRefusesWhenFull() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drainTo(drained, 3));
+        assertEquals(List.of(1, 2, 3), drained);
+        assertEquals(4, buffer.poll());
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void wrapsAroundManyTimes() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(buffer.offer(i));
+            assertTrue(buffer.offer(-i));
+            assertEquals(i, buffer.poll());
+            assertEquals(-i, buffer.poll());
+        }
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    void deliversEachElementOnceUnderContention() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        int total = producers * perProducer;
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(1024);
+        AtomicIntegerArray seen = new AtomicIntegerArray(total);
+        AtomicLong consumed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int first = p * perProducer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < first + perProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int c = 0; c < 2; c++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (consumed.get() < total) {
+                        Integer element = buffer.poll();
+                        if (element == null) {
+                            Thread.onSpinWait();
+                        } else {
+                            seen.incrementAndGet(element);
+                            consumed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(total, consumed.get());
+        for (int i = 0; i < total; i++) {
+            assertEquals(1, seen.get(i), "élément " + i);
+        }
+        assertNull(buffer.poll());
+    }
+}
@@ -0,0 +1,236 @@
+package com.archer.cbs.authservice.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditSpoolTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    private static final Path FIRST_SEGMENT = Path.of("audit-0000000001.seg");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackAppendedEvents() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        List<AuditEvent> events = List.of(
+                event(1, "alice", "ok"),
+                new AuditEvent(2, AuditEvent.Type.USER_DELETED, 7L, null, null, null),
+                event(3, "émile", "détail"));
+
+        assertEquals(3, spool.tryAppend(events));
+        assertTrue(spool.hasPending());
+
+        List<AuditEvent> read = new ArrayList<>();
+        assertEquals(3, spool.read(read, 10));
+        assertSameEvents(events, read);
+        assertNull(read.get(1).getSubjectId());
+        assertEquals(7L, read.get(1).getActorId());
+
+        spool.acknowledge();
+        assertFalse(spool.hasPending());
+        spool.close();
+    }
+
+    @Test
+    void rewindReplaysUnacknowledgedEvents() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        spool.tryAppend(List.of(event(1, "a", null), event(2, "b", null)));
+
+        List<AuditEvent> first = new ArrayList<>();
+        spool.read(first, 10);
+        spool.rewind();
+        List<AuditEvent> again = new ArrayList<>();
+        assertEquals(2, spool.read(again, 10));
+        assertSameEvents(first, again);
+        spool.close();
+    }
+
+    @Test
+    void rollsOverOnlyOnceNextSegmentIsPrepared() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        List<AuditEvent> events = events(20);
+
+        int appended = spool.tryAppend(events);
+        assertTrue(appended > 0 && appended < events.size());
+        assertEquals(0, spool.tryAppend(events.subList(appended, events.size())));
+
+        while (appended < events.size()) {
+            spool.maintain();
+            int more = spool.tryAppend(events.subList(appended, events.size()));
+            assertTrue(more > 0);
+            appended += more;
+        }
+        assertTrue(spool.segments() > 1);
+
+        List<AuditEvent> read = new ArrayList<>();
+        spool.read(read, 100);
+        assertSameEvents(events, read);
+
+        spool.acknowledge();
+        assertEquals(1, spool.segments());
+        assertFalse(Files.exists(directory.resolve(FIRST_SEGMENT)));
+        spool.close();
+    }
+
+    @Test
+    void reopensAtAcknowledgedPosition() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        spool.tryAppend(List.of(event(1, "a", null), event(2, "b", null), event(3, "c", null)));
+        List<AuditEvent> read = new ArrayList<>();
+        spool.read(read, 1);
+        spool.acknowledge();
+        spool.close();
+
+        AuditSpool reopened = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        assertTrue(reopened.hasPending());
+        List<AuditEvent> rest = new ArrayList<>();
+        assertEquals(2, reopened.read(rest, 10));
+        assertEquals(List.of(2L, 3L), List.of(rest.get(0).getOccurredAt(), rest.get(1).getOccurredAt()));
+        reopened.close();
+    }
+
+    @Test
+    void overwritesTornTailOnReopen() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        spool.tryAppend(List.of(event(1, "a", null), event(2, "b", null), event(3, "c", null)));
+        spool.close();
+        // Arrêt brutal au milieu du troisième enregistrement
+        corruptRecord(directory.resolve(FIRST_SEGMENT), 2);
+
+        AuditSpool reopened = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        assertEquals(1, reopened.tryAppend(List.of(event(4, "d", null))));
+        List<AuditEvent> read = new ArrayList<>();
+        assertEquals(3, reopened.read(read, 10));
+        assertEquals(List.of(1L, 2L, 4L), occurredAt(read));
+        assertEquals(0, reopened.corrupted());
+        reopened.close();
+    }
+
+    @Test
+    void skipsRestOfSegmentAfterCorruptedRecord() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        spool.tryAppend(List.of(event(1, "a", null), event(2, "b", null), event(3, "c", null)));
+        // Projection partagée : la corruption est visible du spool ouvert
+        corruptRecord(directory.resolve(FIRST_SEGMENT), 1);
+
+        List<AuditEvent> read = new ArrayList<>();
+        assertEquals(1, spool.read(read, 10));
+        assertEquals(1L, read.get(0).getOccurredAt());
+        assertEquals(1, spool.corrupted());
+        assertFalse(spool.hasPending());
+        spool.close();
+    }
+
+    @Test
+    void refusesEventsBeyondMaxSegmentsUntilAcknowledged() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 2);
+        List<AuditEvent> events = events(40);
+
+        int appended = 0;
+        for (int i = 0; i < 10 && appended < events.size(); i++) {
+            appended += spool.tryAppend(events.subList(appended, events.size()));
+            spool.maintain();
+        }
+        assertTrue(appended < events.size());
+        assertEquals(2, spool.segments());
+        assertTrue(spool.full() > 0);
+
+        List<AuditEvent> read = new ArrayList<>();
+        assertEquals(appended, spool.read(read, 100));
+        spool.acknowledge();
+        spool.maintain();
+        assertTrue(spool.tryAppend(events.subList(appended, events.size())) > 0);
+        spool.close();
+    }
+
+    @Test
+    void deadLettersRecordsInSpoolFormat() throws IOException {
+        AuditSpool spool = new AuditSpool(directory, SEGMENT_SIZE, 8);
+        spool.deadLetter(List.of(event(1, "a", "x"), event(2, "b", "y")));
+        spool.deadLetter(List.of(event(3, "c", "z")));
+
+        assertEquals(3, spool.deadLettered());
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("dead-letter.seg")));
+        int records = 0;
+        while (file.hasRemaining()) {
+            int length = file.getInt();
+            file.getInt();
+            file.position(file.position() + length);
+            records++;
+        }
+        assertEquals(3, records);
+        spool.close();
+    }
+
+    private static AuditEvent event(long occurredAt, String username, String detail) {
+        return new AuditEvent(occurredAt, AuditEvent.Type.LOGIN_FAILURE, null, occurredAt, username, detail);
+    }
+
+    private static List<AuditEvent> events(int count) {
+        List<AuditEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(event(i, "user" + i, "tentative " + i));
+        }
+        return events;
+    }
+
+    private static List<Long> occurredAt(List<AuditEvent> events) {
+        List<Long> values = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            values.add(event.getOccurredAt());
+        }
+        return values;
+    }
+
+    private static void assertSameEvents(List<AuditEvent> expected, List<AuditEvent> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            AuditEvent e = expected.get(i);
+            AuditEvent a = actual.get(i);
+            assertEquals(e.getOccurredAt(), a.getOccurredAt());
+            assertEquals(e.getType(), a.getType());
+            assertEquals(e.getActorId(), a.getActorId());
+            assertEquals(e.getSubjectId(), a.getSubjectId());
+            assertEquals(e.getUsername(), a.getUsername());
+            assertEquals(e.getDetail(), a.getDetail());
+        }
+    }
+
+    /**
+     * Modifie le dernier octet du n-ième enregistrement (à partir de 0) d'un segment
+     */
+    private static void corruptRecord(Path segment, int index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            long offset = 0;
+            for (int i = 0; i < index; i++) {
+                header.clear();
+                channel.read(header, offset);
+                offset += 8 + header.getInt(0);
+            }
+            header.clear();
+            channel.read(header, offset);
+            long last = offset + 8 + header.getInt(0) - 1;
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, last);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, last);
+        }
+    }
+}
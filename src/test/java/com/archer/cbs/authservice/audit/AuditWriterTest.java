@@ -0,0 +1,213 @@
+package com.archer.cbs.authservice.audit;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuditWriterTest {
+
+    private static final Instant MARCH = Instant.parse("2026-03-15T10:00:00Z");
+
+    private static final List<AuditEvent> BATCH =
+            List.of(new AuditEvent(MARCH.toEpochMilli(), AuditEvent.Type.LOGIN_SUCCESS, 1L, 1L, "alice", null));
+
+    private final FakeDatabase database = new FakeDatabase();
+
+    private AuditWriter writer;
+
+    @BeforeEach
+    void setUp() throws ReflectiveOperationException {
+        writer = new AuditWriter();
+        inject(writer, "dataSource", database.dataSource());
+        at(MARCH);
+    }
+
+    @Test
+    void createsCurrentAndNextMonthOnce() {
+        assertTrue(writer.write(BATCH).isEmpty());
+        assertTrue(writer.write(BATCH).isEmpty());
+
+        assertEquals(List.of(create("2026_03"), create("2026_04")), database.statements);
+        assertEquals(2, database.inserts);
+    }
+
+    @Test
+    void createsNextMonthEvenIfCurrentMonthFails() {
+        database.failing.add("audit_log_2026_03");
+
+        assertTrue(writer.write(BATCH).isEmpty());
+
+        assertTrue(database.created.contains("audit_log_2026_04"));
+        assertFalse(database.created.contains("audit_log_2026_03"));
+    }
+
+    @Test
+    void backsOffAfterFailureInsteadOfRetryingEveryBatch() throws ReflectiveOperationException {
+        database.failing.add("audit_log_2026_03");
+        writer.write(BATCH);
+        int attempts = database.statements.size();
+
+        writer.write(BATCH);
+        writer.write(BATCH);
+        assertEquals(attempts, database.statements.size());
+
+        database.failing.clear();
+        at(MARCH.plusSeconds(61));
+        writer.write(BATCH);
+        assertTrue(database.created.contains("audit_log_2026_03"));
+    }
+
+    @Test
+    void movesRowsStrandedInDefaultPartition() {
+        database.stranded.add("audit_log_2026_03");
+
+        assertTrue(writer.write(BATCH).isEmpty());
+
+        List<String> moved = database.statements.subList(1, 6);
+        assertEquals("ALTER TABLE audit_log DETACH PARTITION audit_log_default", moved.get(0));
+        assertEquals(create("2026_03"), moved.get(1));
+        assertTrue(moved.get(2).startsWith("WITH moved AS (DELETE FROM audit_log_default "
+                + "WHERE occurred_at >= '2026-03-01T00:00Z' AND occurred_at < '2026-04-01T00:00Z'"));
+        assertTrue(moved.get(2).endsWith("INSERT INTO audit_log_2026_03 SELECT * FROM moved"));
+        assertEquals("ALTER TABLE audit_log ATTACH PARTITION audit_log_default DEFAULT", moved.get(3));
+        assertEquals(create("2026_04"), moved.get(4));
+        assertEquals(1, database.commits);
+        assertTrue(database.autoCommit);
+    }
+
+    private void at(Instant instant) throws ReflectiveOperationException {
+        inject(writer, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private static String create(String month) {
+        String[] parts = month.split("_");
+        int year = Integer.parseInt(parts[0]);
+        int next = Integer.parseInt(parts[1]) + 1;
+        return String.format("CREATE TABLE IF NOT EXISTS audit_log_%s PARTITION OF audit_log "
+                + "FOR VALUES FROM ('%s-%s-01T00:00Z') TO ('%d-%02d-01T00:00Z')",
+                month, parts[0], parts[1], next > 12 ? year + 1 : year, next > 12 ? 1 : next);
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * Base simulée : chaque ordre DDL est enregistré ; une partition peut être refusée
+     * (erreur quelconque) ou bloquée par des lignes de la partition par défaut (23514),
+     * tant que celle-ci reste attachée
+     */
+    private static final class FakeDatabase {
+
+        final List<String> statements = new ArrayList<>();
+
+        final Set<String> created = new HashSet<>();
+
+        final Set<String> failing = new HashSet<>();
+
+        final Set<String> stranded = new HashSet<>();
+
+        boolean autoCommit = true;
+
+        boolean defaultAttached = true;
+
+        int commits;
+
+        int inserts;
+
+        DataSource dataSource() {
+            return proxy(DataSource.class, (proxy, method, args) -> {
+                if (method.getName().equals("getConnection")) {
+                    return connection();
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private Connection connection() {
+            return proxy(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+                case "createStatement" -> statement();
+                case "prepareStatement" -> insert();
+                case "setAutoCommit" -> {
+                    autoCommit = (Boolean) args[0];
+                    yield null;
+                }
+                case "commit" -> {
+                    commits++;
+                    yield null;
+                }
+                case "rollback", "close" -> null;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private Statement statement() {
+            return proxy(Statement.class, (proxy, method, args) -> switch (method.getName()) {
+                case "execute" -> {
+                    execute((String) args[0]);
+                    yield false;
+                }
+                case "executeUpdate" -> {
+                    execute((String) args[0]);
+                    yield 3;
+                }
+                case "close" -> null;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private PreparedStatement insert() {
+            return proxy(PreparedStatement.class, (proxy, method, args) -> switch (method.getName()) {
+                case "executeUpdate" -> {
+                    inserts++;
+                    yield 1;
+                }
+                case "close", "setTimestamp", "setString", "setLong", "setNull" -> null;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+        }
+
+        private void execute(String sql) throws SQLException {
+            statements.add(sql);
+            if (sql.contains("DETACH PARTITION audit_log_default")) {
+                defaultAttached = false;
+            } else if (sql.contains("ATTACH PARTITION audit_log_default")) {
+                defaultAttached = true;
+            } else if (sql.startsWith("CREATE TABLE")) {
+                String name = sql.split(" ")[5];
+                if (failing.contains(name)) {
+                    throw new SQLException("refusée", "42501");
+                }
+                if (stranded.contains(name) && defaultAttached) {
+                    throw new SQLException("lignes dans la partition par défaut", "23514");
+                }
+                created.add(name);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+}
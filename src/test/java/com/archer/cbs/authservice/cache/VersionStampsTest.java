@@ -0,0 +1,83 @@
+package com.archer.cbs.authservice.cache;
+
+import com.archer.cbs.authservice.cache.VersionStamps.Aggregate;
+import com.archer.cbs.authservice.config.FakeRuntimeDelegate;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.event.EntityChangedEvent.EntityType;
+import jakarta.ws.rs.core.EntityTag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class VersionStampsTest {
+
+    private static final String REVALIDATE_SECONDS = "auth.etag.revalidate-seconds";
+
+    private VersionStamps stamps;
+
+    @BeforeAll
+    static void runtime() {
+        FakeRuntimeDelegate.install();
+    }
+
+    @BeforeEach
+    void init() {
+        // Sans tranche de temps : l'ETag ne dépend que des versions
+        System.setProperty(REVALIDATE_SECONDS, "0");
+        stamps = new VersionStamps();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        System.clearProperty(REVALIDATE_SECONDS);
+    }
+
+    @Test
+    void tagIsStableWhileNothingChanges() {
+        EntityTag tag = stamps.tag("/roles", Aggregate.ROLES);
+
+        assertEquals(tag, stamps.tag("/roles", Aggregate.ROLES));
+        assertFalse(tag.isWeak());
+        assertNotEquals(tag, stamps.tag("/roles?page=2", Aggregate.ROLES));
+    }
+
+    @Test
+    void committedChangeMovesOnlyItsAggregate() {
+        EntityTag roles = stamps.tag("/roles", Aggregate.ROLES);
+        EntityTag permissions = stamps.tag("/permissions", Aggregate.PERMISSIONS);
+        EntityTag routes = stamps.tag("/routes", Aggregate.ROLES, Aggregate.PERMISSIONS);
+
+        stamps.onEntityChanged(EntityChangedEvent.updated(EntityType.ROLE, 3L, "ADMIN"));
+
+        assertEquals(1, stamps.version(Aggregate.ROLES));
+        assertNotEquals(roles, stamps.tag("/roles", Aggregate.ROLES));
+        assertEquals(permissions, stamps.tag("/permissions", Aggregate.PERMISSIONS));
+        assertNotEquals(routes, stamps.tag("/routes", Aggregate.ROLES, Aggregate.PERMISSIONS));
+    }
+
+    @Test
+    void userAndPersonChangesLeaveTagsUntouched() {
+        EntityTag routes = stamps.tag("/routes", Aggregate.ROLES, Aggregate.PERMISSIONS);
+
+        stamps.onEntityChanged(EntityChangedEvent.associationChanged(EntityType.USER, 1L));
+        stamps.onEntityChanged(EntityChangedEvent.deleted(EntityType.PERSON, 2L));
+
+        assertEquals(routes, stamps.tag("/routes", Aggregate.ROLES, Aggregate.PERMISSIONS));
+        assertEquals(0, stamps.version(Aggregate.ROLES));
+        assertEquals(0, stamps.version(Aggregate.PERMISSIONS));
+    }
+
+    @Test
+    void tagsDifferAcrossNodeEpochs() throws InterruptedException {
+        EntityTag before = stamps.tag("/roles", Aggregate.ROLES);
+        // Époque en millisecondes : un nœud démarré plus tard a une autre époque
+        Thread.sleep(2);
+
+        assertNotEquals(before, new VersionStamps().tag("/roles", Aggregate.ROLES));
+    }
+}
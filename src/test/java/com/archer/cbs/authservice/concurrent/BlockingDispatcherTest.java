@@ -0,0 +1,181 @@
+package com.archer.cbs.authservice.concurrent;
+
+import jakarta.enterprise.concurrent.ContextService;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlockingDispatcherTest {
+
+    private static final List<String> PROPERTIES = List.of(
+            "auth.dispatch.mode", "auth.dispatch.max-concurrency", "auth.dispatch.acquire-timeout-ms",
+            "auth.dispatch.pool-size");
+
+    private BlockingDispatcher dispatcher;
+
+    @AfterEach
+    void cleanUp() {
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        PROPERTIES.forEach(System::clearProperty);
+    }
+
+    @Test
+    void containerModeRunsOnCallerThread() {
+        dispatcher = dispatcher("container", 1, 100);
+
+        CompletableFuture<Thread> thread = dispatcher.supply(Thread::currentThread).toCompletableFuture();
+        assertTrue(thread.isDone());
+        assertSame(Thread.currentThread(), thread.join());
+
+        CompletableFuture<Object> failed = dispatcher.supply(() -> {
+            throw new IllegalStateException("échec");
+        }).toCompletableFuture();
+        assertTrue(failed.isCompletedExceptionally());
+    }
+
+    @Test
+    void unknownModeFallsBackToContainer() {
+        dispatcher = dispatcher("inconnu", 1, 100);
+
+        assertEquals("container", dispatcher.stats().get("mode"));
+    }
+
+    @Test
+    void platformModeRunsOffCallerThread() {
+        dispatcher = dispatcher("platform", 2, 1000);
+
+        Thread thread = dispatcher.supply(Thread::currentThread).toCompletableFuture().join();
+        assertNotSame(Thread.currentThread(), thread);
+        assertEquals(1L, dispatcher.stats().get("dispatched"));
+    }
+
+    @Test
+    void virtualModeRunsOffCallerThread() {
+        dispatcher = dispatcher("virtual", 2, 1000);
+
+        // Sans threads virtuels (JDK < 21) : pool de threads gérés
+        assertTrue(List.of("virtual", "platform").contains(dispatcher.stats().get("mode")));
+        assertNotSame(Thread.currentThread(), dispatcher.supply(Thread::currentThread).toCompletableFuture().join());
+    }
+
+    @Test
+    void rejectsTaskThatFindsNoPermitInTime() throws InterruptedException {
+        // Deux threads, une seule place : la seconde tâche attend la place, pas le pool
+        dispatcher = dispatcher("platform", 1, 50, 2);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = occupy(release);
+
+        CompletableFuture<String> rejected = dispatcher.supply(() -> "trop tard").toCompletableFuture();
+        assertSaturated(rejected);
+
+        release.countDown();
+        assertTrue(busy.join());
+        assertEquals("à temps", dispatcher.supply(() -> "à temps").toCompletableFuture().join());
+    }
+
+    @Test
+    void rejectsTaskThatWaitedTooLongInQueue() throws InterruptedException {
+        // Un seul thread : la seconde tâche attend dans la file du pool
+        dispatcher = dispatcher("platform", 1, 50, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = occupy(release);
+
+        CompletableFuture<String> queued = dispatcher.supply(() -> "trop tard").toCompletableFuture();
+        Thread.sleep(100);
+        release.countDown();
+
+        // La place est libre quand elle sort de la file, mais son délai est écoulé
+        assertSaturated(queued);
+        assertTrue(busy.join());
+    }
+
+    private CompletableFuture<Boolean> occupy(CountDownLatch release) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = dispatcher.supply(() -> {
+            started.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }).toCompletableFuture();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return busy;
+    }
+
+    private void assertSaturated(CompletableFuture<?> stage) {
+        CompletionException e = assertThrows(CompletionException.class, stage::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertTrue(BlockingDispatcher.isSaturation(e));
+        assertEquals(1L, dispatcher.stats().get("rejected"));
+    }
+
+    @Test
+    void saturationIsRecognisedThroughStages() {
+        RejectedExecutionException rejected = new RejectedExecutionException();
+
+        assertTrue(BlockingDispatcher.isSaturation(rejected));
+        assertTrue(BlockingDispatcher.isSaturation(new CompletionException(rejected)));
+        assertFalse(BlockingDispatcher.isSaturation(new CompletionException(new IllegalStateException())));
+    }
+
+    private static BlockingDispatcher dispatcher(String mode, int maxConcurrency, long acquireTimeoutMs) {
+        return dispatcher(mode, maxConcurrency, acquireTimeoutMs, maxConcurrency);
+    }
+
+    private static BlockingDispatcher dispatcher(String mode, int maxConcurrency, long acquireTimeoutMs,
+                                                 int poolSize) {
+        System.setProperty("auth.dispatch.pool-size", String.valueOf(poolSize));
+        System.setProperty("auth.dispatch.mode", mode);
+        System.setProperty("auth.dispatch.max-concurrency", String.valueOf(maxConcurrency));
+        System.setProperty("auth.dispatch.acquire-timeout-ms", String.valueOf(acquireTimeoutMs));
+        BlockingDispatcher dispatcher = new BlockingDispatcher();
+        try {
+            inject(dispatcher, "contextService", Proxy.newProxyInstance(ContextService.class.getClassLoader(),
+                    new Class<?>[]{ContextService.class}, (proxy, method, args) -> {
+                        if (method.getName().equals("createContextualProxy")) {
+                            return args[0];
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }));
+            inject(dispatcher, "managedThreadFactory", Proxy.newProxyInstance(
+                    ManagedThreadFactory.class.getClassLoader(), new Class<?>[]{ManagedThreadFactory.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("newThread")) {
+                            Thread thread = new Thread((Runnable) args[0]);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                        throw new UnsupportedOperationException(method.getName());
+                    }));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+        dispatcher.init();
+        return dispatcher;
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,74 @@
+package com.archer.cbs.authservice.config;
+
+import com.archer.cbs.authservice.dto.ApiResponse;
+import jakarta.ws.rs.core.MediaType;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiResponseWriterTest {
+
+    private final ApiResponseWriter writer = new ApiResponseWriter();
+
+    @Test
+    void matchesDefaultSerialization() throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("id", 42L);
+        data.put("roles", List.of("ADMIN", "USER"));
+        data.put("créé", LocalDateTime.of(2026, 3, 15, 10, 30));
+        data.put("absent", null);
+
+        assertSameAsMapper(ApiResponse.success("Utilisateur \"créé\"", data));
+        assertSameAsMapper(ApiResponse.success("Liste", List.of(1, 2, 3)));
+        assertSameAsMapper(ApiResponse.error("Échec\n<script>"));
+        assertSameAsMapper(new ApiResponse<>(true, null, null));
+    }
+
+    @Test
+    void writesEnvelopeInFixedOrder() throws IOException {
+        assertEquals("{\"success\":false,\"message\":\"Non trouvé\",\"data\":null}",
+                write(ApiResponse.error("Non trouvé")));
+    }
+
+    @Test
+    void leavesEntityStreamOpen() throws IOException {
+        boolean[] closed = {false};
+        OutputStream stream = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        writer.writeTo(ApiResponse.success("ok"), ApiResponse.class, ApiResponse.class, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE, null, stream);
+        assertFalse(closed[0]);
+    }
+
+    @Test
+    void writesOnlyApiResponses() {
+        assertTrue(writer.isWriteable(ApiResponse.class, ApiResponse.class, null, MediaType.APPLICATION_JSON_TYPE));
+        assertFalse(writer.isWriteable(String.class, String.class, null, MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    private void assertSameAsMapper(ApiResponse<?> response) throws IOException {
+        assertEquals(JacksonConfig.MAPPER.writeValueAsString(response), write(response));
+    }
+
+    private String write(ApiResponse<?> response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(response, ApiResponse.class, ApiResponse.class, new Annotation[0],
+                MediaType.APPLICATION_JSON_TYPE, null, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
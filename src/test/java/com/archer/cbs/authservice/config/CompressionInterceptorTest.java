@@ -0,0 +1,243 @@
+package com.archer.cbs.authservice.config;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionInterceptorTest {
+
+    // Au-delà de auth.compression.min-bytes (1024 par défaut)
+    private static final byte[] LARGE = json(5000);
+
+    private static final byte[] SMALL = json(100);
+
+    private static final Annotation[] STATIC = staticPayload();
+
+    @BeforeAll
+    static void runtime() {
+        FakeRuntimeDelegate.install();
+    }
+
+    @Test
+    void negotiatesOnQualityValues() {
+        assertEquals("gzip", CompressionInterceptor.negotiate("gzip, deflate"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("gzip;q=0.5, deflate"));
+        assertEquals("gzip", CompressionInterceptor.negotiate("x-gzip"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("gzip;q=0, deflate"));
+        assertEquals("gzip", CompressionInterceptor.negotiate("identity, GZip"));
+        assertNull(CompressionInterceptor.negotiate("gzip;q=0"));
+        assertNull(CompressionInterceptor.negotiate("br"));
+        assertNull(CompressionInterceptor.negotiate(""));
+        assertNull(CompressionInterceptor.negotiate(null));
+    }
+
+    @Test
+    void wildcardCoversOnlyUnlistedCodings() {
+        assertEquals("gzip", CompressionInterceptor.negotiate("*"));
+        assertEquals("gzip", CompressionInterceptor.negotiate("br, *;q=0.5"));
+        assertEquals("deflate", CompressionInterceptor.negotiate("gzip;q=0, deflate, *"));
+        assertNull(CompressionInterceptor.negotiate("gzip;q=0, *"));
+        assertNull(CompressionInterceptor.negotiate("GZIP;q=0, *"));
+        assertNull(CompressionInterceptor.negotiate("*;q=0"));
+    }
+
+    @Test
+    void leavesSmallResponsesUncompressed() throws Exception {
+        Exchange exchange = new Exchange("gzip", SMALL, new Annotation[0]);
+        exchange.write();
+
+        assertArrayEquals(SMALL, exchange.body.toByteArray());
+        assertFalse(exchange.headers.containsKey(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, exchange.headers.getFirst(HttpHeaders.VARY));
+    }
+
+    @Test
+    void gzipsLargeResponsesWithValidTrailer() throws Exception {
+        Exchange exchange = new Exchange("gzip", LARGE, new Annotation[0]);
+        exchange.headers.putSingle(HttpHeaders.CONTENT_LENGTH, LARGE.length);
+        exchange.write();
+
+        byte[] body = exchange.body.toByteArray();
+        assertEquals("gzip", exchange.headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertFalse(exchange.headers.containsKey(HttpHeaders.CONTENT_LENGTH));
+        assertTrue(body.length < LARGE.length);
+        assertArrayEquals(LARGE, gunzip(body));
+
+        ByteBuffer trailer = ByteBuffer.wrap(body, body.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        crc.update(LARGE);
+        assertEquals((int) crc.getValue(), trailer.getInt());
+        assertEquals(LARGE.length, trailer.getInt());
+    }
+
+    @Test
+    void deflatesWhenPreferred() throws Exception {
+        Exchange exchange = new Exchange("deflate", LARGE, new Annotation[0]);
+        exchange.write();
+
+        assertEquals("deflate", exchange.headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(LARGE, new InflaterInputStream(
+                new ByteArrayInputStream(exchange.body.toByteArray())).readAllBytes());
+    }
+
+    @Test
+    void servesStaticPayloadFromCache() throws Exception {
+        Exchange first = new Exchange("gzip", LARGE, STATIC);
+        first.headers.putSingle(HttpHeaders.ETAG, "\"static-1\"");
+        first.write();
+
+        Exchange second = new Exchange("gzip", LARGE, STATIC);
+        second.headers.putSingle(HttpHeaders.ETAG, "\"static-1\"");
+        second.write();
+
+        assertEquals(1, first.proceeded);
+        assertEquals(0, second.proceeded);
+        assertArrayEquals(first.body.toByteArray(), second.body.toByteArray());
+        assertEquals("gzip", second.headers.getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(new EntityTag("static-1--gzip"), second.headers.getFirst(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void compressedEtagRoundTripsThroughIfNoneMatch() throws Exception {
+        Exchange exchange = new Exchange("gzip", LARGE, new Annotation[0]);
+        exchange.headers.putSingle(HttpHeaders.ETAG, new EntityTag("v7", true));
+        exchange.write();
+
+        EntityTag sent = (EntityTag) exchange.headers.getFirst(HttpHeaders.ETAG);
+        assertEquals(new EntityTag("v7--gzip", true), sent);
+
+        MultivaluedMap<String, String> request = new MultivaluedHashMap<>();
+        request.add(HttpHeaders.IF_NONE_MATCH, sent.toString());
+        request.add(HttpHeaders.IF_NONE_MATCH, "\"other--deflate\"");
+        new CompressionInterceptor().filter(proxy(ContainerRequestContext.class, (p, method, args) -> {
+            if (method.getName().equals("getHeaders")) {
+                return request;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        }));
+
+        assertEquals(List.of("W/\"v7\"", "\"other\""), request.get(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    /**
+     * Écriture d'une réponse JSON à travers l'intercepteur
+     */
+    private static final class Exchange {
+
+        final MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        private final String acceptEncoding;
+
+        private final byte[] entity;
+
+        private final Annotation[] annotations;
+
+        private OutputStream output = body;
+
+        int proceeded;
+
+        Exchange(String acceptEncoding, byte[] entity, Annotation[] annotations) {
+            this.acceptEncoding = acceptEncoding;
+            this.entity = entity;
+            this.annotations = annotations;
+        }
+
+        void write() throws Exception {
+            CompressionInterceptor interceptor = new CompressionInterceptor();
+            Field field = CompressionInterceptor.class.getDeclaredField("requestHeaders");
+            field.setAccessible(true);
+            field.set(interceptor, proxy(HttpHeaders.class, (p, method, args) -> {
+                if (method.getName().equals("getHeaderString") && HttpHeaders.ACCEPT_ENCODING.equals(args[0])) {
+                    return acceptEncoding;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }));
+            interceptor.aroundWriteTo(proxy(WriterInterceptorContext.class, (p, method, args) -> {
+                switch (method.getName()) {
+                    case "getHeaders":
+                        return headers;
+                    case "getMediaType":
+                        return MediaType.APPLICATION_JSON_TYPE;
+                    case "getAnnotations":
+                        return annotations;
+                    case "getOutputStream":
+                        return output;
+                    case "setOutputStream":
+                        output = (OutputStream) args[0];
+                        return null;
+                    case "proceed":
+                        proceeded++;
+                        // Écriture en morceaux, comme un sérialiseur
+                        for (int i = 0; i < entity.length; i += 700) {
+                            output.write(entity, i, Math.min(700, entity.length - i));
+                        }
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            }));
+        }
+    }
+
+    @StaticPayload
+    private static void staticMethod() {
+    }
+
+    private static Annotation[] staticPayload() {
+        try {
+            return CompressionInterceptorTest.class.getDeclaredMethod("staticMethod").getAnnotations();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] json(int size) {
+        StringBuilder json = new StringBuilder(size).append('[');
+        for (int i = 0; json.length() < size - 1; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"user").append(i).append("\"},");
+        }
+        json.setLength(size - 1);
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        // GZIPInputStream contrôle aussi le CRC et la taille de la fin de flux
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readAllBytes();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -0,0 +1,71 @@
+package com.archer.cbs.authservice.config;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.MultivaluedHashMap;
+import jakarta.ws.rs.core.MultivaluedMap;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CorsFilterTest {
+
+    private final CorsFilter filter = new CorsFilter();
+
+    @Test
+    void parsesAllowListIgnoringCaseTrailingSlashAndBlanks() {
+        assertEquals(Set.of("https://app.example.com", "http://localhost:4200"),
+                CorsFilter.parseOrigins(" https://App.example.com/ , ,http://localhost:4200"));
+        assertEquals("https://app.example.com", CorsFilter.normalize("https://APP.example.com/"));
+    }
+
+    @Test
+    void leavesNonPreflightRequestsAlone() throws Exception {
+        // Sans Access-Control-Request-Method, un OPTIONS suit le chemin normal
+        filter.filter(request("OPTIONS", Map.of("Origin", "https://app.example.com")));
+        filter.filter(request("GET", Map.of("Origin", "https://app.example.com",
+                "Access-Control-Request-Method", "GET")));
+    }
+
+    @Test
+    void addsHeadersToActualResponses() throws Exception {
+        MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+
+        // Valeur par défaut "*" : toute origine, sans Vary
+        filter.filter(request("GET", Map.of("Origin", "https://app.example.com")), response(headers));
+
+        assertEquals("*", headers.getFirst("Access-Control-Allow-Origin"));
+        assertEquals("true", headers.getFirst("Access-Control-Allow-Credentials"));
+        assertEquals("ETag", headers.getFirst("Access-Control-Expose-Headers"));
+        assertFalse(headers.containsKey("Vary"));
+    }
+
+    private static ContainerRequestContext request(String method, Map<String, String> headers) {
+        return (ContainerRequestContext) Proxy.newProxyInstance(ContainerRequestContext.class.getClassLoader(),
+                new Class<?>[]{ContainerRequestContext.class}, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getHeaderString":
+                            return headers.get((String) args[0]);
+                        default:
+                            throw new UnsupportedOperationException(m.getName());
+                    }
+                });
+    }
+
+    private static ContainerResponseContext response(MultivaluedMap<String, Object> headers) {
+        return (ContainerResponseContext) Proxy.newProxyInstance(ContainerResponseContext.class.getClassLoader(),
+                new Class<?>[]{ContainerResponseContext.class}, (proxy, m, args) -> {
+                    if (m.getName().equals("getHeaders")) {
+                        return headers;
+                    }
+                    throw new UnsupportedOperationException(m.getName());
+                });
+    }
+}
@@ -0,0 +1,107 @@
+package com.archer.cbs.authservice.config;
+
+import jakarta.ws.rs.SeBootstrap;
+import jakarta.ws.rs.core.Application;
+import jakarta.ws.rs.core.EntityPart;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Link;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriBuilder;
+import jakarta.ws.rs.core.Variant;
+import jakarta.ws.rs.ext.RuntimeDelegate;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Implémentation JAX-RS minimale pour les tests : seul l'en-tête ETag est pris en charge,
+ * les autres en-têtes peuvent être chargés mais pas lus ni écrits
+ */
+public final class FakeRuntimeDelegate extends RuntimeDelegate {
+
+    private FakeRuntimeDelegate() {
+    }
+
+    /**
+     * À appeler avant le premier usage d'un type d'en-tête JAX-RS
+     */
+    public static synchronized void install() {
+        RuntimeDelegate.setInstance(new FakeRuntimeDelegate());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> HeaderDelegate<T> createHeaderDelegate(Class<T> type) {
+        if (type != EntityTag.class) {
+            return new HeaderDelegate<T>() {
+                @Override
+                public T fromString(String value) {
+                    throw new UnsupportedOperationException(type.getName());
+                }
+
+                @Override
+                public String toString(T value) {
+                    throw new UnsupportedOperationException(type.getName());
+                }
+            };
+        }
+        return (HeaderDelegate<T>) new HeaderDelegate<EntityTag>() {
+            @Override
+            public EntityTag fromString(String value) {
+                boolean weak = value.startsWith("W/");
+                String quoted = weak ? value.substring(2) : value;
+                return new EntityTag(quoted.substring(1, quoted.length() - 1), weak);
+            }
+
+            @Override
+            public String toString(EntityTag tag) {
+                return (tag.isWeak() ? "W/" : "") + '"' + tag.getValue() + '"';
+            }
+        };
+    }
+
+    @Override
+    public UriBuilder createUriBuilder() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Response.ResponseBuilder createResponseBuilder() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Variant.VariantListBuilder createVariantListBuilder() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public <T> T createEndpoint(Application application, Class<T> endpointType) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Link.Builder createLinkBuilder() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SeBootstrap.Configuration.Builder createConfigurationBuilder() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletionStage<SeBootstrap.Instance> bootstrap(Application application,
+                                                           SeBootstrap.Configuration configuration) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public CompletionStage<SeBootstrap.Instance> bootstrap(Class<? extends Application> clazz,
+                                                           SeBootstrap.Configuration configuration) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public EntityPart.Builder createEntityPartBuilder(String partName) {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,55 @@
+package com.archer.cbs.authservice.config;
+
+import com.archer.cbs.authservice.config.SecurityConfig.RouteConfig;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RouteTableTest {
+
+    private final RouteConfig listUsers = new RouteConfig("/users", "GET", true);
+    private final RouteConfig userById = new RouteConfig("/users/{id}", "GET", true);
+    private final RouteConfig currentUser = new RouteConfig("/users/me", "GET", true);
+    private final RouteConfig deleteUser = new RouteConfig("/users/{id}", "DELETE", true);
+    private final RouteConfig userRoles = new RouteConfig("/users/{id}/roles", "GET", true);
+
+    private final RouteTable table = new RouteTable(List.of(listUsers, userById, currentUser, deleteUser, userRoles));
+
+    @Test
+    void matchesLiteralAndParameterSegments() {
+        assertSame(listUsers, table.find("/users", "GET"));
+        assertSame(userById, table.find("/users/42", "GET"));
+        assertSame(userRoles, table.find("/users/42/roles", "GET"));
+    }
+
+    @Test
+    void firstDeclaredRouteWins() {
+        // /users/{id} est déclarée avant /users/me
+        assertSame(userById, table.find("/users/me", "GET"));
+    }
+
+    @Test
+    void groupsByMethodCaseInsensitively() {
+        assertSame(deleteUser, table.find("/users/42", "delete"));
+        assertNull(table.find("/users/42", "PUT"));
+    }
+
+    @Test
+    void leadingSlashIsOptional() {
+        assertSame(userById, table.find("users/42", "GET"));
+    }
+
+    @Test
+    void parameterRejectsEmptySegment() {
+        // Le "/" final compte comme un segment vide
+        assertNull(table.find("/users/", "GET"));
+    }
+
+    @Test
+    void segmentCountMustMatch() {
+        assertNull(table.find("/users/42/roles/7", "GET"));
+        assertNull(table.find("/roles", "GET"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.interceptor.InvocationContext;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DaoMetricsTest {
+
+    private final DaoMetrics metrics = new DaoMetrics();
+
+    @Test
+    void namesTimersAfterRealDaoClass() {
+        metrics.record(FakeDAO.class, "findAll", 2_000_000, false);
+        // Sous-classe générée par le conteneur : comptée sous le DAO réel
+        metrics.record(FakeDAO$WeldSubclass.class, "findAll", 4_000_000, true);
+
+        assertEquals(List.of("FakeDAO.findAll"), List.copyOf(metrics.stats().keySet()));
+        Map<?, ?> timer = (Map<?, ?>) metrics.stats().get("FakeDAO.findAll");
+        assertEquals(2L, timer.get("calls"));
+        assertEquals(1L, timer.get("failures"));
+        assertEquals(6L, timer.get("totalMs"));
+        assertEquals(3000L, timer.get("avgUs"));
+        assertEquals(4000L, timer.get("maxUs"));
+    }
+
+    @Test
+    void statsAreSortedByMethod() {
+        metrics.record(FakeDAO.class, "update", 1, false);
+        metrics.record(FakeDAO.class, "count", 1, false);
+
+        assertEquals(List.of("FakeDAO.count", "FakeDAO.update"), List.copyOf(metrics.stats().keySet()));
+    }
+
+    @Test
+    void interceptorCountsSuccessAndFailure() throws Exception {
+        MeasuredInterceptor interceptor = new MeasuredInterceptor();
+        Field field = MeasuredInterceptor.class.getDeclaredField("metrics");
+        field.setAccessible(true);
+        field.set(interceptor, metrics);
+        Method findAll = FakeDAO.class.getDeclaredMethod("findAll");
+
+        assertEquals("ok", interceptor.measure(invocation(new FakeDAO$WeldSubclass(), findAll, () -> "ok")));
+        assertThrows(IllegalStateException.class, () -> interceptor.measure(
+                invocation(new FakeDAO$WeldSubclass(), findAll, () -> {
+                    throw new IllegalStateException("échec");
+                })));
+
+        Map<?, ?> timer = (Map<?, ?>) metrics.stats().get("FakeDAO.findAll");
+        assertEquals(2L, timer.get("calls"));
+        assertEquals(1L, timer.get("failures"));
+    }
+
+    private static InvocationContext invocation(Object target, Method method, Callable<Object> body) {
+        return (InvocationContext) Proxy.newProxyInstance(InvocationContext.class.getClassLoader(),
+                new Class<?>[]{InvocationContext.class}, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "proceed":
+                            return body.call();
+                        case "getTarget":
+                            return target;
+                        case "getMethod":
+                            return method;
+                        default:
+                            throw new UnsupportedOperationException(m.getName());
+                    }
+                });
+    }
+
+    static class FakeDAO {
+        Object findAll() {
+            return null;
+        }
+    }
+
+    static class FakeDAO$WeldSubclass extends FakeDAO {
+    }
+}
@@ -0,0 +1,47 @@
+package com.archer.cbs.authservice.dao;
+
+import java.sql.SQLException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DuplicateKeyExceptionTest {
+
+    @Test
+    void translatesUniqueViolationFoundDownTheCauseChain() {
+        SQLException sql = new SQLException("ERROR: duplicate key value violates unique constraint \"ux_users_username\"\n"
+                + "  Detail: Key (lower((username)::text))=(bob) already exists.", "23505");
+        RuntimeException jpa = new IllegalStateException("flush", new RuntimeException("constraint", sql));
+
+        RuntimeException translated = DuplicateKeyException.translate(jpa);
+
+        assertTrue(translated instanceof DuplicateKeyException);
+        assertSame(jpa, translated.getCause());
+        assertTrue(((DuplicateKeyException) translated).involves("username"));
+        assertFalse(((DuplicateKeyException) translated).involves("email"));
+    }
+
+    @Test
+    void leavesOtherFailuresUntouched() {
+        RuntimeException foreignKey = new RuntimeException(new SQLException("violates foreign key", "23503"));
+        RuntimeException plain = new IllegalArgumentException("sans cause SQL");
+
+        assertSame(foreignKey, DuplicateKeyException.translate(foreignKey));
+        assertSame(plain, DuplicateKeyException.translate(plain));
+    }
+
+    @Test
+    void fallsBackToWholeMessageWithoutKeyDetail() {
+        // Pilote sans détail : la colonne reste trouvable dans le nom de la contrainte
+        RuntimeException e = new RuntimeException(
+                new SQLException("duplicate key value violates unique constraint \"ux_roles_name\"", "23505"));
+        DuplicateKeyException translated = (DuplicateKeyException) DuplicateKeyException.translate(e);
+        assertTrue(translated.involves("ux_roles_name"));
+
+        DuplicateKeyException noMessage = (DuplicateKeyException) DuplicateKeyException.translate(
+                new RuntimeException(new SQLException(null, "23505")));
+        assertFalse(noMessage.involves("name"));
+    }
+}
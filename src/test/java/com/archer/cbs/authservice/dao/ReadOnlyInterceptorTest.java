@@ -0,0 +1,153 @@
+package com.archer.cbs.authservice.dao;
+
+import jakarta.interceptor.InvocationContext;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadOnlyInterceptorTest {
+
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger closed = new AtomicInteger();
+
+    // Réplica renvoyé par le faux routeur, null pour lire sur le primaire
+    private EntityManager replica;
+
+    private int transactionStatus = Status.STATUS_NO_TRANSACTION;
+
+    private ReadOnlyInterceptor interceptor;
+
+    @BeforeEach
+    void init() throws ReflectiveOperationException {
+        replica = entityManager();
+        interceptor = new ReadOnlyInterceptor();
+        inject(interceptor, "replicaRouter", new ReplicaRouter() {
+            @Override
+            public EntityManager openReadEntityManager() {
+                opened.incrementAndGet();
+                return replica;
+            }
+        });
+        inject(interceptor, "transactionRegistry", Proxy.newProxyInstance(
+                TransactionSynchronizationRegistry.class.getClassLoader(),
+                new Class<?>[]{TransactionSynchronizationRegistry.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getTransactionStatus")) {
+                        return transactionStatus;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        ReadOnlyContext.exit();
+    }
+
+    @Test
+    void routesToReplicaOutsideTransaction() throws Exception {
+        Object result = interceptor.route(invocation(() -> {
+            assertTrue(ReadOnlyContext.isActive());
+            assertSame(replica, ReadOnlyContext.current().getReplicaEntityManager());
+            return "lu";
+        }));
+
+        assertEquals("lu", result);
+        assertFalse(ReadOnlyContext.isActive());
+        assertEquals(1, opened.get());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void staysOnPrimaryWithoutHintsInsideTransaction() throws Exception {
+        transactionStatus = Status.STATUS_ACTIVE;
+
+        interceptor.route(invocation(() -> {
+            // Pas de contexte : BaseDAO garde l'EntityManager du primaire, sans hints
+            assertFalse(ReadOnlyContext.isActive());
+            return null;
+        }));
+
+        assertEquals(0, opened.get());
+    }
+
+    @Test
+    void nestedCallKeepsEnclosingContext() throws Exception {
+        interceptor.route(invocation(() -> {
+            ReadOnlyContext outer = ReadOnlyContext.current();
+            interceptor.route(invocation(() -> {
+                assertSame(outer, ReadOnlyContext.current());
+                return null;
+            }));
+            // L'appel imbriqué ne referme pas le contexte englobant
+            assertSame(outer, ReadOnlyContext.current());
+            return null;
+        }));
+
+        assertEquals(1, opened.get());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenRouterDeclines() throws Exception {
+        replica = null;
+
+        interceptor.route(invocation(() -> {
+            assertTrue(ReadOnlyContext.isActive());
+            assertNull(ReadOnlyContext.current().getReplicaEntityManager());
+            return null;
+        }));
+
+        assertFalse(ReadOnlyContext.isActive());
+    }
+
+    @Test
+    void clearsContextAndClosesReplicaOnFailure() {
+        assertThrows(IllegalStateException.class, () -> interceptor.route(invocation(() -> {
+            throw new IllegalStateException("échec");
+        })));
+
+        assertFalse(ReadOnlyContext.isActive());
+        assertEquals(1, closed.get());
+    }
+
+    private EntityManager entityManager() {
+        return (EntityManager) Proxy.newProxyInstance(EntityManager.class.getClassLoader(),
+                new Class<?>[]{EntityManager.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        closed.incrementAndGet();
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static InvocationContext invocation(Callable<Object> body) {
+        return (InvocationContext) Proxy.newProxyInstance(InvocationContext.class.getClassLoader(),
+                new Class<?>[]{InvocationContext.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("proceed")) {
+                        return body.call();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,47 @@
+package com.archer.cbs.authservice.dao;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchQueryTest {
+
+    @Test
+    void normalisesTermAndPagination() {
+        SearchQuery search = SearchQuery.of("  Dupont ", null, null);
+
+        assertEquals("dupont", search.getTerm());
+        assertEquals(0, search.getPage());
+        assertEquals(SearchQuery.DEFAULT_SIZE, search.getSize());
+        assertEquals(SearchQuery.DEFAULT_SIZE + 1, search.getFetchLimit());
+    }
+
+    @Test
+    void capsSizeAndComputesOffset() {
+        SearchQuery search = SearchQuery.of("a", 3, 500);
+
+        assertEquals(SearchQuery.MAX_SIZE, search.getSize());
+        assertEquals(300L, search.getOffset());
+    }
+
+    @Test
+    void lastPageOffsetDoesNotOverflow() {
+        SearchQuery search = SearchQuery.of("a", SearchQuery.MAX_PAGE, SearchQuery.MAX_SIZE);
+
+        assertEquals((long) SearchQuery.MAX_PAGE * SearchQuery.MAX_SIZE, search.getOffset());
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.of(" ", 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.of("a", -1, 10));
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.of("a", 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> SearchQuery.of("a", 30_000_000, 100));
+    }
+
+    @Test
+    void escapesLikeWildcards() {
+        assertEquals("%50\\%\\_a\\\\b%", SearchQuery.of("50%_A\\b", 0, 10).getLikePattern());
+    }
+}
@@ -0,0 +1,83 @@
+package com.archer.cbs.authservice.migration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SchemaMigratorTest {
+
+    @Test
+    void versionsAreContiguousFromOne() {
+        for (int i = 0; i < SchemaMigrator.MIGRATIONS.size(); i++) {
+            assertEquals(i + 1, SchemaMigrator.version(SchemaMigrator.MIGRATIONS.get(i)));
+        }
+    }
+
+    @Test
+    void everyScriptInSourcesIsListed() throws IOException {
+        // Sources plutôt que target/classes, qui peut garder un script renommé
+        Set<String> onDisk;
+        try (Stream<Path> files = Files.list(Path.of("src/main/resources", SchemaMigrator.LOCATION))) {
+            onDisk = files.map(file -> file.getFileName().toString()).collect(Collectors.toCollection(TreeSet::new));
+        }
+
+        assertEquals(onDisk, new TreeSet<>(SchemaMigrator.MIGRATIONS));
+    }
+
+    @Test
+    void scriptsStayWithinWhatSplitHandles() throws IOException {
+        for (String script : SchemaMigrator.MIGRATIONS) {
+            String sql = load(script);
+            // Ni fonctions ($$) ni point-virgule ou "--" dans une chaîne
+            assertFalse(sql.contains("$$"), script);
+            List<String> statements = SchemaMigrator.split(sql);
+            assertFalse(statements.isEmpty(), script);
+            for (String statement : statements) {
+                assertEquals(0, statement.chars().filter(c -> c == '\'').count() % 2, script + " : " + statement);
+            }
+        }
+    }
+
+    @Test
+    void splitDropsCommentsAndBlankStatements() {
+        String sql = "-- en-tête\r\nCREATE TABLE a (id INT); -- fin\n\n;\nCREATE INDEX i ON a (id) ;\n";
+
+        assertEquals(List.of("CREATE TABLE a (id INT)", "CREATE INDEX i ON a (id)"), SchemaMigrator.split(sql));
+    }
+
+    @Test
+    void checksumIgnoresLineEndings() {
+        assertEquals(SchemaMigrator.checksum("SELECT 1;\nSELECT 2;\n"),
+                SchemaMigrator.checksum("SELECT 1;\r\nSELECT 2;\r\n"));
+        assertNotEquals(SchemaMigrator.checksum("SELECT 1;"), SchemaMigrator.checksum("SELECT 2;"));
+    }
+
+    @Test
+    void rejectsMalformedNames() {
+        assertEquals(12, SchemaMigrator.version("V12__description.sql"));
+        assertThrows(IllegalStateException.class, () -> SchemaMigrator.version("12__description.sql"));
+        assertThrows(IllegalStateException.class, () -> SchemaMigrator.version("V__description.sql"));
+        assertThrows(IllegalStateException.class, () -> SchemaMigrator.version("V3_description.sql"));
+    }
+
+    private String load(String script) throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(SchemaMigrator.LOCATION + script)) {
+            assertNotNull(in, script);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.archer.cbs.authservice.outbox;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OutboxRelayTest {
+
+    private static final String ORDER_CACHE = "auth.outbox.order-cache";
+
+    private final List<List<Long>> published = new ArrayList<>();
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void init() throws ReflectiveOperationException {
+        System.setProperty(ORDER_CACHE, "2");
+        relay = new OutboxRelay();
+        inject(relay, "recorder", new OutboxRecorder());
+        inject(relay, "sink", new OutboxSink() {
+            @Override
+            public void publish(List<OutboxMessage> batch) {
+                List<Long> sequences = new ArrayList<>();
+                for (OutboxMessage message : batch) {
+                    sequences.add(message.getSequence());
+                }
+                published.add(sequences);
+            }
+
+            @Override
+            public String name() {
+                return "test";
+            }
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        System.clearProperty(ORDER_CACHE);
+    }
+
+    @Test
+    void publishesEachPageAsOneBatch() throws Exception {
+        relay.publish(List.of(message(1, 10), message(2, 11), message(3, 10)));
+
+        assertEquals(List.of(List.of(1L, 2L, 3L)), published);
+        assertEquals(3L, relay.stats().get("published"));
+        assertEquals(1L, relay.stats().get("batches"));
+        assertEquals(3L, relay.stats().get("lastSequence"));
+    }
+
+    @Test
+    void neverPublishesOlderStateThanAlreadyPublished() throws Exception {
+        // Modification plus récente de l'agrégat 10 publiée dans une fenêtre précédente
+        relay.publish(List.of(message(8, 10)));
+        relay.publish(List.of(message(5, 10), message(6, 11)));
+
+        assertEquals(List.of(List.of(8L), List.of(6L)), published);
+        assertEquals(1L, relay.stats().get("superseded"));
+        assertEquals(6L, relay.stats().get("lastSequence"));
+    }
+
+    @Test
+    void skipsWholePageWhenEverythingIsSuperseded() throws Exception {
+        relay.publish(List.of(message(9, 10)));
+        relay.publish(List.of(message(4, 10)));
+
+        assertEquals(List.of(List.of(9L)), published);
+        assertEquals(1L, relay.stats().get("batches"));
+        // La page est traitée : la dernière séquence avance quand même
+        assertEquals(4L, relay.stats().get("lastSequence"));
+    }
+
+    @Test
+    void orderCacheKeepsMostRecentlyUsedAggregates() throws Exception {
+        relay.publish(List.of(message(10, 1), message(11, 2)));
+        relay.publish(List.of(message(12, 3)));
+
+        // Agrégat 1 sorti du cache (2 entrées) : son ancien état n'est plus reconnu
+        relay.publish(List.of(message(5, 1), message(6, 3)));
+        assertEquals(List.of(List.of(10L, 11L), List.of(12L), List.of(5L)), published);
+    }
+
+    @Test
+    void failedPublicationLeavesOrderUnchanged() throws Exception {
+        inject(relay, "sink", new OutboxSink() {
+            @Override
+            public void publish(List<OutboxMessage> batch) {
+                throw new IllegalStateException("indisponible");
+            }
+
+            @Override
+            public String name() {
+                return "failing";
+            }
+        });
+        assertThrows(IllegalStateException.class, () -> relay.publish(List.of(message(7, 10))));
+        assertEquals(0L, relay.stats().get("published"));
+
+        // Après reprise, l'état non publié part toujours
+        inject(relay, "sink", new OutboxSink() {
+            @Override
+            public void publish(List<OutboxMessage> batch) {
+                published.add(List.of(batch.get(0).getSequence()));
+            }
+
+            @Override
+            public String name() {
+                return "test";
+            }
+        });
+        relay.publish(List.of(message(7, 10)));
+        assertEquals(List.of(List.of(7L)), published);
+        assertEquals(0L, relay.stats().get("superseded"));
+    }
+
+    private static OutboxMessage message(long sequence, long userId) {
+        return new OutboxMessage(sequence, "USER", userId, "UPDATED", "{}", 0);
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
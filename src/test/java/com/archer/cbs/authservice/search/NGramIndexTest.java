@@ -0,0 +1,96 @@
+package com.archer.cbs.authservice.search;
+
+import com.archer.cbs.authservice.dto.AutocompleteHitDTO;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NGramIndexTest {
+
+    private final NGramIndex index = new NGramIndex("user");
+
+    @Test
+    void matchesWordPrefixesOnly() {
+        index.put(1, "Marie Dupont");
+        index.put(2, "Annemarie Roux");
+        index.put(3, "Marc Durand");
+
+        assertEquals(List.of(1L), ids(index.search("mari", 10)));
+        assertEquals(List.of(3L, 1L), ids(index.search("mar", 10)));
+        assertEquals(List.of(1L), ids(index.search("dup", 10)));
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        index.put(1, "Marie Dupont");
+        index.put(2, "Marie Durand");
+
+        assertEquals(List.of(2L), ids(index.search("mar dur", 10)));
+        assertEquals(List.of(2L), ids(index.search("dur mar", 10)));
+        assertTrue(index.search("marie martin", 10).isEmpty());
+    }
+
+    @Test
+    void ignoresCaseAndAccents() {
+        index.put(1, "Éloïse Lefèvre");
+
+        List<AutocompleteHitDTO> hits = index.search("ELOISE lefe", 10);
+        assertEquals(1, hits.size());
+        assertEquals("user", hits.get(0).getType());
+        assertEquals("Éloïse Lefèvre", hits.get(0).getLabel());
+    }
+
+    @Test
+    void ranksFullPrefixThenShortestLabel() {
+        index.put(1, "Dupont Marie-Claire");
+        index.put(2, "Marie-Claire Dupont");
+        index.put(3, "Marie Dupont");
+
+        assertEquals(List.of(3L, 2L, 1L), ids(index.search("marie", 10)));
+        assertEquals(List.of(3L, 2L), ids(index.search("marie", 2)));
+    }
+
+    @Test
+    void putReplacesAndRemoveForgets() {
+        index.put(1, "Marie Dupont");
+        index.put(1, "Claire Dupont");
+        assertTrue(index.search("marie", 10).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("claire", 10)));
+
+        index.put(1, " ");
+        assertEquals(0, index.size());
+        assertTrue(index.search("claire", 10).isEmpty());
+    }
+
+    @Test
+    void compactionKeepsLiveLabels() {
+        for (long id = 0; id < 3000; id++) {
+            index.put(id, "Utilisateur " + id);
+        }
+        for (long id = 0; id < 3000; id++) {
+            if (id != 1234) {
+                index.remove(id);
+            }
+        }
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(1234L), ids(index.search("utilisateur 1234", 10)));
+        index.put(5, "Utilisateur 5");
+        assertEquals(List.of(5L), ids(index.search("util 5", 10)));
+    }
+
+    @Test
+    void emptyQueryOrLimitFindsNothing() {
+        index.put(1, "Marie Dupont");
+
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search("marie", 0).isEmpty());
+    }
+
+    private static List<Long> ids(List<AutocompleteHitDTO> hits) {
+        return hits.stream().map(AutocompleteHitDTO::getId).collect(Collectors.toList());
+    }
+}
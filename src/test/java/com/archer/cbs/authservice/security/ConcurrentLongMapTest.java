@@ -0,0 +1,111 @@
+package com.archer.cbs.authservice.security;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConcurrentLongMapTest {
+
+    @Test
+    void createsValueOnce() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>(4);
+
+        String first = map.computeIfAbsent(42, key -> "v" + key);
+        assertSame(first, map.computeIfAbsent(42, key -> "autre"));
+        assertEquals("v42", map.get(42));
+        assertNull(map.get(43));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void growsAndKeepsEveryKey() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(4);
+        for (long key = -5000; key < 5000; key++) {
+            map.computeIfAbsent(key * 31, key2 -> key2);
+        }
+
+        assertEquals(10000, map.size());
+        for (long key = -5000; key < 5000; key++) {
+            assertEquals(key * 31, map.get(key * 31));
+        }
+    }
+
+    @Test
+    void removeIfRebuildsWithoutMatchingValues() {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(16);
+        for (long key = 0; key < 100; key++) {
+            map.computeIfAbsent(key, Long::valueOf);
+        }
+
+        assertEquals(50, map.removeIf(value -> value % 2 == 0));
+        assertEquals(0, map.removeIf(value -> value % 2 == 0));
+        assertEquals(50, map.size());
+        assertNull(map.get(10));
+        assertEquals(11L, map.get(11));
+
+        Map<Long, Long> seen = new HashMap<>();
+        map.forEach(seen::put);
+        assertEquals(50, seen.size());
+    }
+
+    @Test
+    void rejectsReservedKey() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>(4);
+
+        assertThrows(IllegalArgumentException.class, () -> map.computeIfAbsent(Long.MIN_VALUE, key -> "x"));
+        assertNull(map.get(Long.MIN_VALUE));
+    }
+
+    @Test
+    void readersSeeEveryPublishedEntryWhileWritersGrowTheTable() throws Exception {
+        int keys = 200_000;
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>(16);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (long key = 0; key < keys; key++) {
+                    map.computeIfAbsent(key, Long::valueOf);
+                }
+                writing.set(false);
+            });
+            Future<?>[] readers = new Future<?>[2];
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = executor.submit(() -> {
+                    while (writing.get()) {
+                        // Une clé publiée reste visible avec sa valeur, agrandissements compris
+                        long size = map.size();
+                        for (long key = 0; key < size; key += 97) {
+                            Long value = map.get(key);
+                            if (value != null && value != key) {
+                                throw new AssertionError("Valeur " + value + " pour la clé " + key);
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+            writer.get(60, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(keys, map.size());
+        for (long key = 0; key < keys; key++) {
+            assertEquals(key, map.get(key));
+        }
+    }
+}
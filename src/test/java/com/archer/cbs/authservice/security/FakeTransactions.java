@@ -0,0 +1,72 @@
+package com.archer.cbs.authservice.security;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transaction simulée pour les tests : statut fixé par le test, synchronisations retenues
+ * jusqu'à {@link #complete(int)}
+ */
+final class FakeTransactions implements TransactionSynchronizationRegistry {
+
+    int status = Status.STATUS_NO_TRANSACTION;
+
+    private final List<Synchronization> synchronizations = new ArrayList<>();
+
+    @Override
+    public Object getTransactionKey() {
+        return null;
+    }
+
+    @Override
+    public void putResource(Object key, Object value) {
+    }
+
+    @Override
+    public Object getResource(Object key) {
+        return null;
+    }
+
+    @Override
+    public void registerInterposedSynchronization(Synchronization sync) {
+        synchronizations.add(sync);
+    }
+
+    @Override
+    public int getTransactionStatus() {
+        return status;
+    }
+
+    @Override
+    public void setRollbackOnly() {
+    }
+
+    @Override
+    public boolean getRollbackOnly() {
+        return false;
+    }
+
+    void complete(int outcome) {
+        for (Synchronization sync : synchronizations) {
+            sync.beforeCompletion();
+        }
+        for (Synchronization sync : synchronizations) {
+            sync.afterCompletion(outcome);
+        }
+        synchronizations.clear();
+        status = Status.STATUS_NO_TRANSACTION;
+    }
+
+    /**
+     * Affecte un champ injecté
+     */
+    static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
@@ -0,0 +1,42 @@
+package com.archer.cbs.authservice.security;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtServiceTest {
+
+    private final JwtService jwtService = new JwtService();
+
+    @BeforeEach
+    void init() {
+        jwtService.init();
+    }
+
+    @Test
+    void warmUpLeavesVerificationStatsUntouched() {
+        Map<String, Long> before = jwtService.getVerificationStats();
+
+        jwtService.warmUp(50);
+
+        assertEquals(before, jwtService.getVerificationStats());
+        assertTrue(before.values().stream().allMatch(count -> count == 0L));
+    }
+
+    @Test
+    void tokensStillVerifyAfterWarmUp() {
+        jwtService.warmUp(20);
+        long now = System.currentTimeMillis();
+
+        String token = jwtService.generateToken(7L, "alice", List.of("ADMIN"), List.of("users:read"), "s1", now,
+                new long[]{0});
+
+        assertNotNull(jwtService.verify(token));
+        assertEquals(1L, jwtService.getVerificationStats().get("verified"));
+    }
+}
@@ -0,0 +1,169 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.config.JacksonConfig;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.security.Keys;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import javax.crypto.Mac;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtVerifierTest {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Key KEY = Keys.hmacShaKeyFor(
+            "cle-de-test-suffisamment-longue-pour-hs256-0123456789".getBytes(StandardCharsets.US_ASCII));
+
+    private static final String ISSUED_HEADER = encode("{\"alg\":\"HS256\"}");
+
+    private final JwtVerifier verifier = new JwtVerifier(KEY, ISSUED_HEADER, 512, Set.of("k1"), JacksonConfig.MAPPER);
+
+    @Test
+    void acceptsIssuedHeaderFastPath() {
+        Claims claims = verifier.verify(token(ISSUED_HEADER, payload(60)));
+
+        assertNotNull(claims);
+        assertEquals("alice", claims.getSubject());
+        assertEquals(1L, verifier.stats().get("verified"));
+    }
+
+    @Test
+    void acceptsEquivalentHeaderEncodedDifferently() {
+        // Même en-tête, autre écriture : chemin lent, décodé et accepté
+        assertNotNull(verifier.verify(token(encode("{ \"alg\" : \"HS256\" }"), payload(60))));
+        assertNotNull(verifier.verify(token(encode("{\"typ\":\"JWT\",\"alg\":\"HS256\"}"), payload(60))));
+        assertEquals(2L, verifier.stats().get("verified"));
+    }
+
+    @Test
+    void rejectsOtherAlgorithms() {
+        assertRejected(token(encode("{\"alg\":\"none\"}"), payload(60)), "unsupported_header");
+        assertRejected(encode("{\"alg\":\"none\"}") + "." + encode(payload(60)) + ".", "malformed");
+        assertRejected(token(encode("{\"alg\":\"HS512\"}"), payload(60)), "unsupported_header");
+        assertRejected(token(encode("{}"), payload(60)), "unsupported_header");
+    }
+
+    @Test
+    void checksKidAgainstAllowList() {
+        assertNotNull(verifier.verify(token(encode("{\"alg\":\"HS256\",\"kid\":\"k1\"}"), payload(60))));
+        assertRejected(token(encode("{\"alg\":\"HS256\",\"kid\":\"k2\"}"), payload(60)), "unsupported_header");
+    }
+
+    @Test
+    void rejectsTokenAtExpiry() {
+        long nowSeconds = System.currentTimeMillis() / 1000;
+        // exp * 1000 <= maintenant : expiré dès la seconde d'expiration
+        assertRejected(token(ISSUED_HEADER, payloadExpiringAt(nowSeconds)), "expired");
+        assertRejected(token(ISSUED_HEADER, payloadExpiringAt(nowSeconds - 1)), "expired");
+        assertNotNull(verifier.verify(token(ISSUED_HEADER, payloadExpiringAt(nowSeconds + 2))));
+    }
+
+    @Test
+    void rejectsOversizedTokenBeforeParsing() {
+        String token = token(ISSUED_HEADER, "{\"sub\":\"" + "a".repeat(600) + "\"}");
+
+        assertRejected(token, "too_long");
+        assertRejected("x".repeat(513), "too_long");
+    }
+
+    @Test
+    void rejectsMissingAndMalformedTokens() {
+        assertRejected(null, "missing");
+        assertRejected("", "missing");
+        assertRejected("a.b", "malformed");
+        assertRejected("a.b.c.d", "malformed");
+        assertRejected(".b.c", "malformed");
+        assertRejected("a..c", "malformed");
+        assertRejected("a.b.", "malformed");
+    }
+
+    @Test
+    void rejectsPaddedOrNonUrlSafeBase64() {
+        String token = token(ISSUED_HEADER, payload(60));
+        String[] parts = token.split("\\.");
+
+        assertRejected(parts[0] + "." + parts[1] + "=." + parts[2], "malformed");
+        assertRejected(parts[0] + "." + parts[1] + "." + parts[2] + "=", "malformed");
+        assertRejected(parts[0] + "." + parts[1].replace('-', '+').replace('_', '/') + "+." + parts[2], "malformed");
+    }
+
+    @Test
+    void rejectsNonCanonicalSignature() {
+        String token = token(ISSUED_HEADER, payload(60));
+        char last = token.charAt(token.length() - 1);
+        // Même décodage, bits de remplissage non nuls
+        char variant = (char) (last + 1);
+
+        assertRejected(token.substring(0, token.length() - 1) + variant, "bad_signature");
+        assertNotNull(verifier.verify(token));
+    }
+
+    @Test
+    void rejectsSignatureOfWrongLength() {
+        String token = token(ISSUED_HEADER, payload(60));
+
+        assertRejected(token.substring(0, token.length() - 1), "bad_signature");
+        assertRejected(token + "A", "bad_signature");
+        String body = token.substring(0, token.lastIndexOf('.') + 1);
+        assertRejected(body + encode(new byte[64]), "bad_signature");
+    }
+
+    @Test
+    void rejectsTamperedToken() {
+        String token = token(ISSUED_HEADER, payload(60));
+        String[] parts = token.split("\\.");
+
+        assertRejected(parts[0] + "." + encode(payload(3600)) + "." + parts[2], "bad_signature");
+    }
+
+    @Test
+    void rejectsSignedPayloadThatIsNotJson() {
+        assertRejected(token(ISSUED_HEADER, "pas du json"), "malformed");
+    }
+
+    private void assertRejected(String token, String failure) {
+        Map<String, Long> before = verifier.stats();
+        assertNull(verifier.verify(token));
+        Map<String, Long> after = verifier.stats();
+        for (Map.Entry<String, Long> entry : before.entrySet()) {
+            long expected = entry.getValue() + (entry.getKey().equals(failure) ? 1 : 0);
+            assertEquals(expected, after.get(entry.getKey()), entry.getKey());
+        }
+    }
+
+    private static String payload(long ttlSeconds) {
+        return payloadExpiringAt(System.currentTimeMillis() / 1000 + ttlSeconds);
+    }
+
+    private static String payloadExpiringAt(long exp) {
+        return "{\"sub\":\"alice\",\"userId\":7,\"exp\":" + exp + "}";
+    }
+
+    private static String token(String header, String payload) {
+        String body = header + "." + encode(payload);
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(KEY);
+            return body + "." + encode(mac.doFinal(body.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String encode(String json) {
+        return encode(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return ENCODER.encodeToString(bytes);
+    }
+}
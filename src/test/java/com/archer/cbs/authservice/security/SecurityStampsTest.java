@@ -0,0 +1,138 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.dao.SecurityStampDAO;
+import jakarta.transaction.Status;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SecurityStampsTest {
+
+    /**
+     * Incréments calculés en mémoire, sans base
+     */
+    private static final class CountingStampDAO extends SecurityStampDAO {
+        private final List<long[]> next = new ArrayList<>();
+
+        @Override
+        public List<long[]> bumpUsers(Collection<Long> userIds) {
+            return bump(userIds);
+        }
+
+        @Override
+        public List<long[]> bumpRoles(Collection<Long> roleIds) {
+            return bump(roleIds);
+        }
+
+        private List<long[]> bump(Collection<Long> ids) {
+            List<long[]> pairs = new ArrayList<>();
+            for (Long id : ids) {
+                long[] stamp = next.stream().filter(pair -> pair[0] == id).findFirst().orElse(null);
+                if (stamp == null) {
+                    stamp = new long[]{id, 0};
+                    next.add(stamp);
+                }
+                stamp[1]++;
+                pairs.add(new long[]{id, stamp[1]});
+            }
+            return pairs;
+        }
+    }
+
+    private final SecurityStamps stamps = new SecurityStamps();
+    private final FakeTransactions transactions = new FakeTransactions();
+
+    @BeforeEach
+    void inject() throws ReflectiveOperationException {
+        FakeTransactions.inject(stamps, "transactionRegistry", transactions);
+        FakeTransactions.inject(stamps, "securityStampDAO", new CountingStampDAO());
+    }
+
+    @Test
+    void stampsListUserThenRolePairs() {
+        stamps.apply(SecurityStamps.USER, 1, 3);
+        stamps.apply(SecurityStamps.ROLE, 10, 5);
+
+        long[] issued = stamps.stampsOf(stamps.generation(), 1, List.of(10L, 11L));
+        assertArrayEquals(new long[]{3, 10, 5, 11, 0}, issued);
+        assertTrue(stamps.isCurrent(1, issued));
+        assertFalse(stamps.isStale(1, asList(issued)));
+    }
+
+    @Test
+    void roleOrUserChangeMakesTokenStale() {
+        long[] issued = stamps.stampsOf(stamps.generation(), 1, List.of(10L));
+
+        stamps.apply(SecurityStamps.ROLE, 10, 1);
+        assertFalse(stamps.isCurrent(1, issued));
+        assertTrue(stamps.isStale(1, asList(issued)));
+
+        issued = stamps.stampsOf(stamps.generation(), 1, List.of(10L));
+        stamps.apply(SecurityStamps.USER, 1, 1);
+        assertTrue(stamps.isStale(1, asList(issued)));
+        assertEquals(2L, stamps.stats().get("staleTokens"));
+    }
+
+    @Test
+    void stampAppliedWhileLoadingRolesIsRefused() {
+        long generation = stamps.generation();
+        // Rôles lus ici, avant le changement ...
+        stamps.apply(SecurityStamps.ROLE, 10, 1);
+        // ... tampons lus après : le token ne doit pas passer pour à jour
+        long[] issued = stamps.stampsOf(generation, 1, List.of(10L));
+
+        assertNotEquals(generation, stamps.generation());
+        assertFalse(stamps.isCurrent(1, issued));
+    }
+
+    @Test
+    void olderStampNeverWins() {
+        stamps.apply(SecurityStamps.USER, 1, 5);
+        long generation = stamps.generation();
+        stamps.apply(SecurityStamps.USER, 1, 4);
+
+        assertEquals(generation, stamps.generation());
+        assertTrue(stamps.isCurrent(1, new long[]{5}));
+    }
+
+    @Test
+    void tokenWithoutStampsIsNeverStale() {
+        stamps.apply(SecurityStamps.USER, 1, 5);
+
+        assertFalse(stamps.isStale(1, null));
+        assertFalse(stamps.isStale(1, List.of()));
+    }
+
+    @Test
+    void changeAppliesOnlyAtCommit() {
+        long[] issued = stamps.stampsOf(stamps.generation(), 1, List.of(10L));
+
+        transactions.status = Status.STATUS_ACTIVE;
+        stamps.usersChanged(List.of(1L));
+        assertTrue(stamps.isCurrent(1, issued));
+        transactions.complete(Status.STATUS_COMMITTED);
+        assertFalse(stamps.isCurrent(1, issued));
+
+        issued = stamps.stampsOf(stamps.generation(), 1, List.of(10L));
+        transactions.status = Status.STATUS_ACTIVE;
+        stamps.rolesChanged(List.of(10L));
+        transactions.complete(Status.STATUS_ROLLEDBACK);
+        assertTrue(stamps.isCurrent(1, issued));
+    }
+
+    private static List<Long> asList(long[] values) {
+        List<Long> list = new ArrayList<>(values.length);
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
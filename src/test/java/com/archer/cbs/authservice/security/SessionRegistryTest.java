@@ -0,0 +1,138 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.dao.SessionDAO;
+import jakarta.transaction.Status;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionRegistryTest {
+
+    /**
+     * Filigranes écrits dans la transaction, sans base
+     */
+    private static final class RecordingSessionDAO extends SessionDAO {
+        final List<long[]> written = new ArrayList<>();
+
+        @Override
+        public int revokeAll(Long userId, long revokedBefore) {
+            written.add(new long[]{userId, revokedBefore});
+            return 0;
+        }
+    }
+
+    private final SessionRegistry registry = new SessionRegistry();
+    private final FakeTransactions transactions = new FakeTransactions();
+    private final RecordingSessionDAO sessionDAO = new RecordingSessionDAO();
+
+    @BeforeEach
+    void inject() throws ReflectiveOperationException {
+        FakeTransactions.inject(registry, "transactionRegistry", transactions);
+        FakeTransactions.inject(registry, "sessionDAO", sessionDAO);
+        FakeTransactions.inject(registry, "jwtService", new JwtService());
+    }
+
+    @Test
+    void revocationCoversSessionsStartedBeforeIt() {
+        registry.applyRevocation(1, 1000);
+
+        assertTrue(registry.isRevoked(1, 999));
+        assertFalse(registry.isRevoked(1, 1000));
+        assertFalse(registry.isRevoked(2, 0));
+    }
+
+    @Test
+    void olderWatermarkNeverWins() {
+        registry.applyRevocation(1, 2000);
+        registry.applyRevocation(1, 1000);
+
+        assertTrue(registry.isRevoked(1, 1500));
+    }
+
+    @Test
+    void revocationDropsOlderSessionsAndRefusesLateOnes() {
+        long now = System.currentTimeMillis();
+        registry.applySession(1, "old", now - 10, now + 60_000);
+        registry.applySession(1, "new", now + 10, now + 60_000);
+        registry.applyRevocation(1, now);
+        registry.applySession(1, "late", now - 5, now + 60_000);
+
+        List<SessionRegistry.Session> active = registry.activeSessions(1);
+        assertEquals(1, active.size());
+        assertEquals("new", active.get(0).getId());
+    }
+
+    @Test
+    void watermarkIsTakenAtCommit() throws InterruptedException {
+        transactions.status = Status.STATUS_ACTIVE;
+        registry.revokeAll(1L);
+        assertEquals(1, sessionDAO.written.size());
+        assertFalse(registry.isRevoked(1, 0));
+
+        // Connexion concurrente : compte lu avant la validation, après l'appel
+        long sessionStart = System.currentTimeMillis();
+        Thread.sleep(2);
+        transactions.complete(Status.STATUS_COMMITTED);
+
+        assertTrue(registry.isRevoked(1, sessionStart));
+        List<long[]> pending = new ArrayList<>();
+        assertEquals(1, registry.drainRevocations(pending, 10));
+        assertEquals(1, pending.get(0)[0]);
+        assertTrue(pending.get(0)[1] > sessionStart);
+    }
+
+    @Test
+    void rolledBackRevocationIsNotApplied() {
+        transactions.status = Status.STATUS_ACTIVE;
+        registry.revokeAll(1L);
+        transactions.complete(Status.STATUS_ROLLEDBACK);
+
+        assertFalse(registry.isRevoked(1, 0));
+        assertEquals(0, registry.drainRevocations(new ArrayList<>(), 10));
+    }
+
+    @Test
+    void requeuedRevocationsAreDrainedAgain() {
+        transactions.status = Status.STATUS_ACTIVE;
+        registry.revokeAll(1L);
+        registry.revokeAll(2L);
+        transactions.complete(Status.STATUS_COMMITTED);
+
+        List<long[]> batch = new ArrayList<>();
+        assertEquals(1, registry.drainRevocations(batch, 1));
+        registry.requeueRevocations(batch);
+        List<long[]> all = new ArrayList<>();
+        assertEquals(2, registry.drainRevocations(all, 10));
+        assertArrayEquals(new long[]{2, 1}, new long[]{all.get(0)[0], all.get(1)[0]});
+    }
+
+    @Test
+    void revocationIsNeverLostToConcurrentPrune() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread pruner = new Thread(() -> {
+            while (running.get()) {
+                registry.prune();
+            }
+        });
+        pruner.start();
+        try {
+            for (long userId = 0; userId < 20_000; userId++) {
+                // Filigrane ancien : entrée inutile, que prune() peut retirer à tout moment
+                registry.applyRevocation(userId, 1);
+                long watermark = System.currentTimeMillis();
+                registry.applyRevocation(userId, watermark);
+                assertTrue(registry.isRevoked(userId, watermark - 1), "utilisateur " + userId);
+            }
+        } finally {
+            running.set(false);
+            pruner.join();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.archer.cbs.authservice.security;
+
+import com.archer.cbs.authservice.config.JacksonConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenIntrospectorTest {
+
+    private static final long USER_ID = 7;
+
+    private final JwtService jwtService = new JwtService();
+    private final SessionRegistry sessionRegistry = new SessionRegistry();
+    private final SecurityStamps securityStamps = new SecurityStamps();
+    private final TokenIntrospector introspector = new TokenIntrospector();
+
+    private long sessionStart;
+
+    @BeforeEach
+    void inject() throws ReflectiveOperationException {
+        jwtService.init();
+        FakeTransactions.inject(introspector, "jwtService", jwtService);
+        FakeTransactions.inject(introspector, "sessionRegistry", sessionRegistry);
+        FakeTransactions.inject(introspector, "securityStamps", securityStamps);
+        sessionStart = System.currentTimeMillis();
+    }
+
+    @Test
+    void describesAccessTokenAndCachesTheAnswer() throws IOException {
+        String token = accessToken(new long[]{0, 3, 0});
+
+        byte[] first = introspector.introspect(token);
+        JsonNode answer = JacksonConfig.MAPPER.readTree(first);
+        assertTrue(answer.get("active").asBoolean());
+        assertEquals("access_token", answer.get("token_type").asText());
+        assertEquals(USER_ID, answer.get("user_id").asLong());
+        assertEquals("alice", answer.get("sub").asText());
+        assertEquals("users:read users:write", answer.get("scope").asText());
+        assertEquals("session-1", answer.get("sid").asText());
+
+        assertSame(first, introspector.introspect(token));
+        assertEquals(1L, introspector.stats().get("hits"));
+        assertEquals(1L, introspector.stats().get("misses"));
+    }
+
+    @Test
+    void describesRefreshTokenWithoutScope() throws IOException {
+        String token = jwtService.generateRefreshToken(USER_ID, "alice", "session-1", sessionStart);
+
+        JsonNode answer = JacksonConfig.MAPPER.readTree(introspector.introspect(token));
+        assertTrue(answer.get("active").asBoolean());
+        assertEquals("refresh_token", answer.get("token_type").asText());
+        assertFalse(answer.has("scope"));
+    }
+
+    @Test
+    void refusesInvalidTokens() throws IOException {
+        String token = accessToken(new long[]{0});
+        char[] tampered = token.toCharArray();
+        int signature = token.lastIndexOf('.') + 1;
+        tampered[signature] = tampered[signature] == 'A' ? 'B' : 'A';
+
+        for (String invalid : Arrays.asList(null, "", "pas.un.jwt", new String(tampered))) {
+            assertFalse(JacksonConfig.MAPPER.readTree(introspector.introspect(invalid)).get("active").asBoolean());
+        }
+        assertEquals(4L, introspector.stats().get("inactive"));
+    }
+
+    @Test
+    void cachedAnswerHonoursLaterRevocation() throws IOException {
+        String token = accessToken(new long[]{0});
+        assertTrue(active(token));
+
+        sessionRegistry.applyRevocation(USER_ID, sessionStart + 1);
+        assertFalse(active(token));
+        assertFalse(active(token));
+    }
+
+    @Test
+    void cachedAnswerHonoursLaterStampChange() throws IOException {
+        String token = accessToken(new long[]{0, 3, 0});
+        assertTrue(active(token));
+
+        securityStamps.apply(SecurityStamps.ROLE, 3, 1);
+        assertFalse(active(token));
+    }
+
+    @Test
+    void answersBatchInOrder() throws IOException {
+        String token = accessToken(new long[]{0});
+
+        JsonNode results = JacksonConfig.MAPPER.readTree(introspector.introspectAll(List.of("x", token, "")))
+                .get("results");
+        assertEquals(3, results.size());
+        assertFalse(results.get(0).get("active").asBoolean());
+        assertTrue(results.get(1).get("active").asBoolean());
+        assertFalse(results.get(2).get("active").asBoolean());
+    }
+
+    private boolean active(String token) throws IOException {
+        return JacksonConfig.MAPPER.readTree(introspector.introspect(token)).get("active").asBoolean();
+    }
+
+    private String accessToken(long[] stamps) {
+        return jwtService.generateToken(USER_ID, "alice", List.of("ADMIN"), List.of("users:read", "users:write"),
+                "session-1", sessionStart, stamps);
+    }
+}
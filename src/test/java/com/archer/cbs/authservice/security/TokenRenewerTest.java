@@ -0,0 +1,132 @@
+package com.archer.cbs.authservice.security;
+
+import io.jsonwebtoken.Claims;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenRenewerTest {
+
+    private static final long USER_ID = 7;
+
+    private final JwtService jwtService = new JwtService();
+    private final SessionRegistry sessionRegistry = new SessionRegistry();
+    private final SecurityStamps securityStamps = new SecurityStamps();
+
+    private long sessionStart;
+
+    @BeforeEach
+    void init() {
+        jwtService.init();
+        sessionStart = System.currentTimeMillis() - 1000;
+    }
+
+    @Test
+    void renewsFromTemplateWithoutDatabase() throws ReflectiveOperationException {
+        TokenRenewer renewer = renewer();
+        renewer.remember(USER_ID, "alice", List.of("ADMIN"), List.of("users:read"), new long[]{0, 3, 0});
+        String refreshToken = refreshToken();
+
+        TokenRenewer.Renewal renewal = renewer.renew(refreshToken);
+        assertNotNull(renewal);
+        assertEquals(USER_ID, renewal.getUserId());
+        assertEquals("alice", renewal.getUsername());
+
+        Claims claims = jwtService.verify(renewal.getAccessToken());
+        assertNotNull(claims);
+        assertEquals(USER_ID, claims.get("userId", Long.class));
+        assertEquals("alice", claims.getSubject());
+        assertEquals(List.of("ADMIN"), claims.get("roles"));
+        assertEquals("session-1", claims.get(JwtService.SESSION_ID));
+        // Début de la session repris du refresh token
+        assertEquals(sessionStart, JwtService.issuedAtMillis(claims));
+        // Identifiant aléatoire (version 4, variante RFC 4122)
+        UUID jti = UUID.fromString(claims.getId());
+        assertEquals(4, jti.version());
+        assertEquals(2, jti.variant());
+        Claims refresh = jwtService.verify(refreshToken);
+        assertFalse(claims.getExpiration().after(refresh.getExpiration()));
+        assertEquals(1L, renewer.stats().get("renewed"));
+    }
+
+    @Test
+    void fallsBackWithoutTemplateOrWithStaleStamps() throws ReflectiveOperationException {
+        TokenRenewer renewer = renewer();
+        String refreshToken = refreshToken();
+        assertNull(renewer.renew(refreshToken));
+
+        renewer.remember(USER_ID, "alice", List.of("ADMIN"), List.of(), new long[]{0, 3, 0});
+        securityStamps.apply(SecurityStamps.ROLE, 3, 1);
+        assertNull(renewer.renew(refreshToken));
+        assertEquals(2L, renewer.stats().get("fallbacks"));
+    }
+
+    @Test
+    void refusesRevokedSessionAndAccessTokens() throws ReflectiveOperationException {
+        TokenRenewer renewer = renewer();
+        renewer.remember(USER_ID, "alice", List.of("ADMIN"), List.of(), new long[]{0});
+
+        String accessToken = jwtService.generateToken(USER_ID, "alice", List.of("ADMIN"), List.of(),
+                "session-1", sessionStart, new long[]{0});
+        assertNull(renewer.renew(accessToken));
+        assertNull(renewer.renew("pas.un.jwt"));
+
+        String refreshToken = refreshToken();
+        sessionRegistry.applyRevocation(USER_ID, sessionStart + 1);
+        assertNull(renewer.renew(refreshToken));
+    }
+
+    @Test
+    void evictsTemplatesWhileOthersAreRemembered() throws Exception {
+        System.setProperty("auth.jwt.template-cache-size", "16");
+        TokenRenewer renewer;
+        try {
+            renewer = renewer();
+        } finally {
+            System.clearProperty("auth.jwt.template-cache-size");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] writers = new Future<?>[4];
+            for (int w = 0; w < writers.length; w++) {
+                long first = w * 10_000L;
+                writers[w] = executor.submit(() -> {
+                    for (long userId = first; userId < first + 2_000; userId++) {
+                        renewer.remember(userId, "user" + userId, List.of("USER"), List.of(), new long[]{0});
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue((Integer) renewer.stats().get("templates") <= 16 + 4);
+    }
+
+    private TokenRenewer renewer() throws ReflectiveOperationException {
+        TokenRenewer renewer = new TokenRenewer();
+        FakeTransactions.inject(renewer, "jwtService", jwtService);
+        FakeTransactions.inject(renewer, "sessionRegistry", sessionRegistry);
+        FakeTransactions.inject(renewer, "securityStamps", securityStamps);
+        return renewer;
+    }
+
+    private String refreshToken() {
+        return jwtService.generateRefreshToken(USER_ID, "alice", "session-1", sessionStart);
+    }
+}
@@ -0,0 +1,198 @@
+package com.archer.cbs.authservice.service;
+
+import com.archer.cbs.authservice.concurrent.BlockingDispatcher;
+import com.archer.cbs.authservice.entity.User;
+import com.archer.cbs.authservice.security.JwtService;
+import com.archer.cbs.authservice.security.SecurityStamps;
+import com.archer.cbs.authservice.security.SessionRegistry;
+import com.archer.cbs.authservice.security.TokenRenewer;
+import com.archer.cbs.authservice.service.UserService.AuthSnapshot;
+import com.archer.cbs.authservice.service.UserService.AuthenticationResult;
+import io.jsonwebtoken.Claims;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginPipelineTest {
+
+    private static final List<String> PROPERTIES = List.of("auth.login.signing-threads", "auth.login.signing-queue");
+
+    private final JwtService jwtService = new JwtService();
+    private final SessionRegistry sessionRegistry = new SessionRegistry();
+    private final TokenRenewer tokenRenewer = new TokenRenewer();
+    private final BlockingDispatcher dispatcher = new BlockingDispatcher();
+
+    // Instantané renvoyé par le faux service, null pour un compte absent ou inactif
+    private volatile AuthSnapshot snapshot;
+
+    private LoginPipeline pipeline;
+
+    @BeforeEach
+    void init() throws ReflectiveOperationException {
+        jwtService.init();
+        dispatcher.init();
+        inject(sessionRegistry, "jwtService", jwtService);
+        inject(tokenRenewer, "jwtService", jwtService);
+        inject(tokenRenewer, "sessionRegistry", sessionRegistry);
+        inject(tokenRenewer, "securityStamps", new SecurityStamps());
+        snapshot = snapshot(password("secret"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+        PROPERTIES.forEach(System::clearProperty);
+    }
+
+    @Test
+    void issuesTokensForOneNewSession() throws ReflectiveOperationException {
+        pipeline = pipeline(2, 16);
+
+        AuthenticationResult result = pipeline.login("alice", "secret").toCompletableFuture().join();
+
+        assertNotNull(result);
+        assertEquals("alice", result.getUser().getUsername());
+        Claims access = jwtService.verify(result.getAccessToken());
+        Claims refresh = jwtService.verify(result.getRefreshToken());
+        assertEquals(List.of("ADMIN"), access.get("roles"));
+        assertNotNull(access.get(JwtService.SESSION_ID));
+        assertEquals(access.get(JwtService.SESSION_ID), refresh.get(JwtService.SESSION_ID));
+        assertEquals(snapshot.getSessionStart(), JwtService.issuedAtMillis(access));
+        assertEquals(snapshot.getSessionStart(), JwtService.issuedAtMillis(refresh));
+        assertEquals(1L, sessionRegistry.stats().get("opened"));
+        // Modèle retenu avec l'access token : renouvellement sans base possible
+        assertNotNull(tokenRenewer.renew(result.getRefreshToken()));
+    }
+
+    @Test
+    void refusesWrongPasswordAndUnknownUser() throws ReflectiveOperationException {
+        pipeline = pipeline(2, 16);
+
+        assertNull(pipeline.login("alice", "Secret").toCompletableFuture().join());
+        snapshot = null;
+        assertNull(pipeline.login("bob", "secret").toCompletableFuture().join());
+        assertEquals(0L, sessionRegistry.stats().get("opened"));
+    }
+
+    @Test
+    void failsFastWhenSigningPoolIsFull() throws Exception {
+        pipeline = pipeline(1, 1);
+        CountDownLatch comparing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AuthSnapshot plain = snapshot;
+        snapshot = new AuthSnapshot(plain.getUser(), plain.getRoles(), plain.getPermissions(), plain.getStamps(),
+                plain.getSessionStart()) {
+            @Override
+            public boolean passwordMatches(String password) {
+                comparing.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.passwordMatches(password);
+            }
+        };
+
+        // Le seul thread est occupé, la seule place en file prise : la troisième échoue
+        CompletableFuture<AuthenticationResult> first = pipeline.login("alice", "secret").toCompletableFuture();
+        assertTrue(comparing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<AuthenticationResult> second = pipeline.login("alice", "secret").toCompletableFuture();
+        CompletableFuture<AuthenticationResult> third = pipeline.login("alice", "secret").toCompletableFuture();
+
+        CompletionException e = assertThrows(CompletionException.class, third::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+        assertTrue(BlockingDispatcher.isSaturation(e));
+        assertEquals(1L, pipeline.stats().get("rejected"));
+
+        // Les deux premières se disputent ensuite la file pour leurs signatures : issue
+        // quelconque, mais aucune ne reste bloquée
+        release.countDown();
+        CompletableFuture.allOf(first, second).handle((result, failure) -> null).get(5, TimeUnit.SECONDS);
+    }
+
+    private LoginPipeline pipeline(int threads, int queue) throws ReflectiveOperationException {
+        System.setProperty("auth.login.signing-threads", String.valueOf(threads));
+        System.setProperty("auth.login.signing-queue", String.valueOf(queue));
+
+        UserService userService = new UserService() {
+            @Override
+            public AuthSnapshot loadAuthSnapshot(String username) {
+                return snapshot;
+            }
+        };
+        inject(userService, UserService.class, "jwtService", jwtService);
+        inject(userService, UserService.class, "tokenRenewer", tokenRenewer);
+
+        LoginPipeline pipeline = new LoginPipeline();
+        inject(pipeline, "userService", userService);
+        inject(pipeline, "jwtService", jwtService);
+        inject(pipeline, "dispatcher", dispatcher);
+        inject(pipeline, "sessionRegistry", sessionRegistry);
+        inject(pipeline, "managedThreadFactory", Proxy.newProxyInstance(ManagedThreadFactory.class.getClassLoader(),
+                new Class<?>[]{ManagedThreadFactory.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("newThread")) {
+                        Thread thread = new Thread((Runnable) args[0]);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+        pipeline.init();
+        return pipeline;
+    }
+
+    private static AuthSnapshot snapshot(String passwordHash) {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("alice");
+        user.setPassword(passwordHash);
+        user.setActive(true);
+        return new AuthSnapshot(user, List.of("ADMIN"), List.of("users:read"), new long[]{0, 0},
+                System.currentTimeMillis() - 1000);
+    }
+
+    /**
+     * Même hash que UserService
+     */
+    private static String password(String password) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        inject(target, target.getClass(), name, value);
+    }
+
+    private static void inject(Object target, Class<?> type, String name, Object value)
+            throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
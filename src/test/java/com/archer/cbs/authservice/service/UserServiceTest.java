@@ -0,0 +1,237 @@
+package com.archer.cbs.authservice.service;
+
+import com.archer.cbs.authservice.audit.AuditEvent;
+import com.archer.cbs.authservice.audit.AuditLog;
+import com.archer.cbs.authservice.dao.RoleDAO;
+import com.archer.cbs.authservice.dao.UserDAO;
+import com.archer.cbs.authservice.dto.BulkRoleResultDTO;
+import com.archer.cbs.authservice.event.EntityChangedEvent;
+import com.archer.cbs.authservice.security.SecurityStamps;
+import jakarta.enterprise.event.Event;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserServiceTest {
+
+    private static final String SPOOL_DIR = "auth.audit.spool-dir";
+
+    // Utilisateurs 1 et 2, rôles 10 et 20 ; l'utilisateur 2 a déjà le rôle 10
+    private final FakeUserDAO userDAO = new FakeUserDAO(Set.of(1L, 2L), Set.of(List.of(2L, 10L)));
+    private final FakeRoleDAO roleDAO = new FakeRoleDAO(Set.of(10L, 20L));
+    private final FakeSecurityStamps securityStamps = new FakeSecurityStamps();
+    private final List<EntityChangedEvent> fired = new ArrayList<>();
+
+    private RecordingAuditLog auditLog;
+    private UserService service;
+
+    @TempDir
+    Path spool;
+
+    @BeforeEach
+    void init() throws ReflectiveOperationException {
+        System.setProperty(SPOOL_DIR, spool.toString());
+        auditLog = new RecordingAuditLog();
+        service = new UserService();
+        inject(service, "userDAO", userDAO);
+        inject(service, "roleDAO", roleDAO);
+        inject(service, "securityStamps", securityStamps);
+        inject(service, "auditLog", auditLog);
+        inject(service, "changes", Proxy.newProxyInstance(Event.class.getClassLoader(), new Class<?>[]{Event.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("fire")) {
+                        fired.add((EntityChangedEvent) args[0]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                }));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        auditLog.shutdown();
+        System.clearProperty(SPOOL_DIR);
+    }
+
+    @Test
+    void addReportsEveryPairOnce() {
+        BulkRoleResultDTO result = service.addRolesToUsers(List.of(1L, 2L, 3L, 1L), List.of(10L, 20L, 99L, 20L));
+
+        assertEquals(List.of(
+                "1/10 ADDED", "1/20 ADDED", "1/99 ROLE_NOT_FOUND",
+                "2/10 ALREADY_ASSIGNED", "2/20 ADDED", "2/99 ROLE_NOT_FOUND",
+                "3/10 USER_NOT_FOUND", "3/20 USER_NOT_FOUND", "3/99 USER_NOT_FOUND"), describe(result));
+        assertEquals(3, result.getChanged());
+        assertEquals(2, result.getAffectedUsers());
+        // Seuls les identifiants existants, sans doublon, parviennent à l'instruction
+        assertEquals(Set.of(1L, 2L), userDAO.lastUsers);
+        assertEquals(Set.of(10L, 20L), userDAO.lastRoles);
+    }
+
+    @Test
+    void removeReportsRemovedAndNotAssigned() {
+        BulkRoleResultDTO result = service.removeRolesFromUsers(List.of(2L, 1L, 4L), List.of(10L, 30L));
+
+        assertEquals(List.of(
+                "2/10 REMOVED", "2/30 ROLE_NOT_FOUND",
+                "1/10 NOT_ASSIGNED", "1/30 ROLE_NOT_FOUND",
+                "4/10 USER_NOT_FOUND", "4/30 USER_NOT_FOUND"), describe(result));
+        assertEquals(1, result.getChanged());
+        assertEquals(1, result.getAffectedUsers());
+        assertEquals(List.of(2L), securityStamps.changed);
+        assertEquals(List.of("ROLE_REVOKED 2 roleIds=[10]"), auditLog.records);
+    }
+
+    @Test
+    void oneEventPerChangedUser() {
+        service.addRolesToUsers(List.of(2L, 1L), List.of(20L, 10L));
+
+        // Par identifiant croissant, quel que soit le nombre de rôles
+        List<Long> users = new ArrayList<>();
+        for (EntityChangedEvent event : fired) {
+            assertEquals(EntityChangedEvent.EntityType.USER, event.getEntityType());
+            users.add(event.getEntityId());
+        }
+        assertEquals(List.of(1L, 2L), users);
+        assertEquals(List.of(1L, 2L), securityStamps.changed);
+        assertEquals(List.of("ROLE_ASSIGNED 1 roleIds=[10, 20]", "ROLE_ASSIGNED 2 roleIds=[20]"), auditLog.records);
+    }
+
+    @Test
+    void nothingChangedWithoutExistingRoles() {
+        BulkRoleResultDTO result = service.addRolesToUsers(List.of(1L), List.of(98L, 99L));
+
+        assertEquals(List.of("1/98 ROLE_NOT_FOUND", "1/99 ROLE_NOT_FOUND"), describe(result));
+        assertEquals(0, userDAO.calls);
+        assertTrue(fired.isEmpty());
+        assertTrue(securityStamps.changed.isEmpty());
+        assertTrue(auditLog.records.isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidLists() {
+        assertThrows(IllegalArgumentException.class, () -> service.addRolesToUsers(List.of(), List.of(10L)));
+        assertThrows(IllegalArgumentException.class, () -> service.addRolesToUsers(List.of(1L), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.removeRolesFromUsers(Arrays.asList(1L, null), List.of(10L)));
+
+        List<Long> users = new ArrayList<>();
+        List<Long> roles = new ArrayList<>();
+        for (long i = 0; i < 101; i++) {
+            users.add(i);
+            roles.add(i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> service.addRolesToUsers(users, roles));
+        assertEquals(0, userDAO.calls);
+    }
+
+    private static List<String> describe(BulkRoleResultDTO result) {
+        List<String> items = new ArrayList<>();
+        for (BulkRoleResultDTO.Item item : result.getItems()) {
+            items.add(item.getUserId() + "/" + item.getRoleId() + " " + item.getStatus());
+        }
+        return items;
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    /**
+     * Table user_roles en mémoire
+     */
+    private static final class FakeUserDAO extends UserDAO {
+        private final Set<Long> users;
+        private final Set<List<Long>> assignments;
+        Set<Long> lastUsers;
+        Set<Long> lastRoles;
+        int calls;
+
+        FakeUserDAO(Set<Long> users, Set<List<Long>> assignments) {
+            this.users = users;
+            this.assignments = new HashSet<>(assignments);
+        }
+
+        @Override
+        public Set<Long> findExistingIds(Collection<Long> ids) {
+            Set<Long> existing = new HashSet<>(ids);
+            existing.retainAll(users);
+            return existing;
+        }
+
+        @Override
+        public List<long[]> insertUserRoles(Collection<Long> userIds, Collection<Long> roleIds) {
+            return apply(userIds, roleIds, true);
+        }
+
+        @Override
+        public List<long[]> deleteUserRoles(Collection<Long> userIds, Collection<Long> roleIds) {
+            return apply(userIds, roleIds, false);
+        }
+
+        private List<long[]> apply(Collection<Long> userIds, Collection<Long> roleIds, boolean add) {
+            calls++;
+            lastUsers = new HashSet<>(userIds);
+            lastRoles = new HashSet<>(roleIds);
+            List<long[]> changed = new ArrayList<>();
+            for (Long userId : userIds) {
+                for (Long roleId : roleIds) {
+                    List<Long> pair = List.of(userId, roleId);
+                    if (add ? assignments.add(pair) : assignments.remove(pair)) {
+                        changed.add(new long[]{userId, roleId});
+                    }
+                }
+            }
+            return changed;
+        }
+    }
+
+    private static final class FakeRoleDAO extends RoleDAO {
+        private final Set<Long> roles;
+
+        FakeRoleDAO(Set<Long> roles) {
+            this.roles = roles;
+        }
+
+        @Override
+        public Set<Long> findExistingIds(Collection<Long> ids) {
+            Set<Long> existing = new HashSet<>(ids);
+            existing.retainAll(roles);
+            return existing;
+        }
+    }
+
+    private static final class FakeSecurityStamps extends SecurityStamps {
+        final List<Long> changed = new ArrayList<>();
+
+        @Override
+        public void usersChanged(Collection<Long> userIds) {
+            changed.addAll(userIds);
+        }
+    }
+
+    private static final class RecordingAuditLog extends AuditLog {
+        final List<String> records = new ArrayList<>();
+
+        @Override
+        public void record(AuditEvent.Type type, Long subjectId, String username, String detail) {
+            records.add(type + " " + subjectId + " " + detail);
+        }
+    }
+}